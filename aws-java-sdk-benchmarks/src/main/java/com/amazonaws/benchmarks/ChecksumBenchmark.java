@@ -0,0 +1,115 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.amazonaws.http.HttpResponse;
+import com.amazonaws.http.JsonResponseHandler;
+import com.amazonaws.internal.CRC32MismatchException;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.amazonaws.services.dynamodbv2.model.transform.QueryResultJsonUnmarshaller;
+import com.amazonaws.util.StringUtils;
+
+/**
+ * Measures the cost of verifying the x-amz-crc32 checksum of a 1 MB DynamoDB
+ * query response, against unmarshalling the same response without one, and
+ * how soon a corrupted response is rejected.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChecksumBenchmark {
+
+    private static final int RESPONSE_SIZE = 1024 * 1024;
+
+    private byte[] queryResponse;
+    private byte[] corruptedQueryResponse;
+    private String checksum;
+
+    @Setup
+    public void setup() throws Exception {
+        // Repeats the items of the recorded response up to the size of a
+        // full query page
+        String recorded = new String(Responses.load("dynamodb-query.json"), StringUtils.UTF8);
+        int start = recorded.indexOf('[') + 1;
+        int end = recorded.indexOf("],\"ScannedCount\"");
+        String items = recorded.substring(start, end);
+
+        StringBuilder body = new StringBuilder(RESPONSE_SIZE + recorded.length());
+        body.append(recorded, 0, start).append(items);
+        while (body.length() + items.length() < RESPONSE_SIZE) {
+            body.append(',').append(items);
+        }
+        body.append(recorded, end, recorded.length());
+        queryResponse = body.toString().getBytes(StringUtils.UTF8);
+
+        CRC32 crc32 = new CRC32();
+        crc32.update(queryResponse);
+        checksum = String.valueOf(crc32.getValue());
+
+        // A flipped bit in a value, which still parses
+        corruptedQueryResponse = queryResponse.clone();
+        int value = body.indexOf("PENDING");
+        corruptedQueryResponse[value] ^= 0x02;
+    }
+
+    @Benchmark
+    public Object queryWithoutChecksum() throws Exception {
+        return unmarshall(queryResponse, null);
+    }
+
+    @Benchmark
+    public Object queryWithChecksum() throws Exception {
+        return unmarshall(queryResponse, checksum);
+    }
+
+    @Benchmark
+    public Object corruptedQuery() throws Exception {
+        try {
+            return unmarshall(corruptedQueryResponse, checksum);
+        } catch (CRC32MismatchException expected) {
+            return expected;
+        }
+    }
+
+    private static QueryResult unmarshall(byte[] body, String checksum) throws Exception {
+        HttpResponse response = new HttpResponse(null, null);
+        response.setStatusCode(200);
+        response.addHeader("x-amzn-RequestId", "a9b0ff4c-0000-0000-0000-000000000000");
+        if (checksum != null) {
+            response.addHeader("x-amz-crc32", checksum);
+        }
+        response.setContent(new ByteArrayInputStream(body));
+        return new JsonResponseHandler<QueryResult>(QueryResultJsonUnmarshaller.getInstance())
+                .handle(response).getResult();
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.amazonaws.AmazonWebServiceClient;
+import com.amazonaws.auth.AWSCredentials;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClient;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
+import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.ec2.AmazonEC2Client;
+import com.amazonaws.services.ec2.model.DescribeInstancesRequest;
+import com.amazonaws.services.kinesis.AmazonKinesisClient;
+import com.amazonaws.services.kinesis.model.GetRecordsRequest;
+import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.S3ClientOptions;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.sqs.AmazonSQSClient;
+import com.amazonaws.services.sqs.model.ReceiveMessageRequest;
+
+/**
+ * Measures complete client calls, through marshalling, signing,
+ * {@link com.amazonaws.http.AmazonHttpClient#execute}, the HTTP round trip
+ * and unmarshalling, against a {@link StubServer} replaying a recorded
+ * response. Run with more threads ({@code -t}) to measure contention in the
+ * shared client.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClientExecuteBenchmark {
+
+    private static final AWSCredentials CREDENTIALS = new BasicAWSCredentials(
+            "AKIDEXAMPLE", "wJalrXUtnFEMI/K7MDENG+bPxRfiCYEXAMPLEKEY");
+
+    @Param({"dynamodb-query", "kinesis-get-records", "ec2-describe-instances",
+            "sqs-receive-message", "s3-list-objects"})
+    public String call;
+
+    private StubServer server;
+    private AmazonWebServiceClient client;
+
+    @Setup
+    public void setup() throws Exception {
+        if (call.startsWith("dynamodb-")) {
+            server = StubServer.start(call + ".json", "application/x-amz-json-1.0");
+            client = new AmazonDynamoDBClient(CREDENTIALS);
+        } else if (call.startsWith("kinesis-")) {
+            server = StubServer.start(call + ".json", "application/x-amz-json-1.1");
+            client = new AmazonKinesisClient(CREDENTIALS);
+        } else if (call.startsWith("ec2-")) {
+            server = StubServer.start(call + ".xml", "text/xml;charset=UTF-8");
+            client = new AmazonEC2Client(CREDENTIALS);
+        } else if (call.startsWith("sqs-")) {
+            server = StubServer.start(call + ".xml", "text/xml");
+            client = new AmazonSQSClient(CREDENTIALS);
+        } else {
+            server = StubServer.start(call + ".xml", "application/xml");
+            AmazonS3Client s3 = new AmazonS3Client(CREDENTIALS);
+            s3.setS3ClientOptions(new S3ClientOptions().withPathStyleAccess(true));
+            client = s3;
+        }
+        client.setEndpoint(server.getEndpoint());
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.shutdown();
+        server.stop();
+    }
+
+    @Benchmark
+    public Object execute() {
+        if (client instanceof AmazonDynamoDBClient) {
+            return ((AmazonDynamoDBClient) client).query(new QueryRequest()
+                .withTableName("orders")
+                .addKeyConditionsEntry("customerId", new Condition()
+                    .withComparisonOperator(ComparisonOperator.EQ)
+                    .withAttributeValueList(new AttributeValue("customer-1"))));
+        } else if (client instanceof AmazonKinesisClient) {
+            return ((AmazonKinesisClient) client).getRecords(new GetRecordsRequest()
+                .withShardIterator("AAAAAAAAAAGKqpZr6Fp4jLcYgEXAMPLE")
+                .withLimit(100));
+        } else if (client instanceof AmazonEC2Client) {
+            return ((AmazonEC2Client) client).describeInstances(new DescribeInstancesRequest());
+        } else if (client instanceof AmazonSQSClient) {
+            return ((AmazonSQSClient) client).receiveMessage(new ReceiveMessageRequest(
+                    server.getEndpoint() + "/123456789012/orders")
+                .withMaxNumberOfMessages(10)
+                .withAttributeNames("All")
+                .withMessageAttributeNames("All"));
+        } else {
+            return ((AmazonS3Client) client).listObjects(new ListObjectsRequest()
+                .withBucketName("benchmark-bucket"));
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClient;
+import com.amazonaws.services.dynamodbv2.datamodeling.ConversionSchema;
+import com.amazonaws.services.dynamodbv2.datamodeling.ConversionSchemas;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.ItemConverter;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+
+/**
+ * Measures converting between {@link Order} objects and DynamoDB items with
+ * {@link DynamoDBMapper}, both on its own and through load and save calls
+ * answered by a {@link StubServer}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DynamoDBMapperBenchmark {
+
+    private StubServer getItemServer;
+    private StubServer updateItemServer;
+    private DynamoDBMapper loadMapper;
+    private DynamoDBMapper saveMapper;
+    private ItemConverter converter;
+    private Map<String, AttributeValue> item;
+    private List<Map<String, AttributeValue>> page;
+    private Order order;
+
+    @Setup
+    public void setup() throws Exception {
+        getItemServer = StubServer.start("dynamodb-get-item.json", "application/x-amz-json-1.0");
+        updateItemServer = StubServer.start("dynamodb-update-item.json", "application/x-amz-json-1.0");
+        loadMapper = new DynamoDBMapper(client(getItemServer));
+        saveMapper = new DynamoDBMapper(client(updateItemServer));
+        converter = ConversionSchemas.V2_COMPATIBLE.getConverter(
+                new ConversionSchema.Dependencies());
+        item = Fixtures.item(1);
+        // A 1 MB query page holds about 400 of these items
+        page = new ArrayList<Map<String, AttributeValue>>();
+        for (int i = 0; i < 400; i++) {
+            page.add(Fixtures.item(i));
+        }
+        order = Fixtures.order(1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        getItemServer.stop();
+        updateItemServer.stop();
+    }
+
+    @Benchmark
+    public Object marshallIntoObject() {
+        return loadMapper.marshallIntoObject(Order.class, item);
+    }
+
+    @Benchmark
+    public Object marshallIntoObjects() {
+        return loadMapper.marshallIntoObjects(Order.class, page);
+    }
+
+    @Benchmark
+    public Object convertObject() {
+        return converter.convert(order);
+    }
+
+    @Benchmark
+    public Object load() {
+        return loadMapper.load(Order.class, "customer-1", "order-00000001");
+    }
+
+    @Benchmark
+    public Object save() {
+        saveMapper.save(order);
+        return order;
+    }
+
+    private static AmazonDynamoDBClient client(StubServer server) {
+        AmazonDynamoDBClient client = new AmazonDynamoDBClient(
+                new BasicAWSCredentials("AKIDEXAMPLE", "wJalrXUtnFEMI/K7MDENG+bPxRfiCYEXAMPLEKEY"));
+        client.setEndpoint(server.getEndpoint());
+        return client;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.kinesis.model.PutRecordsRequest;
+import com.amazonaws.services.kinesis.model.PutRecordsRequestEntry;
+import com.amazonaws.util.StringUtils;
+
+/**
+ * Builds the request objects the benchmarks marshall and send. They mirror
+ * the recorded responses in size and shape.
+ */
+final class Fixtures {
+
+    private Fixtures() {}
+
+    static Order order(int i) {
+        Order order = new Order();
+        order.setCustomerId("customer-" + (i % 50));
+        order.setOrderId("order-" + i);
+        order.setCreatedAt(new Date(1428000000000L + i * 1000L));
+        order.setStatus("PENDING");
+        order.setTotal(Double.valueOf(123.45));
+        order.setItemCount(Integer.valueOf(3));
+        order.setShipped(Boolean.FALSE);
+        order.setShippingAddress((100 + i) + " Main Street, Seattle, WA 98101");
+        order.setNotes("Leave the package at the front desk. Call on arrival if nobody answers.");
+        order.setTags(new HashSet<String>(Arrays.asList("gift", "priority", "region-" + (i % 5))));
+        order.setQuantities(new HashSet<Integer>(Arrays.asList(1, 2, 5, 9)));
+        return order;
+    }
+
+    static PutItemRequest putItemRequest(int i) {
+        Order order = order(i);
+        return new PutItemRequest()
+            .withTableName("orders")
+            .addItemEntry("customerId", new AttributeValue(order.getCustomerId()))
+            .addItemEntry("orderId", new AttributeValue(order.getOrderId()))
+            .addItemEntry("createdAt", new AttributeValue("2015-04-02T10:20:30.000Z"))
+            .addItemEntry("status", new AttributeValue(order.getStatus()))
+            .addItemEntry("total", new AttributeValue().withN(order.getTotal().toString()))
+            .addItemEntry("itemCount", new AttributeValue().withN(order.getItemCount().toString()))
+            .addItemEntry("shipped", new AttributeValue().withN("0"))
+            .addItemEntry("shippingAddress", new AttributeValue(order.getShippingAddress()))
+            .addItemEntry("notes", new AttributeValue(order.getNotes()))
+            .addItemEntry("tags", new AttributeValue().withSS(order.getTags()))
+            .addItemEntry("quantities", new AttributeValue().withNS("1", "2", "5", "9"));
+    }
+
+    static Map<String, AttributeValue> item(int i) {
+        return putItemRequest(i).getItem();
+    }
+
+    static PutRecordsRequest putRecordsRequest(int records) {
+        List<PutRecordsRequestEntry> entries = new ArrayList<PutRecordsRequestEntry>(records);
+        for (int i = 0; i < records; i++) {
+            String data = "{\"event\":\"page_view\",\"user\":\"u-" + (100000 + i)
+                + "\",\"url\":\"/products/" + (i * 31 % 5000) + "\",\"ts\":" + (1428000000000L + i * 37) + "}";
+            entries.add(new PutRecordsRequestEntry()
+                .withPartitionKey("pk-" + (i % 16))
+                .withData(ByteBuffer.wrap(data.getBytes(StringUtils.UTF8))));
+        }
+        return new PutRecordsRequest().withStreamName("page-views").withRecords(entries);
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.amazonaws.http.HttpResponse;
+import com.amazonaws.http.JsonResponseHandler;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.dynamodbv2.model.transform.PutItemRequestMarshaller;
+import com.amazonaws.services.dynamodbv2.model.transform.QueryResultJsonUnmarshaller;
+import com.amazonaws.services.kinesis.model.PutRecordsRequest;
+import com.amazonaws.services.kinesis.model.transform.GetRecordsResultJsonUnmarshaller;
+import com.amazonaws.services.kinesis.model.transform.PutRecordsRequestMarshaller;
+import com.amazonaws.transform.Unmarshaller;
+import com.amazonaws.transform.JsonUnmarshallerContext;
+
+/**
+ * Measures marshalling JSON requests and unmarshalling recorded JSON
+ * responses for DynamoDB and Kinesis, through the same marshallers and
+ * {@link JsonResponseHandler} the clients use.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+
+    private final PutItemRequestMarshaller putItemMarshaller = new PutItemRequestMarshaller();
+    private final PutRecordsRequestMarshaller putRecordsMarshaller = new PutRecordsRequestMarshaller();
+
+    private PutItemRequest putItemRequest;
+    private PutRecordsRequest putRecordsRequest;
+    private byte[] dynamoDBQueryResponse;
+    private byte[] kinesisGetRecordsResponse;
+
+    @Setup
+    public void setup() throws Exception {
+        putItemRequest = Fixtures.putItemRequest(1);
+        putRecordsRequest = Fixtures.putRecordsRequest(100);
+        dynamoDBQueryResponse = Responses.load("dynamodb-query.json");
+        kinesisGetRecordsResponse = Responses.load("kinesis-get-records.json");
+    }
+
+    @Benchmark
+    public Object dynamoDBPutItemMarshall() {
+        return putItemMarshaller.marshall(putItemRequest);
+    }
+
+    @Benchmark
+    public Object dynamoDBQueryUnmarshall() throws Exception {
+        return unmarshall(QueryResultJsonUnmarshaller.getInstance(), dynamoDBQueryResponse);
+    }
+
+    @Benchmark
+    public Object kinesisPutRecordsMarshall() {
+        return putRecordsMarshaller.marshall(putRecordsRequest);
+    }
+
+    @Benchmark
+    public Object kinesisGetRecordsUnmarshall() throws Exception {
+        return unmarshall(GetRecordsResultJsonUnmarshaller.getInstance(), kinesisGetRecordsResponse);
+    }
+
+    private static <T> T unmarshall(Unmarshaller<T, JsonUnmarshallerContext> unmarshaller,
+            byte[] body) throws Exception {
+        HttpResponse response = new HttpResponse(null, null);
+        response.setStatusCode(200);
+        response.addHeader("x-amzn-RequestId", "a9b0ff4c-0000-0000-0000-000000000000");
+        response.setContent(new ByteArrayInputStream(body));
+        return new JsonResponseHandler<T>(unmarshaller).handle(response).getResult();
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.amazonaws.util.IOUtils;
+
+/**
+ * Loads the recorded service responses that the benchmarks run against.
+ */
+final class Responses {
+
+    private Responses() {}
+
+    /**
+     * Returns the contents of the named recorded response.
+     *
+     * @param name
+     *            The file name of the response, relative to the responses
+     *            directory.
+     */
+    static byte[] load(String name) throws IOException {
+        InputStream in = Responses.class.getResourceAsStream("responses/" + name);
+        if (in == null) {
+            throw new IllegalArgumentException("No recorded response named " + name);
+        }
+        try {
+            return IOUtils.toByteArray(in);
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.amazonaws.services.s3.model.transform.XmlResponsesSaxParser;
+
+/**
+ * Measures parsing a recorded 1000 key ListObjects response with
+ * {@link XmlResponsesSaxParser}, including the sanitizing pass over the
+ * response body.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class S3ListingBenchmark {
+
+    private byte[] listObjectsResponse;
+
+    @Setup
+    public void setup() throws Exception {
+        listObjectsResponse = Responses.load("s3-list-objects.xml");
+    }
+
+    @Benchmark
+    public Object parseListBucketObjectsResponse() throws Exception {
+        return new XmlResponsesSaxParser()
+            .parseListBucketObjectsResponse(new ByteArrayInputStream(listObjectsResponse))
+            .getObjectListing();
+    }
+}
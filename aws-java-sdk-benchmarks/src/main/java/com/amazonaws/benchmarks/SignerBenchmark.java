@@ -0,0 +1,102 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.benchmarks;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.amazonaws.Request;
+import com.amazonaws.auth.AWS4Signer;
+import com.amazonaws.auth.AWSCredentials;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.transform.GetItemRequestMarshaller;
+import com.amazonaws.services.dynamodbv2.model.transform.PutItemRequestMarshaller;
+import com.amazonaws.services.kinesis.model.transform.PutRecordsRequestMarshaller;
+
+/**
+ * Measures {@link AWS4Signer#sign} on marshalled requests of different
+ * sizes. Each thread signs its own request, the way concurrent callers of a
+ * shared client do.
+ * <p>
+ * {@link #signOnAllCores()} runs one thread per core, so comparing its
+ * throughput with {@link #sign()} shows how signing scales with cores, and
+ * exposes any contention on state shared between signers, such as the
+ * signing key cache.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SignerBenchmark {
+
+    private static final AWSCredentials CREDENTIALS = new BasicAWSCredentials(
+            "AKIDEXAMPLE", "wJalrXUtnFEMI/K7MDENG+bPxRfiCYEXAMPLEKEY");
+
+    @Param({"dynamodb-get-item", "dynamodb-put-item", "kinesis-put-records"})
+    public String request;
+
+    private Request<?> signable;
+    private AWS4Signer signer;
+
+    @Setup
+    public void setup() {
+        signer = new AWS4Signer();
+        signer.setRegionName("us-east-1");
+        if (request.equals("dynamodb-get-item")) {
+            signable = new GetItemRequestMarshaller().marshall(new GetItemRequest()
+                .withTableName("orders")
+                .addKeyEntry("customerId", Fixtures.item(1).get("customerId"))
+                .addKeyEntry("orderId", Fixtures.item(1).get("orderId")));
+            signable.setEndpoint(URI.create("https://dynamodb.us-east-1.amazonaws.com"));
+            signer.setServiceName("dynamodb");
+        } else if (request.equals("dynamodb-put-item")) {
+            signable = new PutItemRequestMarshaller().marshall(Fixtures.putItemRequest(1));
+            signable.setEndpoint(URI.create("https://dynamodb.us-east-1.amazonaws.com"));
+            signer.setServiceName("dynamodb");
+        } else {
+            signable = new PutRecordsRequestMarshaller().marshall(Fixtures.putRecordsRequest(100));
+            signable.setEndpoint(URI.create("https://kinesis.us-east-1.amazonaws.com"));
+            signer.setServiceName("kinesis");
+        }
+    }
+
+    @Benchmark
+    public Object sign() {
+        signer.sign(signable, CREDENTIALS);
+        return signable.getHeaders().get("Authorization");
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Object signOnAllCores() {
+        return sign();
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.amazonaws.ResponseMetadata;
+import com.amazonaws.services.ec2.model.transform.DescribeInstancesResultStaxUnmarshaller;
+import com.amazonaws.services.sqs.model.transform.ReceiveMessageResultStaxUnmarshaller;
+import com.amazonaws.transform.StaxUnmarshallerContext;
+import com.amazonaws.transform.Unmarshaller;
+
+/**
+ * Compares unmarshalling recorded service responses through an
+ * {@link XMLEventReader} backed {@link StaxUnmarshallerContext} with the
+ * {@link XMLStreamReader} (cursor) backed one used by
+ * {@link com.amazonaws.http.StaxResponseHandler}.
+ * <p>
+ * Run with the gc profiler ({@code -prof gc}) to compare the allocation rate
+ * as well as the throughput.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StaxUnmarshallerBenchmark {
+
+    private static final XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+
+    @Param({"ec2-describe-instances", "sqs-receive-message"})
+    public String response;
+
+    private byte[] body;
+    private Unmarshaller<?, StaxUnmarshallerContext> unmarshaller;
+
+    @Setup
+    public void setup() throws Exception {
+        body = Responses.load(response + ".xml");
+        if (response.startsWith("ec2-")) {
+            unmarshaller = new DescribeInstancesResultStaxUnmarshaller();
+        } else {
+            unmarshaller = new ReceiveMessageResultStaxUnmarshaller();
+        }
+    }
+
+    @Benchmark
+    public Object eventReader() throws Exception {
+        XMLEventReader eventReader =
+            xmlInputFactory.createXMLEventReader(new ByteArrayInputStream(body));
+        try {
+            return unmarshall(new StaxUnmarshallerContext(eventReader, null));
+        } finally {
+            eventReader.close();
+        }
+    }
+
+    @Benchmark
+    public Object streamReader() throws Exception {
+        XMLStreamReader streamReader =
+            xmlInputFactory.createXMLStreamReader(new ByteArrayInputStream(body));
+        try {
+            return unmarshall(new StaxUnmarshallerContext(streamReader, null));
+        } finally {
+            streamReader.close();
+        }
+    }
+
+    private Object unmarshall(StaxUnmarshallerContext context) throws Exception {
+        context.registerMetadataExpression("ResponseMetadata/RequestId", 2, ResponseMetadata.AWS_REQUEST_ID);
+        context.registerMetadataExpression("requestId", 2, ResponseMetadata.AWS_REQUEST_ID);
+        Object result = unmarshaller.unmarshall(context);
+        if (context.getMetadata().get(ResponseMetadata.AWS_REQUEST_ID) == null) {
+            throw new IllegalStateException("No request id unmarshalled from " + response);
+        }
+        return result;
+    }
+}
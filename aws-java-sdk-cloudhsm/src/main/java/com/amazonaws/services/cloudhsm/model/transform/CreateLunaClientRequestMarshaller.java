@@ -14,12 +14,10 @@
  */
 package com.amazonaws.services.cloudhsm.model.transform;
 
-import static com.amazonaws.util.StringUtils.UTF8;
 import static com.amazonaws.util.StringUtils.COMMA_SEPARATOR;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.OutputStreamWriter;
-import java.io.StringWriter;
 import java.io.Writer;
 import java.util.Collections;
 import java.util.HashMap;
@@ -35,7 +33,6 @@ import com.amazonaws.services.cloudhsm.model.*;
 import com.amazonaws.transform.Marshaller;
 import com.amazonaws.util.BinaryUtils;
 import com.amazonaws.util.StringUtils;
-import com.amazonaws.util.StringInputStream;
 import com.amazonaws.util.json.*;
 
 /**
@@ -56,8 +53,7 @@ public class CreateLunaClientRequestMarshaller implements Marshaller<Request<Cre
         request.setResourcePath("");
         
         try {
-          StringWriter stringWriter = new StringWriter();
-          JSONWriter jsonWriter = new JSONWriter(stringWriter);
+          StreamingJSONWriter jsonWriter = new StreamingJSONWriter();
 
           jsonWriter.object();
           
@@ -70,9 +66,8 @@ public class CreateLunaClientRequestMarshaller implements Marshaller<Request<Cre
 
           jsonWriter.endObject();
 
-          String snippet = stringWriter.toString();
-          byte[] content = snippet.getBytes(UTF8);
-          request.setContent(new StringInputStream(snippet));
+          byte[] content = jsonWriter.getBytes();
+          request.setContent(new ByteArrayInputStream(content));
           request.addHeader("Content-Length", Integer.toString(content.length));
           request.addHeader("Content-Type", "application/x-amz-json-1.1");
         } catch(Throwable t) {
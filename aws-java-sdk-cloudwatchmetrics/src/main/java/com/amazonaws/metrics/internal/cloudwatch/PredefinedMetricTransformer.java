@@ -72,6 +72,7 @@ public class PredefinedMetricTransformer {
                 case HttpClientPoolAvailableCount:
                 case HttpClientPoolLeasedCount:
                 case HttpClientPoolPendingCount:
+                case RetryCapacityExceeded:
                     return metricOfCount(predefined, request, response);
                 case RequestCount:  // intentionally fall thru to reuse the same routine as RetryCount
                 case RetryCount:
@@ -84,6 +85,7 @@ public class PredefinedMetricTransformer {
                 case HttpClientSendRequestTime:
                 case HttpClientReceiveResponseTime:
                 case HttpRequestTime:
+                case RateLimitDelayTime:
                     return latencyMetricOf(predefined, request, response, INCLUDE_REQUEST_TYPE);
                 case Exception:
                 case ThrottleException:
@@ -21,24 +21,32 @@ import java.net.URISyntaxException;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.http.concurrent.BasicFuture;
 
+import com.amazonaws.auth.AWSCredentials;
+import com.amazonaws.auth.AWSCredentialsProvider;
 import com.amazonaws.auth.RegionAwareSigner;
 import com.amazonaws.auth.Signer;
 import com.amazonaws.auth.SignerFactory;
+import com.amazonaws.handlers.AsyncHandler;
 import com.amazonaws.handlers.RequestHandler;
 import com.amazonaws.handlers.RequestHandler2;
 import com.amazonaws.http.AmazonHttpClient;
 import com.amazonaws.http.ExecutionContext;
 import com.amazonaws.http.HttpMethodName;
 import com.amazonaws.http.HttpRequest;
+import com.amazonaws.http.HttpResponseHandler;
+import com.amazonaws.http.ResponseCallback;
 import com.amazonaws.log.CommonsLogFactory;
 import com.amazonaws.metrics.AwsSdkMetrics;
 import com.amazonaws.metrics.RequestMetricCollector;
 import com.amazonaws.regions.Region;
 import com.amazonaws.regions.Regions;
+import com.amazonaws.transform.Marshaller;
 import com.amazonaws.util.AWSRequestMetrics;
 import com.amazonaws.util.AWSRequestMetrics.Field;
 import com.amazonaws.util.AwsHostNameUtils;
@@ -574,6 +582,116 @@ public abstract class AmazonWebServiceClient {
         return new ExecutionContext(requestHandler2s, isMetricsEnabled, this);
     }
 
+    /**
+     * Marshalls the given request and sends it over the non-blocking transport
+     * of the underlying http client, without holding a thread while the
+     * request is in flight. The returned future is completed once the response
+     * has been unmarshalled, or the request has failed; the optional async
+     * handler is notified right after, and any exception it throws is logged
+     * rather than left to keep the future from completing.
+     *
+     * @param originalRequest
+     *            the request passed in from the user
+     * @param marshaller
+     *            the marshaller of the request
+     * @param responseHandler
+     *            the handler of a successful response
+     * @param errorResponseHandler
+     *            the handler of an unsuccessful response
+     * @param credentialsProvider
+     *            the provider of the credentials to sign the request with,
+     *            unless the request has its own
+     * @param asyncHandler
+     *            the handler to notify once the request completes; or null
+     *
+     * @see ClientConfiguration#setUseNonBlockingTransport(boolean)
+     */
+    protected final <X, Y extends AmazonWebServiceRequest> Future<X> invokeAsync(
+            final Y originalRequest,
+            Marshaller<Request<Y>, Y> marshaller,
+            HttpResponseHandler<AmazonWebServiceResponse<X>> responseHandler,
+            HttpResponseHandler<AmazonServiceException> errorResponseHandler,
+            AWSCredentialsProvider credentialsProvider,
+            final AsyncHandler<Y, X> asyncHandler) {
+        ExecutionContext executionContext = createExecutionContext(originalRequest);
+        final AWSRequestMetrics awsRequestMetrics = executionContext.getAwsRequestMetrics();
+        awsRequestMetrics.startEvent(Field.ClientExecuteTime);
+        final BasicFuture<X> future = new BasicFuture<X>(null);
+        Request<Y> request = null;
+
+        try {
+            awsRequestMetrics.startEvent(Field.RequestMarshallTime);
+            try {
+                request = marshaller.marshall(beforeMarshalling(originalRequest));
+                // Binds the request metrics to the current request.
+                request.setAWSRequestMetrics(awsRequestMetrics);
+            } catch (AmazonClientException ace) {
+                throw ace;
+            } catch (Exception e) {
+                throw new AmazonClientException("Unable to marshall request: " + e.getMessage(), e);
+            } finally {
+                awsRequestMetrics.endEvent(Field.RequestMarshallTime);
+            }
+
+            request.setEndpoint(endpoint);
+            request.setTimeOffset(timeOffset);
+
+            AWSCredentials credentials;
+            awsRequestMetrics.startEvent(Field.CredentialsRequestTime);
+            try {
+                credentials = credentialsProvider.getCredentials();
+            } finally {
+                awsRequestMetrics.endEvent(Field.CredentialsRequestTime);
+            }
+            if (originalRequest.getRequestCredentials() != null) {
+                credentials = originalRequest.getRequestCredentials();
+            }
+            executionContext.setCredentials(credentials);
+
+            final Request<Y> marshalledRequest = request;
+            client.executeAsync(request, responseHandler, errorResponseHandler,
+                    executionContext, new ResponseCallback<X>() {
+                public void onSuccess(Response<X> response) {
+                    endClientExecution(awsRequestMetrics, marshalledRequest, response);
+                    X result = response.getAwsResponse();
+                    future.completed(result);
+                    if (asyncHandler != null) {
+                        try {
+                            asyncHandler.onSuccess(originalRequest, result);
+                        } catch (RuntimeException e) {
+                            log.warn("The async handler failed", e);
+                        }
+                    }
+                }
+
+                public void onError(Exception ex) {
+                    endClientExecution(awsRequestMetrics, marshalledRequest, null);
+                    fail(future, asyncHandler, ex);
+                }
+            });
+        } catch (RuntimeException ex) {
+            endClientExecution(awsRequestMetrics, request, null);
+            fail(future, asyncHandler, ex);
+        }
+        return future;
+    }
+
+    /**
+     * Fails the future of an asynchronous request, and then notifies the
+     * async handler, if any.
+     */
+    private static void fail(BasicFuture<?> future,
+            AsyncHandler<?, ?> asyncHandler, Exception ex) {
+        future.failed(ex);
+        if (asyncHandler != null) {
+            try {
+                asyncHandler.onError(ex);
+            } catch (RuntimeException e) {
+                log.warn("The async handler failed", e);
+            }
+        }
+    }
+
     /* Check the profiling system property and return true if set */
     protected static boolean isProfilingEnabled() {
         return System.getProperty(PROFILING_SYSTEM_PROPERTY) != null;
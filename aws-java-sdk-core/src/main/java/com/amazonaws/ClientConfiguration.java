@@ -79,6 +79,24 @@ public class ClientConfiguration {
      */
     public static final boolean DEFAULT_TCP_KEEP_ALIVE = false;
 
+    /**
+     * The default on whether to use the non-blocking transport for
+     * asynchronous requests.
+     */
+    public static final boolean DEFAULT_USE_NON_BLOCKING_TRANSPORT = false;
+
+    /**
+     * The default retry capacity shared by all requests of a client; zero
+     * means that retries are not limited by a shared capacity.
+     */
+    public static final int DEFAULT_RETRY_CAPACITY = 0;
+
+    /**
+     * The default on whether to adapt the request rate of a client to the
+     * throttling responses it gets.
+     */
+    public static final boolean DEFAULT_USE_ADAPTIVE_RATE_LIMITING = false;
+
     /** The HTTP user agent header passed with all HTTP requests. */
     private String userAgent = DEFAULT_USER_AGENT;
 
@@ -195,6 +213,25 @@ public class ClientConfiguration {
      * the operating system (sysctl on Linux, and Registry values on Windows).
      */
     private boolean tcpKeepAlive = DEFAULT_TCP_KEEP_ALIVE;
+
+    /**
+     * Optional whether asynchronous clients should send their requests through
+     * a non-blocking NIO transport instead of parking a thread from their
+     * executor for the duration of each request.
+     */
+    private boolean useNonBlockingTransport = DEFAULT_USE_NON_BLOCKING_TRANSPORT;
+
+    /**
+     * The number of retry tokens shared by all requests of a client, or zero
+     * if retries are not limited by a shared capacity.
+     */
+    private int retryCapacity = DEFAULT_RETRY_CAPACITY;
+
+    /**
+     * Optional whether the client should slow down the rate at which it
+     * sends requests when the service throttles them.
+     */
+    private boolean useAdaptiveRateLimiting = DEFAULT_USE_ADAPTIVE_RATE_LIMITING;
     
     /**
      * Can be used to specify custom specific Apache HTTP client configurations.
@@ -226,6 +263,9 @@ public class ClientConfiguration {
         this.socketReceiveBufferSizeHint = other.socketReceiveBufferSizeHint;
         this.socketSendBufferSizeHint    = other.socketSendBufferSizeHint;
         this.signerOverride              = other.signerOverride;
+        this.useNonBlockingTransport     = other.useNonBlockingTransport;
+        this.retryCapacity               = other.retryCapacity;
+        this.useAdaptiveRateLimiting     = other.useAdaptiveRateLimiting;
         this.apacheHttpClientConfig =
             new ApacheHttpClientConfig(other.apacheHttpClientConfig);
     }
@@ -1140,6 +1180,143 @@ public class ClientConfiguration {
         return this;
     }
 
+    /**
+     * Checks if asynchronous requests are sent through the non-blocking
+     * transport.
+     *
+     * @return if the non-blocking transport is used
+     */
+    public boolean useNonBlockingTransport() {
+        return useNonBlockingTransport;
+    }
+
+    /**
+     * Sets whether asynchronous clients should send their requests through a
+     * non-blocking NIO transport. When enabled, an in-flight request no longer
+     * holds a thread while waiting on the network, so a small number of I/O
+     * threads can serve thousands of concurrent requests. Request signing,
+     * retries and response unmarshalling behave exactly as in the blocking
+     * transport.
+     * <p>
+     * This requires the Apache HttpAsyncClient library
+     * (org.apache.httpcomponents:httpasyncclient) to be on the classpath.
+     *
+     * @param use
+     *            whether the non-blocking transport should be used
+     */
+    public void setUseNonBlockingTransport(boolean use) {
+        this.useNonBlockingTransport = use;
+    }
+
+    /**
+     * Sets whether asynchronous clients should send their requests through a
+     * non-blocking NIO transport.
+     *
+     * @param use
+     *            whether the non-blocking transport should be used
+     *
+     * @return The updated ClientConfiguration object.
+     *
+     * @see #setUseNonBlockingTransport(boolean)
+     */
+    public ClientConfiguration withNonBlockingTransport(boolean use) {
+        setUseNonBlockingTransport(use);
+        return this;
+    }
+
+    /**
+     * Returns the number of retry tokens shared by all requests of a client,
+     * or zero if retries are not limited by a shared capacity.
+     *
+     * @return the retry capacity of the client
+     *
+     * @see #setRetryCapacity(int)
+     */
+    public int getRetryCapacity() {
+        return retryCapacity;
+    }
+
+    /**
+     * Sets the number of retry tokens shared by all requests of a client.
+     * Every retry takes 5 tokens, or 10 if the failed attempt got no response
+     * at all, and a request is no longer retried once the tokens have run
+     * out. A successful request puts the tokens taken for its last retry
+     * back, or 1 token if it wasn't retried. This keeps a client from
+     * multiplying its load on a service that is failing most requests, while
+     * isolated failures are still retried as before.
+     * <p>
+     * The retry count of each request is still limited by the configured
+     * retry policy.
+     *
+     * @param retryCapacity
+     *            the number of retry tokens, or zero to not limit retries by
+     *            a shared capacity
+     */
+    public void setRetryCapacity(int retryCapacity) {
+        if (retryCapacity < 0) {
+            throw new IllegalArgumentException("Retry capacity must not be negative");
+        }
+        this.retryCapacity = retryCapacity;
+    }
+
+    /**
+     * Sets the number of retry tokens shared by all requests of a client, and
+     * returns the updated ClientConfiguration object.
+     *
+     * @param retryCapacity
+     *            the number of retry tokens, or zero to not limit retries by
+     *            a shared capacity
+     *
+     * @return The updated ClientConfiguration object.
+     *
+     * @see #setRetryCapacity(int)
+     */
+    public ClientConfiguration withRetryCapacity(int retryCapacity) {
+        setRetryCapacity(retryCapacity);
+        return this;
+    }
+
+    /**
+     * Checks if the client adapts its request rate to throttling responses.
+     *
+     * @return if adaptive rate limiting is used
+     */
+    public boolean useAdaptiveRateLimiting() {
+        return useAdaptiveRateLimiting;
+    }
+
+    /**
+     * Sets whether the client should adapt the rate at which it sends
+     * requests to the throttling responses it gets. When enabled, the first
+     * throttling response caps the request rate of the client below the rate
+     * it was sending at, and successful responses raise the cap again until
+     * it no longer applies; every further throttling response cuts the cap
+     * again. Requests over the cap wait on the client side before being sent,
+     * instead of being throttled by the service.
+     *
+     * @param use
+     *            whether adaptive rate limiting should be used
+     */
+    public void setUseAdaptiveRateLimiting(boolean use) {
+        this.useAdaptiveRateLimiting = use;
+    }
+
+    /**
+     * Sets whether the client should adapt the rate at which it sends
+     * requests to the throttling responses it gets.
+     *
+     * @param use
+     *            whether adaptive rate limiting should be used
+     *
+     * @return The updated ClientConfiguration object.
+     *
+     * @see #setUseAdaptiveRateLimiting(boolean)
+     */
+    public ClientConfiguration withAdaptiveRateLimiting(boolean use) {
+        setUseAdaptiveRateLimiting(use);
+        return this;
+    }
+
     /**
      * Returns a non-null object that can be used to specify Apache HTTP client
      * specific custom configurations.
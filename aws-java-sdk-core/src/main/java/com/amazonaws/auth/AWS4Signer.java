@@ -28,11 +28,11 @@ import static com.amazonaws.auth.internal.SignerConstants.X_AMZ_EXPIRES;
 import static com.amazonaws.auth.internal.SignerConstants.X_AMZ_SECURITY_TOKEN;
 import static com.amazonaws.auth.internal.SignerConstants.X_AMZ_SIGNATURE;
 import static com.amazonaws.auth.internal.SignerConstants.X_AMZ_SIGNED_HEADER;
+import static com.amazonaws.util.StringUtils.UTF8;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
-import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
@@ -384,7 +384,7 @@ public class AWS4Signer extends AbstractAWSSigner implements
      */
     protected final byte[] computeSignature(String stringToSign,
             byte[] signingKey, AWS4SignerRequestParams signerRequestParams) {
-        return sign(stringToSign.getBytes(Charset.forName("UTF-8")), signingKey,
+        return sign(stringToSign.getBytes(UTF8), signingKey,
                 SigningAlgorithm.HmacSHA256);
     }
 
@@ -450,12 +450,12 @@ public class AWS4Signer extends AbstractAWSSigner implements
         final Map<String, String> requestHeaders = request.getHeaders();
         StringBuilder buffer = new StringBuilder();
         for (String header : sortedHeaders) {
-            String key = header.toLowerCase().replaceAll("\\s+", " ");
             String value = requestHeaders.get(header);
 
-            buffer.append(key).append(":");
+            appendCompactedString(buffer, header.toLowerCase());
+            buffer.append(":");
             if (value != null) {
-                buffer.append(value.replaceAll("\\s+", " "));
+                appendCompactedString(buffer, value);
             }
 
             buffer.append("\n");
@@ -464,6 +464,38 @@ public class AWS4Signer extends AbstractAWSSigner implements
         return buffer.toString();
     }
 
+    /**
+     * Appends the given string to the builder with each run of whitespace
+     * replaced by a single space, the same as
+     * {@code source.replaceAll("\\s+", " ")} but without compiling a pattern
+     * for every header.
+     */
+    private static void appendCompactedString(StringBuilder destination, String source) {
+        boolean previousIsWhiteSpace = false;
+        int length = source.length();
+        for (int i = 0; i < length; i++) {
+            char ch = source.charAt(i);
+            if (isWhiteSpace(ch)) {
+                if (!previousIsWhiteSpace) {
+                    destination.append(' ');
+                    previousIsWhiteSpace = true;
+                }
+            } else {
+                destination.append(ch);
+                previousIsWhiteSpace = false;
+            }
+        }
+    }
+
+    /**
+     * Returns whether the character is matched by the regular expression
+     * {@code \s}.
+     */
+    private static boolean isWhiteSpace(char ch) {
+        return ch == ' ' || ch == '\t' || ch == '\n' || ch == '\u000b'
+                || ch == '\r' || ch == '\f';
+    }
+
     protected String getSignedHeadersString(SignableRequest<?> request) {
         final List<String> sortedHeaders = new ArrayList<String>(request
                 .getHeaders().keySet());
@@ -572,7 +604,7 @@ public class AWS4Signer extends AbstractAWSSigner implements
     private byte[] newSigningKey(AWSCredentials credentials,
             String dateStamp, String regionName, String serviceName) {
         byte[] kSecret = ("AWS4" + credentials.getAWSSecretKey())
-                .getBytes(Charset.forName("UTF-8"));
+                .getBytes(UTF8);
         byte[] kDate = sign(dateStamp, kSecret, SigningAlgorithm.HmacSHA256);
         byte[] kRegion = sign(regionName, kDate, SigningAlgorithm.HmacSHA256);
         byte[] kService = sign(serviceName, kRegion,
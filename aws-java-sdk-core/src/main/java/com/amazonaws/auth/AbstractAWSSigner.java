@@ -22,6 +22,7 @@ import java.io.InputStream;
 import java.net.URI;
 import java.security.DigestInputStream;
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.Map;
@@ -48,6 +49,18 @@ import com.amazonaws.util.SdkHttpUtils;
  */
 public abstract class AbstractAWSSigner implements Signer {
 
+    private static final ThreadLocal<MessageDigest> SHA256_MESSAGE_DIGEST = new ThreadLocal<MessageDigest>() {
+        @Override
+        protected MessageDigest initialValue() {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new AmazonClientException(
+                        "Unable to get SHA256 Function" + e.getMessage(), e);
+            }
+        }
+    };
+
     /**
      * Computes an RFC 2104-compliant HMAC signature and returns the result as a
      * Base64 encoded string.
@@ -88,7 +101,7 @@ public abstract class AbstractAWSSigner implements Signer {
     protected byte[] sign(byte[] data, byte[] key,
             SigningAlgorithm algorithm) throws AmazonClientException {
         try {
-            Mac mac = Mac.getInstance(algorithm.toString());
+            Mac mac = algorithm.getMac();
             mac.init(new SecretKeySpec(key, algorithm.toString()));
             return mac.doFinal(data);
         } catch (Exception e) {
@@ -112,7 +125,7 @@ public abstract class AbstractAWSSigner implements Signer {
      */
     public byte[] hash(String text) throws AmazonClientException {
         try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            MessageDigest md = getMessageDigestInstance();
             md.update(text.getBytes(UTF8));
             return md.digest();
         } catch (Exception e) {
@@ -124,7 +137,7 @@ public abstract class AbstractAWSSigner implements Signer {
 
     protected byte[] hash(InputStream input) throws AmazonClientException {
         try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            MessageDigest md = getMessageDigestInstance();
             @SuppressWarnings("resource")
             DigestInputStream digestInputStream = new SdkDigestInputStream(
                     input, md);
@@ -139,6 +152,16 @@ public abstract class AbstractAWSSigner implements Signer {
         }
     }
 
+    /**
+     * Returns the calling thread's SHA-256 {@link MessageDigest}, reset and
+     * ready for use.
+     */
+    private static MessageDigest getMessageDigestInstance() {
+        MessageDigest messageDigest = SHA256_MESSAGE_DIGEST.get();
+        messageDigest.reset();
+        return messageDigest;
+    }
+
     /**
      * Hashes the binary data using the SHA-256 algorithm.
      *
@@ -152,7 +175,7 @@ public abstract class AbstractAWSSigner implements Signer {
      */
     public byte[] hash(byte[] data) throws AmazonClientException {
         try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            MessageDigest md = getMessageDigestInstance();
             md.update(data);
             return md.digest();
         } catch (Exception e) {
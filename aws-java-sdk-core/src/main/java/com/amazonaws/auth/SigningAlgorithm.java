@@ -14,9 +14,39 @@
  */
 package com.amazonaws.auth;
 
+import java.security.NoSuchAlgorithmException;
+
+import javax.crypto.Mac;
+
+import com.amazonaws.AmazonClientException;
+
 public enum SigningAlgorithm {
     
     HmacSHA1,
     HmacSHA256;
 
+    private final ThreadLocal<Mac> macReference;
+
+    private SigningAlgorithm() {
+        final String algorithmName = this.name();
+        macReference = new ThreadLocal<Mac>() {
+            @Override
+            protected Mac initialValue() {
+                try {
+                    return Mac.getInstance(algorithmName);
+                } catch (NoSuchAlgorithmException e) {
+                    throw new AmazonClientException("Unable to fetch Mac instance for Algorithm "
+                            + algorithmName + ": " + e.getMessage(), e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns the calling thread's {@link Mac} instance for this algorithm.
+     * Callers must initialize it with their key before each use.
+     */
+    public Mac getMac() {
+        return macReference.get();
+    }
 }
@@ -25,9 +25,12 @@ import static com.amazonaws.util.AWSRequestMetrics.Field.HttpClientPoolAvailable
 import static com.amazonaws.util.AWSRequestMetrics.Field.HttpClientPoolLeasedCount;
 import static com.amazonaws.util.AWSRequestMetrics.Field.HttpClientPoolPendingCount;
 import static com.amazonaws.util.AWSRequestMetrics.Field.HttpRequestTime;
+import static com.amazonaws.util.AWSRequestMetrics.Field.RateLimitDelayTime;
+import static com.amazonaws.util.AWSRequestMetrics.Field.RateLimitFillRate;
 import static com.amazonaws.util.AWSRequestMetrics.Field.RedirectLocation;
 import static com.amazonaws.util.AWSRequestMetrics.Field.RequestCount;
 import static com.amazonaws.util.AWSRequestMetrics.Field.RequestSigningTime;
+import static com.amazonaws.util.AWSRequestMetrics.Field.RetryCapacityExceeded;
 import static com.amazonaws.util.AWSRequestMetrics.Field.RetryPauseTime;
 import static com.amazonaws.util.AWSRequestMetrics.Field.ServiceEndpoint;
 import static com.amazonaws.util.AWSRequestMetrics.Field.ServiceName;
@@ -47,6 +50,13 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import javax.net.ssl.SSLContext;
 
@@ -60,6 +70,8 @@ import org.apache.http.StatusLine;
 import org.apache.http.annotation.ThreadSafe;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.concurrent.BasicFuture;
+import org.apache.http.concurrent.FutureCallback;
 import org.apache.http.conn.ClientConnectionManager;
 import org.apache.http.conn.scheme.Scheme;
 import org.apache.http.conn.scheme.SchemeRegistry;
@@ -69,6 +81,7 @@ import org.apache.http.pool.PoolStats;
 import org.apache.http.protocol.BasicHttpContext;
 import org.apache.http.protocol.HttpContext;
 
+import com.amazonaws.AbortedException;
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.AmazonServiceException;
 import com.amazonaws.AmazonServiceException.ErrorType;
@@ -98,8 +111,10 @@ import com.amazonaws.metrics.AwsSdkMetrics;
 import com.amazonaws.metrics.RequestMetricCollector;
 import com.amazonaws.retry.RetryPolicy;
 import com.amazonaws.retry.RetryUtils;
+import com.amazonaws.retry.internal.AdaptiveRateLimiter;
 import com.amazonaws.retry.internal.AuthErrorRetryStrategy;
 import com.amazonaws.retry.internal.AuthRetryParameters;
+import com.amazonaws.retry.internal.RetryTokenBucket;
 import com.amazonaws.util.AWSRequestMetrics;
 import com.amazonaws.util.AWSRequestMetrics.Field;
 import com.amazonaws.util.CountingInputStream;
@@ -146,6 +161,12 @@ public class AmazonHttpClient {
     /** Internal client for sending HTTP requests */
     private final HttpClient httpClient;
 
+    /**
+     * Non-blocking transport for sending asynchronous HTTP requests; or null
+     * if the non-blocking transport is not enabled.
+     */
+    private final AsyncHttpTransport asyncTransport;
+
     /** Client configuration options, such as proxy settings, max retries, etc. */
     private final ClientConfiguration config;
 
@@ -161,6 +182,18 @@ public class AmazonHttpClient {
      */
     private final RequestMetricCollector requestMetricCollector;
 
+    /**
+     * Retry capacity shared by all requests of this client; or null if
+     * retries are not limited by a shared capacity.
+     */
+    private final RetryTokenBucket retryTokenBucket;
+
+    /**
+     * Adapts the request rate of this client to throttling responses; or null
+     * if adaptive rate limiting is not enabled.
+     */
+    private final AdaptiveRateLimiter rateLimiter;
+
     /** The time difference in seconds between this client and AWS. */
     private volatile int timeOffset = SDKGlobalTime.getGlobalTimeOffset();
 
@@ -190,7 +223,11 @@ public class AmazonHttpClient {
      *            is none.
      */
     public AmazonHttpClient(ClientConfiguration config, RequestMetricCollector requestMetricCollector) {
-        this(config, httpClientFactory.createHttpClient(config), requestMetricCollector);
+        this(config, httpClientFactory.createHttpClient(config),
+                config.useNonBlockingTransport()
+                    ? NioHttpTransportFactoryHolder.createTransport(config)
+                    : null,
+                requestMetricCollector);
     }
 
     /**
@@ -200,10 +237,28 @@ public class AmazonHttpClient {
             ClientConfiguration config,
             HttpClient httpClient,
             RequestMetricCollector requestMetricCollector) {
+        this(config, httpClient, null, requestMetricCollector);
+    }
+
+    /**
+     * Package-protected constructor for unit test purposes.
+     */
+    AmazonHttpClient(
+            ClientConfiguration config,
+            HttpClient httpClient,
+            AsyncHttpTransport asyncTransport,
+            RequestMetricCollector requestMetricCollector) {
 
         this.config = config;
         this.httpClient = httpClient;
+        this.asyncTransport = asyncTransport;
         this.requestMetricCollector = requestMetricCollector;
+        this.retryTokenBucket = config.getRetryCapacity() > 0
+            ? new RetryTokenBucket(config.getRetryCapacity())
+            : null;
+        this.rateLimiter = config.useAdaptiveRateLimiting()
+            ? new AdaptiveRateLimiter()
+            : null;
     }
 
     /**
@@ -310,6 +365,64 @@ public class AmazonHttpClient {
         }
     }
 
+    /**
+     * Returns true if this client has been configured with a non-blocking
+     * transport, and therefore supports
+     * {@link #executeAsync(Request, HttpResponseHandler, HttpResponseHandler, ExecutionContext, ResponseCallback)}.
+     *
+     * @see ClientConfiguration#setUseNonBlockingTransport(boolean)
+     */
+    public boolean isNonBlocking() {
+        return asyncTransport != null;
+    }
+
+    /**
+     * Executes the request asynchronously over the non-blocking transport and
+     * returns a future for the result. No thread is held while the request is
+     * in flight; the returned future is completed as soon as the response has
+     * been handled, or the request has failed after exhausting all retries, and
+     * the given callback (if any) is notified right after.
+     * <p>
+     * Request signing, retries, request handlers and response handlers are
+     * applied exactly as in
+     * {@link #execute(Request, HttpResponseHandler, HttpResponseHandler, ExecutionContext)}.
+     *
+     * @param request
+     *            The AmazonWebServices request to send to the remote server
+     * @param responseHandler
+     *            A response handler to accept a successful response from the
+     *            remote server
+     * @param errorResponseHandler
+     *            A response handler to accept an unsuccessful response from the
+     *            remote server
+     * @param executionContext
+     *            Additional information about the context of this web service
+     *            call
+     * @param callback
+     *            An optional callback to be notified on completion; or null
+     *
+     * @return A future for the response.
+     *
+     * @throws AmazonClientException
+     *             If the non-blocking transport is not enabled on this client.
+     */
+    public <T> Future<Response<T>> executeAsync(Request<?> request,
+            HttpResponseHandler<AmazonWebServiceResponse<T>> responseHandler,
+            HttpResponseHandler<AmazonServiceException> errorResponseHandler,
+            ExecutionContext executionContext,
+            ResponseCallback<T> callback) {
+        if (executionContext == null)
+            throw new AmazonClientException("Internal SDK Error: No execution context parameter specified.");
+        if (asyncTransport == null)
+            throw new AmazonClientException("The non-blocking transport is not enabled; "
+                + "see ClientConfiguration#setUseNonBlockingTransport");
+        AsyncExecution<T> execution = new AsyncExecution<T>(request,
+                responseHandler, errorResponseHandler, executionContext,
+                callback);
+        execution.start();
+        return execution.future;
+    }
+
     /**
      * Publishes the "request content length" event, and returns an input
      * stream, which will be made mark-and-resettable if possible, for progress
@@ -408,6 +521,46 @@ public class AmazonHttpClient {
             HttpResponseHandler<AmazonWebServiceResponse<T>> responseHandler,
             HttpResponseHandler<AmazonServiceException> errorResponseHandler,
             final ExecutionContext executionContext) {
+        final AWSRequestMetrics awsRequestMetrics =
+            beforeExecution(request, executionContext);
+        // Make a copy of the original request params and headers so that we can
+        // permute it in this loop and start over with the original every time.
+        final ExecOneRequestParams p = new ExecOneRequestParams(request);
+        while (true) {
+            p.initPerRetry();
+            p.prepareRequestForAttempt(request, awsRequestMetrics);
+            try {
+                Response<T> response = executeOneRequest(request, responseHandler,
+                    errorResponseHandler, executionContext, awsRequestMetrics,
+                    p);
+                if (response != null)
+                    return response;
+            } catch (IOException ioe) {
+                AmazonClientException ace = handleIOException(ioe, request,
+                        awsRequestMetrics, p);
+                if (ace != null)
+                    throw ace;
+            } catch(RuntimeException e) {
+                throw lastReset(
+                        captureExceptionMetrics(e, awsRequestMetrics),
+                        request);
+            } catch(Error e) {
+                throw lastReset(
+                        captureExceptionMetrics(e, awsRequestMetrics),
+                        request);
+            } finally {
+                releaseConnection(p);
+            }
+        } /* end while (true) */
+    }
+
+    /**
+     * Adds the service name and endpoint to the request metrics, applies the
+     * user-agent, and marks the request content so it can be reset for
+     * retries. Returns the request metrics of the given execution context.
+     */
+    private AWSRequestMetrics beforeExecution(Request<?> request,
+            ExecutionContext executionContext) {
         /*
          * add the service endpoint to the logs. You can infer service name from
          * service endpoint
@@ -420,12 +573,6 @@ public class AmazonHttpClient {
         // Apply whatever request options we know how to handle, such as
         // user-agent.
         setUserAgent(request);
-        // Make a copy of the original request params and headers so that we can
-        // permute it in this loop and start over with the original every time.
-        final Map<String, String> originalParameters =
-            new LinkedHashMap<String, String>(request.getParameters());
-        final Map<String, String> originalHeaders =
-            new HashMap<String, String>(request.getHeaders());
         // Always mark the input stream before execution.
         final InputStream originalContent = request.getContent();
         if (originalContent != null && originalContent.markSupported()) {
@@ -433,84 +580,457 @@ public class AmazonHttpClient {
             final int readLimit = awsreq.getRequestClientOptions().getReadLimit();
             originalContent.mark(readLimit);
         }
-        final ExecOneRequestParams p = new ExecOneRequestParams();
-        while (true) {
-            p.initPerRetry();
-            if (p.redirectedURI != null) {
-                /*
-                 * [scheme:][//authority][path][?query][#fragment]
-                 */
-                String scheme = p.redirectedURI.getScheme();
-                String beforeAuthority = scheme == null ? "" : scheme + "://";
-                String authority = p.redirectedURI.getAuthority();
-                String path = p.redirectedURI.getPath();
+        return awsRequestMetrics;
+    }
 
-                request.setEndpoint(URI.create(beforeAuthority + authority));
-                request.setResourcePath(path);
+    /**
+     * Handles an I/O failure from a single request attempt, returning the
+     * exception to be thrown to the caller; or null if the request should be
+     * retried.
+     */
+    private AmazonClientException handleIOException(IOException ioe,
+            Request<?> request, AWSRequestMetrics awsRequestMetrics,
+            ExecOneRequestParams p) {
+        if (log.isInfoEnabled()) {
+            log.info("Unable to execute HTTP request: " + ioe.getMessage(), ioe);
+        }
+        captureExceptionMetrics(ioe, awsRequestMetrics);
+        awsRequestMetrics.addProperty(AWSRequestID, null);
+        AmazonClientException ace = new AmazonClientException(
+                "Unable to execute HTTP request: " + ioe.getMessage(),
+                ioe);
+        if (!shouldRetry(request.getOriginalRequest(),
+                        p.apacheRequest,
+                        ace,
+                        p.requestCount,
+                        config.getRetryPolicy())
+                || !acquireRetryCapacity(RetryTokenBucket.IO_ERROR_RETRY_COST,
+                        awsRequestMetrics, p)) {
+            return lastReset(ace, request);
+        }
+        // Cache the retryable exception
+        p.retriedException = ace;
+        return null;
+    }
+
+    /**
+     * Some response handlers need to manually manage the HTTP connection and
+     * will take care of releasing the connection on their own, but if this
+     * response handler doesn't need the connection left open, we go ahead and
+     * release the it to free up resources.
+     */
+    private void releaseConnection(ExecOneRequestParams p) {
+        if (!p.leaveHttpConnectionOpen) {
+            if (p.apacheResponse != null) {
+                HttpEntity entity = p.apacheResponse.getEntity();
+                if (entity != null) {
+                    try {
+                        closeQuietly(entity.getContent(), log);
+                    } catch (IOException e) {
+                        log.warn("Cannot close the response content.", e);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Notifies a {@link ResponseCallback} once the future of an asynchronous
+     * execution is done; {@link BasicFuture} only calls back after its own
+     * state has been set, so the future completes even if the callback throws.
+     */
+    private static final class ResponseCallbackAdapter<T> implements
+            FutureCallback<Response<T>> {
+        private final ResponseCallback<T> callback;
+
+        ResponseCallbackAdapter(ResponseCallback<T> callback) {
+            this.callback = callback;
+        }
+
+        @Override
+        public void completed(Response<T> response) {
+            try {
+                callback.onSuccess(response);
+            } catch (RuntimeException e) {
+                log.warn("The response callback failed", e);
             }
-            if (p.authRetryParam != null) {
-                request.setEndpoint(p.authRetryParam.getEndpointForRetry());
+        }
+
+        @Override
+        public void failed(Exception ex) {
+            try {
+                callback.onError(ex);
+            } catch (RuntimeException e) {
+                log.warn("The response callback failed", e);
             }
-            awsRequestMetrics.setCounter(RequestCount, p.requestCount);
-            if (p.isRetry()) {
-                request.setParameters(originalParameters);
-                request.setHeaders(originalHeaders);
-                request.setContent(originalContent);
+        }
+
+        @Override
+        public void cancelled() {
+            failed(new CancellationException("The execution was cancelled"));
+        }
+    }
+
+    /**
+     * The state of a single asynchronous execution over the non-blocking
+     * transport. Each attempt is started by {@link #nextAttempt()}, and the
+     * transport calls back into this object once the http response has been
+     * received; the response is then handled on the shared executor exactly
+     * as in the blocking path, and either the future is completed or the next attempt is
+     * started.
+     */
+    private final class AsyncExecution<T> implements
+            FutureCallback<org.apache.http.HttpResponse> {
+        private final Request<?> request;
+        private final HttpResponseHandler<AmazonWebServiceResponse<T>> responseHandler;
+        private final HttpResponseHandler<AmazonServiceException> errorResponseHandler;
+        private final ExecutionContext executionContext;
+        private final BasicFuture<Response<T>> future;
+        private List<RequestHandler2> requestHandler2s;
+        private AWSRequestMetrics awsRequestMetrics;
+        private InputStream origContent;
+        private InputStream toBeClosed;
+        private ExecOneRequestParams p;
+
+        AsyncExecution(Request<?> request,
+                HttpResponseHandler<AmazonWebServiceResponse<T>> responseHandler,
+                HttpResponseHandler<AmazonServiceException> errorResponseHandler,
+                ExecutionContext executionContext,
+                ResponseCallback<T> callback) {
+            this.request = request;
+            this.responseHandler = responseHandler;
+            this.errorResponseHandler = errorResponseHandler;
+            this.executionContext = executionContext;
+            this.future = new BasicFuture<Response<T>>(callback == null
+                ? null
+                : new ResponseCallbackAdapter<T>(callback));
+        }
+
+        /**
+         * Applies the request handlers and starts the first attempt; mirrors
+         * the set up done by {@link AmazonHttpClient#execute}.
+         */
+        void start() {
+            requestHandler2s = requestHandler2s(request, executionContext);
+            AmazonWebServiceRequest awsreq = request.getOriginalRequest();
+            Map<String, String> customHeaders = awsreq.getCustomRequestHeaders();
+            if (customHeaders != null) {
+                request.getHeaders().putAll(customHeaders);
             }
+            origContent = request.getContent();
+            toBeClosed = beforeRequest(request); // for progress tracking
+            // make "notCloseable", so reset would work with retries
+            request.setContent(toBeClosed == null
+                ? null
+                : ReleasableInputStream.wrap(toBeClosed).disableClose());
             try {
-                Response<T> response = executeOneRequest(request, responseHandler,
-                    errorResponseHandler, executionContext, awsRequestMetrics,
-                    p);
-                if (response != null)
-                    return response;
-            } catch (IOException ioe) {
-                if (log.isInfoEnabled()) {
-                    log.info("Unable to execute HTTP request: " + ioe.getMessage(), ioe);
+                publishProgress(awsreq.getGeneralProgressListener(),
+                        ProgressEventType.CLIENT_REQUEST_STARTED_EVENT);
+                awsRequestMetrics = beforeExecution(request, executionContext);
+                p = new ExecOneRequestParams(request);
+            } catch (RuntimeException e) {
+                fail(e);
+                return;
+            }
+            nextAttempt();
+        }
+
+        /**
+         * Starts the next attempt. The back-off pause before a retry and the
+         * wait for the rate limiter are timed by the shared retry timer, so
+         * no thread is held while waiting; the attempt is then sent by
+         * {@link #send()}.
+         */
+        void nextAttempt() {
+            p.initPerRetry();
+            final boolean isRetry;
+            long delay = 0;
+            try {
+                p.prepareRequestForAttempt(request, awsRequestMetrics);
+                isRetry = p.isRetry();
+                if (isRetry) {
+                    // Notify the progress listener of the retry
+                    publishProgress(request.getOriginalRequest().getGeneralProgressListener(),
+                            ProgressEventType.CLIENT_REQUEST_RETRY_EVENT);
+                    // don't pause if the retry was not due to a redirection
+                    // ie when retried exception is null
+                    if (p.retriedException != null) {
+                        delay = delayBeforeNextRetry(request.getOriginalRequest(),
+                                p.retriedException, p.requestCount,
+                                config.getRetryPolicy());
+                    }
+                    awsRequestMetrics.startEvent(RetryPauseTime);
                 }
-                captureExceptionMetrics(ioe, awsRequestMetrics);
-                awsRequestMetrics.addProperty(AWSRequestID, null);
-                AmazonClientException ace = new AmazonClientException(
-                        "Unable to execute HTTP request: " + ioe.getMessage(),
-                        ioe);
-                if (!shouldRetry(request.getOriginalRequest(),
-                                p.apacheRequest,
-                                ace,
-                                p.requestCount,
-                                config.getRetryPolicy())) {
-                    throw lastReset(ace, request);
+            } catch (RuntimeException e) {
+                fail(lastReset(captureExceptionMetrics(e, awsRequestMetrics),
+                        request));
+                return;
+            }
+            runAfter(TimeUnit.MILLISECONDS.toNanos(delay), new Runnable() {
+                public void run() {
+                    if (isRetry) {
+                        awsRequestMetrics.endEvent(RetryPauseTime);
+                    }
+                    waitForRateLimiterAndSend();
                 }
-                // Cache the retryable exception
-                p.retriedException = ace;
-            } catch(RuntimeException e) {
-                throw lastReset(
-                        captureExceptionMetrics(e, awsRequestMetrics),
-                        request);
-            } catch(Error e) {
-                throw lastReset(
-                        captureExceptionMetrics(e, awsRequestMetrics),
-                        request);
-            } finally {
-                /*
-                 * Some response handlers need to manually manage the HTTP
-                 * connection and will take care of releasing the connection on
-                 * their own, but if this response handler doesn't need the
-                 * connection left open, we go ahead and release the it to free
-                 * up resources.
-                 */
-                if (!p.leaveHttpConnectionOpen) {
-                    if (p.apacheResponse != null) {
-                        HttpEntity entity = p.apacheResponse.getEntity();
-                        if (entity != null) {
-                            try {
-                                closeQuietly(entity.getContent(), log);
-                            } catch (IOException e) {
-                                log.warn("Cannot close the response content.", e);
-                            }
-                        }
+            });
+        }
+
+        /**
+         * Sends the attempt once the rate limiter lets it through.
+         */
+        private void waitForRateLimiterAndSend() {
+            long delayNanos = rateLimiter == null
+                ? 0
+                : acquireRateLimiterToken(awsRequestMetrics);
+            if (delayNanos <= 0) {
+                send();
+                return;
+            }
+            awsRequestMetrics.startEvent(RateLimitDelayTime);
+            runAfter(delayNanos, new Runnable() {
+                public void run() {
+                    awsRequestMetrics.endEvent(RateLimitDelayTime);
+                    send();
+                }
+            });
+        }
+
+        /**
+         * Prepares and sends the attempt over the non-blocking transport.
+         */
+        private void send() {
+            try {
+                HttpContext httpContext = prepareOneRequest(request,
+                        executionContext, awsRequestMetrics, p);
+                awsRequestMetrics.startEvent(HttpRequestTime);
+                asyncTransport.execute(p.apacheRequest, httpContext, this);
+            } catch (IOException ioe) {
+                retryOrFail(ioe);
+            } catch (RuntimeException e) {
+                fail(lastReset(captureExceptionMetrics(e, awsRequestMetrics),
+                        request));
+            } catch (Error e) {
+                fail(lastReset(captureExceptionMetrics(e, awsRequestMetrics),
+                        request));
+                throw e;
+            }
+        }
+
+        /**
+         * Hands the response off to the shared executor, so that unmarshalling
+         * it and running the request handlers never stalls an I/O dispatch
+         * thread.
+         */
+        @Override
+        public void completed(final org.apache.http.HttpResponse apacheResponse) {
+            awsRequestMetrics.endEvent(HttpRequestTime);
+            try {
+                AsyncRetryExecutorHolder.executor.execute(new Runnable() {
+                    public void run() {
+                        handleResponse(apacheResponse);
                     }
+                });
+            } catch (RuntimeException e) {
+                p.apacheResponse = apacheResponse;
+                releaseConnection(p);
+                fail(lastReset(captureExceptionMetrics(e, awsRequestMetrics),
+                        request));
+            }
+        }
+
+        private void handleResponse(org.apache.http.HttpResponse apacheResponse) {
+            Response<T> response = null;
+            try {
+                p.apacheResponse = logRequestId(apacheResponse);
+                response = handleOneResponse(request, responseHandler,
+                        errorResponseHandler, executionContext,
+                        awsRequestMetrics, p);
+            } catch (IOException ioe) {
+                releaseConnection(p);
+                retryOrFail(ioe);
+                return;
+            } catch (RuntimeException e) {
+                releaseConnection(p);
+                fail(lastReset(captureExceptionMetrics(e, awsRequestMetrics),
+                        request));
+                return;
+            } catch (Error e) {
+                releaseConnection(p);
+                fail(lastReset(captureExceptionMetrics(e, awsRequestMetrics),
+                        request));
+                throw e;
+            }
+            releaseConnection(p);
+            if (response != null) {
+                succeed(response);
+            } else {
+                // Already on the shared executor
+                nextAttempt();
+            }
+        }
+
+        @Override
+        public void failed(Exception ex) {
+            awsRequestMetrics.endEvent(HttpRequestTime);
+            if (ex instanceof IOException) {
+                retryOrFail((IOException) ex);
+            } else {
+                AmazonClientException ace = ex instanceof AmazonClientException
+                    ? (AmazonClientException) ex
+                    : new AmazonClientException(
+                        "Unable to execute HTTP request: " + ex.getMessage(), ex);
+                fail(lastReset(captureExceptionMetrics(ace, awsRequestMetrics),
+                        request));
+            }
+        }
+
+        @Override
+        public void cancelled() {
+            awsRequestMetrics.endEvent(HttpRequestTime);
+            fail(lastReset(new AbortedException("The HTTP request was cancelled"),
+                    request));
+        }
+
+        private void retryOrFail(IOException ioe) {
+            AmazonClientException ace = handleIOException(ioe, request,
+                    awsRequestMetrics, p);
+            if (ace != null) {
+                fail(ace);
+            } else {
+                retry();
+            }
+        }
+
+        /**
+         * Hands the next attempt off to the shared retry executor, so that
+         * preparing and signing it never runs on an I/O dispatch thread.
+         */
+        private void retry() {
+            execute(new Runnable() {
+                public void run() {
+                    nextAttempt();
                 }
+            });
+        }
+
+        /**
+         * Runs the given task right away if there is no delay, or else on the
+         * shared retry executor once the delay has passed.
+         */
+        private void runAfter(long delayNanos, final Runnable task) {
+            if (delayNanos <= 0) {
+                task.run();
+                return;
             }
-        } /* end while (true) */
+            try {
+                AsyncRetryExecutorHolder.timer.schedule(new Runnable() {
+                    public void run() {
+                        execute(task);
+                    }
+                }, delayNanos, TimeUnit.NANOSECONDS);
+            } catch (RuntimeException e) {
+                fail(lastReset(captureExceptionMetrics(e, awsRequestMetrics),
+                        request));
+            }
+        }
+
+        private void execute(Runnable task) {
+            try {
+                AsyncRetryExecutorHolder.executor.execute(task);
+            } catch (RuntimeException e) {
+                fail(lastReset(captureExceptionMetrics(e, awsRequestMetrics),
+                        request));
+            }
+        }
+
+        private void succeed(Response<T> response) {
+            AmazonWebServiceRequest awsreq = request.getOriginalRequest();
+            try {
+                publishProgress(awsreq.getGeneralProgressListener(),
+                        ProgressEventType.CLIENT_REQUEST_SUCCESS_EVENT);
+                TimingInfo timingInfo = awsRequestMetrics.getTimingInfo().endTiming();
+                afterResponse(request, requestHandler2s, response, timingInfo);
+            } catch (RuntimeException e) {
+                fail(e);
+                return;
+            }
+            cleanUp();
+            future.completed(response);
+        }
+
+        private void fail(RuntimeException e) {
+            AmazonClientException ace = e instanceof AmazonClientException
+                ? (AmazonClientException) e
+                : new AmazonClientException(e.getMessage(), e);
+            try {
+                publishProgress(request.getOriginalRequest().getGeneralProgressListener(),
+                        ProgressEventType.CLIENT_REQUEST_FAILED_EVENT);
+                afterError(request, null, requestHandler2s, ace);
+            } finally {
+                cleanUp();
+                future.failed(ace);
+            }
+        }
+
+        private void fail(Error e) {
+            cleanUp();
+            future.failed(new AmazonClientException(e.getMessage(), e));
+        }
+
+        private void cleanUp() {
+            // Always close so any progress tracking would get the final events propagated.
+            closeQuietly(toBeClosed, log);
+            request.setContent(origContent); // restore the original content
+        }
+    }
+
+    /**
+     * Used to avoid loading the non-blocking transport, and so the optional
+     * Apache HttpAsyncClient library it is built on, unless it is enabled.
+     */
+    private static final class NioHttpTransportFactoryHolder {
+        private static final NioHttpTransportFactory factory = new NioHttpTransportFactory();
+
+        static AsyncHttpTransport createTransport(ClientConfiguration config) {
+            return factory.createTransport(config);
+        }
+    }
+
+    /**
+     * Used to avoid creating the retry threads until a non-blocking execution
+     * actually needs to be retried, delayed or have its response handled.
+     */
+    private static final class AsyncRetryExecutorHolder {
+        /**
+         * Shared by all clients for handling the responses of non-blocking
+         * executions and starting their retries.
+         */
+        private static final ExecutorService executor =
+            Executors.newCachedThreadPool(new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r);
+                    t.setName("java-sdk-async-retry-thread");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+
+        /**
+         * Shared by all clients for timing the back-off pauses and rate
+         * limiter waits of non-blocking executions. The timer only hands the
+         * attempts that are due over to the executor, so a single thread is
+         * enough for any number of waiting attempts.
+         */
+        private static final ScheduledExecutorService timer =
+            Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r);
+                    t.setName("java-sdk-async-retry-timer");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
     }
 
     /**
@@ -545,6 +1065,10 @@ public class AmazonHttpClient {
      * Stateful parameters that are used for executing a single http request.
      */
     private static class ExecOneRequestParams {
+        private final Map<String, String> originalParameters;
+        private final Map<String, String> originalHeaders;
+        private final InputStream originalContent;
+
         private Signer signer;    // cached
         private URI signerURI;
         int requestCount; // monotonic increasing
@@ -563,6 +1087,17 @@ public class AmazonHttpClient {
          * any of the content until after a response is returned to the caller.
          */
         boolean leaveHttpConnectionOpen;
+        /*
+         * Number of retry tokens taken for the latest retry, to be put back
+         * if the retry succeeds; or zero if there was no retry.
+         */
+        int retryCost;
+
+        ExecOneRequestParams(Request<?> request) {
+            originalParameters = new LinkedHashMap<String, String>(request.getParameters());
+            originalHeaders = new HashMap<String, String>(request.getHeaders());
+            originalContent = request.getContent();
+        }
 
         boolean isRetry() {
             return requestCount > 1 ||
@@ -577,6 +1112,36 @@ public class AmazonHttpClient {
             leaveHttpConnectionOpen = false;
         }
 
+        /**
+         * Points the request at the redirected or auth-retry endpoint, if
+         * any, and restores the original parameters, headers and content for
+         * a retry.
+         */
+        void prepareRequestForAttempt(final Request<?> request,
+                final AWSRequestMetrics awsRequestMetrics) {
+            if (redirectedURI != null) {
+                /*
+                 * [scheme:][//authority][path][?query][#fragment]
+                 */
+                String scheme = redirectedURI.getScheme();
+                String beforeAuthority = scheme == null ? "" : scheme + "://";
+                String authority = redirectedURI.getAuthority();
+                String path = redirectedURI.getPath();
+
+                request.setEndpoint(URI.create(beforeAuthority + authority));
+                request.setResourcePath(path);
+            }
+            if (authRetryParam != null) {
+                request.setEndpoint(authRetryParam.getEndpointForRetry());
+            }
+            awsRequestMetrics.setCounter(RequestCount, requestCount);
+            if (isRetry()) {
+                request.setParameters(originalParameters);
+                request.setHeaders(originalHeaders);
+                request.setContent(originalContent);
+            }
+        }
+
         Signer newSigner(final Request<?> request,
                 final ExecutionContext execContext) {
             if (authRetryParam != null) {
@@ -626,6 +1191,63 @@ public class AmazonHttpClient {
             final AWSRequestMetrics awsRequestMetrics,
             ExecOneRequestParams p)
             throws IOException {
+        captureConnectionPoolMetrics(httpClient.getConnectionManager(), awsRequestMetrics);
+        pauseBeforeAttempt(request, awsRequestMetrics, p);
+        HttpContext httpContext = prepareOneRequest(request, execContext,
+                awsRequestMetrics, p);
+        awsRequestMetrics.startEvent(HttpRequestTime);
+
+        /////////// Send HTTP request ////////////
+        try {
+            p.apacheResponse = logRequestId(
+                httpClient.execute(p.apacheRequest, httpContext));
+        } finally {
+            awsRequestMetrics.endEvent(HttpRequestTime);
+        }
+        return handleOneResponse(request, responseHandler,
+                errorResponseHandler, execContext, awsRequestMetrics, p);
+    }
+
+    /**
+     * Notifies the progress listener of a retry, and blocks the calling thread
+     * for the back-off pause before a retry and until the rate limiter lets
+     * the attempt through.
+     */
+    private void pauseBeforeAttempt(final Request<?> request,
+            final AWSRequestMetrics awsRequestMetrics,
+            ExecOneRequestParams p) {
+        if (p.isRetry()) {
+            // Notify the progress listener of the retry
+            publishProgress(request.getOriginalRequest().getGeneralProgressListener(),
+                    ProgressEventType.CLIENT_REQUEST_RETRY_EVENT);
+            awsRequestMetrics.startEvent(RetryPauseTime);
+            try {
+                // don't pause if the retry was not due to a redirection
+                // ie when retried exception is null
+                if (p.retriedException != null) {
+                    pauseBeforeNextRetry(request.getOriginalRequest(),
+                        p.retriedException, p.requestCount,
+                        config.getRetryPolicy());
+                }
+            } finally {
+                awsRequestMetrics.endEvent(RetryPauseTime);
+            }
+        }
+        if (rateLimiter != null) {
+            waitForRateLimiter(awsRequestMetrics);
+        }
+    }
+
+    /**
+     * Prepares a single http request attempt: resets the request content,
+     * signs the request and creates the underlying apache request. Returns the
+     * http context to execute the request with.
+     */
+    private HttpContext prepareOneRequest(final Request<?> request,
+            final ExecutionContext execContext,
+            final AWSRequestMetrics awsRequestMetrics,
+            ExecOneRequestParams p)
+            throws IOException {
         // Reset the request input stream
         if (p.isRetry()) {
             InputStream requestInputStream = request.getContent();
@@ -645,23 +1267,6 @@ public class AmazonHttpClient {
         final AmazonWebServiceRequest awsreq = request.getOriginalRequest();
         final ProgressListener listener = awsreq.getGeneralProgressListener();
 
-        if (p.isRetry()) {
-            publishProgress(listener, ProgressEventType.CLIENT_REQUEST_RETRY_EVENT);
-            // Notify the progress listener of the retry
-            awsRequestMetrics.startEvent(RetryPauseTime);
-            try {
-                // don't pause if the retry was not due to a redirection
-                // ie when retried exception is null
-                if (p.retriedException != null) {
-                    pauseBeforeNextRetry(request.getOriginalRequest(),
-                        p.retriedException, p.requestCount,
-                        config.getRetryPolicy());
-                }
-            } finally {
-                awsRequestMetrics.endEvent(RetryPauseTime);
-            }
-        }
-
         // Sign the request if a signer was provided
         p.newSigner(request, execContext);
         if (p.signer != null && credentials != null) {
@@ -685,23 +1290,28 @@ public class AmazonHttpClient {
         }
         p.newApacheRequest(httpRequestFactory, request, config, execContext);
 
-        captureConnectionPoolMetrics(httpClient.getConnectionManager(), awsRequestMetrics);
         HttpContext httpContext = new BasicHttpContext();
         httpContext.setAttribute(
             AWSRequestMetrics.class.getSimpleName(),
             awsRequestMetrics);
         p.resetBeforeHttpRequest();
         publishProgress(listener, ProgressEventType.HTTP_REQUEST_STARTED_EVENT);
-        awsRequestMetrics.startEvent(HttpRequestTime);
-
-        /////////// Send HTTP request ////////////
-        try {
-            p.apacheResponse = logRequestId(
-                httpClient.execute(p.apacheRequest, httpContext));
-        } finally {
-            awsRequestMetrics.endEvent(HttpRequestTime);
-        }
+        return httpContext;
+    }
 
+    /**
+     * Returns the response from handling the http response of a single
+     * request attempt; or null for retry.
+     */
+    private <T> Response<T> handleOneResponse(final Request<?> request,
+            final HttpResponseHandler<AmazonWebServiceResponse<T>> responseHandler,
+            final HttpResponseHandler<AmazonServiceException> errorResponseHandler,
+            final ExecutionContext execContext,
+            final AWSRequestMetrics awsRequestMetrics,
+            ExecOneRequestParams p)
+            throws IOException {
+        final ProgressListener listener =
+            request.getOriginalRequest().getGeneralProgressListener();
         publishProgress(listener, ProgressEventType.HTTP_REQUEST_COMPLETED_EVENT);
         final StatusLine statusLine = p.apacheResponse.getStatusLine();
         final int statusCode = statusLine == null ? -1 : statusLine.getStatusCode();
@@ -717,6 +1327,7 @@ public class AmazonHttpClient {
             T response = handleResponse(request, responseHandler,
                     p.apacheRequest, httpResponse, p.apacheResponse,
                     execContext);
+            afterSuccessfulAttempt(p);
             return new Response<T>(response, httpResponse);
         }
         if (isTemporaryRedirect(p.apacheResponse)) {
@@ -744,6 +1355,10 @@ public class AmazonHttpClient {
             .addPropertyWith(AWSRequestID, ase.getRequestId())
             .addPropertyWith(AWSErrorCode, ase.getErrorCode())
             .addPropertyWith(StatusCode, ase.getStatusCode());
+        final boolean throttled = RetryUtils.isThrottlingException(ase);
+        if (throttled && rateLimiter != null) {
+            rateLimiter.onThrottle();
+        }
         // Check whether we should internally retry the auth error
         p.authRetryParam = null;
         AuthErrorRetryStrategy authRetry = execContext.getAuthErrorRetryStrategy();
@@ -751,17 +1366,19 @@ public class AmazonHttpClient {
             p.authRetryParam = authRetry.shouldRetryWithAuthParam(request, ase);
         }
         if (p.authRetryParam == null &&
-            !shouldRetry(request.getOriginalRequest(),
+            (!shouldRetry(request.getOriginalRequest(),
                 p.apacheRequest,
                 ase,
                 p.requestCount,
-                config.getRetryPolicy())) {
+                config.getRetryPolicy())
+                || !acquireRetryCapacity(RetryTokenBucket.RETRY_COST,
+                        awsRequestMetrics, p))) {
             throw ase;
         }
         // Comment out for now. Ref: CR2662349
         // Preserve the cause of retry before retrying
         // awsRequestMetrics.addProperty(RetryCause, ase);
-        if (RetryUtils.isThrottlingException(ase)) {
+        if (throttled) {
             awsRequestMetrics.incrementCounterWith(ThrottleException)
                              .addProperty(ThrottleException, ase)
                              ;
@@ -780,6 +1397,80 @@ public class AmazonHttpClient {
         return null; // => retry
     }
 
+    /**
+     * Takes the given number of tokens from the retry capacity of this client
+     * for retrying a failed request, and returns false if the capacity has
+     * run out and the request should not be retried.
+     */
+    private boolean acquireRetryCapacity(int cost,
+            AWSRequestMetrics awsRequestMetrics, ExecOneRequestParams p) {
+        if (retryTokenBucket == null) {
+            return true;
+        }
+        if (retryTokenBucket.acquire(cost)) {
+            p.retryCost = cost;
+            return true;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Retry capacity exhausted, not retrying the request");
+        }
+        awsRequestMetrics.incrementCounter(RetryCapacityExceeded);
+        return false;
+    }
+
+    /**
+     * Returns retry capacity to this client after a successful request
+     * attempt, and lets the rate limiter raise the request rate.
+     */
+    private void afterSuccessfulAttempt(ExecOneRequestParams p) {
+        if (retryTokenBucket != null) {
+            retryTokenBucket.release(p.retryCost > 0
+                    ? p.retryCost
+                    : RetryTokenBucket.NO_RETRY_INCREMENT);
+        }
+        if (rateLimiter != null) {
+            rateLimiter.onSuccess();
+        }
+    }
+
+    /**
+     * Waits until the rate limiter of this client lets the next request
+     * attempt through.
+     */
+    private void waitForRateLimiter(AWSRequestMetrics awsRequestMetrics) {
+        long delayNanos = acquireRateLimiterToken(awsRequestMetrics);
+        if (delayNanos <= 0) {
+            return;
+        }
+        awsRequestMetrics.startEvent(RateLimitDelayTime);
+        try {
+            TimeUnit.NANOSECONDS.sleep(delayNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException(e.getMessage(), e);
+        } finally {
+            awsRequestMetrics.endEvent(RateLimitDelayTime);
+        }
+    }
+
+    /**
+     * Takes a token from the rate limiter of this client for the next request
+     * attempt, and returns the number of nanoseconds to wait before sending
+     * it, if any.
+     */
+    private long acquireRateLimiterToken(AWSRequestMetrics awsRequestMetrics) {
+        long delayNanos = rateLimiter.acquire();
+        if (rateLimiter.isEnabled()) {
+            awsRequestMetrics.addProperty(RateLimitFillRate,
+                    rateLimiter.getFillRate());
+        }
+        if (delayNanos > 0 && log.isDebugEnabled()) {
+            log.debug("Request rate limited, will send in "
+                    + TimeUnit.NANOSECONDS.toMillis(delayNanos) + "ms");
+        }
+        return delayNanos;
+    }
+
     /**
      * Used to log the "x-amzn-RequestId" header at INFO level, if any, from the
      * response. This method assumes the apache http request/response has just
@@ -872,6 +1563,9 @@ public class AmazonHttpClient {
     public void shutdown() {
         IdleConnectionReaper.removeConnectionManager(httpClient.getConnectionManager());
         httpClient.getConnectionManager().shutdown();
+        if (asyncTransport != null) {
+            asyncTransport.shutdown();
+        }
     }
 
     /**
@@ -1159,6 +1853,26 @@ public class AmazonHttpClient {
                                     AmazonClientException previousException,
                                     int requestCount,
                                     RetryPolicy retryPolicy) {
+        long delay = delayBeforeNextRetry(originalRequest, previousException,
+                requestCount, retryPolicy);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the number of milliseconds to wait before the next retry of a
+     * failed request, as given by the back-off strategy of the retry policy.
+     *
+     * @see #pauseBeforeNextRetry
+     */
+    private long delayBeforeNextRetry(AmazonWebServiceRequest originalRequest,
+                                      AmazonClientException previousException,
+                                      int requestCount,
+                                      RetryPolicy retryPolicy) {
         final int retries = requestCount // including next attempt
                             - 1          // number of attempted requests
                             - 1;         // number of attempted retries
@@ -1170,13 +1884,7 @@ public class AmazonHttpClient {
             log.debug("Retriable error detected, " +
                     "will retry in " + delay + "ms, attempt number: " + retries);
         }
-
-        try {
-            Thread.sleep(delay);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new AmazonClientException(e.getMessage(), e);
-        }
+        return delay;
     }
 
     // SWF: Signature not yet current: 20140819T173921Z is still later than 20140819T173829Z (20140819T173329Z + 5 min.)
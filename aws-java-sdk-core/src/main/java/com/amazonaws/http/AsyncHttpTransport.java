@@ -0,0 +1,57 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.http;
+
+import java.util.concurrent.Future;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * A non-blocking transport used by {@link AmazonHttpClient} to send a single,
+ * already signed HTTP request. Implementations must not block the calling
+ * thread while waiting on the network; instead the given callback is notified
+ * once the response has been fully received, or the exchange failed.
+ * <p>
+ * Signing, retries, error handling and response unmarshalling all stay in
+ * {@link AmazonHttpClient}; a transport is only responsible for moving bytes.
+ *
+ * @see com.amazonaws.ClientConfiguration#setUseNonBlockingTransport(boolean)
+ */
+public interface AsyncHttpTransport {
+
+    /**
+     * Sends the given request asynchronously.
+     *
+     * @param request
+     *            the fully prepared (and signed) HTTP request
+     * @param context
+     *            the HTTP context for the exchange
+     * @param callback
+     *            the callback to be notified on completion; never null
+     *
+     * @return a future for the HTTP response
+     */
+    Future<HttpResponse> execute(HttpRequestBase request, HttpContext context,
+            FutureCallback<HttpResponse> callback);
+
+    /**
+     * Releases any resources (I/O reactor threads, connections, etc.) held by
+     * this transport.
+     */
+    void shutdown();
+}
@@ -29,7 +29,7 @@ import com.amazonaws.transform.JsonUnmarshallerContext;
 import com.amazonaws.transform.JsonUnmarshallerContextImpl;
 import com.amazonaws.transform.Unmarshaller;
 import com.amazonaws.transform.VoidJsonUnmarshaller;
-import com.amazonaws.util.CRC32ChecksumCalculatingInputStream;
+import com.amazonaws.util.CRC32ChecksumValidatingInputStream;
 
 /**
  * Default implementation of HttpResponseHandler that handles a successful
@@ -84,13 +84,16 @@ public class JsonResponseHandler<T> implements HttpResponseHandler<AmazonWebServ
         log.trace("Parsing service response JSON");
 
         String CRC32Checksum = response.getHeaders().get("x-amz-crc32");
-        CRC32ChecksumCalculatingInputStream crc32ChecksumInputStream = null;
+        CRC32ChecksumValidatingInputStream crc32ChecksumInputStream = null;
 
         JsonParser jsonParser = null;
 
         if (!needsConnectionLeftOpen) {
             if (CRC32Checksum != null) {
-                crc32ChecksumInputStream = new CRC32ChecksumCalculatingInputStream(response.getContent());
+                // The checksum is verified as soon as the parser reads the
+                // end of the body
+                crc32ChecksumInputStream = new CRC32ChecksumValidatingInputStream(
+                        response.getContent(), Long.parseLong(CRC32Checksum));
                 jsonParser = jsonFactory.createParser(crc32ChecksumInputStream);
             } else {
                 jsonParser = jsonFactory.createParser(response.getContent());
@@ -103,14 +106,20 @@ public class JsonResponseHandler<T> implements HttpResponseHandler<AmazonWebServ
                     jsonParser, response);
             registerAdditionalMetadataExpressions(unmarshallerContext);
 
-            T result = responseUnmarshaller.unmarshall(unmarshallerContext);
-
-            if (CRC32Checksum != null) {
-                long serverSideCRC = Long.parseLong(CRC32Checksum);
-                long clientSideCRC = crc32ChecksumInputStream.getCRC32Checksum();
-                if (clientSideCRC != serverSideCRC) {
-                    throw new CRC32MismatchException("Client calculated crc32 checksum didn't match that calculated by server side");
+            T result;
+            try {
+                result = responseUnmarshaller.unmarshall(unmarshallerContext);
+                if (crc32ChecksumInputStream != null) {
+                    // In case the parser stopped short of the end of the body
+                    crc32ChecksumInputStream.readToEnd();
+                }
+            } catch (CRC32MismatchException e) {
+                throw e;
+            } catch (Exception e) {
+                if (crc32ChecksumInputStream != null) {
+                    verifyChecksumOnFailure(crc32ChecksumInputStream, e);
                 }
+                throw e;
             }
 
             awsResponse.setResult(result);
@@ -132,6 +141,22 @@ public class JsonResponseHandler<T> implements HttpResponseHandler<AmazonWebServ
         }
     }
 
+    /**
+     * Reads the rest of a body that failed to unmarshall, to report a
+     * corrupted body as a checksum mismatch rather than the failure it caused.
+     */
+    private static void verifyChecksumOnFailure(
+            CRC32ChecksumValidatingInputStream crc32ChecksumInputStream,
+            Exception failure) throws CRC32MismatchException {
+        try {
+            crc32ChecksumInputStream.readToEnd();
+        } catch (CRC32MismatchException e) {
+            throw new CRC32MismatchException(e.getMessage(), failure);
+        } catch (IOException e) {
+            log.debug("Unable to read the rest of the response to verify its checksum", e);
+        }
+    }
+
     /**
      * Hook for subclasses to override in order to collect additional metadata
      * from service responses.
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.http;
+
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.Future;
+
+import javax.net.ssl.SSLContext;
+
+import org.apache.http.Header;
+import org.apache.http.HeaderElement;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.NTCredentials;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.entity.GzipDecompressingEntity;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.BasicCredentialsProvider;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.protocol.HttpContext;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.ClientConfiguration;
+
+/**
+ * Responsible for creating and configuring the non-blocking transport, backed
+ * by Apache HttpAsyncClient, that {@link AmazonHttpClient} uses when
+ * {@link ClientConfiguration#useNonBlockingTransport()} is enabled.
+ * <p>
+ * The Apache HttpAsyncClient library is an optional dependency of the SDK and
+ * must be on the classpath to enable the non-blocking transport.
+ */
+class NioHttpTransportFactory {
+
+    /**
+     * Creates and starts a new non-blocking transport using the specified AWS
+     * ClientConfiguration to configure the underlying I/O reactor.
+     *
+     * @param config
+     *            Client configuration options (ex: proxy settings, connection
+     *            limits, etc).
+     *
+     * @return The new, configured and started transport.
+     */
+    public AsyncHttpTransport createTransport(ClientConfiguration config) {
+        int socketSendBufferSizeHint = config.getSocketBufferSizeHints()[0];
+        int socketReceiveBufferSizeHint = config.getSocketBufferSizeHints()[1];
+        IOReactorConfig.Builder ioReactorConfig = IOReactorConfig.custom()
+                .setConnectTimeout(config.getConnectionTimeout())
+                .setSoTimeout(config.getSocketTimeout())
+                .setTcpNoDelay(true)
+                .setSoKeepAlive(config.useTcpKeepAlive());
+        if (socketSendBufferSizeHint > 0) {
+            ioReactorConfig.setSndBufSize(socketSendBufferSizeHint);
+        }
+        if (socketReceiveBufferSizeHint > 0) {
+            ioReactorConfig.setRcvBufSize(socketReceiveBufferSizeHint);
+        }
+
+        RequestConfig.Builder requestConfig = RequestConfig.custom()
+                .setConnectTimeout(config.getConnectionTimeout())
+                .setSocketTimeout(config.getSocketTimeout())
+                .setRedirectsEnabled(false)
+                .setLocalAddress(config.getLocalAddress());
+
+        HttpAsyncClientBuilder builder = HttpAsyncClients.custom()
+                .setDefaultIOReactorConfig(ioReactorConfig.build())
+                .setMaxConnTotal(config.getMaxConnections())
+                .setMaxConnPerRoute(config.getMaxConnections())
+                .disableCookieManagement();
+
+        try {
+            builder.setSSLContext(SSLContext.getDefault())
+                   .setHostnameVerifier(SSLConnectionSocketFactory.STRICT_HOSTNAME_VERIFIER);
+        } catch (NoSuchAlgorithmException e) {
+            throw new AmazonClientException("Unable to access default SSL context", e);
+        }
+
+        /* Set proxy if configured */
+        String proxyHost = config.getProxyHost();
+        int proxyPort = config.getProxyPort();
+        if (proxyHost != null && proxyPort > 0) {
+            AmazonHttpClient.log.info("Configuring Proxy. Proxy Host: " + proxyHost + " " + "Proxy Port: " + proxyPort);
+            requestConfig.setProxy(new HttpHost(proxyHost, proxyPort));
+
+            String proxyUsername    = config.getProxyUsername();
+            String proxyPassword    = config.getProxyPassword();
+            String proxyDomain      = config.getProxyDomain();
+            String proxyWorkstation = config.getProxyWorkstation();
+
+            if (proxyUsername != null && proxyPassword != null) {
+                BasicCredentialsProvider credentialsProvider = new BasicCredentialsProvider();
+                credentialsProvider.setCredentials(
+                        new AuthScope(proxyHost, proxyPort),
+                        new NTCredentials(proxyUsername, proxyPassword, proxyWorkstation, proxyDomain));
+                builder.setDefaultCredentialsProvider(credentialsProvider);
+            }
+        }
+        builder.setDefaultRequestConfig(requestConfig.build());
+
+        /* Accept Gzip response if configured */
+        if (config.useGzip()) {
+            builder.addInterceptorLast(new HttpRequestInterceptor() {
+
+                public void process(final HttpRequest request,
+                        final HttpContext context) throws HttpException,
+                        IOException {
+                    if (!request.containsHeader("Accept-Encoding")) {
+                        request.addHeader("Accept-Encoding", "gzip");
+                    }
+                }
+
+            });
+            builder.addInterceptorLast(new HttpResponseInterceptor() {
+
+                public void process(final HttpResponse response,
+                        final HttpContext context) throws HttpException,
+                        IOException {
+                    HttpEntity entity = response.getEntity();
+                    if (entity != null) {
+                        Header ceheader = entity.getContentEncoding();
+                        if (ceheader != null) {
+                            for (HeaderElement codec : ceheader.getElements()) {
+                                if (codec.getName().equalsIgnoreCase("gzip")) {
+                                    response.setEntity(new GzipDecompressingEntity(entity));
+                                    return;
+                                }
+                            }
+                        }
+                    }
+                }
+
+            });
+        }
+
+        CloseableHttpAsyncClient asyncClient = builder.build();
+        asyncClient.start();
+        return new HttpAsyncClientTransport(asyncClient);
+    }
+
+    /**
+     * Adapts an Apache HttpAsyncClient to the {@link AsyncHttpTransport}
+     * interface. Responses are fully buffered in memory by the client before
+     * the callback is notified, so response handlers never block on the
+     * network.
+     */
+    private static final class HttpAsyncClientTransport implements AsyncHttpTransport {
+        private final CloseableHttpAsyncClient asyncClient;
+
+        HttpAsyncClientTransport(CloseableHttpAsyncClient asyncClient) {
+            this.asyncClient = asyncClient;
+        }
+
+        @Override
+        public Future<HttpResponse> execute(HttpRequestBase request,
+                HttpContext context, FutureCallback<HttpResponse> callback) {
+            return asyncClient.execute(request, context, callback);
+        }
+
+        @Override
+        public void shutdown() {
+            try {
+                asyncClient.close();
+            } catch (IOException e) {
+                AmazonHttpClient.log.debug("Unable to shut down the non-blocking transport", e);
+            }
+        }
+    }
+}
@@ -37,6 +37,14 @@ import com.amazonaws.metrics.internal.ServiceMetricTypeGuesser;
  * attempts to write out the request.
  */
 class RepeatableInputStreamRequestEntity extends BasicHttpEntity {
+    /** The buffer size used when the content length is unknown. */
+    static final int DEFAULT_BUFFER_SIZE = 4 * 1024;
+    /**
+     * The maximum buffer size used to write out content of known length, so
+     * large uploads are written out, and pass through the filter streams of
+     * the content, in a few large chunks rather than many small ones.
+     */
+    static final int MAX_BUFFER_SIZE = 128 * 1024;
 
     /** True if the request entity hasn't been written out yet */
     private boolean firstAttempt = true;
@@ -150,11 +158,47 @@ class RepeatableInputStreamRequestEntity extends BasicHttpEntity {
             if (!firstAttempt && isRepeatable()) content.reset();
 
             firstAttempt = false;
-            inputStreamRequestEntity.writeTo(output);
+            if (inputStreamRequestEntity instanceof MetricInputStreamEntity) {
+                inputStreamRequestEntity.writeTo(output);
+            } else {
+                writeContentTo(output);
+            }
         } catch (IOException ioe) {
             if (originalException == null) originalException = ioe;
             throw originalException;
         }
     }
 
+    /**
+     * Writes out the content like {@link InputStreamEntity#writeTo(OutputStream)},
+     * but through a buffer sized after the content length.
+     */
+    private void writeContentTo(OutputStream output) throws IOException {
+        final long length = getContentLength();
+        try {
+            if (length < 0) {
+                // consume until EOF
+                byte[] buffer = new byte[DEFAULT_BUFFER_SIZE];
+                int n;
+                while ((n = content.read(buffer)) != -1) {
+                    output.write(buffer, 0, n);
+                }
+            } else {
+                // consume no more than length
+                byte[] buffer = new byte[(int) Math.min(length, MAX_BUFFER_SIZE)];
+                long remaining = length;
+                while (remaining > 0) {
+                    int n = content.read(buffer, 0,
+                            (int) Math.min(buffer.length, remaining));
+                    if (n == -1)
+                        break;
+                    output.write(buffer, 0, n);
+                    remaining -= n;
+                }
+            }
+        } finally {
+            content.close();
+        }
+    }
+
 }
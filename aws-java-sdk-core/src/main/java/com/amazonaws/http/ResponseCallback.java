@@ -0,0 +1,42 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.http;
+
+import com.amazonaws.AmazonWebServiceResponse;
+import com.amazonaws.Response;
+
+/**
+ * A callback notified once an asynchronous execution of
+ * {@link AmazonHttpClient#executeAsync(com.amazonaws.Request, HttpResponseHandler, HttpResponseHandler, ExecutionContext, ResponseCallback)}
+ * completes. It is only notified after the future returned by that method is
+ * done, so an exception thrown by the callback cannot keep the future from
+ * completing; such an exception is logged and otherwise ignored.
+ *
+ * @param <T>
+ *            The type of the result of the {@link AmazonWebServiceResponse}
+ */
+public interface ResponseCallback<T> {
+
+    /**
+     * Called once the response has been successfully handled.
+     */
+    void onSuccess(Response<T> response);
+
+    /**
+     * Called once the execution has failed after exhausting all retries, or
+     * has been cancelled.
+     */
+    void onError(Exception exception);
+}
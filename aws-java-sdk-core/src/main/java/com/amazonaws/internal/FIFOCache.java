@@ -14,24 +14,33 @@
  */
 package com.amazonaws.internal;
 
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock.ReadLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock.WriteLock;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.amazonaws.annotation.ThreadSafe;
 
 /**
  * A bounded cache that has a FIFO eviction policy when the cache is full.
- * 
+ * <p>
+ * Lookups and additions never block: entries are kept in a
+ * {@link ConcurrentHashMap}, and the order in which keys were added in a
+ * lock-free queue. While several threads are adding entries at the same time
+ * the cache may briefly hold more than the maximum number of entries, until
+ * each of them has evicted the oldest entry in turn.
+ *
  * @param <T>
  *            value type
  */
 @ThreadSafe
 public final class FIFOCache<T> {
-    private final BoundedLinkedHashMap<String, T> map;
-    private final ReadLock rlock;
-    private final WriteLock wlock;
-    
+    private final ConcurrentMap<String, T> map;
+    private final Queue<String> insertionOrder = new ConcurrentLinkedQueue<String>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final int maxSize;
+
     /**
      * @param maxSize
      *            the maximum number of entries of the cache
@@ -41,60 +50,49 @@ public final class FIFOCache<T> {
             throw new IllegalArgumentException("maxSize " + maxSize
                     + " must be at least 1");
         }
-        map = new BoundedLinkedHashMap<String, T>(maxSize);
-        ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
-        rlock = lock.readLock();
-        wlock = lock.writeLock();
+        this.maxSize = maxSize;
+        map = new ConcurrentHashMap<String, T>(Math.min(maxSize, 1024));
     }
 
     /**
      * Adds an entry to the cache, evicting the ealiest entry if necessary.
      */
     public T add(String key, T value) {
-        wlock.lock();
-        try {
-            return map.put(key, value);
-        } finally {
-            wlock.unlock();
+        T previous = map.put(key, value);
+        if (previous == null) {
+            insertionOrder.add(key);
+            if (size.incrementAndGet() > maxSize) {
+                String eldest = insertionOrder.poll();
+                if (eldest != null) {
+                    map.remove(eldest);
+                    size.decrementAndGet();
+                }
+            }
         }
+        return previous;
     }
 
     /** Returns the value of the given key; or null of no such entry exists. */
     public T get(String key) {
-        rlock.lock();
-        try {
-            return map.get(key);
-        } finally {
-            rlock.unlock();
-        }
+        return map.get(key);
     }
 
     /**
      * Returns the current size of the cache.
      */
     public int size() {
-        rlock.lock();
-        try {
-            return map.size();
-        } finally {
-            rlock.unlock();
-        }
+        return map.size();
     }
 
     /**
      * Returns the maximum size of the cache.
      */
     public int getMaxSize() {
-        return map.getMaxSize();
+        return maxSize;
     }
 
     @Override
     public String toString() {
-        rlock.lock();
-        try {
-            return map.toString();
-        } finally {
-            rlock.unlock();
-        }
+        return map.toString();
     }
 }
@@ -828,6 +828,8 @@ public enum AwsSdkMetrics {
             metricTypes.add(Field.HttpClientPoolAvailableCount);
             metricTypes.add(Field.HttpClientPoolLeasedCount);
             metricTypes.add(Field.HttpClientPoolPendingCount);
+            metricTypes.add(Field.RetryCapacityExceeded);
+            metricTypes.add(Field.RateLimitDelayTime);
             metricTypes.add(AWSServiceMetrics.HttpClientGetConnectionTime);
             syncReadOnly();
         }
@@ -65,6 +65,12 @@
  * client type level. </li>
  * <li>RetryCount - Number of retries per logical request. Captured on a per service 
  * client type level. </li>
+ * <li>RetryCapacityExceeded - Number of retries not attempted because the retry
+ * capacity of the service client had run out. Captured on a per service client
+ * type level. </li>
+ * <li>RateLimitDelayTime - Number of milliseconds a logical request waited for
+ * the adaptive rate limiter of the service client before being sent. Captured
+ * on a per request type level. </li>
  * <li>ThrottleException - Number of times of a request has been throttled by the service.</li>
  * <li>DynamoDBConsumedCapacity - Number of Amazon DynamoDB capacity units consumed.
  * Captured on a per request type level, and is only available if the request
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.retry.internal;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * For internal use only.
+ * <p>
+ * Client side rate limiter that adapts the rate at which a client sends
+ * requests to the throttling responses it gets back.
+ * <p>
+ * The limiter stays out of the way until the service throttles a request. It
+ * then only lets requests through at a fraction of the rate the client was
+ * sending at, and each successful response afterwards raises the allowed
+ * rate again in proportion to the time passed since the last throttling
+ * response (additive increase, multiplicative decrease). Once the allowed
+ * rate has grown well past the rate that got throttled, the limiter turns
+ * itself off again.
+ */
+public class AdaptiveRateLimiter {
+
+    /** Lowest rate, in requests per second, the limiter will cut down to. */
+    static final double MIN_FILL_RATE = 0.5;
+
+    /** Factor the send rate is multiplied by on a throttling response. */
+    static final double DECREASE_FACTOR = 0.7;
+
+    /**
+     * Fraction of the throttled rate added back to the allowed rate for each
+     * second without throttling; never less than one request per second.
+     */
+    static final double INCREASE_FACTOR = 0.05;
+
+    /**
+     * Multiple of the throttled rate at which the limiter stops limiting.
+     */
+    static final double DISABLE_FACTOR = 2.0;
+
+    /** Weight of the previous measurement in the smoothed send rate. */
+    private static final double SMOOTHING = 0.8;
+
+    private static final long MEASUREMENT_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private boolean enabled;
+
+    /** The allowed rate, in requests per second, while enabled. */
+    private double fillRate;
+
+    /** The rate, in requests per second, at the last throttling response. */
+    private double throttledRate;
+
+    private long lastThrottleNanos;
+
+    /** Tokens left to send with; negative while requests are queued. */
+    private double tokens;
+
+    private long lastRefillNanos;
+
+    /** Smoothed rate, in requests per second, at which requests are sent. */
+    private double measuredRate;
+
+    private long measurementStartNanos;
+
+    private int measuredCount;
+
+    public AdaptiveRateLimiter() {
+        measurementStartNanos = nanoTime();
+    }
+
+    /**
+     * Takes a token for sending the next request, and returns the number of
+     * nanoseconds the caller has to wait before sending it, if any.
+     */
+    public synchronized long acquire() {
+        long now = nanoTime();
+        measure(now);
+        if (!enabled) {
+            return 0;
+        }
+        refill(now);
+        tokens -= 1;
+        if (tokens >= 0) {
+            return 0;
+        }
+        return (long) Math.ceil(-tokens / fillRate * NANOS_PER_SECOND);
+    }
+
+    /**
+     * Cuts the allowed rate after the service throttled a request, enabling
+     * the limiter if it isn't already.
+     */
+    public synchronized void onThrottle() {
+        long now = nanoTime();
+        double currentRate = enabled ? Math.min(fillRate, sendRate(now)) : sendRate(now);
+        if (!enabled) {
+            enabled = true;
+            tokens = 0;
+            lastRefillNanos = now;
+        } else {
+            refill(now);
+        }
+        throttledRate = Math.max(MIN_FILL_RATE, currentRate);
+        fillRate = Math.max(MIN_FILL_RATE, currentRate * DECREASE_FACTOR);
+        lastThrottleNanos = now;
+    }
+
+    /**
+     * Raises the allowed rate after a successful response, and disables the
+     * limiter once the rate is well past the one that got throttled.
+     */
+    public synchronized void onSuccess() {
+        if (!enabled) {
+            return;
+        }
+        long now = nanoTime();
+        refill(now);
+        double seconds = (now - lastThrottleNanos) / NANOS_PER_SECOND;
+        double increase = Math.max(1.0, throttledRate * INCREASE_FACTOR) * seconds;
+        fillRate = Math.max(fillRate, throttledRate * DECREASE_FACTOR + increase);
+        if (fillRate >= throttledRate * DISABLE_FACTOR) {
+            enabled = false;
+        }
+    }
+
+    /** Returns whether requests are currently being limited. */
+    public synchronized boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the allowed rate in requests per second, or zero if requests
+     * are not currently being limited.
+     */
+    public synchronized double getFillRate() {
+        return enabled ? fillRate : 0;
+    }
+
+    /** Returns the current time in nanoseconds; overridden by tests. */
+    protected long nanoTime() {
+        return System.nanoTime();
+    }
+
+    private void refill(long now) {
+        double seconds = (now - lastRefillNanos) / NANOS_PER_SECOND;
+        tokens = Math.min(Math.max(1.0, fillRate), tokens + seconds * fillRate);
+        lastRefillNanos = now;
+    }
+
+    /** Counts a request being sent towards the measured send rate. */
+    private void measure(long now) {
+        long elapsed = now - measurementStartNanos;
+        if (elapsed >= MEASUREMENT_INTERVAL_NANOS) {
+            double rate = measuredCount * NANOS_PER_SECOND / elapsed;
+            measuredRate = measuredRate == 0
+                    ? rate
+                    : SMOOTHING * measuredRate + (1 - SMOOTHING) * rate;
+            measuredCount = 0;
+            measurementStartNanos = now;
+        }
+        measuredCount++;
+    }
+
+    /**
+     * Returns the measured send rate, falling back to the rate within the
+     * current interval before the first interval is complete.
+     */
+    private double sendRate(long now) {
+        if (measuredRate > 0) {
+            return measuredRate;
+        }
+        long elapsed = Math.max(now - measurementStartNanos, MEASUREMENT_INTERVAL_NANOS);
+        return measuredCount * NANOS_PER_SECOND / elapsed;
+    }
+}
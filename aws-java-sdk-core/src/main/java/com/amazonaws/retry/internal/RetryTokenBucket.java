@@ -0,0 +1,99 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.retry.internal;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * For internal use only.
+ * <p>
+ * A pool of retry tokens shared by all the requests of a client. Every retry
+ * has to take tokens out of the pool, and every successful request puts
+ * tokens back in, so while a service keeps failing the client soon stops
+ * retrying and fails fast, instead of multiplying its load on the service
+ * by the maximum number of retries.
+ */
+public class RetryTokenBucket {
+
+    /** Number of tokens taken for retrying a failed request. */
+    public static final int RETRY_COST = 5;
+
+    /**
+     * Number of tokens taken for retrying a request that failed without a
+     * response, such as on a timeout, which is more costly to wait for.
+     */
+    public static final int IO_ERROR_RETRY_COST = 10;
+
+    /** Number of tokens returned by a request that succeeded without retries. */
+    public static final int NO_RETRY_INCREMENT = 1;
+
+    private final int capacity;
+    private final AtomicInteger availableTokens;
+
+    /**
+     * @param capacity
+     *            the maximum, and initial, number of tokens in the bucket.
+     */
+    public RetryTokenBucket(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Retry capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.availableTokens = new AtomicInteger(capacity);
+    }
+
+    /**
+     * Takes the given number of tokens from the bucket, and returns false
+     * without taking any if there are not enough of them left.
+     */
+    public boolean acquire(int tokens) {
+        while (true) {
+            int available = availableTokens.get();
+            if (available < tokens) {
+                return false;
+            }
+            if (availableTokens.compareAndSet(available, available - tokens)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Puts the given number of tokens back into the bucket, up to its
+     * capacity.
+     */
+    public void release(int tokens) {
+        while (true) {
+            int available = availableTokens.get();
+            if (available >= capacity) {
+                return;
+            }
+            int updated = Math.min(capacity, available + tokens);
+            if (availableTokens.compareAndSet(available, updated)) {
+                return;
+            }
+        }
+    }
+
+    /** Returns the number of tokens currently left in the bucket. */
+    public int getAvailableTokens() {
+        return availableTokens.get();
+    }
+
+    /** Returns the maximum number of tokens in the bucket. */
+    public int getCapacity() {
+        return capacity;
+    }
+}
@@ -14,6 +14,8 @@
  */
 package com.amazonaws.transform;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -21,10 +23,19 @@ import java.util.List;
 import java.util.Map;
 import java.util.Stack;
 
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLEventFactory;
 import javax.xml.stream.XMLEventReader;
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.Characters;
+import javax.xml.stream.events.EndElement;
+import javax.xml.stream.events.Namespace;
+import javax.xml.stream.events.StartElement;
 import javax.xml.stream.events.XMLEvent;
 
 /**
@@ -34,14 +45,66 @@ import javax.xml.stream.events.XMLEvent;
  * response. It also tracks the current position and element depth of the
  * document being parsed and provides utilties for accessing the next XML event
  * from the parser, reading element text, handling attribute XML events, etc.
+ * <p>
+ * The document can be read either from an {@link XMLEventReader}, or from an
+ * {@link XMLStreamReader} (the StAX cursor API). When reading from an
+ * XMLStreamReader, no event is allocated per node: {@link #nextEvent()}
+ * returns a single mutable event per event type, which is reset for every
+ * node of that type. Such an event only carries its event type until one of
+ * its <code>as*</code> methods is called; the full event is then built from
+ * the cursor, which must not have moved on since the event was returned. An
+ * event that must be kept after reading on has to be copied with
+ * {@link #snapshot(XMLEvent)} first.
  */
 public class StaxUnmarshallerContext {
 
     private XMLEvent currentEvent;
     private final XMLEventReader eventReader;
 
+    /** The cursor to read from; or null if reading from an event reader. */
+    private final XMLStreamReader streamReader;
+    /** Whether the cursor has been moved past the start of the document. */
+    private boolean started;
+    /** Whether the cursor already sits on the end of the current element. */
+    private boolean pendingEndElement;
+    /** Event type of the last event returned in cursor mode. */
+    private int currentEventType;
+    /** The events returned in cursor mode, reused for every node of their type. */
+    private final CursorEvent[] cursorEvents = new CursorEvent[16];
+    private final AttributeEvent attributeEvent = new AttributeEvent();
+    /**
+     * The number of attributes of the last start element, which are returned
+     * one by one as events, and the index of the next one.
+     */
+    private int attributeCount;
+    private int attributeIndex;
+    /**
+     * Copies of the attributes of the last start element, only made when the
+     * cursor moves on before they are all returned; or null.
+     */
+    private String[] attributeNames;
+    private String[] attributeValues;
+    private boolean attributesCaptured;
+    /** The number of times the cursor has been moved. */
+    private long cursorMoves;
+    /** Creates the full events of the cursor when asked for; or null. */
+    private XMLEventFactory eventFactory;
+    /** Keys of the metadata expressions matching the current element. */
+    private final List<String> pendingMetadataKeys = new ArrayList<String>(2);
+    /** The text of the current element read so far for the metadata. */
+    private final StringBuilder pendingMetadataText = new StringBuilder();
+    private boolean hasPendingMetadataText;
+
     public final Stack<String> stack = new Stack<String>();
-    private String stackString = "";
+
+    /**
+     * The current path ("/Parent/Child" or "/Parent/Child/@attribute"), kept
+     * in a reusable buffer instead of being rebuilt as a String.
+     */
+    private char[] path = new char[128];
+    private int pathLength;
+    /** The length of the path up to (and including) each element of the stack. */
+    private int[] elementPathLengths = new int[16];
 
     private Map<String, String> metadata = new HashMap<String, String>();
     private List<MetadataExpression> metadataExpressions = new ArrayList<MetadataExpression>();
@@ -71,6 +134,24 @@ public class StaxUnmarshallerContext {
      */
     public StaxUnmarshallerContext(XMLEventReader eventReader, Map<String, String> headers) {
         this.eventReader = eventReader;
+        this.streamReader = null;
+        this.headers = headers;
+    }
+
+    /**
+     * Constructs a new unmarshaller context reading the XML document from the
+     * specified cursor, and a set of response headers.
+     *
+     * @param streamReader
+     *            The cursor over the XML document, positioned at the start of
+     *            the document.
+     * @param headers
+     *            The set of response headers associated with this unmarshaller
+     *            context.
+     */
+    public StaxUnmarshallerContext(XMLStreamReader streamReader, Map<String, String> headers) {
+        this.eventReader = null;
+        this.streamReader = streamReader;
         this.headers = headers;
     }
 
@@ -97,6 +178,10 @@ public class StaxUnmarshallerContext {
      * @throws XMLStreamException
      */
     public String readText() throws XMLStreamException {
+        if (streamReader != null) {
+            return readCursorText();
+        }
+
         if (currentEvent.isAttribute()) {
             Attribute attribute = (Attribute)currentEvent;
             return attribute.getValue();
@@ -138,7 +223,7 @@ public class StaxUnmarshallerContext {
      */
     public boolean testExpression(String expression) {
         if (expression.equals(".")) return true;
-        return stackString.endsWith(expression);
+        return pathEndsWith(expression, false);
     }
 
     /**
@@ -168,7 +253,7 @@ public class StaxUnmarshallerContext {
 
 
         return (startingStackDepth == getCurrentDepth()
-                && stackString.endsWith("/" + expression));
+                && pathEndsWith(expression, true));
     }
 
     /**
@@ -180,6 +265,10 @@ public class StaxUnmarshallerContext {
      *         yet).
      */
     public boolean isStartOfDocument() throws XMLStreamException {
+        if (streamReader != null) {
+            return !started
+                    && streamReader.getEventType() == XMLStreamConstants.START_DOCUMENT;
+        }
         return eventReader.peek().isStartDocument();
     }
 
@@ -191,6 +280,10 @@ public class StaxUnmarshallerContext {
      * @throws XMLStreamException
      */
     public XMLEvent nextEvent() throws XMLStreamException {
+        if (streamReader != null) {
+            return nextCursorEvent();
+        }
+
         if (attributeIterator != null && attributeIterator.hasNext()) {
             currentEvent = (XMLEvent)attributeIterator.next();
         } else {
@@ -217,6 +310,31 @@ public class StaxUnmarshallerContext {
         return currentEvent;
     }
 
+    /**
+     * Returns a copy of the given event, which stays valid after this context
+     * reads on. When reading from an XMLStreamReader, the events returned by
+     * {@link #nextEvent()} are reused for the next node of the same type, so
+     * they must be copied, before reading on, to be kept.
+     *
+     * @param event
+     *            The event last returned by {@link #nextEvent()}.
+     *
+     * @return A copy of the event; or the event itself if it is not reused.
+     *
+     * @throws IllegalStateException
+     *             If the cursor has moved on since the event was returned.
+     */
+    public XMLEvent snapshot(XMLEvent event) {
+        if (event instanceof CursorEvent) {
+            return ((CursorEvent) event).event();
+        }
+        if (event instanceof AttributeEvent) {
+            AttributeEvent attribute = (AttributeEvent) event;
+            return new AttributeEvent().reset(attribute.localName, attribute.value);
+        }
+        return event;
+    }
+
     /**
      * Returns any metadata collected through metadata expressions while this
      * context was reading the XML events from the XML document.
@@ -271,22 +389,595 @@ public class StaxUnmarshallerContext {
         if (event == null) return;
 
         if (event.isEndElement()) {
-            stack.pop();
-            stackString = "";
-            for (String s : stack) {
-                stackString += "/" + s;
-            }
+            popElement();
         } else if (event.isStartElement()) {
-            stack.push(event.asStartElement().getName().getLocalPart());
-            stackString += "/" + event.asStartElement().getName().getLocalPart();
+            pushElement(event.asStartElement().getName().getLocalPart());
         } else if (event.isAttribute()) {
             Attribute attribute = (Attribute)event;
-            stackString = "";
-            for (String s : stack) {
-                stackString += "/" + s;
+            setAttributePath(attribute.getName().getLocalPart());
+        }
+    }
+
+    /**
+     * Moves the cursor to the next node of the document, and returns the
+     * shared event for its type, reset for that node.
+     */
+    private XMLEvent nextCursorEvent() throws XMLStreamException {
+        if (attributeIndex < attributeCount) {
+            String name = attributeName(attributeIndex);
+            String value = attributeValue(attributeIndex++);
+            setAttributePath(name);
+            currentEventType = XMLStreamConstants.ATTRIBUTE;
+            return attributeEvent.reset(name, value);
+        }
+
+        int eventType;
+        if (!started) {
+            started = true;
+            eventType = streamReader.getEventType();
+        } else if (pendingEndElement) {
+            pendingEndElement = false;
+            eventType = XMLStreamConstants.END_ELEMENT;
+        } else {
+            eventType = streamReader.next();
+            cursorMoves++;
+        }
+        currentEventType = eventType;
+
+        switch (eventType) {
+        case XMLStreamConstants.START_ELEMENT:
+            if (hasPendingMetadataText) {
+                putMetadata(pendingMetadataText.toString());
+            }
+            pushElement(streamReader.getLocalName());
+            // The attributes are read off the cursor, which stays on the
+            // start element while they are returned
+            attributeIndex = 0;
+            attributeCount = streamReader.getAttributeCount();
+            attributesCaptured = false;
+            clearPendingMetadata();
+            for (MetadataExpression metadataExpression : metadataExpressions) {
+                if (testExpression(metadataExpression.expression, metadataExpression.targetDepth)) {
+                    pendingMetadataKeys.add(metadataExpression.key);
+                }
+            }
+            break;
+        case XMLStreamConstants.END_ELEMENT:
+            if (hasPendingMetadataText) {
+                putMetadata(pendingMetadataText.toString());
+            }
+            popElement();
+            clearPendingMetadata();
+            break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.CDATA:
+        case XMLStreamConstants.SPACE:
+            if (!pendingMetadataKeys.isEmpty()) {
+                // The text of an element may be split in several events
+                pendingMetadataText.append(streamReader.getText());
+                hasPendingMetadataText = true;
             }
-            stackString += "/@" + attribute.getName().getLocalPart();
+            break;
+        default:
+            break;
+        }
+        return cursorEvent(eventType);
+    }
+
+    /**
+     * Returns the shared event for the given type, reset for the node the
+     * cursor sits on.
+     */
+    private CursorEvent cursorEvent(int eventType) {
+        if (eventType >= cursorEvents.length) {
+            return new CursorEvent().reset(eventType, cursorMoves);
+        }
+        CursorEvent event = cursorEvents[eventType];
+        if (event == null) {
+            event = cursorEvents[eventType] = new CursorEvent();
         }
+        return event.reset(eventType, cursorMoves);
     }
 
+    /**
+     * Reads the text of the current element (or attribute), leaving the
+     * cursor on the end of the element.
+     */
+    private String readCursorText() throws XMLStreamException {
+        if (currentEventType == XMLStreamConstants.ATTRIBUTE) {
+            return attributeValue(attributeIndex - 1);
+        }
+        if (attributeIndex < attributeCount) {
+            // The cursor is about to leave the start element
+            captureAttributes();
+        }
+
+        String text = null;
+        StringBuilder sb = null;
+        while (!pendingEndElement) {
+            int eventType = streamReader.next();
+            cursorMoves++;
+            switch (eventType) {
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.CDATA:
+            case XMLStreamConstants.SPACE:
+                String chunk = streamReader.getText();
+                if (text == null) {
+                    text = chunk;
+                } else {
+                    if (sb == null) {
+                        sb = new StringBuilder(text);
+                    }
+                    sb.append(chunk);
+                }
+                break;
+            case XMLStreamConstants.COMMENT:
+            case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                pendingEndElement = true;
+                break;
+            default:
+                throw new RuntimeException("Encountered unexpected event: "
+                        + "XMLEvent[type=" + eventType + "]");
+            }
+        }
+
+        if (sb != null) {
+            text = sb.toString();
+        } else if (text == null) {
+            text = "";
+        }
+        if (!pendingMetadataKeys.isEmpty()) {
+            putMetadata(hasPendingMetadataText
+                    ? pendingMetadataText.append(text).toString()
+                    : text);
+        }
+        return text;
+    }
+
+    /**
+     * Copies the attributes of the current start element, so that they can be
+     * returned as events after the cursor has moved on.
+     */
+    private void captureAttributes() {
+        if (attributeNames == null || attributeCount > attributeNames.length) {
+            attributeNames = new String[Math.max(attributeCount, 4)];
+            attributeValues = new String[attributeNames.length];
+        }
+        for (int i = 0; i < attributeCount; i++) {
+            attributeNames[i] = streamReader.getAttributeLocalName(i);
+            attributeValues[i] = streamReader.getAttributeValue(i);
+        }
+        attributesCaptured = true;
+    }
+
+    private String attributeName(int index) {
+        return attributesCaptured
+            ? attributeNames[index]
+            : streamReader.getAttributeLocalName(index);
+    }
+
+    private String attributeValue(int index) {
+        return attributesCaptured
+            ? attributeValues[index]
+            : streamReader.getAttributeValue(index);
+    }
+
+    private void putMetadata(String value) {
+        for (String key : pendingMetadataKeys) {
+            metadata.put(key, value);
+        }
+        clearPendingMetadata();
+    }
+
+    private void clearPendingMetadata() {
+        pendingMetadataKeys.clear();
+        pendingMetadataText.setLength(0);
+        hasPendingMetadataText = false;
+    }
+
+    /**
+     * Builds the full event for the node the cursor sits on.
+     */
+    private XMLEvent createCursorEvent(int eventType) {
+        if (eventFactory == null) {
+            eventFactory = XMLEventFactory.newInstance();
+        }
+        switch (eventType) {
+        case XMLStreamConstants.START_ELEMENT:
+            List<Attribute> attributes = new ArrayList<Attribute>();
+            for (int i = 0; i < streamReader.getAttributeCount(); i++) {
+                attributes.add(eventFactory.createAttribute(
+                        streamReader.getAttributeName(i),
+                        streamReader.getAttributeValue(i)));
+            }
+            return eventFactory.createStartElement(prefix(),
+                    namespaceURI(), streamReader.getLocalName(),
+                    attributes.iterator(), namespaces().iterator());
+        case XMLStreamConstants.END_ELEMENT:
+            return eventFactory.createEndElement(prefix(), namespaceURI(),
+                    streamReader.getLocalName(), namespaces().iterator());
+        case XMLStreamConstants.CHARACTERS:
+            return eventFactory.createCharacters(streamReader.getText());
+        case XMLStreamConstants.CDATA:
+            return eventFactory.createCData(streamReader.getText());
+        case XMLStreamConstants.SPACE:
+            return eventFactory.createSpace(streamReader.getText());
+        case XMLStreamConstants.COMMENT:
+            return eventFactory.createComment(streamReader.getText());
+        case XMLStreamConstants.PROCESSING_INSTRUCTION:
+            return eventFactory.createProcessingInstruction(
+                    streamReader.getPITarget(), streamReader.getPIData());
+        case XMLStreamConstants.DTD:
+            return eventFactory.createDTD(streamReader.getText());
+        case XMLStreamConstants.START_DOCUMENT:
+            String encoding = streamReader.getCharacterEncodingScheme();
+            String version = streamReader.getVersion();
+            return encoding == null || version == null
+                ? eventFactory.createStartDocument()
+                : eventFactory.createStartDocument(encoding, version);
+        case XMLStreamConstants.END_DOCUMENT:
+            return eventFactory.createEndDocument();
+        default:
+            throw new IllegalStateException("Unable to create an event of type "
+                    + eventType + " from an XMLStreamReader");
+        }
+    }
+
+    private String prefix() {
+        String prefix = streamReader.getPrefix();
+        return prefix == null ? XMLConstants.DEFAULT_NS_PREFIX : prefix;
+    }
+
+    private String namespaceURI() {
+        String namespaceURI = streamReader.getNamespaceURI();
+        return namespaceURI == null ? XMLConstants.NULL_NS_URI : namespaceURI;
+    }
+
+    private List<Namespace> namespaces() {
+        List<Namespace> namespaces = new ArrayList<Namespace>();
+        for (int i = 0; i < streamReader.getNamespaceCount(); i++) {
+            String prefix = streamReader.getNamespacePrefix(i);
+            String namespaceURI = streamReader.getNamespaceURI(i);
+            namespaces.add(prefix == null || prefix.length() == 0
+                    ? eventFactory.createNamespace(namespaceURI)
+                    : eventFactory.createNamespace(prefix, namespaceURI));
+        }
+        return namespaces;
+    }
+
+    private void pushElement(String localName) {
+        int depth = stack.size();
+        // Drop any attribute suffix before descending
+        pathLength = depth == 0 ? 0 : elementPathLengths[depth - 1];
+        appendToPath('/', null, localName);
+        if (depth == elementPathLengths.length) {
+            int[] grown = new int[depth * 2];
+            System.arraycopy(elementPathLengths, 0, grown, 0, depth);
+            elementPathLengths = grown;
+        }
+        elementPathLengths[depth] = pathLength;
+        stack.push(localName);
+    }
+
+    private void popElement() {
+        stack.pop();
+        int depth = stack.size();
+        pathLength = depth == 0 ? 0 : elementPathLengths[depth - 1];
+    }
+
+    private void setAttributePath(String localName) {
+        int depth = stack.size();
+        pathLength = depth == 0 ? 0 : elementPathLengths[depth - 1];
+        appendToPath('/', "@", localName);
+    }
+
+    private void appendToPath(char separator, String prefix, String name) {
+        int length = pathLength + 1 + name.length()
+                + (prefix == null ? 0 : prefix.length());
+        if (length > path.length) {
+            char[] grown = new char[Math.max(length, path.length * 2)];
+            System.arraycopy(path, 0, grown, 0, pathLength);
+            path = grown;
+        }
+        path[pathLength++] = separator;
+        if (prefix != null) {
+            prefix.getChars(0, prefix.length(), path, pathLength);
+            pathLength += prefix.length();
+        }
+        name.getChars(0, name.length(), path, pathLength);
+        pathLength += name.length();
+    }
+
+    /**
+     * Returns true if the current path ends with the given expression;
+     * optionally requiring the expression to start right after a separator,
+     * as if it were prefixed with "/".
+     */
+    private boolean pathEndsWith(String expression, boolean afterSeparator) {
+        int length = expression.length();
+        int offset = pathLength - length;
+        if (afterSeparator) {
+            if (offset < 1 || path[offset - 1] != '/') return false;
+        } else if (offset < 0) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (path[offset + i] != expression.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * An event returned when reading from an XMLStreamReader, which only
+     * carries its event type until one of its <code>as*</code> methods is
+     * called; the full event is then built from the cursor, as long as the
+     * cursor hasn't moved on since. The event is reset for every node of its
+     * type.
+     */
+    private final class CursorEvent implements XMLEvent {
+        private int eventType;
+        /** The number of times the cursor had moved when this was returned. */
+        private long cursorPosition;
+        private XMLEvent event;
+
+        CursorEvent reset(int eventType, long cursorPosition) {
+            this.eventType = eventType;
+            this.cursorPosition = cursorPosition;
+            this.event = null;
+            return this;
+        }
+
+        /**
+         * Returns the full event, built from the cursor the first time.
+         *
+         * @throws IllegalStateException
+         *             If the cursor has moved on since this event was
+         *             returned, and the full event was not built yet.
+         */
+        private XMLEvent event() {
+            if (event == null) {
+                if (cursorPosition != cursorMoves) {
+                    throw new IllegalStateException("The XMLStreamReader has "
+                            + "moved past this event; its content must be read "
+                            + "before reading on");
+                }
+                event = createCursorEvent(eventType);
+            }
+            return event;
+        }
+
+        @Override
+        public int getEventType() {
+            return eventType;
+        }
+
+        @Override
+        public Location getLocation() {
+            return event().getLocation();
+        }
+
+        @Override
+        public boolean isStartElement() {
+            return eventType == START_ELEMENT;
+        }
+
+        @Override
+        public boolean isAttribute() {
+            return false;
+        }
+
+        @Override
+        public boolean isNamespace() {
+            return eventType == NAMESPACE;
+        }
+
+        @Override
+        public boolean isEndElement() {
+            return eventType == END_ELEMENT;
+        }
+
+        @Override
+        public boolean isEntityReference() {
+            return eventType == ENTITY_REFERENCE;
+        }
+
+        @Override
+        public boolean isProcessingInstruction() {
+            return eventType == PROCESSING_INSTRUCTION;
+        }
+
+        @Override
+        public boolean isCharacters() {
+            return eventType == CHARACTERS || eventType == CDATA
+                    || eventType == SPACE;
+        }
+
+        @Override
+        public boolean isStartDocument() {
+            return eventType == START_DOCUMENT;
+        }
+
+        @Override
+        public boolean isEndDocument() {
+            return eventType == END_DOCUMENT;
+        }
+
+        @Override
+        public StartElement asStartElement() {
+            if (!isStartElement())
+                throw new ClassCastException("Not a start element: " + this);
+            return event().asStartElement();
+        }
+
+        @Override
+        public EndElement asEndElement() {
+            if (!isEndElement())
+                throw new ClassCastException("Not an end element: " + this);
+            return event().asEndElement();
+        }
+
+        @Override
+        public Characters asCharacters() {
+            if (!isCharacters())
+                throw new ClassCastException("Not characters: " + this);
+            return event().asCharacters();
+        }
+
+        @Override
+        public QName getSchemaType() {
+            return null;
+        }
+
+        @Override
+        public void writeAsEncodedUnicode(Writer writer) throws XMLStreamException {
+            event().writeAsEncodedUnicode(writer);
+        }
+
+        @Override
+        public String toString() {
+            return event == null ? "XMLEvent[type=" + eventType + "]" : event.toString();
+        }
+    }
+
+    /**
+     * An attribute of a start element read from an XMLStreamReader, reset for
+     * every attribute.
+     */
+    private static final class AttributeEvent implements Attribute {
+        private String localName;
+        private String value;
+        private QName name;
+
+        AttributeEvent reset(String localName, String value) {
+            this.localName = localName;
+            this.value = value;
+            this.name = null;
+            return this;
+        }
+
+        @Override
+        public QName getName() {
+            if (name == null) {
+                name = new QName(localName);
+            }
+            return name;
+        }
+
+        @Override
+        public String getValue() {
+            return value;
+        }
+
+        @Override
+        public String getDTDType() {
+            return "CDATA";
+        }
+
+        @Override
+        public boolean isSpecified() {
+            return true;
+        }
+
+        @Override
+        public int getEventType() {
+            return ATTRIBUTE;
+        }
+
+        @Override
+        public Location getLocation() {
+            return null;
+        }
+
+        @Override
+        public boolean isStartElement() {
+            return false;
+        }
+
+        @Override
+        public boolean isAttribute() {
+            return true;
+        }
+
+        @Override
+        public boolean isNamespace() {
+            return false;
+        }
+
+        @Override
+        public boolean isEndElement() {
+            return false;
+        }
+
+        @Override
+        public boolean isEntityReference() {
+            return false;
+        }
+
+        @Override
+        public boolean isProcessingInstruction() {
+            return false;
+        }
+
+        @Override
+        public boolean isCharacters() {
+            return false;
+        }
+
+        @Override
+        public boolean isStartDocument() {
+            return false;
+        }
+
+        @Override
+        public boolean isEndDocument() {
+            return false;
+        }
+
+        @Override
+        public StartElement asStartElement() {
+            throw new ClassCastException("Not a start element: " + this);
+        }
+
+        @Override
+        public EndElement asEndElement() {
+            throw new ClassCastException("Not an end element: " + this);
+        }
+
+        @Override
+        public Characters asCharacters() {
+            throw new ClassCastException("Not characters: " + this);
+        }
+
+        @Override
+        public QName getSchemaType() {
+            return null;
+        }
+
+        @Override
+        public void writeAsEncodedUnicode(Writer writer) throws XMLStreamException {
+            try {
+                writer.write(localName);
+                writer.write("=\"");
+                for (int i = 0; i < value.length(); i++) {
+                    char c = value.charAt(i);
+                    switch (c) {
+                    case '&': writer.write("&amp;"); break;
+                    case '<': writer.write("&lt;"); break;
+                    case '"': writer.write("&quot;"); break;
+                    default: writer.write(c);
+                    }
+                }
+                writer.write('"');
+            } catch (IOException e) {
+                throw new XMLStreamException(e);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return localName + "='" + value + "'";
+        }
+    }
 }
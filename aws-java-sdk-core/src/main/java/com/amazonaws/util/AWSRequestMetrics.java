@@ -131,6 +131,22 @@ public class AWSRequestMetrics {
          */
         HttpClientPoolPendingCount,
         RetryPauseTime,
+        /**
+         * Number of retries not attempted because the retry capacity shared
+         * by the requests of the client had run out.
+         */
+        RetryCapacityExceeded,
+        /**
+         * Number of milliseconds a request waited on the client side
+         * because the adaptive rate limiter was limiting the request rate.
+         */
+        RateLimitDelayTime,
+        /**
+         * The request rate, in requests per second, allowed by the adaptive
+         * rate limiter when a request was sent; only captured while the rate
+         * is being limited.
+         */
+        RateLimitFillRate,
 //      S3DownloadThroughput, // migrated to S3RequestMetric in the S3 clint library
 //      S3UploadThroughput,   // migrated to S3RequestMetric in the S3 clint library
         ServiceEndpoint,
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+
+import com.amazonaws.internal.CRC32MismatchException;
+import com.amazonaws.internal.SdkFilterInputStream;
+
+/**
+ * Verifies the CRC32 checksum of a stream as its bytes are read, failing the
+ * read that reaches the end of the stream with a
+ * {@link CRC32MismatchException} if the checksum doesn't match the expected
+ * one.
+ * <p>
+ * The checksum is updated with whole buffers at a time, for which
+ * {@link CRC32} uses the carry-less multiplication instructions of the
+ * processor where the JVM supports them.
+ */
+public class CRC32ChecksumValidatingInputStream extends SdkFilterInputStream {
+
+    private static final int SKIP_BUFFER_SIZE = 4096;
+
+    private final CRC32 crc32 = new CRC32();
+    private final long expectedChecksum;
+    private boolean validated;
+
+    /**
+     * @param in
+     *            the stream to read and verify
+     * @param expectedChecksum
+     *            the expected CRC32 checksum of all the bytes of the stream
+     */
+    public CRC32ChecksumValidatingInputStream(InputStream in, long expectedChecksum) {
+        super(in);
+        this.expectedChecksum = expectedChecksum;
+    }
+
+    /**
+     * Returns the checksum of the bytes read so far.
+     */
+    public long getCRC32Checksum() {
+        return crc32.getValue();
+    }
+
+    /**
+     * Returns true if the end of the stream has been reached, and the
+     * checksum matched.
+     */
+    public boolean isValidated() {
+        return validated;
+    }
+
+    @Override
+    public int read() throws IOException {
+        abortIfNeeded();
+        int ch = in.read();
+        if (ch == -1) {
+            validate();
+        } else {
+            crc32.update(ch);
+        }
+        return ch;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        abortIfNeeded();
+        int result = in.read(b, off, len);
+        if (result == -1) {
+            validate();
+        } else {
+            crc32.update(b, off, result);
+        }
+        return result;
+    }
+
+    /**
+     * Reads, rather than skips, the given number of bytes, so they are
+     * included in the checksum.
+     */
+    @Override
+    public long skip(long n) throws IOException {
+        abortIfNeeded();
+        if (n <= 0) {
+            return 0;
+        }
+        byte[] buffer = new byte[(int) Math.min(n, SKIP_BUFFER_SIZE)];
+        long skipped = 0;
+        while (skipped < n) {
+            int count = read(buffer, 0, (int) Math.min(n - skipped, buffer.length));
+            if (count == -1) {
+                break;
+            }
+            skipped += count;
+        }
+        return skipped;
+    }
+
+    /**
+     * Reads the rest of the stream, unless its end has already been reached,
+     * verifying the checksum of all its bytes.
+     *
+     * @throws CRC32MismatchException
+     *             if the checksum doesn't match the expected one
+     */
+    public void readToEnd() throws IOException {
+        if (validated) {
+            return;
+        }
+        byte[] buffer = new byte[SKIP_BUFFER_SIZE];
+        while (read(buffer, 0, buffer.length) != -1) {
+            // Read until validated at the end of the stream
+        }
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    private void validate() throws CRC32MismatchException {
+        if (validated) {
+            return;
+        }
+        long actualChecksum = crc32.getValue();
+        if (actualChecksum != expectedChecksum) {
+            throw new CRC32MismatchException(
+                    "Client calculated crc32 checksum didn't match that calculated by server side"
+                    + " (expected " + expectedChecksum + ", got " + actualChecksum + ")");
+        }
+        validated = true;
+    }
+}
@@ -113,6 +113,14 @@ public class JSONWriter {
         this.writer = w;
     }
 
+    /**
+     * Constructor for subclasses that produce the JSON text on their own,
+     * without the state kept by this class.
+     */
+    protected JSONWriter() {
+        this.mode = 'i';
+    }
+
     /**
      * Append a value.
      * @param s A string value.
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.util.json;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Date;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.util.DateUtils;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * A {@link JSONWriter} that streams the JSON text as UTF-8 bytes through a
+ * Jackson {@link JsonGenerator}, instead of building it up in a
+ * {@link java.io.StringWriter} and encoding the resulting String.
+ * <p>
+ * The bytes are written to a per-thread buffer that is reused across
+ * instances, so marshalling a request allocates nothing but the final,
+ * exactly sized byte array returned by {@link #getBytes()}. That array can
+ * back a {@link java.io.ByteArrayInputStream} which supports mark and reset,
+ * so the content is repeatable for retries without being encoded again.
+ * <p>
+ * Each instance can produce one JSON text, and must be used by a single
+ * thread.
+ */
+public class StreamingJSONWriter extends JSONWriter {
+
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    /**
+     * Buffers larger than this are not kept for reuse, so that an occasional
+     * large request doesn't pin a large buffer to the thread forever.
+     */
+    private static final int MAX_POOLED_BUFFER_SIZE = 256 * 1024;
+
+    private static final ThreadLocal<PooledByteArrayOutputStream> pool =
+        new ThreadLocal<PooledByteArrayOutputStream>();
+
+    private final PooledByteArrayOutputStream buffer;
+    private final JsonGenerator generator;
+
+    public StreamingJSONWriter() {
+        PooledByteArrayOutputStream pooled = pool.get();
+        if (pooled == null) {
+            pooled = new PooledByteArrayOutputStream();
+        } else {
+            // Taken out of the pool until this writer is done with it
+            pool.remove();
+            pooled.reset();
+        }
+        this.buffer = pooled;
+        try {
+            this.generator = jsonFactory.createGenerator(buffer, JsonEncoding.UTF8);
+        } catch (IOException e) {
+            throw new AmazonClientException("Unable to create JSON generator", e);
+        }
+    }
+
+    /**
+     * Completes the JSON text, and returns it as UTF-8 encoded bytes. The
+     * internal buffer is returned to the pool, so this writer can no longer be
+     * used afterwards.
+     *
+     * @return the UTF-8 encoded JSON text.
+     * @throws JSONException If the JSON text cannot be completed.
+     */
+    public byte[] getBytes() throws JSONException {
+        try {
+            generator.close();
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+        byte[] bytes = buffer.toByteArray();
+        if (buffer.capacity() <= MAX_POOLED_BUFFER_SIZE) {
+            pool.set(buffer);
+        }
+        return bytes;
+    }
+
+    @Override
+    public JSONWriter array() throws JSONException {
+        try {
+            generator.writeStartArray();
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+        return this;
+    }
+
+    @Override
+    public JSONWriter endArray() throws JSONException {
+        try {
+            generator.writeEndArray();
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+        return this;
+    }
+
+    @Override
+    public JSONWriter object() throws JSONException {
+        try {
+            generator.writeStartObject();
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+        return this;
+    }
+
+    @Override
+    public JSONWriter endObject() throws JSONException {
+        try {
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+        return this;
+    }
+
+    @Override
+    public JSONWriter key(String s) throws JSONException {
+        if (s == null) {
+            throw new JSONException("Null key.");
+        }
+        try {
+            generator.writeFieldName(s);
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+        return this;
+    }
+
+    @Override
+    public JSONWriter value(boolean b) throws JSONException {
+        try {
+            generator.writeBoolean(b);
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+        return this;
+    }
+
+    @Override
+    public JSONWriter value(double d) throws JSONException {
+        return value(Double.valueOf(d));
+    }
+
+    @Override
+    public JSONWriter value(long l) throws JSONException {
+        try {
+            generator.writeNumber(l);
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+        return this;
+    }
+
+    @Override
+    public JSONWriter value(Date date) throws JSONException {
+        try {
+            generator.writeNumber(DateUtils.formatServiceSpecificDate(date));
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+        return this;
+    }
+
+    /**
+     * Writes the remaining bytes of the given buffer as a Base64 string,
+     * without copying them when the buffer is backed by an array.
+     */
+    @Override
+    public JSONWriter value(ByteBuffer b) throws JSONException {
+        try {
+            if (b.hasArray()) {
+                generator.writeBinary(b.array(), b.arrayOffset() + b.position(),
+                        b.remaining());
+            } else {
+                ByteBuffer copy = b.duplicate();
+                byte[] bytes = new byte[copy.remaining()];
+                copy.get(bytes);
+                generator.writeBinary(bytes);
+            }
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+        return this;
+    }
+
+    @Override
+    public JSONWriter value(Object o) throws JSONException {
+        try {
+            if (o == null || JSONObject.NULL.equals(o)) {
+                generator.writeNull();
+            } else if (o instanceof String) {
+                generator.writeString((String) o);
+            } else if (o instanceof Integer || o instanceof Long
+                    || o instanceof Short || o instanceof Byte) {
+                generator.writeNumber(((Number) o).longValue());
+            } else if (o instanceof BigInteger) {
+                generator.writeNumber((BigInteger) o);
+            } else if (o instanceof Number) {
+                // Keep the same formatting as JSONWriter, e.g. "1.5", not "1.50"
+                generator.writeNumber(JSONObject.numberToString((Number) o));
+            } else if (o instanceof Boolean) {
+                generator.writeBoolean((Boolean) o);
+            } else {
+                generator.writeRawValue(JSONObject.valueToString(o));
+            }
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+        return this;
+    }
+
+    /**
+     * A ByteArrayOutputStream that exposes its capacity, so that overly large
+     * buffers are not kept in the pool.
+     */
+    private static final class PooledByteArrayOutputStream extends ByteArrayOutputStream {
+        PooledByteArrayOutputStream() {
+            super(1024);
+        }
+
+        int capacity() {
+            return buf.length;
+        }
+    }
+}
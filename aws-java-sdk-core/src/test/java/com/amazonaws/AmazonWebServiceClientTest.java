@@ -17,11 +17,18 @@ package com.amazonaws;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.Assert;
 import org.junit.Test;
 
 import com.amazonaws.auth.AWS4Signer;
 import com.amazonaws.auth.QueryStringSigner;
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.transform.Marshaller;
 
 public class AmazonWebServiceClientTest {
 
@@ -64,6 +71,44 @@ public class AmazonWebServiceClientTest {
         assertEquals(serviceNameOverride, client.getServiceName());
     }
 
+    /**
+     * Tests that an async handler that throws can't keep the future of an
+     * asynchronous request from completing.
+     */
+    @Test
+    public void testFailingAsyncHandlerStillCompletesFuture() throws Exception {
+        AmazonTestClient client = new AmazonTestClient();
+        final AtomicInteger handlerCalls = new AtomicInteger();
+        Marshaller<Request<AmazonWebServiceRequest>, AmazonWebServiceRequest> marshaller =
+            new Marshaller<Request<AmazonWebServiceRequest>, AmazonWebServiceRequest>() {
+                public Request<AmazonWebServiceRequest> marshall(AmazonWebServiceRequest in) {
+                    throw new IllegalArgumentException("marshaller failure");
+                }
+            };
+        AsyncHandler<AmazonWebServiceRequest, String> handler =
+            new AsyncHandler<AmazonWebServiceRequest, String>() {
+                public void onError(Exception exception) {
+                    handlerCalls.incrementAndGet();
+                    throw new IllegalStateException("handler failure");
+                }
+
+                public void onSuccess(AmazonWebServiceRequest request, String result) {
+                }
+            };
+
+        Future<String> future = client.invokeAsync(
+                new AmazonWebServiceRequest() {}, marshaller, null, null, null,
+                handler);
+
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            Assert.fail("No exception when marshalling fails");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause().getMessage().contains("marshaller failure"));
+        }
+        assertEquals(1, handlerCalls.get());
+    }
+
     private static class AmazonTestClient extends AmazonWebServiceClient {
         public AmazonTestClient() {
             this(new ClientConfiguration());
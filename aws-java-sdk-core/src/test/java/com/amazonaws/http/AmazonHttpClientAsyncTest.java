@@ -0,0 +1,287 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights
+ * Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is
+ * distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either
+ * express or implied. See the License for the specific language
+ * governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.http.ProtocolVersion;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.concurrent.BasicFuture;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.protocol.HttpContext;
+import org.easymock.EasyMock;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.AmazonWebServiceResponse;
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.DefaultRequest;
+import com.amazonaws.Request;
+import com.amazonaws.Response;
+import com.amazonaws.retry.PredefinedRetryPolicies;
+import com.amazonaws.retry.RetryPolicy;
+
+public class AmazonHttpClientAsyncTest {
+
+    /**
+     * A transport that completes every request immediately on the calling
+     * thread, either with a 200 response or with the given I/O failure.
+     */
+    private static class StubTransport implements AsyncHttpTransport {
+        final AtomicInteger requests = new AtomicInteger();
+        private final int failures;
+
+        StubTransport(int failures) {
+            this.failures = failures;
+        }
+
+        @Override
+        public Future<org.apache.http.HttpResponse> execute(
+                HttpRequestBase request, HttpContext context,
+                FutureCallback<org.apache.http.HttpResponse> callback) {
+            BasicFuture<org.apache.http.HttpResponse> future =
+                new BasicFuture<org.apache.http.HttpResponse>(callback);
+            if (requests.incrementAndGet() <= failures) {
+                future.failed(new IOException("BOOM"));
+            } else {
+                BasicHttpEntity entity = new BasicHttpEntity();
+                entity.setContent(new ByteArrayInputStream("ok".getBytes()));
+                BasicHttpResponse response = new BasicHttpResponse(
+                        new ProtocolVersion("http", 1, 1), 200, "OK");
+                response.setEntity(entity);
+                future.completed(response);
+            }
+            return future;
+        }
+
+        @Override
+        public void shutdown() {
+        }
+    }
+
+    private static final HttpResponseHandler<AmazonWebServiceResponse<String>> handler =
+        new HttpResponseHandler<AmazonWebServiceResponse<String>>() {
+            public AmazonWebServiceResponse<String> handle(HttpResponse response) {
+                AmazonWebServiceResponse<String> awsResponse =
+                    new AmazonWebServiceResponse<String>();
+                awsResponse.setResult("result");
+                return awsResponse;
+            }
+
+            public boolean needsConnectionLeftOpen() {
+                return false;
+            }
+        };
+
+    private static AmazonHttpClient newClient(AsyncHttpTransport transport) {
+        return newClient(transport, new ClientConfiguration());
+    }
+
+    private static AmazonHttpClient newClient(AsyncHttpTransport transport,
+            ClientConfiguration config) {
+        HttpClient httpClient = EasyMock.createMock(HttpClient.class);
+        EasyMock.replay(httpClient);
+        return new AmazonHttpClient(config, httpClient, transport, null);
+    }
+
+    private static Request<?> newRequest() {
+        Request<?> request = new DefaultRequest<Object>(null, "testsvc");
+        request.setEndpoint(URI.create("http://testsvc.region.amazonaws.com"));
+        request.setContent(new ByteArrayInputStream(new byte[10]));
+        return request;
+    }
+
+    @Test
+    public void testSuccessfulExecution() throws Exception {
+        StubTransport transport = new StubTransport(0);
+        AmazonHttpClient client = newClient(transport);
+        Assert.assertTrue(client.isNonBlocking());
+
+        Future<Response<String>> future = client.executeAsync(newRequest(),
+                handler, null, new ExecutionContext(), null);
+
+        Assert.assertEquals("result",
+                future.get(5, TimeUnit.SECONDS).getAwsResponse());
+        Assert.assertEquals(1, transport.requests.get());
+    }
+
+    @Test
+    public void testRetryIOExceptionFromTransport() throws Exception {
+        StubTransport transport = new StubTransport(2);
+        AmazonHttpClient client = newClient(transport);
+
+        Future<Response<String>> future = client.executeAsync(newRequest(),
+                handler, null, new ExecutionContext(), null);
+
+        Assert.assertEquals("result",
+                future.get(5, TimeUnit.SECONDS).getAwsResponse());
+        Assert.assertEquals(3, transport.requests.get());
+    }
+
+    @Test
+    public void testFailureAfterMaxRetries() throws Exception {
+        StubTransport transport = new StubTransport(Integer.MAX_VALUE);
+        AmazonHttpClient client = newClient(transport);
+        final CountDownLatch callbackFailures = new CountDownLatch(1);
+
+        Future<Response<String>> future = client.executeAsync(newRequest(),
+                handler, null, new ExecutionContext(),
+                new ResponseCallback<String>() {
+                    public void onSuccess(Response<String> result) {
+                    }
+
+                    public void onError(Exception ex) {
+                        callbackFailures.countDown();
+                    }
+                });
+
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            Assert.fail("No exception when request repeatedly fails!");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof AmazonClientException);
+            Assert.assertTrue(e.getCause().getCause() instanceof IOException);
+        }
+        // The default retry policy retries three times.
+        Assert.assertEquals(4, transport.requests.get());
+        // The callback is notified after the future is completed
+        Assert.assertTrue(callbackFailures.await(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Tests that a callback that throws can't keep the future from completing.
+     */
+    @Test
+    public void testFailingCallbackStillCompletesFuture() throws Exception {
+        AmazonHttpClient client = newClient(new StubTransport(0));
+        final CountDownLatch callbackCalls = new CountDownLatch(1);
+
+        Future<Response<String>> future = client.executeAsync(newRequest(),
+                handler, null, new ExecutionContext(),
+                new ResponseCallback<String>() {
+                    public void onSuccess(Response<String> result) {
+                        callbackCalls.countDown();
+                        throw new IllegalStateException("callback failure");
+                    }
+
+                    public void onError(Exception ex) {
+                    }
+                });
+
+        Assert.assertEquals("result",
+                future.get(5, TimeUnit.SECONDS).getAwsResponse());
+        Assert.assertEquals(0, callbackCalls.getCount());
+    }
+
+    /**
+     * Tests that no thread is held while waiting out the back-off pause
+     * before a retry.
+     */
+    @Test
+    public void testRetryBackoffHoldsNoThread() throws Exception {
+        RetryPolicy.BackoffStrategy backoff = new RetryPolicy.BackoffStrategy() {
+            public long delayBeforeNextRetry(AmazonWebServiceRequest originalRequest,
+                    AmazonClientException exception, int retriesAttempted) {
+                return 1000;
+            }
+        };
+        ClientConfiguration config = new ClientConfiguration().withRetryPolicy(
+                new RetryPolicy(PredefinedRetryPolicies.DEFAULT_RETRY_CONDITION,
+                        backoff, 3, false));
+        List<Future<Response<String>>> futures = new ArrayList<Future<Response<String>>>();
+        long start = System.nanoTime();
+        for (int i = 0; i < 20; i++) {
+            AmazonHttpClient client = newClient(new StubTransport(1), config);
+            futures.add(client.executeAsync(newRequest(), handler, null,
+                    new ExecutionContext(), null));
+        }
+
+        Thread.sleep(300);
+        String clientClass = AmazonHttpClient.class.getName();
+        for (Map.Entry<Thread, StackTraceElement[]> entry
+                : Thread.getAllStackTraces().entrySet()) {
+            for (StackTraceElement frame : entry.getValue()) {
+                Assert.assertFalse(entry.getKey().getName() + " is waiting in "
+                        + frame, frame.getClassName().equals(clientClass)
+                        || frame.getClassName().startsWith(clientClass + "$"));
+            }
+        }
+        for (Future<Response<String>> future : futures) {
+            Assert.assertEquals("result",
+                    future.get(5, TimeUnit.SECONDS).getAwsResponse());
+        }
+        // The retries still waited out the back-off pause
+        Assert.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(1000));
+    }
+
+    /**
+     * Tests that the response isn't unmarshalled on the thread of the
+     * transport that received it.
+     */
+    @Test
+    public void testResponseIsNotHandledOnTransportThread() throws Exception {
+        final AtomicReference<Thread> handlerThread = new AtomicReference<Thread>();
+        HttpResponseHandler<AmazonWebServiceResponse<String>> recordingHandler =
+            new HttpResponseHandler<AmazonWebServiceResponse<String>>() {
+                public AmazonWebServiceResponse<String> handle(HttpResponse response)
+                        throws Exception {
+                    handlerThread.set(Thread.currentThread());
+                    return handler.handle(response);
+                }
+
+                public boolean needsConnectionLeftOpen() {
+                    return false;
+                }
+            };
+        Thread transportThread = Thread.currentThread();
+
+        Future<Response<String>> future = newClient(new StubTransport(0))
+                .executeAsync(newRequest(), recordingHandler, null,
+                        new ExecutionContext(), null);
+
+        Assert.assertEquals("result",
+                future.get(5, TimeUnit.SECONDS).getAwsResponse());
+        Assert.assertNotNull(handlerThread.get());
+        Assert.assertNotSame(transportThread, handlerThread.get());
+    }
+
+    @Test(expected = AmazonClientException.class)
+    public void testNonBlockingTransportNotEnabled() {
+        newClient(null).executeAsync(newRequest(), handler,
+                (HttpResponseHandler<AmazonServiceException>) null,
+                new ExecutionContext(), null);
+    }
+}
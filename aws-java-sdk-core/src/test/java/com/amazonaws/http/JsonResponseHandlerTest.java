@@ -0,0 +1,88 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.util.zip.CRC32;
+
+import org.junit.Test;
+
+import com.amazonaws.internal.CRC32MismatchException;
+import com.amazonaws.transform.JsonUnmarshallerContext;
+import com.amazonaws.transform.Unmarshaller;
+
+public class JsonResponseHandlerTest {
+
+    private static final String BODY = "{\"Count\":1,\"Items\":[{\"id\":{\"S\":\"item\"}}]}";
+
+    /** Reads the whole document, returning the number of tokens. */
+    private static final Unmarshaller<Integer, JsonUnmarshallerContext> TOKEN_COUNTER =
+            new Unmarshaller<Integer, JsonUnmarshallerContext>() {
+                public Integer unmarshall(JsonUnmarshallerContext context) throws Exception {
+                    int tokens = 0;
+                    while (context.nextToken() != null) {
+                        tokens++;
+                    }
+                    return tokens;
+                }
+            };
+
+    private static HttpResponse response(String body, long checksum) {
+        HttpResponse response = new HttpResponse(null, null);
+        response.setStatusCode(200);
+        response.addHeader("x-amz-crc32", String.valueOf(checksum));
+        response.setContent(new ByteArrayInputStream(body.getBytes()));
+        return response;
+    }
+
+    private static long checksum(String body) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(body.getBytes());
+        return crc32.getValue();
+    }
+
+    @Test
+    public void testMatchingChecksum() throws Exception {
+        Integer tokens = new JsonResponseHandler<Integer>(TOKEN_COUNTER)
+                .handle(response(BODY, checksum(BODY))).getResult();
+        assertEquals(Integer.valueOf(14), tokens);
+    }
+
+    @Test
+    public void testCorruptedValue() throws Exception {
+        String corrupted = BODY.replace("item", "itex");
+        try {
+            new JsonResponseHandler<Integer>(TOKEN_COUNTER).handle(response(corrupted, checksum(BODY)));
+            fail("Expected a checksum mismatch");
+        } catch (CRC32MismatchException expected) {
+        }
+    }
+
+    @Test
+    public void testCorruptionBreakingTheDocument() throws Exception {
+        // Fails to parse before the end of the body is reached
+        String corrupted = BODY.replace("\"Items\":", "\"Items\"!");
+        try {
+            new JsonResponseHandler<Integer>(TOKEN_COUNTER).handle(response(corrupted, checksum(BODY)));
+            fail("Expected a checksum mismatch");
+        } catch (CRC32MismatchException expected) {
+            assertNotNull(expected.getCause());
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.http;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.DefaultRequest;
+import com.amazonaws.Request;
+
+public class RepeatableInputStreamRequestEntityTest {
+
+    @Test
+    public void testWritesContentOfKnownLengthInLargeChunks() throws IOException {
+        byte[] data = randomBytes(3 * RepeatableInputStreamRequestEntity.MAX_BUFFER_SIZE + 100);
+        ReadCountingInputStream content = new ReadCountingInputStream(data);
+        RepeatableInputStreamRequestEntity entity =
+            new RepeatableInputStreamRequestEntity(newRequest(content, data.length));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        entity.writeTo(output);
+
+        assertArrayEquals(data, output.toByteArray());
+        assertEquals(4, content.reads);
+        assertEquals(RepeatableInputStreamRequestEntity.MAX_BUFFER_SIZE, content.maxReadLength);
+    }
+
+    @Test
+    public void testWritesNoMoreThanContentLength() throws IOException {
+        byte[] data = randomBytes(1000);
+        RepeatableInputStreamRequestEntity entity = new RepeatableInputStreamRequestEntity(
+                newRequest(new ByteArrayInputStream(data), 600));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        entity.writeTo(output);
+
+        assertArrayEquals(Arrays.copyOf(data, 600), output.toByteArray());
+    }
+
+    @Test
+    public void testWritesContentOfUnknownLengthUntilEof() throws IOException {
+        byte[] data = randomBytes(10000);
+        RepeatableInputStreamRequestEntity entity = new RepeatableInputStreamRequestEntity(
+                newRequest(new ByteArrayInputStream(data), -1));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        entity.writeTo(output);
+
+        assertArrayEquals(data, output.toByteArray());
+    }
+
+    @Test
+    public void testResetsContentOnRetry() throws IOException {
+        byte[] data = randomBytes(200 * 1024);
+        RepeatableInputStreamRequestEntity entity = new RepeatableInputStreamRequestEntity(
+                newRequest(new ByteArrayInputStream(data), data.length));
+        assertTrue(entity.isRepeatable());
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        entity.writeTo(output);
+        output.reset();
+        entity.writeTo(output);
+
+        assertArrayEquals(data, output.toByteArray());
+    }
+
+    private static Request<?> newRequest(InputStream content, long contentLength) {
+        Request<?> request = new DefaultRequest<Void>(new AmazonWebServiceRequest() {}, "foo");
+        if (contentLength >= 0)
+            request.addHeader("Content-Length", Long.toString(contentLength));
+        request.setContent(content);
+        return request;
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] b = new byte[length];
+        new Random(length).nextBytes(b);
+        return b;
+    }
+
+    private static class ReadCountingInputStream extends ByteArrayInputStream {
+        int reads;
+        int maxReadLength;
+
+        ReadCountingInputStream(byte[] buf) {
+            super(buf);
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                reads++;
+                maxReadLength = Math.max(maxReadLength, n);
+            }
+            return n;
+        }
+    }
+}
@@ -19,6 +19,9 @@
 package com.amazonaws.internal;
 
 import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+
 import org.junit.Test;
 
 public class FIFOCacheTest {
@@ -73,4 +76,35 @@ public class FIFOCacheTest {
         assertEquals("v3", cache.get("k3"));
         assertNull(cache.get("k2"));
     }
+
+    @Test
+    public void testConcurrentAdds() throws Exception {
+        final FIFOCache<String> cache = new FIFOCache<String>(10);
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            final int id = t;
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < 1000; i++) {
+                        String key = "k" + id + "-" + i;
+                        cache.add(key, key);
+                        cache.get("k0-" + i);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(10, cache.size());
+    }
 }
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.retry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.http.AmazonHttpClient;
+import com.amazonaws.http.ExecutionContext;
+import com.amazonaws.retry.internal.AdaptiveRateLimiter;
+import com.amazonaws.retry.internal.RetryTokenBucket;
+import com.amazonaws.util.AWSRequestMetrics.Field;
+import com.amazonaws.util.TimingInfo;
+
+/**
+ * Tests the retry capacity shared by the requests of a client, and the
+ * adaptive rate limiter.
+ */
+public class AdaptiveRetryTest extends RetryPolicyTestBase {
+
+    @Before
+    public void resetContextData() {
+        retryCondition = new ContextDataCollectionRetryCondition();
+        backoffStrategy = new ContextDataCollectionBackoffStrategy();
+    }
+
+    /**
+     * Tests that retries stop once the retry capacity of the client has run
+     * out, even though the retry policy would allow more.
+     */
+    @Test
+    public void testRetryCapacityLimitsRetries() {
+        ClientConfiguration config = new ClientConfiguration()
+                .withRetryPolicy(new RetryPolicy(retryCondition, backoffStrategy, 5, false))
+                .withRetryCapacity(2 * RetryTokenBucket.RETRY_COST + 2);
+        AmazonHttpClient client = new AmazonHttpClient(config);
+        injectMockHttpClient(client, new ReturnServiceErrorHttpClient(500, "InternalError"));
+
+        TimingInfo timingInfo = executeAndFail(client);
+        assertEquals(3, timingInfo.getCounter(Field.RequestCount.name()).intValue());
+        assertEquals(1, timingInfo.getCounter(Field.RetryCapacityExceeded.name()).intValue());
+
+        // The capacity is shared by the following requests of the client
+        timingInfo = executeAndFail(client);
+        assertEquals(1, timingInfo.getCounter(Field.RequestCount.name()).intValue());
+    }
+
+    /**
+     * Tests that retries are only limited by the retry policy by default.
+     */
+    @Test
+    public void testRetryCapacityDisabledByDefault() {
+        ClientConfiguration config = new ClientConfiguration()
+                .withRetryPolicy(new RetryPolicy(retryCondition, backoffStrategy, 5, false));
+        AmazonHttpClient client = new AmazonHttpClient(config);
+        injectMockHttpClient(client, new ReturnServiceErrorHttpClient(500, "InternalError"));
+
+        for (int i = 0; i < 5; i++) {
+            TimingInfo timingInfo = executeAndFail(client);
+            assertEquals(6, timingInfo.getCounter(Field.RequestCount.name()).intValue());
+        }
+    }
+
+    @Test
+    public void testRetryTokenBucket() {
+        RetryTokenBucket bucket = new RetryTokenBucket(10);
+        assertTrue(bucket.acquire(RetryTokenBucket.RETRY_COST));
+        assertFalse(bucket.acquire(RetryTokenBucket.IO_ERROR_RETRY_COST));
+        assertTrue(bucket.acquire(RetryTokenBucket.RETRY_COST));
+        assertFalse(bucket.acquire(1));
+        bucket.release(RetryTokenBucket.RETRY_COST);
+        bucket.release(20);
+        assertEquals(10, bucket.getAvailableTokens());
+    }
+
+    /**
+     * Tests that the rate limiter stays off until a request is throttled,
+     * then cuts the request rate, and grows it back with successful requests
+     * until it turns itself off again.
+     */
+    @Test
+    public void testRateLimiterBacksOffAndRecovers() {
+        FakeClockRateLimiter limiter = new FakeClockRateLimiter();
+        // 20 requests per second, without any limiting
+        for (int i = 0; i < 40; i++) {
+            assertEquals(0, limiter.acquire());
+            limiter.advance(50);
+        }
+        assertFalse(limiter.isEnabled());
+        assertEquals(0, limiter.getFillRate(), 0);
+
+        limiter.onThrottle();
+        assertTrue(limiter.isEnabled());
+        assertEquals(20 * 0.7, limiter.getFillRate(), 0.5);
+
+        // Requests now queue up at the reduced rate
+        assertTrue(limiter.acquire() > 0);
+        long delay = limiter.acquire();
+        assertEquals(TimeUnit.SECONDS.toNanos(2) / limiter.getFillRate(), delay, 1000);
+
+        // A further throttle cuts the rate again
+        limiter.onThrottle();
+        double reducedRate = limiter.getFillRate();
+        assertTrue(reducedRate < 20 * 0.7 * 0.7 + 0.5);
+
+        // Successes raise the rate back, and eventually turn limiting off
+        limiter.advance(1000);
+        limiter.onSuccess();
+        assertTrue(limiter.getFillRate() > reducedRate);
+        limiter.advance(60000);
+        limiter.onSuccess();
+        assertFalse(limiter.isEnabled());
+        assertEquals(0, limiter.acquire());
+    }
+
+    private static TimingInfo executeAndFail(AmazonHttpClient client) {
+        ExecutionContext context = new ExecutionContext(true);
+        try {
+            client.execute(getSampleRequestWithRepeatableContent(originalRequest),
+                    null, errorResponseHandler, context);
+            fail("AmazonServiceException is expected.");
+        } catch (AmazonServiceException expected) {
+        }
+        return context.getAwsRequestMetrics().getTimingInfo();
+    }
+
+    private static class FakeClockRateLimiter extends AdaptiveRateLimiter {
+        private long nanos;
+
+        void advance(long millis) {
+            nanos += TimeUnit.MILLISECONDS.toNanos(millis);
+        }
+
+        @Override
+        protected long nanoTime() {
+            return nanos;
+        }
+    }
+}
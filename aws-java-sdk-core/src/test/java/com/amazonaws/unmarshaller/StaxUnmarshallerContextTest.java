@@ -0,0 +1,241 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights
+ * Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is
+ * distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either
+ * express or implied. See the License for the specific language
+ * governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.unmarshaller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+
+import org.junit.Test;
+
+import com.amazonaws.ResponseMetadata;
+import com.amazonaws.transform.StaxUnmarshallerContext;
+
+public class StaxUnmarshallerContextTest {
+    private static final XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+
+    private static final String RESPONSE =
+        "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+        + "<DescribeThingsResponse xmlns=\"http://example.com/doc/\">\n"
+        + "  <DescribeThingsResult>\n"
+        + "    <Thing id=\"t-1\">\n"
+        + "      <Name>first &amp; only</Name>\n"
+        + "      <Tags><member><Key>k</Key><Value></Value></member></Tags>\n"
+        + "    </Thing>\n"
+        + "    <Thing id=\"t-2\"><Name>second</Name></Thing>\n"
+        + "  </DescribeThingsResult>\n"
+        + "  <ResponseMetadata>\n"
+        + "    <RequestId>request-id</RequestId>\n"
+        + "  </ResponseMetadata>\n"
+        + "</DescribeThingsResponse>\n";
+
+    private static final String[] EXPRESSIONS = {
+        "Thing", "Thing/Name", "Thing/@id",
+        "Tags/member/Key", "Tags/member/Value", "RequestId"
+    };
+
+    /**
+     * Walks the whole document the way generated unmarshallers do, and
+     * records every match along with the text read.
+     */
+    private static List<String> walk(StaxUnmarshallerContext context) throws Exception {
+        context.registerMetadataExpression("ResponseMetadata/RequestId", 2,
+                ResponseMetadata.AWS_REQUEST_ID);
+        List<String> trace = new ArrayList<String>();
+        assertTrue(context.isStartOfDocument());
+        while (true) {
+            XMLEvent xmlEvent = context.nextEvent();
+            if (xmlEvent.isEndDocument()) break;
+            if (xmlEvent.isAttribute() || xmlEvent.isStartElement()) {
+                for (String expression : EXPRESSIONS) {
+                    if (context.testExpression(expression, context.getCurrentDepth()
+                            - expression.replaceAll("[^/]|/@", "").length())) {
+                        String text = expression.equals("Thing") ? "" : context.readText();
+                        trace.add(expression + "@" + context.getCurrentDepth() + "=" + text);
+                    }
+                }
+            } else if (xmlEvent.isEndElement()) {
+                trace.add("end@" + context.getCurrentDepth());
+            }
+        }
+        trace.add("metadata=" + context.getMetadata());
+        return trace;
+    }
+
+    @Test
+    public void testCursorMatchesEventReader() throws Exception {
+        List<String> expected = walk(new StaxUnmarshallerContext(
+                xmlInputFactory.createXMLEventReader(
+                        new ByteArrayInputStream(RESPONSE.getBytes("UTF-8"))), null));
+        List<String> actual = walk(new StaxUnmarshallerContext(
+                xmlInputFactory.createXMLStreamReader(
+                        new ByteArrayInputStream(RESPONSE.getBytes("UTF-8"))), null));
+
+        assertEquals(expected, actual);
+        assertTrue(actual.contains("Thing/@id@3=t-1"));
+        assertTrue(actual.contains("Thing/Name@4=first & only"));
+        assertTrue(actual.contains("Tags/member/Value@6="));
+        assertTrue(actual.contains("metadata={AWS_REQUEST_ID=request-id}"));
+    }
+
+    @Test
+    public void testExpressionWithoutDepth() throws Exception {
+        StaxUnmarshallerContext context = new StaxUnmarshallerContext(
+                xmlInputFactory.createXMLStreamReader(
+                        new ByteArrayInputStream(RESPONSE.getBytes("UTF-8"))), null);
+        int matches = 0;
+        XMLEvent xmlEvent;
+        while (!(xmlEvent = context.nextEvent()).isEndDocument()) {
+            if (xmlEvent.isStartElement() && context.testExpression("member/Key")) matches++;
+            assertTrue(context.testExpression("."));
+        }
+        assertEquals(1, matches);
+    }
+
+    private static StaxUnmarshallerContext newCursorContext(String xml) throws Exception {
+        return new StaxUnmarshallerContext(xmlInputFactory.createXMLStreamReader(
+                new ByteArrayInputStream(xml.getBytes("UTF-8"))), null);
+    }
+
+    /**
+     * Tests that the events read from a cursor still give access to their
+     * content, as long as the cursor hasn't moved on.
+     */
+    @Test
+    public void testCursorEventsHaveContent() throws Exception {
+        StaxUnmarshallerContext context = newCursorContext(RESPONSE);
+        List<String> names = new ArrayList<String>();
+        List<String> attributes = new ArrayList<String>();
+        StringBuilder text = new StringBuilder();
+        String lastEndElement = null;
+        XMLEvent xmlEvent;
+        while (!(xmlEvent = context.nextEvent()).isEndDocument()) {
+            if (xmlEvent.isStartElement()) {
+                StartElement startElement = xmlEvent.asStartElement();
+                names.add(startElement.getName().getLocalPart());
+                assertEquals("http://example.com/doc/",
+                        startElement.getName().getNamespaceURI());
+            } else if (xmlEvent.isAttribute()) {
+                Attribute attribute = (Attribute) xmlEvent;
+                attributes.add(attribute.getName().getLocalPart() + "=" + attribute.getValue());
+            } else if (xmlEvent.isCharacters()) {
+                text.append(xmlEvent.asCharacters().getData());
+            } else if (xmlEvent.isEndElement()) {
+                lastEndElement = xmlEvent.asEndElement().getName().getLocalPart();
+            }
+        }
+        assertEquals("DescribeThingsResponse", names.get(0));
+        assertTrue(names.contains("RequestId"));
+        assertEquals("DescribeThingsResponse", lastEndElement);
+        assertEquals("[id=t-1, id=t-2]", attributes.toString());
+        assertTrue(text.toString().contains("first & only"));
+    }
+
+    @Test
+    public void testCursorEventAfterCursorMovedOn() throws Exception {
+        StaxUnmarshallerContext context = newCursorContext("<a><b>text</b></a>");
+        context.nextEvent(); // start document
+        context.nextEvent(); // <a>
+        XMLEvent b = context.nextEvent();
+        assertEquals("text", context.readText());
+        try {
+            b.asStartElement();
+            fail("The cursor has moved past the start element");
+        } catch (IllegalStateException expected) {
+        }
+        try {
+            context.nextEvent().asStartElement();
+            fail("Not a start element");
+        } catch (ClassCastException expected) {
+        }
+    }
+
+    /**
+     * Tests that the events read from a cursor are reused for every node of
+     * their type, and that a snapshot of an event outlives it.
+     */
+    @Test
+    public void testCursorEventsAreReused() throws Exception {
+        StaxUnmarshallerContext context = newCursorContext(
+                "<a x=\"1\" y=\"2\"><b>text</b></a>");
+        context.nextEvent(); // start document
+        XMLEvent a = context.nextEvent();
+        XMLEvent snapshot = context.snapshot(a);
+        XMLEvent x = context.nextEvent();
+        Attribute xSnapshot = (Attribute) context.snapshot(x);
+        XMLEvent y = context.nextEvent();
+        assertSame(x, y);
+        XMLEvent b = context.nextEvent();
+        assertSame(a, b);
+        assertEquals("b", b.asStartElement().getName().getLocalPart());
+
+        assertNotSame(a, snapshot);
+        assertEquals("a", snapshot.asStartElement().getName().getLocalPart());
+        assertEquals("x", xSnapshot.getName().getLocalPart());
+        assertEquals("1", xSnapshot.getValue());
+        assertEquals("2", ((Attribute) y).getValue());
+    }
+
+    /**
+     * Tests that the attributes of a start element whose text is read are
+     * still returned once the cursor has moved on.
+     */
+    @Test
+    public void testAttributesAfterReadingText() throws Exception {
+        StaxUnmarshallerContext context = newCursorContext(
+                "<a><b x=\"1\">text</b></a>");
+        context.nextEvent(); // start document
+        context.nextEvent(); // <a>
+        assertTrue(context.nextEvent().isStartElement());
+        assertEquals("text", context.readText());
+        XMLEvent x = context.nextEvent();
+        assertTrue(x.isAttribute());
+        assertEquals("1", context.readText());
+        assertTrue(context.testExpression("b/@x"));
+        assertTrue(context.nextEvent().isEndElement());
+    }
+
+    /**
+     * Tests that the metadata collected from an element that is not read
+     * holds all of its text, even when split in several events.
+     */
+    @Test
+    public void testMetadataSpanningSeveralEvents() throws Exception {
+        StaxUnmarshallerContext context = newCursorContext(
+                "<Response><ResponseMetadata><RequestId>abc<![CDATA[def]]>ghi"
+                + "</RequestId></ResponseMetadata></Response>");
+        context.registerMetadataExpression("ResponseMetadata/RequestId", 2,
+                ResponseMetadata.AWS_REQUEST_ID);
+        while (!context.nextEvent().isEndDocument()) {
+        }
+        assertEquals("abcdefghi",
+                context.getMetadata().get(ResponseMetadata.AWS_REQUEST_ID));
+    }
+}
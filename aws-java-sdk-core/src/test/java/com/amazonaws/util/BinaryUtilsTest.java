@@ -18,6 +18,8 @@
  */
 package com.amazonaws.util;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
@@ -145,4 +147,12 @@ public class BinaryUtilsTest {
         assertTrue(partial1.length == 3);
         assertTrue(Arrays.equals(new byte[]{2,3,4}, partial1));
     }
+
+    @Test
+    public void testHex() {
+        byte[] data = {0, 1, 9, 10, 15, 16, 127, -128, -1};
+        assertEquals("0001090a0f107f80ff", BinaryUtils.toHex(data));
+        assertEquals("", BinaryUtils.toHex(new byte[0]));
+        assertArrayEquals(data, BinaryUtils.fromHex(BinaryUtils.toHex(data)));
+    }
 }
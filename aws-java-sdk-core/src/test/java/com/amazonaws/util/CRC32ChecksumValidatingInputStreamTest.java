@@ -0,0 +1,91 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.zip.CRC32;
+
+import org.junit.Test;
+
+import com.amazonaws.internal.CRC32MismatchException;
+
+public class CRC32ChecksumValidatingInputStreamTest {
+
+    private static final byte[] DATA = "{\"Items\":[{\"id\":{\"S\":\"1\"}}]}".getBytes();
+
+    private static long checksum(byte[] data) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(data);
+        return crc32.getValue();
+    }
+
+    @Test
+    public void testMatchingChecksum() throws IOException {
+        CRC32ChecksumValidatingInputStream in = new CRC32ChecksumValidatingInputStream(
+                new ByteArrayInputStream(DATA), checksum(DATA));
+        byte[] buffer = new byte[7];
+        while (in.read(buffer, 0, buffer.length) != -1);
+        assertTrue(in.isValidated());
+        assertEquals(checksum(DATA), in.getCRC32Checksum());
+        // Reading past the end again doesn't fail
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    public void testMismatchFailsTheLastRead() throws IOException {
+        CRC32ChecksumValidatingInputStream in = new CRC32ChecksumValidatingInputStream(
+                new ByteArrayInputStream(DATA), checksum(DATA) + 1);
+        for (int i = 0; i < DATA.length; i++) {
+            assertEquals(DATA[i], (byte) in.read());
+        }
+        try {
+            in.read();
+            fail("Expected a checksum mismatch");
+        } catch (CRC32MismatchException expected) {
+        }
+        assertFalse(in.isValidated());
+    }
+
+    @Test
+    public void testSkippedBytesAreChecksummed() throws IOException {
+        byte[] corrupted = DATA.clone();
+        corrupted[3] = 'X';
+        CRC32ChecksumValidatingInputStream in = new CRC32ChecksumValidatingInputStream(
+                new ByteArrayInputStream(corrupted), checksum(DATA));
+        assertEquals(5, in.skip(5));
+        try {
+            in.readToEnd();
+            fail("Expected a checksum mismatch");
+        } catch (CRC32MismatchException expected) {
+        }
+    }
+
+    @Test
+    public void testReadToEnd() throws IOException {
+        CRC32ChecksumValidatingInputStream in = new CRC32ChecksumValidatingInputStream(
+                new ByteArrayInputStream(DATA), checksum(DATA));
+        in.read();
+        in.readToEnd();
+        assertTrue(in.isValidated());
+        // No-op once validated
+        in.readToEnd();
+    }
+}
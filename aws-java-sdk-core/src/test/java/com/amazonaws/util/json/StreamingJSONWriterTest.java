@@ -0,0 +1,102 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights
+ * Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is
+ * distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either
+ * express or implied. See the License for the specific language
+ * governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.util.json;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.util.Date;
+
+import org.junit.Test;
+
+import com.amazonaws.util.StringUtils;
+
+/**
+ * Unit tests for the StreamingJSONWriter class.
+ */
+public class StreamingJSONWriterTest {
+
+    private static void writeSample(JSONWriter writer) throws JSONException {
+        writer.object();
+        writer.key("TableName").value("table");
+        writer.key("Limit").value(Integer.valueOf(10));
+        writer.key("Long").value(12345678901L);
+        writer.key("Double").value(Double.valueOf(1.50));
+        writer.key("ConsistentRead").value(Boolean.TRUE);
+        writer.key("Exists").value(false);
+        writer.key("Date").value(new Date(1234567890123L));
+        writer.key("Binary").value(ByteBuffer.wrap(new byte[] {1, 2, 3, 4, 5}));
+        writer.key("List");
+        writer.array();
+        writer.value("a\"b\\c");
+        writer.object();
+        writer.key("N").value("1");
+        writer.endObject();
+        writer.endArray();
+        writer.key("Empty");
+        writer.object();
+        writer.endObject();
+        writer.endObject();
+    }
+
+    /**
+     * Tests that the streaming writer produces the same JSON text as the
+     * default JSONWriter.
+     */
+    @Test
+    public void testSameOutputAsJSONWriter() throws Exception {
+        StringWriter stringWriter = new StringWriter();
+        writeSample(new JSONWriter(stringWriter));
+
+        StreamingJSONWriter streamingWriter = new StreamingJSONWriter();
+        writeSample(streamingWriter);
+
+        assertEquals(stringWriter.toString(),
+                new String(streamingWriter.getBytes(), StringUtils.UTF8));
+    }
+
+    /**
+     * Tests that the pooled buffer is reset between writers on the same
+     * thread, and that ByteBuffer values are not consumed.
+     */
+    @Test
+    public void testBufferReuse() throws Exception {
+        ByteBuffer data = ByteBuffer.wrap("hello world".getBytes(StringUtils.UTF8));
+        data.position(6);
+        for (int i = 0; i < 3; i++) {
+            StreamingJSONWriter writer = new StreamingJSONWriter();
+            writer.object().key("Data").value(data).endObject();
+            assertEquals("{\"Data\":\"d29ybGQ=\"}",
+                    new String(writer.getBytes(), StringUtils.UTF8));
+            assertEquals(6, data.position());
+        }
+    }
+
+    /**
+     * Tests that non-ASCII strings are encoded as UTF-8.
+     */
+    @Test
+    public void testUnicode() throws Exception {
+        StreamingJSONWriter writer = new StreamingJSONWriter();
+        writer.object().key("kéy").value("välue 水").endObject();
+        assertEquals("{\"kéy\":\"välue 水\"}",
+                new String(writer.getBytes(), StringUtils.UTF8));
+    }
+}
@@ -28,6 +28,7 @@ import com.amazonaws.auth.AWSCredentialsProvider;
 import com.amazonaws.auth.DefaultAWSCredentialsProviderChain;
 
 import com.amazonaws.services.dynamodbv2.model.*;
+import com.amazonaws.services.dynamodbv2.model.transform.*;
 
 /**
  * Asynchronous client for accessing AmazonDynamoDBv2.
@@ -472,6 +473,9 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient
      */
     public Future<ScanResult> scanAsync(final ScanRequest scanRequest) 
             throws AmazonServiceException, AmazonClientException {
+        if (client.isNonBlocking()) {
+            return invokeAsync(scanRequest, new ScanRequestMarshaller(), new ScanResultJsonUnmarshaller(), null);
+        }
         return executorService.submit(new Callable<ScanResult>() {
             public ScanResult call() throws Exception {
                 return scan(scanRequest);
@@ -530,6 +534,9 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient
             final ScanRequest scanRequest,
             final AsyncHandler<ScanRequest, ScanResult> asyncHandler)
                     throws AmazonServiceException, AmazonClientException {
+        if (client.isNonBlocking()) {
+            return invokeAsync(scanRequest, new ScanRequestMarshaller(), new ScanResultJsonUnmarshaller(), asyncHandler);
+        }
         return executorService.submit(new Callable<ScanResult>() {
             public ScanResult call() throws Exception {
               ScanResult result;
@@ -896,6 +903,9 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient
      */
     public Future<BatchWriteItemResult> batchWriteItemAsync(final BatchWriteItemRequest batchWriteItemRequest) 
             throws AmazonServiceException, AmazonClientException {
+        if (client.isNonBlocking()) {
+            return invokeAsync(batchWriteItemRequest, new BatchWriteItemRequestMarshaller(), new BatchWriteItemResultJsonUnmarshaller(), null);
+        }
         return executorService.submit(new Callable<BatchWriteItemResult>() {
             public BatchWriteItemResult call() throws Exception {
                 return batchWriteItem(batchWriteItemRequest);
@@ -1030,6 +1040,9 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient
             final BatchWriteItemRequest batchWriteItemRequest,
             final AsyncHandler<BatchWriteItemRequest, BatchWriteItemResult> asyncHandler)
                     throws AmazonServiceException, AmazonClientException {
+        if (client.isNonBlocking()) {
+            return invokeAsync(batchWriteItemRequest, new BatchWriteItemRequestMarshaller(), new BatchWriteItemResultJsonUnmarshaller(), asyncHandler);
+        }
         return executorService.submit(new Callable<BatchWriteItemResult>() {
             public BatchWriteItemResult call() throws Exception {
               BatchWriteItemResult result;
@@ -1168,6 +1181,9 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient
      */
     public Future<GetItemResult> getItemAsync(final GetItemRequest getItemRequest) 
             throws AmazonServiceException, AmazonClientException {
+        if (client.isNonBlocking()) {
+            return invokeAsync(getItemRequest, new GetItemRequestMarshaller(), new GetItemResultJsonUnmarshaller(), null);
+        }
         return executorService.submit(new Callable<GetItemResult>() {
             public GetItemResult call() throws Exception {
                 return getItem(getItemRequest);
@@ -1212,6 +1228,9 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient
             final GetItemRequest getItemRequest,
             final AsyncHandler<GetItemRequest, GetItemResult> asyncHandler)
                     throws AmazonServiceException, AmazonClientException {
+        if (client.isNonBlocking()) {
+            return invokeAsync(getItemRequest, new GetItemRequestMarshaller(), new GetItemResultJsonUnmarshaller(), asyncHandler);
+        }
         return executorService.submit(new Callable<GetItemResult>() {
             public GetItemResult call() throws Exception {
               GetItemResult result;
@@ -1266,6 +1285,9 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient
      */
     public Future<DeleteItemResult> deleteItemAsync(final DeleteItemRequest deleteItemRequest) 
             throws AmazonServiceException, AmazonClientException {
+        if (client.isNonBlocking()) {
+            return invokeAsync(deleteItemRequest, new DeleteItemRequestMarshaller(), new DeleteItemResultJsonUnmarshaller(), null);
+        }
         return executorService.submit(new Callable<DeleteItemResult>() {
             public DeleteItemResult call() throws Exception {
                 return deleteItem(deleteItemRequest);
@@ -1318,6 +1340,9 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient
             final DeleteItemRequest deleteItemRequest,
             final AsyncHandler<DeleteItemRequest, DeleteItemResult> asyncHandler)
                     throws AmazonServiceException, AmazonClientException {
+        if (client.isNonBlocking()) {
+            return invokeAsync(deleteItemRequest, new DeleteItemRequestMarshaller(), new DeleteItemResultJsonUnmarshaller(), asyncHandler);
+        }
         return executorService.submit(new Callable<DeleteItemResult>() {
             public DeleteItemResult call() throws Exception {
               DeleteItemResult result;
@@ -1502,6 +1527,9 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient
      */
     public Future<QueryResult> queryAsync(final QueryRequest queryRequest) 
             throws AmazonServiceException, AmazonClientException {
+        if (client.isNonBlocking()) {
+            return invokeAsync(queryRequest, new QueryRequestMarshaller(), new QueryResultJsonUnmarshaller(), null);
+        }
         return executorService.submit(new Callable<QueryResult>() {
             public QueryResult call() throws Exception {
                 return query(queryRequest);
@@ -1570,6 +1598,9 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient
             final QueryRequest queryRequest,
             final AsyncHandler<QueryRequest, QueryResult> asyncHandler)
                     throws AmazonServiceException, AmazonClientException {
+        if (client.isNonBlocking()) {
+            return invokeAsync(queryRequest, new QueryRequestMarshaller(), new QueryResultJsonUnmarshaller(), asyncHandler);
+        }
         return executorService.submit(new Callable<QueryResult>() {
             public QueryResult call() throws Exception {
               QueryResult result;
@@ -1640,6 +1671,9 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient
      */
     public Future<PutItemResult> putItemAsync(final PutItemRequest putItemRequest) 
             throws AmazonServiceException, AmazonClientException {
+        if (client.isNonBlocking()) {
+            return invokeAsync(putItemRequest, new PutItemRequestMarshaller(), new PutItemResultJsonUnmarshaller(), null);
+        }
         return executorService.submit(new Callable<PutItemResult>() {
             public PutItemResult call() throws Exception {
                 return putItem(putItemRequest);
@@ -1708,6 +1742,9 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient
             final PutItemRequest putItemRequest,
             final AsyncHandler<PutItemRequest, PutItemResult> asyncHandler)
                     throws AmazonServiceException, AmazonClientException {
+        if (client.isNonBlocking()) {
+            return invokeAsync(putItemRequest, new PutItemRequestMarshaller(), new PutItemResultJsonUnmarshaller(), asyncHandler);
+        }
         return executorService.submit(new Callable<PutItemResult>() {
             public PutItemResult call() throws Exception {
               PutItemResult result;
@@ -1831,6 +1868,9 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient
      */
     public Future<UpdateItemResult> updateItemAsync(final UpdateItemRequest updateItemRequest) 
             throws AmazonServiceException, AmazonClientException {
+        if (client.isNonBlocking()) {
+            return invokeAsync(updateItemRequest, new UpdateItemRequestMarshaller(), new UpdateItemResultJsonUnmarshaller(), null);
+        }
         return executorService.submit(new Callable<UpdateItemResult>() {
             public UpdateItemResult call() throws Exception {
                 return updateItem(updateItemRequest);
@@ -1876,6 +1916,9 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient
             final UpdateItemRequest updateItemRequest,
             final AsyncHandler<UpdateItemRequest, UpdateItemResult> asyncHandler)
                     throws AmazonServiceException, AmazonClientException {
+        if (client.isNonBlocking()) {
+            return invokeAsync(updateItemRequest, new UpdateItemRequestMarshaller(), new UpdateItemResultJsonUnmarshaller(), asyncHandler);
+        }
         return executorService.submit(new Callable<UpdateItemResult>() {
             public UpdateItemResult call() throws Exception {
               UpdateItemResult result;
@@ -1975,6 +2018,9 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient
      */
     public Future<BatchGetItemResult> batchGetItemAsync(final BatchGetItemRequest batchGetItemRequest) 
             throws AmazonServiceException, AmazonClientException {
+        if (client.isNonBlocking()) {
+            return invokeAsync(batchGetItemRequest, new BatchGetItemRequestMarshaller(), new BatchGetItemResultJsonUnmarshaller(), null);
+        }
         return executorService.submit(new Callable<BatchGetItemResult>() {
             public BatchGetItemResult call() throws Exception {
                 return batchGetItem(batchGetItemRequest);
@@ -2072,6 +2118,9 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient
             final BatchGetItemRequest batchGetItemRequest,
             final AsyncHandler<BatchGetItemRequest, BatchGetItemResult> asyncHandler)
                     throws AmazonServiceException, AmazonClientException {
+        if (client.isNonBlocking()) {
+            return invokeAsync(batchGetItemRequest, new BatchGetItemRequestMarshaller(), new BatchGetItemResultJsonUnmarshaller(), asyncHandler);
+        }
         return executorService.submit(new Callable<BatchGetItemResult>() {
             public BatchGetItemResult call() throws Exception {
               BatchGetItemResult result;
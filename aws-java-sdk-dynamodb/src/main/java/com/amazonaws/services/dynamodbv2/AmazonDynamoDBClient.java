@@ -16,6 +16,7 @@ package com.amazonaws.services.dynamodbv2;
 
 import java.net.*;
 import java.util.*;
+import java.util.concurrent.Future;
 
 import org.apache.commons.logging.*;
 
@@ -3241,5 +3242,21 @@ public class AmazonDynamoDBClient extends AmazonWebServiceClient implements Amaz
                 errorResponseHandler, executionContext);
         return result;
     }
+
+    /**
+     * Sends the given request over the non-blocking transport of the
+     * underlying http client.
+     *
+     * @see AmazonWebServiceClient#invokeAsync(AmazonWebServiceRequest, Marshaller, HttpResponseHandler, HttpResponseHandler, AWSCredentialsProvider, AsyncHandler)
+     */
+    <X, Y extends AmazonWebServiceRequest> Future<X> invokeAsync(Y originalRequest,
+            Marshaller<Request<Y>, Y> marshaller,
+            Unmarshaller<X, JsonUnmarshallerContext> unmarshaller,
+            AsyncHandler<Y, X> asyncHandler) {
+        return invokeAsync(originalRequest, marshaller,
+                new JsonResponseHandler<X>(unmarshaller),
+                new JsonErrorResponseHandler(jsonErrorUnmarshallers),
+                awsCredentialsProvider, asyncHandler);
+    }
 }
         
\ No newline at end of file
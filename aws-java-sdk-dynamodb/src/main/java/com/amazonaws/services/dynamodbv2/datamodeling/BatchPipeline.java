@@ -0,0 +1,333 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.datamodeling;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.BatchConcurrency;
+
+/**
+ * Sends the items of a batch operation to DynamoDB in batch requests, keeping
+ * up to a configured number of requests in flight at the same time.
+ * <p>
+ * Items the service leaves unprocessed go back to the queue of their table to
+ * be sent with a later batch, and the table is backed off for a jittered,
+ * exponentially growing delay. Meanwhile batches for the other tables keep
+ * going out, so a throttled table doesn't hold up the whole operation.
+ * <p>
+ * The calling thread builds the batches and handles their results; only
+ * {@link #send(Map)} is called on the threads of the executor.
+ *
+ * @param <I>
+ *            The type of the items, such as write requests or keys.
+ * @param <R>
+ *            The type of the result of a batch request.
+ */
+abstract class BatchPipeline<I, R> {
+
+    /** Back-off delay after the first unprocessed response for a table. */
+    private static final long BASE_BACKOFF_IN_MILLISECONDS = 100;
+
+    private final int maxBatchSize;
+    private final BatchConcurrency concurrency;
+
+    /** Items yet to be sent, by table, in the order the tables were added. */
+    private final Map<String, TableQueue<I>> tables = new LinkedHashMap<String, TableQueue<I>>();
+
+    /** Batches to send again as they are, ahead of the queued items. */
+    private final LinkedList<Map<String, List<I>>> resubmittedBatches =
+            new LinkedList<Map<String, List<I>>>();
+
+    private final BlockingQueue<Completion> completions = new LinkedBlockingQueue<Completion>();
+
+    private final Random random = new Random();
+
+    /**
+     * @param maxBatchSize
+     *            The maximum number of items in a batch request.
+     * @param concurrency
+     *            The number of batch requests to keep in flight, or null to
+     *            send them one at a time.
+     */
+    BatchPipeline(int maxBatchSize, BatchConcurrency concurrency) {
+        this.maxBatchSize = maxBatchSize;
+        this.concurrency = concurrency == null ? BatchConcurrency.SEQUENTIAL : concurrency;
+    }
+
+    /**
+     * Sends the given batch to DynamoDB. Called on the threads of the
+     * executor, possibly for several batches at the same time.
+     */
+    protected abstract R send(Map<String, List<I>> batch);
+
+    /**
+     * Handles the result of a batch request, and returns the items of the
+     * batch the service left unprocessed, if any.
+     */
+    protected abstract Map<String, List<I>> onSuccess(Map<String, List<I>> batch, R result);
+
+    /**
+     * Handles a failed batch request. Throwing a runtime exception aborts the
+     * operation, once the batch requests in flight have completed.
+     */
+    protected abstract void onFailure(Map<String, List<I>> batch, Exception exception);
+
+    /**
+     * Queues an item to be sent in a batch request for the given table.
+     */
+    final void add(String tableName, I item) {
+        TableQueue<I> table = tables.get(tableName);
+        if ( table == null ) {
+            table = new TableQueue<I>();
+            tables.put(tableName, table);
+        }
+        table.items.add(item);
+    }
+
+    /**
+     * Queues a batch, such as part of a batch that turned out to be too large,
+     * to be sent again as it is.
+     */
+    final void resubmit(Map<String, List<I>> batch) {
+        resubmittedBatches.add(batch);
+    }
+
+    /**
+     * Holds off sending batches for the given tables, after their requests
+     * were throttled.
+     */
+    final void backOff(Collection<String> tableNames) {
+        long now = System.nanoTime();
+        for ( String tableName : tableNames ) {
+            TableQueue<I> table = tables.get(tableName);
+            if ( table != null ) {
+                backOff(table, now);
+            }
+        }
+    }
+
+    /**
+     * Sends all the queued items, returning once they have all been processed
+     * or have failed.
+     */
+    final void execute() {
+        ExecutorService executor = concurrency.getExecutorService();
+        ExecutorService ownExecutor = null;
+        if ( executor == null && concurrency.getMaxConcurrentRequests() > 1 ) {
+            ownExecutor = Executors.newFixedThreadPool(concurrency.getMaxConcurrentRequests());
+            executor = ownExecutor;
+        }
+
+        try {
+            execute(executor);
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException(e.getMessage(), e);
+        } finally {
+            if ( ownExecutor != null ) {
+                ownExecutor.shutdown();
+            }
+        }
+    }
+
+    private void execute(ExecutorService executor) throws InterruptedException {
+        int maxInFlight = concurrency.getMaxConcurrentRequests();
+        int inFlight = 0;
+        RuntimeException failure = null;
+
+        while ( true ) {
+            long now = System.nanoTime();
+            while ( failure == null && inFlight < maxInFlight ) {
+                Map<String, List<I>> batch = nextBatch(now);
+                if ( batch == null ) {
+                    break;
+                }
+                submit(executor, batch);
+                inFlight++;
+            }
+
+            long delay = failure == null ? nanosUntilReady(now) : -1;
+            if ( inFlight == 0 ) {
+                if ( failure != null ) {
+                    throw failure;
+                }
+                if ( delay < 0 ) {
+                    return;
+                }
+                TimeUnit.NANOSECONDS.sleep(delay);
+                continue;
+            }
+
+            Completion completion;
+            if ( delay > 0 && inFlight < maxInFlight ) {
+                // Wake up when a backed off table can be sent again
+                completion = completions.poll(delay, TimeUnit.NANOSECONDS);
+                if ( completion == null ) {
+                    continue;
+                }
+            } else {
+                completion = completions.take();
+            }
+            inFlight--;
+
+            try {
+                complete(completion);
+            } catch ( RuntimeException e ) {
+                if ( failure == null ) {
+                    failure = e;
+                }
+            }
+        }
+    }
+
+    private void submit(ExecutorService executor, final Map<String, List<I>> batch) {
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                Completion completion = new Completion(batch);
+                try {
+                    completion.result = send(batch);
+                } catch ( Throwable t ) {
+                    completion.failure = t;
+                }
+                completions.add(completion);
+            }
+        };
+        if ( executor == null ) {
+            task.run();
+        } else {
+            executor.execute(task);
+        }
+    }
+
+    private void complete(Completion completion) {
+        Throwable failure = completion.failure;
+        if ( failure instanceof Error ) {
+            throw (Error) failure;
+        }
+        if ( failure != null ) {
+            onFailure(completion.batch, (Exception) failure);
+            return;
+        }
+
+        Map<String, List<I>> unprocessed = onSuccess(completion.batch, completion.result);
+        long now = System.nanoTime();
+        for ( String tableName : completion.batch.keySet() ) {
+            TableQueue<I> table = tables.get(tableName);
+            List<I> items = unprocessed == null ? null : unprocessed.get(tableName);
+            if ( items == null || items.isEmpty() ) {
+                table.retries = 0;
+            } else {
+                // Unprocessed items go first, as they were queued first
+                table.items.addAll(0, items);
+                backOff(table, now);
+            }
+        }
+    }
+
+    /**
+     * Returns the next batch to send, or null if no items can be sent yet.
+     */
+    private Map<String, List<I>> nextBatch(long now) {
+        if ( !resubmittedBatches.isEmpty() ) {
+            return resubmittedBatches.removeFirst();
+        }
+
+        Map<String, List<I>> batch = null;
+        int size = 0;
+        for ( Entry<String, TableQueue<I>> entry : tables.entrySet() ) {
+            TableQueue<I> table = entry.getValue();
+            if ( table.items.isEmpty() || table.readyAtNanos - now > 0 ) {
+                continue;
+            }
+
+            List<I> items = new ArrayList<I>(Math.min(maxBatchSize - size, table.items.size()));
+            while ( size < maxBatchSize && !table.items.isEmpty() ) {
+                items.add(table.items.removeFirst());
+                size++;
+            }
+            if ( batch == null ) {
+                batch = new HashMap<String, List<I>>();
+            }
+            batch.put(entry.getKey(), items);
+
+            if ( size == maxBatchSize ) {
+                break;
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Returns the number of nanoseconds until the next batch can be sent, or
+     * -1 if there are no more items to send.
+     */
+    private long nanosUntilReady(long now) {
+        if ( !resubmittedBatches.isEmpty() ) {
+            return 0;
+        }
+        long delay = -1;
+        for ( TableQueue<I> table : tables.values() ) {
+            if ( !table.items.isEmpty() ) {
+                long tableDelay = Math.max(0, table.readyAtNanos - now);
+                delay = delay < 0 ? tableDelay : Math.min(delay, tableDelay);
+            }
+        }
+        return delay;
+    }
+
+    private void backOff(TableQueue<I> table, long now) {
+        table.retries++;
+        long maxDelay = Math.min(DynamoDBMapper.MAX_BACKOFF_IN_MILLISECONDS,
+                BASE_BACKOFF_IN_MILLISECONDS << Math.min(table.retries - 1, 16));
+        // Wait between half and all of the maximum, so that clients backing
+        // off at the same time don't all come back at once
+        long delay = maxDelay / 2 + (long) (random.nextDouble() * (maxDelay / 2));
+        table.readyAtNanos = now + TimeUnit.MILLISECONDS.toNanos(delay);
+    }
+
+    private static final class TableQueue<I> {
+        private final LinkedList<I> items = new LinkedList<I>();
+
+        /** Number of consecutive batches that left items unprocessed. */
+        private int retries;
+
+        private long readyAtNanos = System.nanoTime();
+    }
+
+    private final class Completion {
+        private final Map<String, List<I>> batch;
+        private R result;
+        private Throwable failure;
+
+        Completion(Map<String, List<I>> batch) {
+            this.batch = batch;
+        }
+    }
+}
@@ -14,7 +14,10 @@
  */
 package com.amazonaws.services.dynamodbv2.datamodeling;
 
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.math.BigDecimal;
@@ -23,12 +26,15 @@ import java.nio.ByteBuffer;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -211,6 +217,18 @@ public final class ConversionSchemas {
         private final DynamoDBReflector reflector;
         private final S3ClientCache s3cc;
 
+        /*
+         * Everything that only depends on the mapped class is looked up once
+         * and bound here, so converting an item afterwards only does the work
+         * that depends on its values.
+         */
+        private final ConcurrentMap<Class<?>, ItemModel<?>> itemModels =
+                new ConcurrentHashMap<Class<?>, ItemModel<?>>();
+        private final ConcurrentMap<Method, ArgumentMarshaller> marshallers =
+                new ConcurrentHashMap<Method, ArgumentMarshaller>();
+        private final ConcurrentMap<Method, ArgumentUnmarshaller> unmarshallers =
+                new ConcurrentHashMap<Method, ArgumentUnmarshaller>();
+
         public StandardItemConverter(
                 MarshallerSet marshallerSet,
                 UnmarshallerSet unmarshallerSet,
@@ -272,19 +290,19 @@ public final class ConversionSchemas {
                 return null;
             }
 
-            Class<?> clazz = object.getClass();
+            ItemModel<?> model = getItemModel(object.getClass());
             Map<String, AttributeValue> result =
-                    new HashMap<String, AttributeValue>();
+                    new HashMap<String, AttributeValue>(model.mapCapacity);
 
-            for (Method getter : reflector.getRelevantGetters(clazz)) {
+            for (PropertyModel property : model.properties) {
                 Object getterResult =
-                        ReflectionUtils.safeInvoke(getter, object);
+                        ReflectionUtils.safeInvoke(property.getter, object);
 
                 if (getterResult != null) {
-                    AttributeValue value = convert(getter, getterResult);
+                    AttributeValue value =
+                            property.marshaller().marshall(getterResult);
                     if (value != null) {
-                        String name = reflector.getAttributeName(getter);
-                        result.put(name, value);
+                        result.put(property.attributeName, value);
                     }
                 }
             }
@@ -293,12 +311,17 @@ public final class ConversionSchemas {
         }
 
         private ArgumentMarshaller getMarshaller(Method getter) {
-            ArgumentMarshaller marshaller =
-                    marshallerSet.getMarshaller(getter);
+            ArgumentMarshaller marshaller = marshallers.get(getter);
+            if (marshaller != null) {
+                return marshaller;
+            }
 
+            marshaller = marshallerSet.getMarshaller(getter);
             marshaller = augment(getter.getGenericReturnType(), marshaller);
 
-            return marshaller;
+            ArgumentMarshaller existing =
+                    marshallers.putIfAbsent(getter, marshaller);
+            return existing == null ? marshaller : existing;
         }
 
         private ArgumentMarshaller getMemberMarshaller(Type type) {
@@ -417,46 +440,42 @@ public final class ConversionSchemas {
                 Class<T> clazz,
                 Map<String, AttributeValue> value) {
 
-            T result = createObject(clazz);
+            ItemModel<T> model = getItemModel(clazz);
+            T result = model.newInstance();
             if (value == null || value.isEmpty()) {
                 return result;
             }
 
-            for (Method m : reflector.getRelevantGetters(clazz)) {
-                String attributeName = reflector.getAttributeName(m);
-                AttributeValue av = value.get(attributeName);
+            for (PropertyModel property : model.properties) {
+                AttributeValue av = value.get(property.attributeName);
                 if (av != null) {
-                    setValue(result, m, av);
+                    Method setter = property.setter();
+                    Object unmarshalled = unmarshall(
+                            property.unmarshaller(), setter, av);
+                    ReflectionUtils.safeInvoke(setter, result, unmarshalled);
                 }
             }
 
             return result;
         }
 
-        private void setValue(
-                Object target,
-                Method getter,
-                AttributeValue value) {
-
-            Method setter = reflector.getSetter(getter);
-            ArgumentUnmarshaller unmarshaller =
-                    getUnmarshaller(getter, setter);
-
-            Object unmarshalled = unmarshall(unmarshaller, setter, value);
-            ReflectionUtils.safeInvoke(setter, target, unmarshalled);
-        }
-
         private ArgumentUnmarshaller getUnmarshaller(
                 Method getter,
                 Method setter) {
 
-            ArgumentUnmarshaller unmarshaller =
-                    unmarshallerSet.getUnmarshaller(getter, setter);
+            ArgumentUnmarshaller unmarshaller = unmarshallers.get(getter);
+            if (unmarshaller != null) {
+                return unmarshaller;
+            }
 
+            unmarshaller = unmarshallerSet.getUnmarshaller(getter, setter);
             unmarshaller = augment(
                     setter.getGenericParameterTypes()[0], unmarshaller);
+            unmarshaller = new NullableUnmarshaller(unmarshaller);
 
-            return new NullableUnmarshaller(unmarshaller);
+            ArgumentUnmarshaller existing =
+                    unmarshallers.putIfAbsent(getter, unmarshaller);
+            return existing == null ? unmarshaller : existing;
         }
 
         private ArgumentUnmarshaller getMemberUnmarshaller(Type type) {
@@ -620,6 +639,145 @@ public final class ConversionSchemas {
             }
         }
 
+        @SuppressWarnings("unchecked")
+        private <T> ItemModel<T> getItemModel(Class<T> clazz) {
+            ItemModel<?> model = itemModels.get(clazz);
+            if (model == null) {
+                model = new ItemModel<T>(clazz);
+                ItemModel<?> existing = itemModels.putIfAbsent(clazz, model);
+                if (existing != null) {
+                    model = existing;
+                }
+            }
+            return (ItemModel<T>) model;
+        }
+
+        /**
+         * The constructor and mapped properties of a class, looked up once.
+         */
+        private final class ItemModel<T> {
+
+            private final Class<T> clazz;
+
+            /**
+             * The public no-argument constructor of the class, or null to
+             * fall back to {@link Class#newInstance()}, which reports a
+             * missing or inaccessible constructor.
+             */
+            private final Constructor<T> constructor;
+
+            private final PropertyModel[] properties;
+
+            /** Initial capacity of a map holding all the attributes. */
+            private final int mapCapacity;
+
+            ItemModel(Class<T> clazz) {
+                this.clazz = clazz;
+                this.constructor = findConstructor(clazz);
+
+                Collection<Method> getters = reflector.getRelevantGetters(clazz);
+                this.properties = new PropertyModel[getters.size()];
+                int i = 0;
+                for (Method getter : getters) {
+                    properties[i++] = new PropertyModel(
+                            getter, reflector.getAttributeName(getter));
+                }
+                this.mapCapacity = properties.length * 4 / 3 + 1;
+            }
+
+            T newInstance() {
+                if (constructor == null) {
+                    return createObject(clazz);
+                }
+                try {
+
+                    return constructor.newInstance();
+
+                } catch (InvocationTargetException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    throw new DynamoDBMappingException(
+                            "Failed to instantiate new instance of class", cause);
+
+                } catch (InstantiationException e) {
+                    throw new DynamoDBMappingException(
+                            "Failed to instantiate new instance of class", e);
+
+                } catch (IllegalAccessException e) {
+                    throw new DynamoDBMappingException(
+                            "Failed to instantiate new instance of class", e);
+                }
+            }
+        }
+
+        /**
+         * A mapped property of a class. The setter and the (un)marshaller are
+         * only looked up when first needed, so a property that can't be
+         * mapped still only fails once it is actually used.
+         */
+        private final class PropertyModel {
+
+            private final Method getter;
+            private final String attributeName;
+
+            private volatile Method setter;
+            private volatile ArgumentMarshaller marshaller;
+            private volatile ArgumentUnmarshaller unmarshaller;
+
+            PropertyModel(Method getter, String attributeName) {
+                this.getter = getter;
+                this.attributeName = attributeName;
+            }
+
+            Method setter() {
+                Method result = setter;
+                if (result == null) {
+                    result = reflector.getSetter(getter);
+                    setter = result;
+                }
+                return result;
+            }
+
+            ArgumentMarshaller marshaller() {
+                ArgumentMarshaller result = marshaller;
+                if (result == null) {
+                    result = getMarshaller(getter);
+                    marshaller = result;
+                }
+                return result;
+            }
+
+            ArgumentUnmarshaller unmarshaller() {
+                ArgumentUnmarshaller result = unmarshaller;
+                if (result == null) {
+                    result = getUnmarshaller(getter, setter());
+                    unmarshaller = result;
+                }
+                return result;
+            }
+        }
+
+        private static <T> Constructor<T> findConstructor(Class<T> clazz) {
+            if (!Modifier.isPublic(clazz.getModifiers())
+                    || Modifier.isAbstract(clazz.getModifiers())) {
+                return null;
+            }
+            try {
+                Constructor<T> constructor = clazz.getConstructor();
+                constructor.setAccessible(true);
+                return constructor;
+            } catch (NoSuchMethodException e) {
+                return null;
+            } catch (SecurityException e) {
+                return null;
+            }
+        }
+
         private static <T> T createObject(Class<T> clazz) {
             try {
 
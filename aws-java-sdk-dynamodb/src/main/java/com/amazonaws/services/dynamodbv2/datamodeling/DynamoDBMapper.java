@@ -15,18 +15,17 @@
 package com.amazonaws.services.dynamodbv2.datamodeling;
 
 import java.lang.reflect.Method;
+import java.util.AbstractMap.SimpleEntry;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Random;
 import java.util.Set;
 import java.util.UUID;
 
@@ -73,6 +72,7 @@ import com.amazonaws.services.dynamodbv2.model.Select;
 import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
 import com.amazonaws.services.dynamodbv2.model.UpdateItemResult;
 import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+import com.amazonaws.services.dynamodbv2.util.ItemCache;
 import com.amazonaws.services.s3.model.Region;
 import com.amazonaws.util.VersionInfoUtils;
 
@@ -179,6 +179,13 @@ public class DynamoDBMapper {
 
     private final AttributeTransformer transformer;
 
+    /**
+     * The converter created for the most recently used conversion schema.
+     * Converters bind the mapping of each class on first use, so they are
+     * reused for as long as the same schema is used.
+     */
+    private volatile SchemaConverter schemaConverter;
+
     /** The max back off time for batch write */
     static final long MAX_BACKOFF_IN_MILLISECONDS = 1000 * 3;
 
@@ -191,6 +198,9 @@ public class DynamoDBMapper {
      */
     static final int BATCH_GET_MAX_RETRY_COUNT_ALL_KEYS = 5;
 
+    /** The max number of keys allowed in a BatchGet request */
+    static final int MAX_KEYS_PER_BATCH_GET = 100;
+
     /**
      * User agent for requests made using the {@link DynamoDBMapper}.
      */
@@ -446,11 +456,26 @@ public class DynamoDBMapper {
         rq.setTableName(tableName);
         rq.setConsistentRead(config.getConsistentReads() == ConsistentReads.CONSISTENT);
 
+        ItemCache cache = config.getItemCache();
+        Map<String, AttributeValue> itemAttributes = null;
+        if ( cache != null && !rq.isConsistentRead() ) {
+            itemAttributes = cache.get(tableName, key);
+            if ( itemAttributes != null ) {
+                // The attribute transformer may modify the attributes
+                itemAttributes = new HashMap<String, AttributeValue>(itemAttributes);
+            }
+        }
 
-        GetItemResult item = db.getItem(applyUserAgent(rq));
-        Map<String, AttributeValue> itemAttributes = item.getItem();
         if ( itemAttributes == null ) {
-            return null;
+            long generation = cache == null ? 0 : cache.getGeneration(tableName, key);
+            GetItemResult item = db.getItem(applyUserAgent(rq));
+            itemAttributes = item.getItem();
+            if ( itemAttributes == null ) {
+                return null;
+            }
+            if ( cache != null ) {
+                cache.put(tableName, key, itemAttributes, generation);
+            }
         }
 
         T object = privateMarshallIntoObject(
@@ -461,6 +486,21 @@ public class DynamoDBMapper {
     }
 
 
+    /**
+     * Returns the attributes of the given names, making up the primary key,
+     * of an item.
+     */
+    private static Map<String, AttributeValue> extractKey(
+            Map<String, AttributeValue> item,
+            Set<String> keyNames) {
+
+        Map<String, AttributeValue> key = new HashMap<String, AttributeValue>(keyNames.size());
+        for ( String keyName : keyNames ) {
+            key.put(keyName, item.get(keyName));
+        }
+        return key;
+    }
+
     /**
      * Returns a key map for the key object given.
      *
@@ -756,17 +796,13 @@ public class DynamoDBMapper {
          * Determine if there are any auto-assigned keys to assign. If so, force
          * a put and assign the keys.
          */
-        boolean hashKeyGetterFound = false;
         for ( Method method : keyGetters ) {
             Object getterResult = ReflectionUtils.safeInvoke(method, object);
             if ( getterResult == null && reflector.isAssignableKey(method) ) {
                 forcePut = true;
             }
-            if ( ReflectionUtils.getterOrFieldHasAnnotation(method, DynamoDBHashKey.class) ) {
-                hashKeyGetterFound = true;
-            }
         }
-        if ( !hashKeyGetterFound ) {
+        if ( !reflector.hasPrimaryHashKey(clazz) ) {
             throw new DynamoDBMappingException("No " + DynamoDBHashKey.class + " annotation found in class " + clazz);
         }
         return forcePut;
@@ -829,8 +865,9 @@ public class DynamoDBMapper {
          * CLOBBER is configured, or part of the primary key of the object needs
          * to be auto-generated.
          */
+        boolean autoGeneratedKey = needAutoGenerateAssignableKey(clazz, object);
         boolean forcePut = (finalConfig.getSaveBehavior() == SaveBehavior.CLOBBER)
-                || needAutoGenerateAssignableKey(clazz, object);
+                || autoGeneratedKey;
 
         SaveObjectHandler saveObjectHandler;
 
@@ -945,7 +982,18 @@ public class DynamoDBMapper {
             };
         }
 
-        saveObjectHandler.execute();
+        ItemCache cache = finalConfig.getItemCache();
+        if ( cache == null || autoGeneratedKey ) {
+            // An item with an auto-generated key is new, so it isn't cached
+            saveObjectHandler.execute();
+        } else {
+            Map<String, AttributeValue> key = getKey(converter, object);
+            try {
+                saveObjectHandler.execute();
+            } finally {
+                cache.invalidate(tableName, key);
+            }
+        }
     }
 
     /**
@@ -1390,7 +1438,14 @@ public class DynamoDBMapper {
                             deleteExpression.getConditionalOperator());
 
         }
-        db.deleteItem(applyUserAgent(req));
+
+        try {
+            db.deleteItem(applyUserAgent(req));
+        } finally {
+            if ( config.getItemCache() != null ) {
+                config.getItemCache().invalidate(tableName, key);
+            }
+        }
     }
 
     /**
@@ -1514,12 +1569,15 @@ public class DynamoDBMapper {
     public List<FailedBatch> batchWrite(List<? extends Object> objectsToWrite, List<? extends Object> objectsToDelete, DynamoDBMapperConfig config) {
         config = mergeConfig(config);
 
-        List<FailedBatch> totalFailedBatches = new LinkedList<FailedBatch>();
-
-        HashMap<String, List<WriteRequest>> requestItems = new HashMap<String, List<WriteRequest>>();
+        BatchWritePipeline pipeline = new BatchWritePipeline(config);
 
         ItemConverter converter = getConverter(config);
 
+        // The tables and keys of the items written, to remove from the cache
+        ItemCache cache = config.getItemCache();
+        List<Entry<String, Map<String, AttributeValue>>> written =
+                new ArrayList<Entry<String, Map<String, AttributeValue>>>();
+
         List<ValueUpdate> inMemoryUpdates = new LinkedList<ValueUpdate>();
         for ( Object toWrite : objectsToWrite ) {
             Class<?> clazz = toWrite.getClass();
@@ -1547,14 +1605,14 @@ public class DynamoDBMapper {
                 }
             }
 
-            if ( !requestItems.containsKey(tableName) ) {
-                requestItems.put(tableName, new LinkedList<WriteRequest>());
+            if ( cache != null ) {
+                written.add(new SimpleEntry<String, Map<String, AttributeValue>>(tableName, attributeValues));
             }
 
             AttributeTransformer.Parameters<?> parameters =
                 toParameters(attributeValues, clazz, tableName, config);
 
-            requestItems.get(tableName).add(
+            pipeline.add(tableName,
                 new WriteRequest().withPutRequest(
                     new PutRequest().withItem(
                         transformAttributes(parameters))));
@@ -1567,118 +1625,85 @@ public class DynamoDBMapper {
 
             Map<String, AttributeValue> key = getKey(converter, toDelete);
 
-            if ( !requestItems.containsKey(tableName) ) {
-                requestItems.put(tableName, new LinkedList<WriteRequest>());
+            if ( cache != null ) {
+                written.add(new SimpleEntry<String, Map<String, AttributeValue>>(tableName, key));
             }
 
-            requestItems.get(tableName).add(
+            pipeline.add(tableName,
                     new WriteRequest().withDeleteRequest(new DeleteRequest().withKey(key)));
         }
 
-        // Break into chunks of 25 items and make service requests to DynamoDB
-        while ( !requestItems.isEmpty() ) {
-
-            HashMap<String, List<WriteRequest>> batch =
-                    new HashMap<String, List<WriteRequest>>();
-
-            int i = 0;
-
-            Iterator<Entry<String, List<WriteRequest>>> tableIter = requestItems.entrySet().iterator();
-            while ( tableIter.hasNext() && i < MAX_ITEMS_PER_BATCH ) {
-
-                Entry<String, List<WriteRequest>> tableRequest = tableIter.next();
-
-                batch.put(tableRequest.getKey(), new LinkedList<WriteRequest>());
-                Iterator<WriteRequest> writeRequestIter = tableRequest.getValue().iterator();
-
-                while ( writeRequestIter.hasNext() && i++ < MAX_ITEMS_PER_BATCH ) {
-                    WriteRequest writeRequest = writeRequestIter.next();
-                    batch.get(tableRequest.getKey()).add(writeRequest);
-                    writeRequestIter.remove();
-                }
-
-                // If we've processed all the write requests for this table,
-                // remove it from the parent iterator.
-                if ( !writeRequestIter.hasNext() ) {
-                    tableIter.remove();
-                }
-            }
-
-            List<FailedBatch> failedBatches = writeOneBatch(batch);
-            if (failedBatches != null) {
-                totalFailedBatches.addAll(failedBatches);
-
-                // If contains throttling exception, we do a backoff
-                if (containsThrottlingException(failedBatches)) {
-                    try {
-                        Thread.sleep(1000 * 2);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        throw new AmazonClientException(e.getMessage(), e);
-                    }
-                }
+        // Send the items in batches of 25, dividing up batches that are too large
+        try {
+            pipeline.execute();
+        } finally {
+            for ( Entry<String, Map<String, AttributeValue>> entry : written ) {
+                cache.invalidate(entry.getKey(), entry.getValue());
             }
         }
 
-
-
         // Once the entire batch is processed, update assigned keys in memory
         for ( ValueUpdate update : inMemoryUpdates ) {
             update.apply();
         }
 
-        return totalFailedBatches;
+        return pipeline.failedBatches;
     }
 
     /**
-     * Process one batch of requests(max 25). It will divide the batch if
-     * receives request too large exception(the total size of the request is beyond 1M).
+     * Sends the write requests of a batchWrite call in batches of up to 25
+     * items.
      */
-    private List<FailedBatch> writeOneBatch(Map<String, List<WriteRequest>> batch) {
+    private final class BatchWritePipeline
+            extends BatchPipeline<WriteRequest, BatchWriteItemResult> {
 
-        List<FailedBatch> failedBatches = new LinkedList<FailedBatch>();
-        Map<String, List<WriteRequest>> firstHalfBatch = new HashMap<String, List<WriteRequest>>();
-        Map<String, List<WriteRequest>> secondHalfBatch = new HashMap<String, List<WriteRequest>>();
-        FailedBatch failedBatch = callUntilCompletion(batch);
+        private final List<FailedBatch> failedBatches = new LinkedList<FailedBatch>();
 
-        if (failedBatch != null) {
-            // If the exception is request entity too large, we divide the batch
-            // into smaller parts.
+        BatchWritePipeline(DynamoDBMapperConfig config) {
+            super(MAX_ITEMS_PER_BATCH, config.getBatchConcurrency());
+        }
 
-            if (failedBatch.getException() instanceof AmazonServiceException
-            && RetryUtils.isRequestEntityTooLargeException((AmazonServiceException) failedBatch.getException())) {
+        @Override
+        protected BatchWriteItemResult send(Map<String, List<WriteRequest>> batch) {
+            return db.batchWriteItem(applyBatchOperationUserAgent(
+                    new BatchWriteItemRequest().withRequestItems(batch)));
+        }
 
-                // If only one item left, the item size must beyond 64k, which
-                // exceedes the limit.
+        @Override
+        protected Map<String, List<WriteRequest>> onSuccess(
+                Map<String, List<WriteRequest>> batch,
+                BatchWriteItemResult result) {
+            return result.getUnprocessedItems();
+        }
 
-                if (computeFailedBatchSize(failedBatch) == 1) {
-                    failedBatches.add(failedBatch);
-                } else {
+        @Override
+        protected void onFailure(Map<String, List<WriteRequest>> batch, Exception e) {
+            if (e instanceof AmazonServiceException) {
+                AmazonServiceException ase = (AmazonServiceException) e;
+
+                // If the total size of the request is too large, divide the
+                // batch into smaller parts, unless it's a single item, which
+                // is too large by itself.
+                if (RetryUtils.isRequestEntityTooLargeException(ase) && computeBatchSize(batch) > 1) {
+                    Map<String, List<WriteRequest>> firstHalfBatch = new HashMap<String, List<WriteRequest>>();
+                    Map<String, List<WriteRequest>> secondHalfBatch = new HashMap<String, List<WriteRequest>>();
                     divideBatch(batch, firstHalfBatch, secondHalfBatch);
-                    failedBatches.addAll(writeOneBatch(firstHalfBatch));
-                    failedBatches.addAll(writeOneBatch(secondHalfBatch));
+                    resubmit(firstHalfBatch);
+                    resubmit(secondHalfBatch);
+                    return;
                 }
 
-            } else {
-                failedBatches.add(failedBatch);
+                // Give the service a break before sending the tables more
+                if (RetryUtils.isThrottlingException(ase)) {
+                    backOff(batch.keySet());
+                }
             }
 
+            FailedBatch failedBatch = new FailedBatch();
+            failedBatch.setUnprocessedItems(batch);
+            failedBatch.setException(e);
+            failedBatches.add(failedBatch);
         }
-        return failedBatches;
-    }
-
-    /**
-     * Check whether there are throttling exception in the failed batches.
-     */
-    private boolean containsThrottlingException (List<FailedBatch> failedBatches) {
-        for (FailedBatch failedBatch : failedBatches) {
-           Exception e = failedBatch.getException();
-            if (e instanceof AmazonServiceException
-                    && RetryUtils.isThrottlingException((AmazonServiceException) e)) {
-                return true;
-            }
-        }
-        return false;
     }
 
     /**
@@ -1693,58 +1718,31 @@ public class DynamoDBMapper {
 
             List<WriteRequest> secondHalfRequests = requests.subList(requests.size() / 2, requests.size());
 
-            firstHalfBatch.put(key, firstHalfRequests);
+            if (!firstHalfRequests.isEmpty()) {
+                firstHalfBatch.put(key, firstHalfRequests);
+            }
 
-            secondHalfBatch.put(key, secondHalfRequests);
+            if (!secondHalfRequests.isEmpty()) {
+                secondHalfBatch.put(key, secondHalfRequests);
+            }
 
         }
 
     }
 
     /**
-     * Count the total number of unprocessed items in the failed batch.
+     * Count the total number of items in the batch.
      */
-
-    private int computeFailedBatchSize(FailedBatch failedBatch) {
+    private static int computeBatchSize(Map<String, List<WriteRequest>> batch) {
 
         int count = 0;
 
-        for (String tableName : failedBatch.getUnprocessedItems().keySet()) {
-            count += failedBatch.getUnprocessedItems().get(tableName).size();
+        for (List<WriteRequest> requests : batch.values()) {
+            count += requests.size();
         }
         return count;
     }
 
-    /**
-     * Continue trying to process the batch until it finishes or an exception
-     * occurs.
-     */
-
-    private FailedBatch callUntilCompletion(Map<String, List<WriteRequest>> batch) {
-        BatchWriteItemResult result = null;
-        int retries = 0;
-        FailedBatch failedBatch = null;
-        while (true) {
-            try {
-                result = db.batchWriteItem(applyBatchOperationUserAgent(
-                        new BatchWriteItemRequest().withRequestItems(batch)));
-            } catch (Exception e) {
-                failedBatch = new FailedBatch();
-                failedBatch.setUnprocessedItems(batch);
-                failedBatch.setException(e);
-                return failedBatch;
-            }
-            retries++;
-            batch = result.getUnprocessedItems();
-            if (batch.size() > 0) {
-                pauseExponentially(retries);
-            } else {
-                break;
-            }
-        }
-        return failedBatch;
-    }
-
     /**
      * Retrieves multiple items from multiple tables using their primary keys.
      *
@@ -1785,42 +1783,39 @@ public class DynamoDBMapper {
             return new HashMap<String, List<Object>>();
         }
 
-        Map<String, KeysAndAttributes> requestItems = new HashMap<String, KeysAndAttributes>();
-        Map<String, Class<?>> classesByTableName = new HashMap<String, Class<?>>();
-        Map<String, List<Object>> resultSet = new HashMap<String, List<Object>>();
-        int count = 0;
-
         ItemConverter converter = getConverter(config);
+        BatchLoadPipeline pipeline = new BatchLoadPipeline(config, converter, consistentReads);
+        ItemCache cache = config.getItemCache();
 
         for ( Object keyObject : itemsToGet ) {
             Class<?> clazz = keyObject.getClass();
 
             String tableName = getTableName(clazz, keyObject, config);
-            classesByTableName.put(tableName, clazz);
+            pipeline.classesByTableName.put(tableName, clazz);
 
-            if ( !requestItems.containsKey(tableName) ) {
-                requestItems.put(
-                        tableName,
-                        new KeysAndAttributes().withConsistentRead(consistentReads).withKeys(
-                                new LinkedList<Map<String, AttributeValue>>()));
+            Map<String, AttributeValue> key = getKey(converter, keyObject);
+            Map<String, AttributeValue> cached = null;
+            if ( cache != null && !consistentReads ) {
+                cached = cache.get(tableName, key);
             }
 
-            requestItems.get(tableName).getKeys().add(
-                    getKey(converter, keyObject));
-
-            // Reach the maximum number which can be handled in a single batchGet
-            if ( ++count == 100 ) {
-                processBatchGetRequest(classesByTableName, requestItems, resultSet, config, converter);
-                requestItems.clear();
-                count = 0;
+            if ( cached == null ) {
+                if ( cache != null ) {
+                    pipeline.addGeneration(tableName, key, cache.getGeneration(tableName, key));
+                }
+                pipeline.add(tableName, key);
+            } else {
+                // The attribute transformer may modify the attributes
+                AttributeTransformer.Parameters<?> parameters = toParameters(
+                        new HashMap<String, AttributeValue>(cached), clazz, tableName, config);
+                pipeline.addLoaded(tableName, privateMarshallIntoObject(converter, parameters));
             }
         }
 
-        if ( count > 0 ) {
-            processBatchGetRequest(classesByTableName, requestItems, resultSet, config, converter);
-        }
+        // Get the items in batches of up to 100 keys
+        pipeline.execute();
 
-        return resultSet;
+        return pipeline.resultSet;
     }
 
     /**
@@ -1877,66 +1872,152 @@ public class DynamoDBMapper {
     }
 
     /**
-     * @param config never null
+     * Gets the items of a batchLoad call in batches of up to 100 keys.
      */
-    private void processBatchGetRequest(
-            final Map<String, Class<?>> classesByTableName,
-            final Map<String, KeysAndAttributes> requestItems,
-            final Map<String, List<Object>> resultSet,
-            final DynamoDBMapperConfig config,
-            final ItemConverter converter) {
+    private final class BatchLoadPipeline
+            extends BatchPipeline<Map<String, AttributeValue>, BatchLoadPipeline.LoadedBatch> {
 
-        BatchGetItemResult batchGetItemResult = null;
-        BatchGetItemRequest batchGetItemRequest = new BatchGetItemRequest()
-            .withRequestMetricCollector(config.getRequestMetricCollector());
-        batchGetItemRequest.setRequestItems(requestItems);
+        private final Map<String, Class<?>> classesByTableName = new HashMap<String, Class<?>>();
+        private final Map<String, List<Object>> resultSet = new HashMap<String, List<Object>>();
 
-        int retries = 0;
-        int noOfItemsInOriginalRequest = requestItems.size();
+        /**
+         * The item cache generation of each key of each table, taken before
+         * any request is sent, and only read once they are.
+         */
+        private final Map<String, Map<Map<String, AttributeValue>, Long>> generations =
+                new HashMap<String, Map<Map<String, AttributeValue>, Long>>();
 
-        do {
-            if ( batchGetItemResult != null ) {
-                retries++;
-
-                if (noOfItemsInOriginalRequest == batchGetItemResult
-                        .getUnprocessedKeys().size()){
-                    pauseExponentially(retries);
-                    if (retries > BATCH_GET_MAX_RETRY_COUNT_ALL_KEYS) {
-                        throw new AmazonClientException(
-                                "Batch Get Item request to server hasn't received any data. "
-                                + "Please try again later.");
-                    }
-                }
+        private final DynamoDBMapperConfig config;
+        private final ItemConverter converter;
+        private final boolean consistentReads;
+
+        /** Number of consecutive batches that got no items back at all. */
+        private int emptyResponses;
 
-                batchGetItemRequest.setRequestItems(
-                        batchGetItemResult.getUnprocessedKeys());
+        BatchLoadPipeline(DynamoDBMapperConfig config, ItemConverter converter, boolean consistentReads) {
+            super(MAX_KEYS_PER_BATCH_GET, config.getBatchConcurrency());
+            this.config = config;
+            this.converter = converter;
+            this.consistentReads = consistentReads;
+        }
+
+        @Override
+        protected LoadedBatch send(Map<String, List<Map<String, AttributeValue>>> batch) {
+            Map<String, KeysAndAttributes> requestItems = new HashMap<String, KeysAndAttributes>();
+            for ( Entry<String, List<Map<String, AttributeValue>>> entry : batch.entrySet() ) {
+                requestItems.put(entry.getKey(),
+                        new KeysAndAttributes().withConsistentRead(consistentReads).withKeys(entry.getValue()));
             }
 
-            batchGetItemResult = db.batchGetItem(
+            BatchGetItemRequest batchGetItemRequest = new BatchGetItemRequest()
+                .withRequestMetricCollector(config.getRequestMetricCollector());
+            batchGetItemRequest.setRequestItems(requestItems);
+
+            BatchGetItemResult batchGetItemResult = db.batchGetItem(
                     applyBatchOperationUserAgent(batchGetItemRequest));
 
+            // Unmarshall the items on this thread, while others wait for
+            // their responses
+            LoadedBatch loaded = new LoadedBatch();
             Map<String, List<Map<String, AttributeValue>>> responses = batchGetItemResult.getResponses();
+            ItemCache cache = config.getItemCache();
             for ( String tableName : responses.keySet() ) {
-                List<Object> objects = null;
-                if ( resultSet.get(tableName) != null ) {
-                    objects = resultSet.get(tableName);
-                } else {
-                    objects = new LinkedList<Object>();
-                }
-
+                List<Object> objects = new LinkedList<Object>();
                 Class<?> clazz = classesByTableName.get(tableName);
+                Set<String> keyNames = batch.get(tableName).get(0).keySet();
+
+                Map<Map<String, AttributeValue>, Long> tableGenerations = generations.get(tableName);
 
                 for ( Map<String, AttributeValue> item : responses.get(tableName) ) {
+                    if ( cache != null && tableGenerations != null ) {
+                        Map<String, AttributeValue> key = extractKey(item, keyNames);
+                        Long generation = tableGenerations.get(key);
+                        if ( generation != null ) {
+                            cache.put(tableName, key, item, generation);
+                        }
+                    }
                     AttributeTransformer.Parameters<?> parameters =
                         toParameters(item, clazz, tableName, config);
                     objects.add(privateMarshallIntoObject(converter, parameters));
                 }
 
+                loaded.objects.put(tableName, objects);
+                loaded.count += objects.size();
+            }
+
+            Map<String, KeysAndAttributes> unprocessedKeys = batchGetItemResult.getUnprocessedKeys();
+            if ( unprocessedKeys != null ) {
+                for ( Entry<String, KeysAndAttributes> entry : unprocessedKeys.entrySet() ) {
+                    loaded.unprocessed.put(entry.getKey(), entry.getValue().getKeys());
+                }
+            }
+            return loaded;
+        }
+
+        /**
+         * Records the item cache generation of a key about to be loaded.
+         */
+        void addGeneration(String tableName, Map<String, AttributeValue> key, long generation) {
+            Map<Map<String, AttributeValue>, Long> tableGenerations = generations.get(tableName);
+            if ( tableGenerations == null ) {
+                tableGenerations = new HashMap<Map<String, AttributeValue>, Long>();
+                generations.put(tableName, tableGenerations);
+            }
+            tableGenerations.put(key, generation);
+        }
+
+        /**
+         * Adds an object loaded without a request, from the item cache.
+         */
+        void addLoaded(String tableName, Object object) {
+            List<Object> objects = resultSet.get(tableName);
+            if ( objects == null ) {
+                objects = new LinkedList<Object>();
                 resultSet.put(tableName, objects);
             }
-            // To see whether there are unprocessed keys.
-        } while ( batchGetItemResult.getUnprocessedKeys() != null && batchGetItemResult.getUnprocessedKeys().size() > 0 );
+            objects.add(object);
+        }
+
+        @Override
+        protected Map<String, List<Map<String, AttributeValue>>> onSuccess(
+                Map<String, List<Map<String, AttributeValue>>> batch,
+                LoadedBatch loaded) {
+
+            for ( Entry<String, List<Object>> entry : loaded.objects.entrySet() ) {
+                List<Object> objects = resultSet.get(entry.getKey());
+                if ( objects == null ) {
+                    resultSet.put(entry.getKey(), entry.getValue());
+                } else {
+                    objects.addAll(entry.getValue());
+                }
+            }
 
+            if ( loaded.count == 0 && !loaded.unprocessed.isEmpty() ) {
+                if ( ++emptyResponses > BATCH_GET_MAX_RETRY_COUNT_ALL_KEYS ) {
+                    throw new AmazonClientException(
+                            "Batch Get Item request to server hasn't received any data. "
+                            + "Please try again later.");
+                }
+            } else {
+                emptyResponses = 0;
+            }
+            return loaded.unprocessed;
+        }
+
+        @Override
+        protected void onFailure(Map<String, List<Map<String, AttributeValue>>> batch, Exception e) {
+            if ( e instanceof RuntimeException ) {
+                throw (RuntimeException) e;
+            }
+            throw new AmazonClientException(e.getMessage(), e);
+        }
+
+        private final class LoadedBatch {
+            private final Map<String, List<Object>> objects = new HashMap<String, List<Object>>();
+            private final Map<String, List<Map<String, AttributeValue>>> unprocessed =
+                    new HashMap<String, List<Map<String, AttributeValue>>>();
+            private int count;
+        }
     }
 
     private final class ValueUpdate {
@@ -2066,9 +2147,10 @@ public class DynamoDBMapper {
 
     /**
      * Scans through an Amazon DynamoDB table on logically partitioned segments
-     * in parallel. This method will create a thread pool of the specified size,
-     * and each thread will issue scan requests for its assigned segment,
-     * following the returned continuation token, until the end of its segment.
+     * in parallel. Each segment is scanned page by page, following the
+     * returned continuation token, until the end of the segment, on the
+     * executor and within the read capacity set by the
+     * {@link DynamoDBMapperConfig.ParallelScanOptions} of the config.
      * Callers should be responsible for setting the appropriate number of total
      * segments. More scan segments would result in better performance but more
      * consumed capacity of the table. The results are returned in one
@@ -2109,7 +2191,7 @@ public class DynamoDBMapper {
 
         // Create hard copies of the original scan request with difference segment number.
         List<ScanRequest> parallelScanRequests = createParallelScanRequestsFromExpression(clazz, scanExpression, totalSegments, config);
-        ParallelScanTask parallelScanTask = new ParallelScanTask(db, parallelScanRequests);
+        ParallelScanTask parallelScanTask = new ParallelScanTask(db, parallelScanRequests, config.getParallelScanOptions());
 
         return new PaginatedParallelScanList<T>(this, clazz, db, parallelScanTask, config.getPaginationLoadingStrategy(), config);
     }
@@ -2924,29 +3006,27 @@ public class DynamoDBMapper {
     private ItemConverter getConverter(DynamoDBMapperConfig config) {
         ConversionSchema schema = config.getConversionSchema();
 
+        SchemaConverter cached = schemaConverter;
+        if (cached != null && cached.schema == schema) {
+            return cached.converter;
+        }
+
         ConversionSchema.Dependencies params = new ConversionSchema.Dependencies()
                 .with(DynamoDBReflector.class, reflector)
                 .with(S3ClientCache.class, s3cc);
 
-        return schema.getConverter(params);
+        ItemConverter converter = schema.getConverter(params);
+        schemaConverter = new SchemaConverter(schema, converter);
+        return converter;
     }
 
-    private void pauseExponentially(int retries) {
-        if (retries == 0) {
-            return;
-        }
-
-        Random random = new Random();
-        long delay = 0;
-        long scaleFactor = 500 + random.nextInt(100);
-        delay = (long) (Math.pow(2, retries) * scaleFactor);
-        delay = Math.min(delay, MAX_BACKOFF_IN_MILLISECONDS);
+    private static final class SchemaConverter {
+        private final ConversionSchema schema;
+        private final ItemConverter converter;
 
-        try {
-            Thread.sleep(delay);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new AmazonClientException(e.getMessage(), e);
+        SchemaConverter(ConversionSchema schema, ItemConverter converter) {
+            this.schema = schema;
+            this.converter = converter;
         }
     }
 
@@ -14,7 +14,10 @@
  */
 package com.amazonaws.services.dynamodbv2.datamodeling;
 
+import java.util.concurrent.ExecutorService;
+
 import com.amazonaws.metrics.RequestMetricCollector;
+import com.amazonaws.services.dynamodbv2.util.ItemCache;
 
 /**
  * Immutable configuration object for service call behavior. An instance of this
@@ -50,6 +53,9 @@ public class DynamoDBMapperConfig {
         private PaginationLoadingStrategy paginationLoadingStrategy;
         private RequestMetricCollector requestMetricCollector;
         private ConversionSchema conversionSchema;
+        private BatchConcurrency batchConcurrency;
+        private ParallelScanOptions parallelScanOptions;
+        private ItemCache itemCache;
 
         /**
          * Creates a new builder initialized with the {@link #DEFAULT} values.
@@ -63,6 +69,9 @@ public class DynamoDBMapperConfig {
             paginationLoadingStrategy = DEFAULT.getPaginationLoadingStrategy();
             requestMetricCollector = DEFAULT.getRequestMetricCollector();
             conversionSchema = DEFAULT.getConversionSchema();
+            batchConcurrency = DEFAULT.getBatchConcurrency();
+            parallelScanOptions = DEFAULT.getParallelScanOptions();
+            itemCache = DEFAULT.getItemCache();
         }
 
         /**
@@ -260,6 +269,78 @@ public class DynamoDBMapperConfig {
         }
 
 
+        /**
+         * @return the current batch concurrency
+         */
+        public BatchConcurrency getBatchConcurrency() {
+            return batchConcurrency;
+        }
+
+        /**
+         * @param value the new batch concurrency
+         */
+        public void setBatchConcurrency(BatchConcurrency value) {
+            batchConcurrency = value;
+        }
+
+        /**
+         * @param value the new batch concurrency
+         * @return this builder
+         */
+        public Builder withBatchConcurrency(BatchConcurrency value) {
+            setBatchConcurrency(value);
+            return this;
+        }
+
+
+        /**
+         * @return the current parallel scan options
+         */
+        public ParallelScanOptions getParallelScanOptions() {
+            return parallelScanOptions;
+        }
+
+        /**
+         * @param value the new parallel scan options
+         */
+        public void setParallelScanOptions(ParallelScanOptions value) {
+            parallelScanOptions = value;
+        }
+
+        /**
+         * @param value the new parallel scan options
+         * @return this builder
+         */
+        public Builder withParallelScanOptions(ParallelScanOptions value) {
+            setParallelScanOptions(value);
+            return this;
+        }
+
+
+        /**
+         * @return the current item cache; or null if items are not cached
+         */
+        public ItemCache getItemCache() {
+            return itemCache;
+        }
+
+        /**
+         * @param value the new item cache; or null to not cache items
+         */
+        public void setItemCache(ItemCache value) {
+            itemCache = value;
+        }
+
+        /**
+         * @param value the new item cache; or null to not cache items
+         * @return this builder
+         */
+        public Builder withItemCache(ItemCache value) {
+            setItemCache(value);
+            return this;
+        }
+
+
         /**
          * Builds a new {@code DynamoDBMapperConfig} object.
          *
@@ -274,7 +355,10 @@ public class DynamoDBMapperConfig {
                     objectTableNameResolver,
                     paginationLoadingStrategy,
                     requestMetricCollector,
-                    conversionSchema);
+                    conversionSchema,
+                    batchConcurrency,
+                    parallelScanOptions,
+                    itemCache);
         }
     }
 
@@ -365,7 +449,152 @@ public class DynamoDBMapperConfig {
          * Paginated list will eagerly load all the paginated results from
          * DynamoDB as soon as the list is initialized.
          */
-        EAGER_LOADING
+        EAGER_LOADING,
+
+        /**
+         * Like ITERATION_ONLY, the list can only be iterated once, and only
+         * keeps the pages of results that have not been iterated over yet in
+         * memory. Once the iteration starts, the following pages are fetched
+         * in the background, at most two pages ahead of the iterator, so that
+         * the iteration rarely has to wait for DynamoDB.
+         * <p>
+         * Use this configuration to scan or query large result sets with a
+         * bounded amount of memory and without waiting on every page, for
+         * example with {@link PaginatedList#forEachPage(PaginatedList.PageCallback)}.
+         */
+        STREAMING
+    }
+
+    /**
+     * Controls how many batch requests the batch operations of the mapper,
+     * such as {@link DynamoDBMapper#batchWrite(java.util.List, java.util.List)}
+     * and {@link DynamoDBMapper#batchLoad(java.util.List)}, keep in flight at
+     * the same time.
+     * <p>
+     * By default, the mapper sends one batch request at a time.
+     */
+    public static final class BatchConcurrency {
+
+        /**
+         * Sends one batch request at a time, on the calling thread.
+         */
+        public static final BatchConcurrency SEQUENTIAL = new BatchConcurrency(1);
+
+        private final int maxConcurrentRequests;
+        private final ExecutorService executorService;
+
+        /**
+         * Keeps up to the given number of batch requests in flight, sent by a
+         * thread pool that is created for each batch operation.
+         *
+         * @param maxConcurrentRequests
+         *            The maximum number of batch requests in flight.
+         */
+        public BatchConcurrency(int maxConcurrentRequests) {
+            this(maxConcurrentRequests, null);
+        }
+
+        /**
+         * Keeps up to the given number of batch requests in flight, sent by
+         * the given executor service.
+         *
+         * @param maxConcurrentRequests
+         *            The maximum number of batch requests in flight.
+         * @param executorService
+         *            The executor service to send the batch requests with, or
+         *            null to create a thread pool for each batch operation.
+         *            It is not shut down by the mapper.
+         */
+        public BatchConcurrency(int maxConcurrentRequests, ExecutorService executorService) {
+            if ( maxConcurrentRequests < 1 ) {
+                throw new IllegalArgumentException("maxConcurrentRequests must be at least 1");
+            }
+            this.maxConcurrentRequests = maxConcurrentRequests;
+            this.executorService = executorService;
+        }
+
+        /**
+         * Returns the maximum number of batch requests in flight.
+         */
+        public int getMaxConcurrentRequests() {
+            return maxConcurrentRequests;
+        }
+
+        /**
+         * Returns the executor service to send the batch requests with, or null
+         * if a thread pool is created for each batch operation.
+         */
+        public ExecutorService getExecutorService() {
+            return executorService;
+        }
+    }
+
+    /**
+     * Controls how a parallel scan, such as
+     * {@link DynamoDBMapper#parallelScan(Class, DynamoDBScanExpression, int)},
+     * runs its segments.
+     * <p>
+     * By default, the segments are scanned by a thread pool shared by all the
+     * mappers, as fast as DynamoDB allows.
+     */
+    public static final class ParallelScanOptions {
+
+        /**
+         * Scans the segments on the shared thread pool, without limiting the
+         * read capacity consumed.
+         */
+        public static final ParallelScanOptions DEFAULT = new ParallelScanOptions(0);
+
+        private final double maxReadCapacityUnitsPerSecond;
+        private final ExecutorService executorService;
+
+        /**
+         * Scans the segments on the shared thread pool, consuming up to the
+         * given number of read capacity units per second.
+         *
+         * @param maxReadCapacityUnitsPerSecond
+         *            The read capacity units the segments of a scan may
+         *            consume per second together, or 0 for no limit.
+         */
+        public ParallelScanOptions(double maxReadCapacityUnitsPerSecond) {
+            this(maxReadCapacityUnitsPerSecond, null);
+        }
+
+        /**
+         * Scans the segments with the given executor service, consuming up to
+         * the given number of read capacity units per second.
+         *
+         * @param maxReadCapacityUnitsPerSecond
+         *            The read capacity units the segments of a scan may
+         *            consume per second together, or 0 for no limit.
+         * @param executorService
+         *            The executor service to scan the segments with, or null
+         *            to use the shared thread pool. It is not shut down by the
+         *            mapper.
+         */
+        public ParallelScanOptions(double maxReadCapacityUnitsPerSecond, ExecutorService executorService) {
+            if ( maxReadCapacityUnitsPerSecond < 0 || Double.isNaN(maxReadCapacityUnitsPerSecond) ) {
+                throw new IllegalArgumentException("maxReadCapacityUnitsPerSecond must not be negative");
+            }
+            this.maxReadCapacityUnitsPerSecond = maxReadCapacityUnitsPerSecond;
+            this.executorService = executorService;
+        }
+
+        /**
+         * Returns the read capacity units the segments of a scan may consume
+         * per second together, or 0 if there is no limit.
+         */
+        public double getMaxReadCapacityUnitsPerSecond() {
+            return maxReadCapacityUnitsPerSecond;
+        }
+
+        /**
+         * Returns the executor service to scan the segments with, or null if
+         * they are scanned by the shared thread pool.
+         */
+        public ExecutorService getExecutorService() {
+            return executorService;
+        }
     }
 
     /**
@@ -514,6 +743,9 @@ public class DynamoDBMapperConfig {
     private final PaginationLoadingStrategy paginationLoadingStrategy;
     private final RequestMetricCollector requestMetricCollector;
     private final ConversionSchema conversionSchema;
+    private final BatchConcurrency batchConcurrency;
+    private final ParallelScanOptions parallelScanOptions;
+    private final ItemCache itemCache;
 
     /**
      * Legacy constructor, using default PaginationLoadingStrategy
@@ -583,7 +815,10 @@ public class DynamoDBMapperConfig {
                 null,
                 paginationLoadingStrategy,
                 requestMetricCollector,
-                ConversionSchemas.DEFAULT);
+                ConversionSchemas.DEFAULT,
+                null,
+                null,
+                null);
     }
 
     private DynamoDBMapperConfig(
@@ -594,7 +829,10 @@ public class DynamoDBMapperConfig {
             ObjectTableNameResolver objectTableNameResolver,
             PaginationLoadingStrategy paginationLoadingStrategy,
             RequestMetricCollector requestMetricCollector,
-            ConversionSchema conversionSchema) {
+            ConversionSchema conversionSchema,
+            BatchConcurrency batchConcurrency,
+            ParallelScanOptions parallelScanOptions,
+            ItemCache itemCache) {
 
         this.saveBehavior = saveBehavior;
         this.consistentReads = consistentReads;
@@ -604,6 +842,9 @@ public class DynamoDBMapperConfig {
         this.paginationLoadingStrategy = paginationLoadingStrategy;
         this.requestMetricCollector = requestMetricCollector;
         this.conversionSchema = conversionSchema;
+        this.batchConcurrency = batchConcurrency;
+        this.parallelScanOptions = parallelScanOptions;
+        this.itemCache = itemCache;
     }
 
     /**
@@ -611,7 +852,7 @@ public class DynamoDBMapperConfig {
      */
     public DynamoDBMapperConfig(SaveBehavior saveBehavior) {
         this(saveBehavior, null, null, null, null, null, null,
-                ConversionSchemas.DEFAULT);
+                ConversionSchemas.DEFAULT, null, null, null);
     }
 
     /**
@@ -620,7 +861,7 @@ public class DynamoDBMapperConfig {
      */
     public DynamoDBMapperConfig(ConsistentReads consistentReads) {
         this(null, consistentReads, null, null, null, null, null,
-                ConversionSchemas.DEFAULT);
+                ConversionSchemas.DEFAULT, null, null, null);
     }
 
     /**
@@ -628,7 +869,7 @@ public class DynamoDBMapperConfig {
      */
     public DynamoDBMapperConfig(TableNameOverride tableNameOverride) {
         this(null, null, tableNameOverride, null, null, null, null,
-                ConversionSchemas.DEFAULT);
+                ConversionSchemas.DEFAULT, null, null, null);
     }
 
     /**
@@ -636,7 +877,7 @@ public class DynamoDBMapperConfig {
      */
     public DynamoDBMapperConfig(TableNameResolver tableNameResolver) {
         this(null, null, null, tableNameResolver, null, null, null,
-                ConversionSchemas.DEFAULT);
+                ConversionSchemas.DEFAULT, null, null, null);
     }
 
     /**
@@ -644,7 +885,7 @@ public class DynamoDBMapperConfig {
      */
     public DynamoDBMapperConfig(ObjectTableNameResolver objectTableNameResolver) {
         this(null, null, null, null, objectTableNameResolver, null, null,
-                ConversionSchemas.DEFAULT);
+                ConversionSchemas.DEFAULT, null, null, null);
     }
 
     /**
@@ -652,7 +893,7 @@ public class DynamoDBMapperConfig {
      */
     public DynamoDBMapperConfig(TableNameResolver tableNameResolver, ObjectTableNameResolver objectTableNameResolver) {
         this(null, null, null, tableNameResolver, objectTableNameResolver, null, null,
-                ConversionSchemas.DEFAULT);
+                ConversionSchemas.DEFAULT, null, null, null);
     }
 
     /**
@@ -663,14 +904,14 @@ public class DynamoDBMapperConfig {
             PaginationLoadingStrategy paginationLoadingStrategy) {
 
         this(null, null, null, null, null, paginationLoadingStrategy, null,
-                ConversionSchemas.DEFAULT);
+                ConversionSchemas.DEFAULT, null, null, null);
     }
 
     /**
      * Constructs a new configuration object with the conversion schema given.
      */
     public DynamoDBMapperConfig(ConversionSchema conversionSchema) {
-        this(null, null, null, null, null, null, null, conversionSchema);
+        this(null, null, null, null, null, null, null, conversionSchema, null, null, null);
     }
 
     /**
@@ -702,6 +943,9 @@ public class DynamoDBMapperConfig {
                     defaults.getPaginationLoadingStrategy();
             this.requestMetricCollector = defaults.getRequestMetricCollector();
             this.conversionSchema = defaults.getConversionSchema();
+            this.batchConcurrency = defaults.getBatchConcurrency();
+            this.parallelScanOptions = defaults.getParallelScanOptions();
+            this.itemCache = defaults.getItemCache();
 
         } else {
 
@@ -739,6 +983,18 @@ public class DynamoDBMapperConfig {
                     ? defaults.getConversionSchema()
                     : overrides.getConversionSchema();
 
+            this.batchConcurrency = (overrides.getBatchConcurrency() == null)
+                    ? defaults.getBatchConcurrency()
+                    : overrides.getBatchConcurrency();
+
+            this.parallelScanOptions = (overrides.getParallelScanOptions() == null)
+                    ? defaults.getParallelScanOptions()
+                    : overrides.getParallelScanOptions();
+
+            this.itemCache = (overrides.getItemCache() == null)
+                    ? defaults.getItemCache()
+                    : overrides.getItemCache();
+
         }
     }
 
@@ -815,6 +1071,33 @@ public class DynamoDBMapperConfig {
         return conversionSchema;
     }
 
+    /**
+     * Returns the concurrency of the batch operations for this configuration.
+     */
+    public BatchConcurrency getBatchConcurrency() {
+        return batchConcurrency;
+    }
+
+    /**
+     * Returns the options of the parallel scans for this configuration.
+     */
+    public ParallelScanOptions getParallelScanOptions() {
+        return parallelScanOptions;
+    }
+
+    /**
+     * Returns the cache of the items read by the mapper for this
+     * configuration; or null if items are not cached.
+     * <p>
+     * Loads with {@link ConsistentReads#EVENTUAL} reads are served from the
+     * cache when it holds the item, and consistent loads always go to
+     * DynamoDB; both add the items they read to the cache. Saves and deletes
+     * through the mapper remove the items they write from the cache.
+     */
+    public ItemCache getItemCache() {
+        return itemCache;
+    }
+
     /**
      * Default configuration uses UPDATE behavior for saves and EVENTUALly
      * consistent reads, with no table name override and lazy-loading strategy.
@@ -827,5 +1110,8 @@ public class DynamoDBMapperConfig {
             null, // ObjectTableNameResolver
             PaginationLoadingStrategy.LAZY_LOADING,
             null,  // RequestMetricCollector
-            ConversionSchemas.DEFAULT);
+            ConversionSchemas.DEFAULT,
+            BatchConcurrency.SEQUENTIAL,
+            ParallelScanOptions.DEFAULT,
+            null); // ItemCache
 }
@@ -15,16 +15,13 @@
 package com.amazonaws.services.dynamodbv2.datamodeling;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock.ReadLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock.WriteLock;
-
-import org.apache.http.annotation.GuardedBy;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Reflection assistant for {@link DynamoDBMapper}
@@ -32,41 +29,27 @@ import org.apache.http.annotation.GuardedBy;
 class DynamoDBReflector {
 
     /*
-     * Several caches for performance. Collectively, they can make this class
-     * over twice as fast.
+     * Everything the mapper needs to know about a class, or about one of its
+     * mapped properties, is looked up once into an immutable model and
+     * published through a concurrent map, so that looking it up afterwards
+     * never blocks. A model may be built more than once if several threads
+     * need it at the same time, but only one of them is ever published.
      */
-    private final Map<Class<?>, Collection<Method>> getterCache = new HashMap<Class<?>, Collection<Method>>();
-    private final Map<Class<?>, Method> primaryHashKeyGetterCache = new HashMap<Class<?>, Method>();
-    private final Map<Class<?>, Method> primaryRangeKeyGetterCache = new HashMap<Class<?>, Method>();
+    private final ConcurrentMap<Class<?>, ClassModel> classModels =
+            new ConcurrentHashMap<Class<?>, ClassModel>();
 
     /*
-     * All caches keyed by a Method use the getter for a particular mapped
-     * property
+     * Property models are keyed by the getter of the mapped property
      */
-    private final Map<Method, Method> setterCache = new HashMap<Method, Method>();
-
-    @GuardedBy("readWriteLockAttrName")
-    private final Map<Method, String> attributeNameCache = new HashMap<Method, String>();
-
-    private final Map<Method, Boolean> versionAttributeGetterCache = new HashMap<Method, Boolean>();
-    private final Map<Method, Boolean> autoGeneratedKeyGetterCache = new HashMap<Method, Boolean>();
-
-    private final ReentrantReadWriteLock readWriteLockAttrName = new ReentrantReadWriteLock();
-    private final ReadLock readLockAttrName = readWriteLockAttrName.readLock();
-    private final WriteLock writeLockAttrName = readWriteLockAttrName.writeLock();
+    private final ConcurrentMap<Method, PropertyModel> propertyModels =
+            new ConcurrentHashMap<Method, PropertyModel>();
 
     /**
      * Returns the set of getter methods which are relevant when marshalling or
      * unmarshalling an object.
      */
     Collection<Method> getRelevantGetters(Class<?> clazz) {
-        synchronized (getterCache) {
-            if ( !getterCache.containsKey(clazz) ) {
-                List<Method> relevantGetters = findRelevantGetters(clazz);
-                getterCache.put(clazz, relevantGetters);
-            }
-            return getterCache.get(clazz);
-        }
+        return getClassModel(clazz).relevantGetters;
     }
 
     static List<Method> findRelevantGetters(Class<?> clazz) {
@@ -103,39 +86,16 @@ class DynamoDBReflector {
      * given, or null if the class doesn't have one.
      */
     <T> Method getPrimaryRangeKeyGetter(Class<T> clazz) {
-        synchronized (primaryRangeKeyGetterCache) {
-            if ( !primaryRangeKeyGetterCache.containsKey(clazz) ) {
-                Method rangeKeyMethod = null;
-                for ( Method method : getRelevantGetters(clazz) ) {
-                    if ( method.getParameterTypes().length == 0
-                            && ReflectionUtils.getterOrFieldHasAnnotation(method, DynamoDBRangeKey.class)) {
-                        rangeKeyMethod = method;
-                        break;
-                    }
-                }
-                primaryRangeKeyGetterCache.put(clazz, rangeKeyMethod);
-            }
-            return primaryRangeKeyGetterCache.get(clazz);
-        }
+        return getClassModel(clazz).rangeKeyGetter;
     }
 
     /**
      * Returns all annotated {@link DynamoDBHashKey} and
      * {@link DynamoDBRangeKey} getters for the class given, throwing an
      * exception if there isn't one.
-     *
-     * TODO: caching
      */
     <T> Collection<Method> getPrimaryKeyGetters(Class<T> clazz) {
-        List<Method> keyGetters = new LinkedList<Method>();
-        for (Method getter : getRelevantGetters(clazz)) {
-            if (ReflectionUtils.getterOrFieldHasAnnotation(getter, DynamoDBHashKey.class)
-                    || ReflectionUtils.getterOrFieldHasAnnotation(getter, DynamoDBRangeKey.class)) {
-                keyGetters.add(getter);
-            }
-        }
-
-        return keyGetters;
+        return getClassModel(clazz).keyGetters;
     }
 
 
@@ -144,20 +104,7 @@ class DynamoDBReflector {
      * throwing an exception if there isn't one.
      */
     <T> Method getPrimaryHashKeyGetter(Class<T> clazz) {
-        Method hashKeyMethod;
-        synchronized (primaryHashKeyGetterCache) {
-            if ( !primaryHashKeyGetterCache.containsKey(clazz) ) {
-                for ( Method method : getRelevantGetters(clazz) ) {
-                    if ( method.getParameterTypes().length == 0
-                            && ReflectionUtils.getterOrFieldHasAnnotation(method, DynamoDBHashKey.class)) {
-                        primaryHashKeyGetterCache.put(clazz, method);
-                        break;
-                    }
-                }
-            }
-            hashKeyMethod = primaryHashKeyGetterCache.get(clazz);
-        }
-
+        Method hashKeyMethod = getClassModel(clazz).hashKeyGetter;
         if ( hashKeyMethod == null ) {
             throw new DynamoDBMappingException("Public, zero-parameter hash key property must be annotated with "
                     + DynamoDBHashKey.class);
@@ -170,7 +117,7 @@ class DynamoDBReflector {
      * a runtime exception if it isn't annotated.
      */
     <T> DynamoDBTable getTable(Class<T> clazz) {
-        DynamoDBTable table = clazz.getAnnotation(DynamoDBTable.class);
+        DynamoDBTable table = getClassModel(clazz).table;
         if ( table == null )
             throw new DynamoDBMappingException("Class " + clazz + " must be annotated with " + DynamoDBTable.class);
         return table;
@@ -180,65 +127,50 @@ class DynamoDBReflector {
      * Returns the attribute name corresponding to the given getter method.
      */
     String getAttributeName(Method getter) {
+        return getPropertyModel(getter).attributeName;
+    }
+
+    private static String findAttributeName(Method getter) {
         String attributeName;
-        readLockAttrName.lock();
-        try {
-            attributeName = attributeNameCache.get(getter);
-        } finally {
-            readLockAttrName.unlock();
-        }
-        if ( attributeName != null )
-            return attributeName;
         DynamoDBHashKey hashKeyAnnotation = ReflectionUtils.getAnnotationFromGetterOrField(getter, DynamoDBHashKey.class);
         if ( hashKeyAnnotation != null ) {
             attributeName = hashKeyAnnotation.attributeName();
             if ( attributeName != null && attributeName.length() > 0 )
-                return cacheAttributeName(getter, attributeName);
+                return attributeName;
         }
         DynamoDBIndexHashKey indexHashKey = ReflectionUtils.getAnnotationFromGetterOrField(getter, DynamoDBIndexHashKey.class);
         if ( indexHashKey != null ) {
             attributeName = indexHashKey.attributeName();
             if ( attributeName != null && attributeName.length() > 0 )
-                return cacheAttributeName(getter, attributeName);
+                return attributeName;
         }
         DynamoDBRangeKey rangeKey = ReflectionUtils.getAnnotationFromGetterOrField(getter, DynamoDBRangeKey.class);
         if ( rangeKey != null ) {
             attributeName = rangeKey.attributeName();
             if ( attributeName != null && attributeName.length() > 0 )
-                return cacheAttributeName(getter, attributeName);
+                return attributeName;
         }
         DynamoDBIndexRangeKey indexRangeKey = ReflectionUtils.getAnnotationFromGetterOrField(getter, DynamoDBIndexRangeKey.class);
         if ( indexRangeKey != null ) {
             attributeName = indexRangeKey.attributeName();
             if ( attributeName != null && attributeName.length() > 0 )
-                return cacheAttributeName(getter, attributeName);
+                return attributeName;
         }
         DynamoDBAttribute attribute = ReflectionUtils.getAnnotationFromGetterOrField(getter, DynamoDBAttribute.class);
         if ( attribute != null ) {
             attributeName = attribute.attributeName();
             if ( attributeName != null && attributeName.length() > 0 )
-                return cacheAttributeName(getter, attributeName);
+                return attributeName;
         }
         DynamoDBVersionAttribute version = ReflectionUtils.getAnnotationFromGetterOrField(getter, DynamoDBVersionAttribute.class);
         if ( version != null ) {
             attributeName = version.attributeName();
             if ( attributeName != null && attributeName.length() > 0 )
-                return cacheAttributeName(getter, attributeName);
+                return attributeName;
         }
         // Default to the camel-cased field name of the getter method, inferred
         // according to the Java naming convention.
-        attributeName = ReflectionUtils.getFieldNameByGetter(getter, true);
-        return cacheAttributeName(getter, attributeName);
-    }
-
-    private String cacheAttributeName(Method getter, String attributeName) {
-        writeLockAttrName.lock();
-        try {
-            attributeNameCache.put(getter, attributeName);
-        } finally {
-            writeLockAttrName.unlock();
-        }
-        return attributeName;
+        return ReflectionUtils.getFieldNameByGetter(getter, true);
     }
 
     /**
@@ -246,24 +178,11 @@ class DynamoDBReflector {
      * setter exists.
      */
     Method getSetter(Method getter) {
-        synchronized (setterCache) {
-            if ( !setterCache.containsKey(getter) ) {
-                String fieldName = ReflectionUtils.getFieldNameByGetter(getter, false);
-                String setterName = "set" + fieldName;
-                Method setter = null;
-                try {
-                    setter = getter.getDeclaringClass().getMethod(setterName, getter.getReturnType());
-                } catch ( NoSuchMethodException e ) {
-                    throw new DynamoDBMappingException("Expected a public, one-argument method called " + setterName
-                            + " on class " + getter.getDeclaringClass(), e);
-                } catch ( SecurityException e ) {
-                    throw new DynamoDBMappingException("No access to public, one-argument method called " + setterName
-                            + " on class " + getter.getDeclaringClass(), e);
-                }
-                setterCache.put(getter, setter);
-            }
-            return setterCache.get(getter);
+        PropertyModel property = getPropertyModel(getter);
+        if ( property.setter == null ) {
+            throw new DynamoDBMappingException(property.setterError, property.setterErrorCause);
         }
+        return property.setter;
     }
 
     /**
@@ -271,31 +190,14 @@ class DynamoDBReflector {
      * version attribute.
      */
     boolean isVersionAttributeGetter(Method getter) {
-        synchronized (versionAttributeGetterCache) {
-            if ( !versionAttributeGetterCache.containsKey(getter) ) {
-                versionAttributeGetterCache.put(
-                        getter,
-                        getter.getName().startsWith("get") && getter.getParameterTypes().length == 0
-                                && ReflectionUtils.getterOrFieldHasAnnotation(getter, DynamoDBVersionAttribute.class));
-            }
-            return versionAttributeGetterCache.get(getter);
-        }
+        return getPropertyModel(getter).versionAttribute;
     }
 
     /**
      * Returns whether the method given is an assignable key getter.
      */
     boolean isAssignableKey(Method getter) {
-        synchronized (autoGeneratedKeyGetterCache) {
-            if ( !autoGeneratedKeyGetterCache.containsKey(getter) ) {
-                autoGeneratedKeyGetterCache.put(
-                        getter,
-                        ReflectionUtils.getterOrFieldHasAnnotation(getter, DynamoDBAutoGeneratedKey.class)
-                                && ( ReflectionUtils.getterOrFieldHasAnnotation(getter, DynamoDBHashKey.class) ||
-                                     ReflectionUtils.getterOrFieldHasAnnotation(getter, DynamoDBRangeKey.class)));
-            }
-            return autoGeneratedKeyGetterCache.get(getter);
-        }
+        return getPropertyModel(getter).assignableKey;
     }
 
     /**
@@ -317,6 +219,14 @@ class DynamoDBReflector {
                 getAttributeName(getPrimaryRangeKeyGetter(clazz));
     }
 
+    /**
+     * Returns true if and only if the specified class has declared a
+     * primary hash key.
+     */
+    boolean hasPrimaryHashKey(Class<?> clazz) {
+        return getClassModel(clazz).hashKeyGetter != null;
+    }
+
     /**
      * Returns true if and only if the specified class has declared a
      * primary range key.
@@ -324,4 +234,115 @@ class DynamoDBReflector {
     boolean hasPrimaryRangeKey(Class<?> clazz) {
         return getPrimaryRangeKeyGetter(clazz) != null;
     }
+
+    private ClassModel getClassModel(Class<?> clazz) {
+        ClassModel model = classModels.get(clazz);
+        if ( model == null ) {
+            model = new ClassModel(clazz);
+            ClassModel existing = classModels.putIfAbsent(clazz, model);
+            if ( existing != null ) {
+                model = existing;
+            }
+        }
+        return model;
+    }
+
+    private PropertyModel getPropertyModel(Method getter) {
+        PropertyModel model = propertyModels.get(getter);
+        if ( model == null ) {
+            model = new PropertyModel(getter);
+            PropertyModel existing = propertyModels.putIfAbsent(getter, model);
+            if ( existing != null ) {
+                model = existing;
+            }
+        }
+        return model;
+    }
+
+    /**
+     * The table annotation and the mapped getters of a class, including those
+     * of its primary key.
+     */
+    private static final class ClassModel {
+
+        private final DynamoDBTable table;
+        private final Collection<Method> relevantGetters;
+        private final Collection<Method> keyGetters;
+        private final Method hashKeyGetter;
+        private final Method rangeKeyGetter;
+
+        ClassModel(Class<?> clazz) {
+            List<Method> getters = findRelevantGetters(clazz);
+            List<Method> keys = new ArrayList<Method>(2);
+            Method hashKey = null;
+            Method rangeKey = null;
+            for ( Method getter : getters ) {
+                boolean isHashKey = ReflectionUtils.getterOrFieldHasAnnotation(getter, DynamoDBHashKey.class);
+                boolean isRangeKey = ReflectionUtils.getterOrFieldHasAnnotation(getter, DynamoDBRangeKey.class);
+                if ( isHashKey || isRangeKey ) {
+                    keys.add(getter);
+                }
+                if ( isHashKey && hashKey == null ) {
+                    hashKey = getter;
+                }
+                if ( isRangeKey && rangeKey == null ) {
+                    rangeKey = getter;
+                }
+            }
+
+            this.table = clazz.getAnnotation(DynamoDBTable.class);
+            this.relevantGetters = Collections.unmodifiableList(new ArrayList<Method>(getters));
+            this.keyGetters = Collections.unmodifiableList(keys);
+            this.hashKeyGetter = hashKey;
+            this.rangeKeyGetter = rangeKey;
+        }
+    }
+
+    /**
+     * The attribute name, setter and role of a mapped property. A missing
+     * setter is only reported once the setter is asked for, since properties
+     * that are only ever read don't need one.
+     */
+    private static final class PropertyModel {
+
+        private final String attributeName;
+        private final Method setter;
+        private final String setterError;
+        private final Throwable setterErrorCause;
+        private final boolean versionAttribute;
+        private final boolean assignableKey;
+
+        PropertyModel(Method getter) {
+            Method setterMethod = null;
+            String error = null;
+            Throwable errorCause = null;
+            String setterName = null;
+            try {
+                String fieldName = ReflectionUtils.getFieldNameByGetter(getter, false);
+                setterName = "set" + fieldName;
+                setterMethod = getter.getDeclaringClass().getMethod(setterName, getter.getReturnType());
+            } catch ( DynamoDBMappingException e ) {
+                error = e.getMessage();
+                errorCause = e.getCause();
+            } catch ( NoSuchMethodException e ) {
+                error = "Expected a public, one-argument method called " + setterName
+                        + " on class " + getter.getDeclaringClass();
+                errorCause = e;
+            } catch ( SecurityException e ) {
+                error = "No access to public, one-argument method called " + setterName
+                        + " on class " + getter.getDeclaringClass();
+                errorCause = e;
+            }
+
+            this.attributeName = findAttributeName(getter);
+            this.setter = setterMethod;
+            this.setterError = error;
+            this.setterErrorCause = errorCause;
+            this.versionAttribute = getter.getName().startsWith("get") && getter.getParameterTypes().length == 0
+                    && ReflectionUtils.getterOrFieldHasAnnotation(getter, DynamoDBVersionAttribute.class);
+            this.assignableKey = ReflectionUtils.getterOrFieldHasAnnotation(getter, DynamoDBAutoGeneratedKey.class)
+                    && ( ReflectionUtils.getterOrFieldHasAnnotation(getter, DynamoDBHashKey.class) ||
+                         ReflectionUtils.getterOrFieldHasAnnotation(getter, DynamoDBRangeKey.class));
+        }
+    }
 }
@@ -22,6 +22,8 @@ import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperFieldModel.DynamoDBAttributeType;
 import com.amazonaws.services.dynamodbv2.model.AttributeDefinition;
@@ -39,8 +41,8 @@ import com.amazonaws.services.dynamodbv2.model.ProjectionType;
  */
 class DynamoDBTableSchemaParser {
 
-    private final Map<Class<?>, TableIndexesInfo> tableIndexesInfoCache =
-            new HashMap<Class<?>, TableIndexesInfo>();
+    private final ConcurrentMap<Class<?>, TableIndexesInfo> tableIndexesInfoCache =
+            new ConcurrentHashMap<Class<?>, TableIndexesInfo>();
 
     /**
      * Parse the given POJO class and return the CreateTableRequest for the
@@ -106,104 +108,105 @@ class DynamoDBTableSchemaParser {
     }
 
     TableIndexesInfo parseTableIndexes(final Class<?> clazz, final DynamoDBReflector reflector) {
-        synchronized(tableIndexesInfoCache) {
-            if ( !tableIndexesInfoCache.containsKey(clazz) ) {
-                TableIndexesInfo tableIndexInfo = new TableIndexesInfo();
-                String pHashName = reflector.getPrimaryHashKeyName(clazz);
-
-                for (Method getter : reflector.getRelevantGetters(clazz)) {
-                    // Only consider 0-arg getters
-                    if (getter.getParameterTypes().length != 0) {
-                        continue;
-                    }
+        TableIndexesInfo cached = tableIndexesInfoCache.get(clazz);
+        if ( cached != null ) {
+            return cached;
+        }
 
-                    String attributeName = reflector.getAttributeName(getter);
-
-                    if (ReflectionUtils.getterOrFieldHasAnnotation(getter, DynamoDBIndexHashKey.class)) {
-                        DynamoDBIndexHashKey indexHashKeyAnnotation = ReflectionUtils
-                                .getAnnotationFromGetterOrField(getter, DynamoDBIndexHashKey.class);
-                        String gsiName = indexHashKeyAnnotation.globalSecondaryIndexName();
-                        String[] gsiNames = indexHashKeyAnnotation.globalSecondaryIndexNames();
-
-                        boolean singleGsiName = gsiName != null &&
-                                                gsiName.length() != 0;
-                        boolean multipleGsiNames = gsiNames != null &&
-                                                   gsiNames.length != 0;
-
-                        if ( singleGsiName && multipleGsiNames) {
-                            throw new DynamoDBMappingException(
-                                    "@DynamoDBIndexHashKey annotation on getter " + getter +
-                                    " contains both globalSecondaryIndexName and globalSecondaryIndexNames.");
-                        } else if ( (!singleGsiName) && (!multipleGsiNames) ) {
-                            throw new DynamoDBMappingException(
-                                    "@DynamoDBIndexHashKey annotation on getter " + getter +
-                                    " doesn't contain any index name.");
-                        }
+        TableIndexesInfo tableIndexInfo = new TableIndexesInfo();
+        String pHashName = reflector.getPrimaryHashKeyName(clazz);
 
-                        if (singleGsiName) {
-                            tableIndexInfo.addGsiKeys(gsiName, attributeName, null);
-                        } else if (multipleGsiNames) {
-                            for (String gsi : gsiNames) {
-                                tableIndexInfo.addGsiKeys(gsi, attributeName, null);
-                            }
-                        }
-                        tableIndexInfo.addIndexKeyGetter(getter);
+        for (Method getter : reflector.getRelevantGetters(clazz)) {
+            // Only consider 0-arg getters
+            if (getter.getParameterTypes().length != 0) {
+                continue;
+            }
+
+            String attributeName = reflector.getAttributeName(getter);
+
+            if (ReflectionUtils.getterOrFieldHasAnnotation(getter, DynamoDBIndexHashKey.class)) {
+                DynamoDBIndexHashKey indexHashKeyAnnotation = ReflectionUtils
+                        .getAnnotationFromGetterOrField(getter, DynamoDBIndexHashKey.class);
+                String gsiName = indexHashKeyAnnotation.globalSecondaryIndexName();
+                String[] gsiNames = indexHashKeyAnnotation.globalSecondaryIndexNames();
+
+                boolean singleGsiName = gsiName != null &&
+                                        gsiName.length() != 0;
+                boolean multipleGsiNames = gsiNames != null &&
+                                           gsiNames.length != 0;
+
+                if ( singleGsiName && multipleGsiNames) {
+                    throw new DynamoDBMappingException(
+                            "@DynamoDBIndexHashKey annotation on getter " + getter +
+                            " contains both globalSecondaryIndexName and globalSecondaryIndexNames.");
+                } else if ( (!singleGsiName) && (!multipleGsiNames) ) {
+                    throw new DynamoDBMappingException(
+                            "@DynamoDBIndexHashKey annotation on getter " + getter +
+                            " doesn't contain any index name.");
+                }
+
+                if (singleGsiName) {
+                    tableIndexInfo.addGsiKeys(gsiName, attributeName, null);
+                } else if (multipleGsiNames) {
+                    for (String gsi : gsiNames) {
+                        tableIndexInfo.addGsiKeys(gsi, attributeName, null);
                     }
+                }
+                tableIndexInfo.addIndexKeyGetter(getter);
+            }
 
-                    if (ReflectionUtils.getterOrFieldHasAnnotation(getter, DynamoDBIndexRangeKey.class)) {
-                        DynamoDBIndexRangeKey indexRangeKeyAnnotation = ReflectionUtils
-                                .getAnnotationFromGetterOrField(getter, DynamoDBIndexRangeKey.class);
-                        String gsiName = indexRangeKeyAnnotation.globalSecondaryIndexName();
-                        String[] gsiNames = indexRangeKeyAnnotation.globalSecondaryIndexNames();
-                        String lsiName = indexRangeKeyAnnotation.localSecondaryIndexName();
-                        String[] lsiNames = indexRangeKeyAnnotation.localSecondaryIndexNames();
-
-                        boolean singleGsiName = gsiName != null &&
-                                                gsiName.length() != 0;
-                        boolean multipleGsiNames = gsiNames != null &&
-                                                   gsiNames.length != 0;
-                        boolean singleLsiName = lsiName != null &&
-                                                lsiName.length() != 0;
-                        boolean multipleLsiNames = lsiNames != null &&
-                                                   lsiNames.length != 0;
-
-                        if ( singleGsiName && multipleGsiNames ) {
-                            throw new DynamoDBMappingException(
-                                    "@DynamoDBIndexRangeKey annotation on getter " + getter +
-                                    " contains both globalSecondaryIndexName and globalSecondaryIndexNames.");
-                        }
-                        if ( singleLsiName && multipleLsiNames ) {
-                            throw new DynamoDBMappingException(
-                                    "@DynamoDBIndexRangeKey annotation on getter " + getter +
-                                    " contains both localSecondaryIndexName and localSecondaryIndexNames.");
-                        }
-                        if ( (!singleGsiName) && (!multipleGsiNames) && (!singleLsiName) && (!multipleLsiNames) ) {
-                            throw new DynamoDBMappingException(
-                                    "@DynamoDBIndexRangeKey annotation on getter " + getter +
-                                    " doesn't contain any index name.");
-                        }
+            if (ReflectionUtils.getterOrFieldHasAnnotation(getter, DynamoDBIndexRangeKey.class)) {
+                DynamoDBIndexRangeKey indexRangeKeyAnnotation = ReflectionUtils
+                        .getAnnotationFromGetterOrField(getter, DynamoDBIndexRangeKey.class);
+                String gsiName = indexRangeKeyAnnotation.globalSecondaryIndexName();
+                String[] gsiNames = indexRangeKeyAnnotation.globalSecondaryIndexNames();
+                String lsiName = indexRangeKeyAnnotation.localSecondaryIndexName();
+                String[] lsiNames = indexRangeKeyAnnotation.localSecondaryIndexNames();
+
+                boolean singleGsiName = gsiName != null &&
+                                        gsiName.length() != 0;
+                boolean multipleGsiNames = gsiNames != null &&
+                                           gsiNames.length != 0;
+                boolean singleLsiName = lsiName != null &&
+                                        lsiName.length() != 0;
+                boolean multipleLsiNames = lsiNames != null &&
+                                           lsiNames.length != 0;
+
+                if ( singleGsiName && multipleGsiNames ) {
+                    throw new DynamoDBMappingException(
+                            "@DynamoDBIndexRangeKey annotation on getter " + getter +
+                            " contains both globalSecondaryIndexName and globalSecondaryIndexNames.");
+                }
+                if ( singleLsiName && multipleLsiNames ) {
+                    throw new DynamoDBMappingException(
+                            "@DynamoDBIndexRangeKey annotation on getter " + getter +
+                            " contains both localSecondaryIndexName and localSecondaryIndexNames.");
+                }
+                if ( (!singleGsiName) && (!multipleGsiNames) && (!singleLsiName) && (!multipleLsiNames) ) {
+                    throw new DynamoDBMappingException(
+                            "@DynamoDBIndexRangeKey annotation on getter " + getter +
+                            " doesn't contain any index name.");
+                }
 
-                        if (singleGsiName) {
-                            tableIndexInfo.addGsiKeys(gsiName, null, attributeName);
-                        } else if (multipleGsiNames) {
-                            for (String gsi : gsiNames) {
-                                tableIndexInfo.addGsiKeys(gsi, null, attributeName);
-                            }
-                        }
-                        if (singleLsiName) {
-                            tableIndexInfo.addLsiRangeKey(lsiName, pHashName, attributeName);
-                        } else if (multipleLsiNames) {
-                            for (String lsi : lsiNames) {
-                                tableIndexInfo.addLsiRangeKey(lsi, pHashName, attributeName);
-                            }
-                        }
-                        tableIndexInfo.addIndexKeyGetter(getter);
+                if (singleGsiName) {
+                    tableIndexInfo.addGsiKeys(gsiName, null, attributeName);
+                } else if (multipleGsiNames) {
+                    for (String gsi : gsiNames) {
+                        tableIndexInfo.addGsiKeys(gsi, null, attributeName);
+                    }
+                }
+                if (singleLsiName) {
+                    tableIndexInfo.addLsiRangeKey(lsiName, pHashName, attributeName);
+                } else if (multipleLsiNames) {
+                    for (String lsi : lsiNames) {
+                        tableIndexInfo.addLsiRangeKey(lsi, pHashName, attributeName);
                     }
-                } // end of for loop
-                tableIndexesInfoCache.put(clazz, tableIndexInfo);
-            } // end of the if-cache-does-not-contain block
-            return tableIndexesInfoCache.get(clazz);
-        } // end of synchronized block
+                }
+                tableIndexInfo.addIndexKeyGetter(getter);
+            }
+        } // end of for loop
+        TableIndexesInfo existing = tableIndexesInfoCache.putIfAbsent(clazz, tableIndexInfo);
+        return existing == null ? tableIndexInfo : existing;
     }
 
     private static AttributeDefinition getKeyAttributeDefinition(
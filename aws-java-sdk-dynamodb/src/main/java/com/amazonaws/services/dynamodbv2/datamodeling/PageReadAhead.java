@@ -0,0 +1,182 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.datamodeling;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.amazonaws.AmazonClientException;
+
+/**
+ * Fetches the pages of a {@link PaginatedList} in the background, up to a
+ * fixed number of pages ahead of the page the caller is working through.
+ * <p>
+ * Each page can only be requested once the previous one has arrived, so the
+ * pages are fetched one after another by a single task at a time. The task
+ * stops when it is the given number of pages ahead, and is resubmitted when
+ * the caller takes a page, so no thread is held while the caller is busy and
+ * an abandoned iteration costs at most that many pages.
+ *
+ * @param <T>
+ *            The domain object type of the list.
+ */
+final class PageReadAhead<T> {
+
+    private static ExecutorService defaultExecutorService;
+
+    private final PaginatedList<T> list;
+    private final ExecutorService executorService;
+    private final int depth;
+
+    /** Pages fetched but not yet taken by the caller. */
+    private final LinkedList<List<T>> pages = new LinkedList<List<T>>();
+
+    private boolean fetching;
+    private boolean complete;
+    private RuntimeException failure;
+
+    /**
+     * @param list
+     *            The list to fetch the pages of.
+     * @param depth
+     *            The maximum number of pages to fetch ahead of the caller.
+     */
+    PageReadAhead(PaginatedList<T> list, int depth) {
+        if ( depth < 1 ) {
+            throw new IllegalArgumentException("Read-ahead depth must be at least 1");
+        }
+        this.list = list;
+        this.executorService = defaultExecutorService();
+        this.depth = depth;
+    }
+
+    /**
+     * Starts fetching pages in the background.
+     */
+    synchronized void start() {
+        if ( list.atEndOfResults() ) {
+            complete = true;
+        } else {
+            startFetching();
+        }
+    }
+
+    /**
+     * Returns the next non-empty page, waiting for it to arrive if necessary,
+     * or null if all pages have been returned.
+     *
+     * @throws AmazonClientException
+     *             If fetching the page failed, or the calling thread was
+     *             interrupted while waiting for it.
+     */
+    synchronized List<T> nextPage() {
+        try {
+            while ( pages.isEmpty() && failure == null && !complete ) {
+                wait();
+            }
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException("Interrupted while waiting for the next page of results", e);
+        }
+
+        if ( !pages.isEmpty() ) {
+            List<T> page = pages.removeFirst();
+            if ( !fetching && !complete && failure == null ) {
+                startFetching();
+            }
+            return page;
+        }
+        if ( failure != null ) {
+            throw failure;
+        }
+        return null;
+    }
+
+    /** Must be called while holding this object's lock. */
+    private void startFetching() {
+        fetching = true;
+        try {
+            executorService.execute(new Runnable() {
+                @Override
+                public void run() {
+                    fetchPages();
+                }
+            });
+        } catch ( RuntimeException e ) {
+            fetching = false;
+            throw e;
+        }
+    }
+
+    private void fetchPages() {
+        while ( true ) {
+            List<T> page;
+            boolean end;
+            try {
+                page = list.fetchNextPage();
+                end = list.atEndOfResults();
+            } catch ( Throwable t ) {
+                synchronized ( this ) {
+                    failure = t instanceof RuntimeException
+                            ? (RuntimeException) t
+                            : new AmazonClientException("Unable to fetch the next page of results", t);
+                    fetching = false;
+                    notifyAll();
+                }
+                return;
+            }
+
+            synchronized ( this ) {
+                // Empty pages are skipped, the caller only waits for items
+                if ( !page.isEmpty() ) {
+                    pages.addLast(page);
+                    notifyAll();
+                }
+                if ( end ) {
+                    complete = true;
+                    fetching = false;
+                    notifyAll();
+                    return;
+                }
+                if ( pages.size() >= depth ) {
+                    // Resumed by nextPage once the caller catches up
+                    fetching = false;
+                    return;
+                }
+            }
+        }
+    }
+
+    private static synchronized ExecutorService defaultExecutorService() {
+        if ( defaultExecutorService == null ) {
+            defaultExecutorService = Executors.newCachedThreadPool(new ThreadFactory() {
+                private final AtomicInteger threadCount = new AtomicInteger(0);
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r);
+                    thread.setName("dynamodb-mapper-read-ahead-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return defaultExecutorService;
+    }
+}
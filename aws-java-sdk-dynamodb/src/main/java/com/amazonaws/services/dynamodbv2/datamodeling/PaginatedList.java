@@ -41,7 +41,10 @@ public abstract class PaginatedList<T> implements List<T> {
 
     private static final String UNMODIFIABLE_MESSAGE = "This is an unmodifiable list";
     
-    private static final String ITERATION_ONLY_UNSUPPORTED_OPERATION_MESSAGE = " is not supported when using ITERATION_ONLY configuration.";
+    private static final String ITERATION_ONLY_UNSUPPORTED_OPERATION_MESSAGE = " is not supported when using %s configuration.";
+
+    /** Number of pages fetched ahead of the iteration in STREAMING mode */
+    private static final int STREAMING_READ_AHEAD_PAGES = 2;
 
     /**
      * Reference to the DynamoDB mapper for marshalling DynamoDB attributes back
@@ -66,6 +69,8 @@ public abstract class PaginatedList<T> implements List<T> {
      * 
      * In ITERATION_ONLY mode, this list will at most keep one page of the
      * loaded results, and all previous results will be cleared from the memory.
+     * In STREAMING mode, it only keeps the first page until the iteration
+     * starts.
      */
     protected final List<T> allResults;
     
@@ -77,7 +82,8 @@ public abstract class PaginatedList<T> implements List<T> {
     
     /** 
      * Keeps track on whether an iterator of the list has been retrieved.
-     * Only updated and checked when the list is in ITERATION_ONLY mode.
+     * Only updated and checked when the list is in ITERATION_ONLY or
+     * STREAMING mode.
      */
     private boolean iterationStarted = false;
 
@@ -120,7 +126,7 @@ public abstract class PaginatedList<T> implements List<T> {
     /**
      * Eagerly loads all results for this list.
      * <p>
-     * Not supported in ITERATION_ONLY mode.
+     * Not supported in ITERATION_ONLY or STREAMING mode.
      * </p>
      */
     public synchronized void loadAllResults() {
@@ -198,11 +204,154 @@ public abstract class PaginatedList<T> implements List<T> {
      * could be only retrieved once, and any previously loaded results will be
      * cleared in the memory during the iteration.
      * </p>
+     * <p>
+     * If it configured with STREAMING mode, then the iterator could be only
+     * retrieved once as well, and the following pages of results are fetched
+     * in the background while the iterator works through the current one.
+     * </p>
      */
     @Override
     public Iterator<T> iterator() {
+        if ( paginationLoadingStrategy == PaginationLoadingStrategy.STREAMING ) {
+            return new StreamingIterator();
+        }
         return new PaginatedListIterator(paginationLoadingStrategy == PaginationLoadingStrategy.ITERATION_ONLY);
     }
+
+    /**
+     * Passes the results of this list to the given callback one page at a
+     * time, loading the pages as necessary, until the callback returns false
+     * or the end of the result set is reached. Empty pages are skipped, and
+     * any results already loaded into the list are passed as the first page.
+     * <p>
+     * In ITERATION_ONLY and STREAMING mode, this counts as the one iteration
+     * of the list, and a page is no longer referenced by the list once the
+     * callback has returned. In STREAMING mode, the following pages are
+     * fetched in the background while the callback handles the current one.
+     * </p>
+     *
+     * @param callback
+     *            The callback to handle the pages of results.
+     */
+    public void forEachPage(PageCallback<T> callback) {
+        if ( paginationLoadingStrategy == PaginationLoadingStrategy.STREAMING ) {
+            startIteration();
+            List<T> page = takeLoadedResults();
+            PageReadAhead<T> readAhead = startReadAhead();
+            while ( page != null ) {
+                if ( !page.isEmpty() && !callback.onPage(Collections.unmodifiableList(page)) )
+                    return;
+                page = readAhead.nextPage();
+            }
+            return;
+        }
+
+        boolean iterationOnly = paginationLoadingStrategy == PaginationLoadingStrategy.ITERATION_ONLY;
+        if ( iterationOnly ) {
+            startIteration();
+        }
+
+        List<T> page = new ArrayList<T>(allResults);
+        while ( true ) {
+            if ( !page.isEmpty() && !callback.onPage(Collections.unmodifiableList(page)) )
+                return;
+            if ( !nextResultsAvailable() )
+                return;
+            page = new ArrayList<T>(nextResults);
+            /* Clear previous results if it's in ITERATION_ONLY mode */
+            moveNextResults(iterationOnly);
+        }
+    }
+
+    /**
+     * Callback handling the results of a {@link PaginatedList} one page at a
+     * time.
+     *
+     * @see PaginatedList#forEachPage(PageCallback)
+     */
+    public static interface PageCallback<T> {
+
+        /**
+         * Handles a non-empty page of results, and returns whether to carry on
+         * with the next page. The page can't be modified.
+         */
+        boolean onPage(List<T> page);
+    }
+
+    /**
+     * Marks the start of the one iteration allowed in ITERATION_ONLY and
+     * STREAMING mode.
+     */
+    private synchronized void startIteration() {
+        if ( iterationStarted ) {
+            throw new UnsupportedOperationException("The list could only be iterated once in "
+                    + paginationLoadingStrategy + " mode.");
+        }
+        iterationStarted = true;
+    }
+
+    /**
+     * Takes the results loaded so far out of allResults, so that the list no
+     * longer holds on to them.
+     */
+    private synchronized List<T> takeLoadedResults() {
+        List<T> results = new ArrayList<T>(allResults);
+        allResults.clear();
+        return results;
+    }
+
+    private PageReadAhead<T> startReadAhead() {
+        PageReadAhead<T> readAhead = new PageReadAhead<T>(this, STREAMING_READ_AHEAD_PAGES);
+        readAhead.start();
+        return readAhead;
+    }
+
+    /**
+     * Iterator of a list in STREAMING mode, which only references the page it
+     * is working through and the pages fetched ahead of it.
+     */
+    private class StreamingIterator implements Iterator<T> {
+
+        private final PageReadAhead<T> readAhead;
+
+        private Iterator<T> innerIterator;
+
+        private boolean allPagesReturned = false;
+
+        public StreamingIterator() {
+            startIteration();
+            innerIterator = takeLoadedResults().iterator();
+            readAhead = startReadAhead();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while ( !innerIterator.hasNext() ) {
+                if ( allPagesReturned )
+                    return false;
+                List<T> page = readAhead.nextPage();
+                if ( page == null ) {
+                    allPagesReturned = true;
+                    return false;
+                }
+                innerIterator = page.iterator();
+            }
+            return true;
+        }
+
+        @Override
+        public T next() {
+            if ( !hasNext() ) {
+                throw new NoSuchElementException();
+            }
+            return innerIterator.next();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(UNMODIFIABLE_MESSAGE);
+        }
+    }
     
     private class PaginatedListIterator implements Iterator<T> {
         /**
@@ -226,12 +375,7 @@ public abstract class PaginatedList<T> implements List<T> {
             this.iterationOnly = iterationOnly;
             
             if (iterationOnly) {
-                synchronized (PaginatedList.this) {
-                    if (iterationStarted) {
-                        throw new UnsupportedOperationException("The list could only be iterated once in ITERATION_ONLY mode.");
-                    }
-                    iterationStarted = true;
-                }
+                startIteration();
                 
                 allResultsCopy = null; // not needed for ITERATION_ONLY mode
                 innerIterator = allResults.iterator();
@@ -308,7 +452,7 @@ public abstract class PaginatedList<T> implements List<T> {
      * Returns whether the collection is empty. At most one (non-empty) page of
      * results is loaded to make the check.
      * <p>
-     * Not supported in ITERATION_ONLY mode.
+     * Not supported in ITERATION_ONLY or STREAMING mode.
      * </p>
      */
     @Override
@@ -322,7 +466,7 @@ public abstract class PaginatedList<T> implements List<T> {
      * Returns the Nth element of the list. Results are loaded until N elements
      * are present, if necessary.
      * <p>
-     * Not supported in ITERATION_ONLY mode.
+     * Not supported in ITERATION_ONLY or STREAMING mode.
      * </p>
      */
     @Override
@@ -341,7 +485,7 @@ public abstract class PaginatedList<T> implements List<T> {
      * loaded and checked incrementally until a match is found or the end of the
      * result set is reached.
      * <p>
-     * Not supported in ITERATION_ONLY mode.
+     * Not supported in ITERATION_ONLY or STREAMING mode.
      * </p>
      */
     @Override
@@ -365,7 +509,7 @@ public abstract class PaginatedList<T> implements List<T> {
      * Returns a sub-list in the range specified, loading more results as
      * necessary.
      * <p>
-     * Not supported in ITERATION_ONLY mode.
+     * Not supported in ITERATION_ONLY or STREAMING mode.
      * </p>
      */
     @Override
@@ -383,7 +527,7 @@ public abstract class PaginatedList<T> implements List<T> {
      * Returns the first index of the object given in the list. Additional
      * results are loaded incrementally as necessary.
      * <p>
-     * Not supported in ITERATION_ONLY mode.
+     * Not supported in ITERATION_ONLY or STREAMING mode.
      * </p>
      */
     @Override
@@ -500,8 +644,10 @@ public abstract class PaginatedList<T> implements List<T> {
     }
     
     private void checkUnsupportedOperationForIterationOnlyMode(String methodSignature) {
-        if (this.paginationLoadingStrategy == PaginationLoadingStrategy.ITERATION_ONLY) {
-            throw new UnsupportedOperationException(methodSignature + ITERATION_ONLY_UNSUPPORTED_OPERATION_MESSAGE);
+        if (this.paginationLoadingStrategy == PaginationLoadingStrategy.ITERATION_ONLY
+                || this.paginationLoadingStrategy == PaginationLoadingStrategy.STREAMING) {
+            throw new UnsupportedOperationException(methodSignature
+                    + String.format(ITERATION_ONLY_UNSUPPORTED_OPERATION_MESSAGE, paginationLoadingStrategy));
         }
     };
 }
@@ -15,22 +15,46 @@
 package com.amazonaws.services.dynamodbv2.datamodeling;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.ParallelScanOptions;
+import com.amazonaws.services.dynamodbv2.model.ConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.ReturnConsumedCapacity;
 import com.amazonaws.services.dynamodbv2.model.ScanRequest;
 import com.amazonaws.services.dynamodbv2.model.ScanResult;
 
+/**
+ * Scans the segments of a parallel scan, and hands their pages over to the
+ * caller as they arrive.
+ * <p>
+ * Each segment has at most one request in flight or one page waiting for the
+ * caller, and only requests its next page once the caller has taken the
+ * previous one. The pages waiting for the caller are therefore bounded by the
+ * number of segments, and a scan that is abandoned halfway stops on its own.
+ * <p>
+ * When the options limit the read capacity, each request first reserves the
+ * capacity a page has consumed on average so far, and the reservation is
+ * corrected by the capacity DynamoDB reports for the page. A segment that has
+ * to wait for capacity is resumed by a shared timer, rather than holding a
+ * thread of the executor.
+ */
 public class ParallelScanTask {
 
+    private static ExecutorService defaultExecutorService;
+
+    private static ScheduledExecutorService timer;
+
     /**
      * The list of hard copies of ScanRequest with different segment number.
      */
@@ -38,26 +62,23 @@ public class ParallelScanTask {
 
     private final int totalSegments;
 
-    /**
-     * Cache all the future tasks, so that we can extract the exception when
-     * we see failed segment scan.
-     */
-    private final List<Future<ScanResult>> segmentScanFutureTasks;
+    private final AmazonDynamoDB dynamo;
 
-    /**
-     * Cache all the most recent ScanResult on each segment.
-     */
-    private final List<ScanResult> segmentScanResults;
+    private final ExecutorService executorService;
+
+    /** Paces the segments, or null if the read capacity is not limited. */
+    private final CapacityLimiter capacityLimiter;
 
     /**
-     * The current state of the scan on each segment.
-     * Used as the monitor for synchronization.
+     * The pages scanned by the segments and not yet taken by the caller.
+     * Never holds more than one page per segment.
      */
-    private final List<SegmentScanState> segmentScanStates;
+    private final BlockingQueue<SegmentPage> scannedPages;
 
-    private ExecutorService executorService;
-
-    private final AmazonDynamoDB dynamo;
+    /** Only accessed by the caller, under the lock of this task. */
+    private boolean started = false;
+    private int completedSegments = 0;
+    private AmazonClientException failure;
 
     @Deprecated
     public ParallelScanTask(DynamoDBMapper mapper, AmazonDynamoDB dynamo, List<ScanRequest> parallelScanRequests) {
@@ -65,207 +86,248 @@ public class ParallelScanTask {
     }
 
     ParallelScanTask(AmazonDynamoDB dynamo, List<ScanRequest> parallelScanRequests) {
+        this(dynamo, parallelScanRequests, ParallelScanOptions.DEFAULT);
+    }
+
+    ParallelScanTask(AmazonDynamoDB dynamo, List<ScanRequest> parallelScanRequests, ParallelScanOptions options) {
+        if (options == null) {
+            options = ParallelScanOptions.DEFAULT;
+        }
         this.dynamo = dynamo;
-        this.parallelScanRequests = parallelScanRequests;
+        this.parallelScanRequests = new ArrayList<ScanRequest>(parallelScanRequests);
         this.totalSegments = parallelScanRequests.size();
-        executorService = Executors.newCachedThreadPool();
+        this.executorService = options.getExecutorService() == null
+                ? defaultExecutorService()
+                : options.getExecutorService();
+        this.scannedPages = new ArrayBlockingQueue<SegmentPage>(Math.max(1, totalSegments));
 
-        // Create synchronized views of the list to guarantee any changes are visible across all threads.
-        segmentScanFutureTasks = Collections.synchronizedList(new ArrayList<Future<ScanResult>>(totalSegments));
-        segmentScanResults = Collections.synchronizedList(new ArrayList<ScanResult>(totalSegments));
-        segmentScanStates = Collections.synchronizedList(new ArrayList<SegmentScanState>(totalSegments));
-
-        initSegmentScanStates();
+        if (options.getMaxReadCapacityUnitsPerSecond() > 0) {
+            this.capacityLimiter = new CapacityLimiter(options.getMaxReadCapacityUnitsPerSecond());
+            for (ScanRequest request : this.parallelScanRequests) {
+                if (request.getReturnConsumedCapacity() == null
+                        || ReturnConsumedCapacity.NONE.toString().equals(request.getReturnConsumedCapacity())) {
+                    request.setReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+                }
+            }
+        } else {
+            this.capacityLimiter = null;
+        }
     }
 
     String getTableName() {
         return parallelScanRequests.get(0).getTableName();
     }
 
-    public boolean isAllSegmentScanFinished() {
-        synchronized(segmentScanStates) {
+    public synchronized boolean isAllSegmentScanFinished() {
+        return completedSegments == totalSegments;
+    }
+
+    /**
+     * Returns the pages the segments have scanned since the last call, waiting
+     * for at least one of them if necessary, and lets those segments go on
+     * with their next page.
+     */
+    public synchronized List<ScanResult> getNextBatchOfScanResults() throws AmazonClientException {
+        if (failure != null) {
+            throw failure;
+        }
+        if (!started) {
+            started = true;
             for (int segment = 0; segment < totalSegments; segment++) {
-                if (segmentScanStates.get(segment) != SegmentScanState.SegmentScanCompleted)
-                    return false;
+                scheduleSegment(segment);
             }
-            // Shut down if all data have been scanned and loaded.
-            executorService.shutdown();
-            return true;
         }
-    }
 
-    public List<ScanResult> getNextBatchOfScanResults() throws AmazonClientException {
-        /**
-         * Kick-off all the parallel scan tasks.
-         */
-        startScanNextPages();
-        /**
-         * Wait till all the tasks have finished.
-         */
-        synchronized(segmentScanStates) {
-            while (segmentScanStates.contains(SegmentScanState.Waiting)
-                    || segmentScanStates.contains(SegmentScanState.Scanning)) {
-                try {
-                    segmentScanStates.wait();
-                } catch (InterruptedException ie) {
-                    throw new AmazonClientException("Parallel scan interrupted by other thread.", ie);
-                }
-            }
-            /**
-             *  Keep the lock on segmentScanStates until all the cached results are marshaled and returned.
-             */
-            return marshalParallelScanResults();
+        List<ScanResult> scanResults = new LinkedList<ScanResult>();
+        if (completedSegments == totalSegments) {
+            return scanResults;
         }
 
-    }
+        List<SegmentPage> pages = new ArrayList<SegmentPage>(totalSegments);
+        try {
+            pages.add(scannedPages.take());
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException("Parallel scan interrupted by other thread.", ie);
+        }
+        scannedPages.drainTo(pages);
 
-    private void startScanNextPages() {
-        for (int segment = 0; segment < totalSegments; segment++) {
-            final int currentSegment = segment;
-            final SegmentScanState currentSegmentState = segmentScanStates.get(currentSegment);
-            /**
-             * Assert: Should never see any task in state of "Scanning" when starting a new batch.
-             */
-            if (currentSegmentState == SegmentScanState.Scanning){
-                throw new AmazonClientException("Should never see a 'Scanning' state when starting parallel scans.");
-            }
-            /**
-             * Skip any failed or completed segment, and clear the corresponding cached result.
-             */
-            else if (currentSegmentState == SegmentScanState.Failed
-                    || currentSegmentState == SegmentScanState.SegmentScanCompleted) {
-                segmentScanResults.set(currentSegment, null);
-                continue;
+        for (SegmentPage page : pages) {
+            if (page.failure != null) {
+                failure = toClientException(page.segment, page.failure);
+                throw failure;
             }
-            /**
-             * Otherwise, submit a new future task and save it in segmentScanFutureTasks.
-             */
-            else {
-                // Update the state to "Scanning" and notify any waiting thread.
-                synchronized(segmentScanStates) {
-                    segmentScanStates.set(currentSegment, SegmentScanState.Scanning);
-                    segmentScanStates.notifyAll();
-                }
-                Future<ScanResult> futureTask = executorService.submit(new Callable<ScanResult>() {
-                    @Override
-                    public ScanResult call() throws Exception {
-                        try {
-                            if (currentSegmentState == SegmentScanState.HasNextPage) {
-                                return scanNextPageOfSegment(currentSegment, true);
-                            }
-                            else if (currentSegmentState == SegmentScanState.Waiting) {
-                                return scanNextPageOfSegment(currentSegment, false);
-                            }
-                            else {
-                                throw new AmazonClientException("Should not start a new future task");
-                            }
-                        } catch (Exception e) {
-                            synchronized(segmentScanStates) {
-                                segmentScanStates.set(currentSegment, SegmentScanState.Failed);
-                                segmentScanStates.notifyAll();
-                            }
-                            throw e;
-                        }
-                    }
-                });
-                // Cache the future task (for getting the Exceptions in the working thread).
-                segmentScanFutureTasks.set(currentSegment, futureTask);
+        }
+        for (SegmentPage page : pages) {
+            scanResults.add(page.scanResult);
+            if (page.scanResult.getLastEvaluatedKey() == null) {
+                completedSegments++;
+            } else {
+                parallelScanRequests.get(page.segment)
+                        .setExclusiveStartKey(page.scanResult.getLastEvaluatedKey());
+                scheduleSegment(page.segment);
             }
         }
+        return scanResults;
     }
 
-    private List<ScanResult> marshalParallelScanResults() {
-        List<ScanResult> scanResults = new LinkedList<ScanResult>();
-        for (int segment = 0; segment < totalSegments; segment++) {
-            SegmentScanState currentSegmentState = segmentScanStates.get(segment);
-            /**
-             * Rethrow the exception from any failed segment scan.
-             */
-            if (currentSegmentState == SegmentScanState.Failed) {
+    /**
+     * Scans the next page of the given segment as soon as the read capacity
+     * allows.
+     */
+    private void scheduleSegment(final int segment) {
+        final double reservedUnits = capacityLimiter == null ? 0 : capacityLimiter.estimatePage();
+        long delay = capacityLimiter == null ? 0 : capacityLimiter.reserve(reservedUnits);
+
+        final Runnable scan = new Runnable() {
+            @Override
+            public void run() {
+                scanSegment(segment, reservedUnits);
+            }
+        };
+        Runnable submit = new Runnable() {
+            @Override
+            public void run() {
                 try {
-                    segmentScanFutureTasks.get(segment).get();
-                    throw new AmazonClientException("No Exception found in the failed scan task.");
-                } catch (ExecutionException ee) {
-                    if ( ee.getCause() instanceof AmazonClientException) {
-                        throw (AmazonClientException) (ee.getCause());
-                    } else {
-                        throw new AmazonClientException("Internal error during the scan on segment #" + segment + ".",
-                                ee.getCause());
-                    }
-                } catch (Exception e) {
-                    throw new AmazonClientException("Error during the scan on segment #" + segment + ".", e);
+                    executorService.execute(scan);
+                } catch (RuntimeException e) {
+                    scannedPages.add(new SegmentPage(segment, null, e));
                 }
             }
-            /**
-             * Get the ScanResult from cache if the segment scan has finished.
-             */
-            else if (currentSegmentState == SegmentScanState.HasNextPage
-                    || currentSegmentState == SegmentScanState.SegmentScanCompleted) {
-                ScanResult scanResult = segmentScanResults.get(segment);
-                scanResults.add(scanResult);
-            }
-            else if (currentSegmentState == SegmentScanState.Waiting
-                    || currentSegmentState == SegmentScanState.Scanning){
-                throw new AmazonClientException("Should never see a 'Scanning' or 'Waiting' state when marshalling parallel scan results.");
+        };
+
+        if (delay > 0) {
+            timer().schedule(submit, delay, TimeUnit.NANOSECONDS);
+        } else {
+            submit.run();
+        }
+    }
+
+    private void scanSegment(int segment, double reservedUnits) {
+        ScanResult scanResult;
+        try {
+            ScanRequest segmentScanRequest = parallelScanRequests.get(segment);
+            scanResult = dynamo.scan(DynamoDBMapper.applyUserAgent(segmentScanRequest));
+        } catch (Throwable t) {
+            scannedPages.add(new SegmentPage(segment, null, t));
+            return;
+        }
+
+        if (capacityLimiter != null) {
+            ConsumedCapacity consumedCapacity = scanResult.getConsumedCapacity();
+            if (consumedCapacity != null && consumedCapacity.getCapacityUnits() != null) {
+                capacityLimiter.consumed(reservedUnits, consumedCapacity.getCapacityUnits());
             }
         }
-        return scanResults;
+        scannedPages.add(new SegmentPage(segment, scanResult, null));
     }
 
-    private ScanResult scanNextPageOfSegment(int currentSegment, boolean checkLastEvaluatedKey) {
-        ScanRequest segmentScanRequest = parallelScanRequests.get(currentSegment);
-        if (checkLastEvaluatedKey) {
-            ScanResult lastScanResult = segmentScanResults.get(currentSegment);
-            segmentScanRequest.setExclusiveStartKey(lastScanResult.getLastEvaluatedKey());
-        } else {
-            segmentScanRequest.setExclusiveStartKey(null);
+    private static AmazonClientException toClientException(int segment, Throwable t) {
+        if (t instanceof AmazonClientException) {
+            return (AmazonClientException) t;
         }
-        ScanResult scanResult = dynamo.scan(DynamoDBMapper.applyUserAgent(segmentScanRequest));
+        return new AmazonClientException("Internal error during the scan on segment #" + segment + ".", t);
+    }
 
-        /**
-         * Cache the scan result in segmentScanResults.
-         * We should never try to get these scan results by calling get() on the cached future tasks.
-         */
-        segmentScanResults.set(currentSegment, scanResult);
+    private static synchronized ExecutorService defaultExecutorService() {
+        if (defaultExecutorService == null) {
+            defaultExecutorService = Executors.newCachedThreadPool(
+                    new DaemonThreadFactory("dynamodb-mapper-parallel-scan-"));
+        }
+        return defaultExecutorService;
+    }
 
-        /**
-         * Update the state and notify any waiting thread.
-         */
-        synchronized(segmentScanStates) {
-            if (null == scanResult.getLastEvaluatedKey())
-                segmentScanStates.set(currentSegment, SegmentScanState.SegmentScanCompleted);
-            else
-                segmentScanStates.set(currentSegment, SegmentScanState.HasNextPage);
-            segmentScanStates.notifyAll();
+    private static synchronized ScheduledExecutorService timer() {
+        if (timer == null) {
+            timer = Executors.newSingleThreadScheduledExecutor(
+                    new DaemonThreadFactory("dynamodb-mapper-parallel-scan-timer-"));
         }
-        return scanResult;
+        return timer;
     }
 
-    private void initSegmentScanStates() {
-        for (int segment = 0; segment < totalSegments; segment++) {
-            segmentScanFutureTasks.add(null);
-            segmentScanResults.add(null);
-            segmentScanStates.add(SegmentScanState.Waiting);
+    /**
+     * A page scanned by a segment, or the failure of the scan.
+     */
+    private static final class SegmentPage {
+        private final int segment;
+        private final ScanResult scanResult;
+        private final Throwable failure;
+
+        SegmentPage(int segment, ScanResult scanResult, Throwable failure) {
+            this.segment = segment;
+            this.scanResult = scanResult;
+            this.failure = failure;
         }
     }
 
     /**
-     * Enumeration of the possible states of the scan on a segment.
+     * A token bucket of read capacity units, refilled at the configured rate
+     * and holding up to one second worth of them. Requests reserve their units
+     * up front, and wait until the units reserved before them are covered, so
+     * the bucket may go into debt by the reservations in flight.
      */
-    private static enum SegmentScanState {
-        /** The scan on the segment is waiting for resources to execute and has not started yet. */
-        Waiting,
+    private static final class CapacityLimiter {
+        private final double unitsPerSecond;
+        private double availableUnits;
+        private long lastRefillNanos = System.nanoTime();
+
+        /** Average units consumed by a page so far. */
+        private double unitsPerPage = 1;
+        private long pages = 0;
+
+        CapacityLimiter(double unitsPerSecond) {
+            this.unitsPerSecond = unitsPerSecond;
+            this.availableUnits = unitsPerSecond;
+        }
+
+        synchronized double estimatePage() {
+            return unitsPerPage;
+        }
+
+        /**
+         * Reserves the given units, and returns the number of nanoseconds to
+         * wait before consuming them.
+         */
+        synchronized long reserve(double units) {
+            refill();
+            long delay = availableUnits >= 0
+                    ? 0
+                    : (long) Math.ceil(-availableUnits / unitsPerSecond * TimeUnit.SECONDS.toNanos(1));
+            availableUnits -= units;
+            return delay;
+        }
+
+        /**
+         * Corrects a reservation by the units the page actually consumed.
+         */
+        synchronized void consumed(double reservedUnits, double consumedUnits) {
+            availableUnits -= consumedUnits - reservedUnits;
+            pages++;
+            unitsPerPage += (consumedUnits - unitsPerPage) / pages;
+        }
 
-        /** The scan is in process, and hasn't finished yet. */
-        Scanning,
+        private void refill() {
+            long now = System.nanoTime();
+            availableUnits = Math.min(unitsPerSecond,
+                    availableUnits + (now - lastRefillNanos) * unitsPerSecond / TimeUnit.SECONDS.toNanos(1));
+            lastRefillNanos = now;
+        }
+    }
 
-        /** The scan has already failed. */
-        Failed,
+    private static final class DaemonThreadFactory implements ThreadFactory {
+        private final String namePrefix;
+        private final AtomicInteger threadCount = new AtomicInteger(0);
 
-        /** The scan on the current page has finished, but there are more pages in the segment to be scanned. */
-        HasNextPage,
+        DaemonThreadFactory(String namePrefix) {
+            this.namePrefix = namePrefix;
+        }
 
-        /** The scan on the whole segment has completed. */
-        SegmentScanCompleted,
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r);
+            thread.setName(namePrefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
     }
 }
@@ -0,0 +1,651 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.document;
+
+import static com.amazonaws.services.dynamodbv2.document.internal.InternalUtils.toAttributeValueMap;
+import static com.amazonaws.services.dynamodbv2.document.internal.InternalUtils.toAttributeValues;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.annotation.ThreadSafe;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
+import com.amazonaws.services.dynamodbv2.model.DeleteRequest;
+import com.amazonaws.services.dynamodbv2.model.DescribeTableRequest;
+import com.amazonaws.services.dynamodbv2.model.KeySchemaElement;
+import com.amazonaws.services.dynamodbv2.model.PutRequest;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+
+/**
+ * Buffers the item puts and deletes of any number of threads, and writes them
+ * to DynamoDB in batches.
+ * <p>
+ * The writes to a table are collected in a batch until it holds 25 of them,
+ * the most a BatchWriteItem request takes, or until it has been open for the
+ * configured time. Since an item is at most 400 KB, a batch of 25 writes
+ * always stays within the 16 MB request limit. Writes that DynamoDB leaves
+ * unprocessed are sent again with an exponential back-off. The outcome of
+ * each write is reported through the future returned for it.
+ * <p>
+ * Writes to the same item that end up in the same batch are coalesced: only
+ * the last of them is sent, and the futures of the earlier ones complete with
+ * its outcome. The writer describes each table once to learn its key
+ * attributes for this. As with BatchWriteItem itself, the writes are not
+ * conditional, and writes to the same item in different batches may be
+ * applied in any order. Wait for the future of a write before writing the
+ * same item again if the order matters.
+ * <p>
+ * A writer is meant to be long lived and shared. Call {@link #shutdown()} to
+ * write the buffered writes and release its threads.
+ */
+@ThreadSafe
+public class BufferedBatchWriter {
+
+    private static final Log log = LogFactory.getLog(BufferedBatchWriter.class);
+
+    /** The maximum number of writes in a BatchWriteItem request. */
+    public static final int MAX_ITEMS_PER_BATCH = 25;
+
+    /** Back-off delay before the first retry of unprocessed writes. */
+    private static final long BASE_BACKOFF_MS = 100;
+
+    /** Maximum back-off delay before a retry of unprocessed writes. */
+    private static final long MAX_BACKOFF_MS = 10 * 1000;
+
+    private final AmazonDynamoDB client;
+
+    private final BufferedBatchWriterConfig config;
+
+    /** Writes the batches. */
+    private final ExecutorService sendExecutor;
+
+    /** Sends the batches that have been open for too long. */
+    private final ScheduledExecutorService timer;
+
+    /** Permits controlling the number of in flight batches. */
+    private final Semaphore inflightBatches;
+
+    private final Random random = new Random();
+
+    /** The batch collecting writes for each table. Guarded by this. */
+    private final Map<String, Batch> openBatches = new HashMap<String, Batch>();
+
+    /** The batches sent or about to be sent. Guarded by this. */
+    private final Set<Batch> sentBatches = new HashSet<Batch>();
+
+    /**
+     * Batches closed by the timer while all in flight permits were taken,
+     * sent by whichever batch completes next. Guarded by this.
+     */
+    private final Queue<Batch> waitingBatches = new LinkedList<Batch>();
+
+    /**
+     * The names of the key attributes of each table, or an empty list if they
+     * couldn't be found.
+     */
+    private final ConcurrentMap<String, List<String>> keyAttributeNames =
+            new ConcurrentHashMap<String, List<String>>();
+
+    /** Guarded by this. */
+    private boolean shutdown = false;
+
+    public BufferedBatchWriter(AmazonDynamoDB client) {
+        this(client, new BufferedBatchWriterConfig());
+    }
+
+    public BufferedBatchWriter(AmazonDynamoDB client, BufferedBatchWriterConfig config) {
+        if (client == null) {
+            throw new IllegalArgumentException("client must not be null");
+        }
+        this.client = client;
+        this.config = new BufferedBatchWriterConfig(config);
+        this.inflightBatches = new Semaphore(this.config.getMaxInflightBatches());
+        this.sendExecutor = Executors.newFixedThreadPool(this.config.getMaxInflightBatches(),
+                new DaemonThreadFactory("dynamodb-batch-writer-"));
+        this.timer = Executors.newSingleThreadScheduledExecutor(
+                new DaemonThreadFactory("dynamodb-batch-writer-timer-"));
+    }
+
+    public BufferedBatchWriterConfig getConfig() {
+        return new BufferedBatchWriterConfig(config);
+    }
+
+    /**
+     * Buffers a put of the given item into the given table.
+     *
+     * @return a future that completes once the item has been written, or
+     *         fails with the reason it couldn't be.
+     * @throws IllegalStateException
+     *             if the writer has been shut down.
+     */
+    public Future<Void> putItem(String tableName, Item item) {
+        return write(tableName, new WriteRequest()
+                .withPutRequest(new PutRequest()
+                        .withItem(toAttributeValues(item))));
+    }
+
+    /**
+     * Buffers a delete of the item with the given primary key from the given
+     * table.
+     *
+     * @return a future that completes once the item has been deleted, or
+     *         fails with the reason it couldn't be.
+     * @throws IllegalStateException
+     *             if the writer has been shut down.
+     */
+    public Future<Void> deleteItem(String tableName, PrimaryKey primaryKey) {
+        return write(tableName, new WriteRequest()
+                .withDeleteRequest(new DeleteRequest()
+                        .withKey(toAttributeValueMap(primaryKey))));
+    }
+
+    /**
+     * Sends all the buffered writes, and waits until the writes buffered
+     * before the call have completed or failed.
+     */
+    public void flush() {
+        List<Batch> toSend;
+        List<Batch> toWaitFor;
+        synchronized (this) {
+            toSend = new ArrayList<Batch>(openBatches.values());
+            for (Batch batch : toSend) {
+                dispatch(batch);
+            }
+            toWaitFor = new ArrayList<Batch>(sentBatches);
+        }
+
+        for (Batch batch : toSend) {
+            send(batch);
+        }
+        try {
+            for (Batch batch : toWaitFor) {
+                for (PendingWrite write : batch.writes) {
+                    try {
+                        write.future.get();
+                    } catch (ExecutionException e) {
+                        // Reported to the caller of the write through its future
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException("Interrupted while flushing the batch writer", e);
+        }
+    }
+
+    /**
+     * Writes the buffered writes, and stops the threads of this writer. No
+     * writes can be buffered afterwards.
+     */
+    public void shutdown() {
+        synchronized (this) {
+            if (shutdown) {
+                return;
+            }
+            shutdown = true;
+        }
+        try {
+            flush();
+        } finally {
+            timer.shutdownNow();
+            sendExecutor.shutdown();
+        }
+    }
+
+    private Future<Void> write(String tableName, WriteRequest request) {
+        if (tableName == null) {
+            throw new IllegalArgumentException("tableName must not be null");
+        }
+        WriteFuture future = new WriteFuture();
+        Batch full = null;
+        synchronized (this) {
+            if (shutdown) {
+                throw new IllegalStateException("The batch writer has been shut down");
+            }
+            Batch batch = openBatches.get(tableName);
+            if (batch == null) {
+                batch = new Batch(tableName);
+                openBatches.put(tableName, batch);
+                batch.timeout = timer.schedule(new BatchTimeout(batch),
+                        config.getMaxBatchOpenMs(), TimeUnit.MILLISECONDS);
+            }
+            batch.writes.add(new PendingWrite(request, future));
+            if (batch.writes.size() == MAX_ITEMS_PER_BATCH) {
+                dispatch(batch);
+                full = batch;
+            }
+        }
+        if (full != null) {
+            send(full);
+        }
+        return future;
+    }
+
+    /**
+     * Closes the given open batch. Must be called while holding the lock of
+     * this writer, and followed by {@link #send(Batch)} once it is released.
+     */
+    private void dispatch(Batch batch) {
+        openBatches.remove(batch.tableName);
+        if (batch.timeout != null) {
+            batch.timeout.cancel(false);
+        }
+        sentBatches.add(batch);
+    }
+
+    /**
+     * Sends a dispatched batch, waiting for an in flight batch to complete if
+     * there are too many of them.
+     */
+    private void send(Batch batch) {
+        try {
+            inflightBatches.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            complete(batch, new AmazonClientException("Interrupted while waiting to send a batch", e));
+            return;
+        }
+        execute(batch);
+    }
+
+    /**
+     * Sends a dispatched batch if there is an in flight permit for it, or
+     * queues it to be sent when the next in flight batch completes. Never
+     * blocks, so that the timer thread keeps closing batches on time.
+     */
+    private void sendWhenPermitted(Batch batch) {
+        synchronized (this) {
+            if (!inflightBatches.tryAcquire()) {
+                waitingBatches.add(batch);
+                return;
+            }
+        }
+        execute(batch);
+    }
+
+    /**
+     * Writes a batch on the send executor, holding an in flight permit that
+     * is passed on to a waiting batch, or released, once it's written.
+     */
+    private void execute(final Batch batch) {
+        try {
+            sendExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    Batch next;
+                    try {
+                        writeBatch(batch);
+                    } finally {
+                        synchronized (BufferedBatchWriter.this) {
+                            sentBatches.remove(batch);
+                            next = waitingBatches.poll();
+                            if (next == null) {
+                                inflightBatches.release();
+                            }
+                        }
+                    }
+                    if (next != null) {
+                        execute(next);
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            Batch next;
+            synchronized (this) {
+                next = waitingBatches.poll();
+                if (next == null) {
+                    inflightBatches.release();
+                }
+            }
+            complete(batch, e);
+            if (next != null) {
+                execute(next);
+            }
+        }
+    }
+
+    private void writeBatch(Batch batch) {
+        List<PendingWrite> pending = coalesce(batch);
+        int retries = 0;
+        while (true) {
+            List<WriteRequest> requests = new ArrayList<WriteRequest>(pending.size());
+            for (PendingWrite write : pending) {
+                requests.add(write.request);
+            }
+
+            BatchWriteItemResult result;
+            try {
+                result = client.batchWriteItem(new BatchWriteItemRequest()
+                        .withRequestItems(Collections.singletonMap(batch.tableName, requests)));
+            } catch (RuntimeException e) {
+                fail(pending, e);
+                return;
+            } catch (Error e) {
+                fail(pending, new AmazonClientException("Unable to write batch", e));
+                throw e;
+            }
+
+            List<WriteRequest> unprocessed = result.getUnprocessedItems() == null
+                    ? null
+                    : result.getUnprocessedItems().get(batch.tableName);
+            if (unprocessed == null || unprocessed.isEmpty()) {
+                succeed(pending);
+                return;
+            }
+
+            // The service returns copies of the requests it left unprocessed
+            List<WriteRequest> remaining = new LinkedList<WriteRequest>(unprocessed);
+            List<PendingWrite> retry = new ArrayList<PendingWrite>(unprocessed.size());
+            for (PendingWrite write : pending) {
+                if (remaining.remove(write.request)) {
+                    retry.add(write);
+                } else {
+                    write.complete(null);
+                }
+            }
+            pending = retry;
+
+            if (retries >= config.getMaxUnprocessedRetries()) {
+                fail(pending, new AmazonClientException("The write was still unprocessed after "
+                        + (retries + 1) + " attempts to write it to " + batch.tableName));
+                return;
+            }
+            retries++;
+            if (log.isDebugEnabled()) {
+                log.debug(pending.size() + " writes to " + batch.tableName
+                        + " were unprocessed, retry #" + retries);
+            }
+            try {
+                Thread.sleep(backoffMillis(retries));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(pending, new AmazonClientException("Interrupted while retrying unprocessed writes", e));
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the writes of the given batch with only the last write to each
+     * item kept, as BatchWriteItem rejects requests with several writes to the
+     * same item. The dropped writes complete along with the one that replaced
+     * them.
+     */
+    private List<PendingWrite> coalesce(Batch batch) {
+        List<PendingWrite> writes = batch.writes;
+        if (writes.size() < 2) {
+            return writes;
+        }
+        List<String> keyNames = keyAttributeNames(batch.tableName);
+        if (keyNames.isEmpty()) {
+            return writes;
+        }
+
+        Map<Map<String, AttributeValue>, PendingWrite> latest =
+                new LinkedHashMap<Map<String, AttributeValue>, PendingWrite>();
+        for (PendingWrite write : writes) {
+            Map<String, AttributeValue> attributes = write.request.getPutRequest() != null
+                    ? write.request.getPutRequest().getItem()
+                    : write.request.getDeleteRequest().getKey();
+            Map<String, AttributeValue> key = new HashMap<String, AttributeValue>();
+            for (String name : keyNames) {
+                key.put(name, attributes.get(name));
+            }
+            PendingWrite previous = latest.remove(key);
+            if (previous != null) {
+                write.supersede(previous);
+            }
+            latest.put(key, write);
+        }
+        if (latest.size() == writes.size()) {
+            return writes;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Coalesced " + writes.size() + " writes to " + batch.tableName
+                    + " into " + latest.size());
+        }
+        return new ArrayList<PendingWrite>(latest.values());
+    }
+
+    /**
+     * Returns the names of the key attributes of the given table, describing
+     * it the first time. If the table can't be described, its writes are sent
+     * as they are.
+     */
+    private List<String> keyAttributeNames(String tableName) {
+        List<String> names = keyAttributeNames.get(tableName);
+        if (names != null) {
+            return names;
+        }
+        try {
+            names = new ArrayList<String>();
+            for (KeySchemaElement element : client.describeTable(
+                    new DescribeTableRequest().withTableName(tableName)).getTable().getKeySchema()) {
+                names.add(element.getAttributeName());
+            }
+        } catch (AmazonServiceException e) {
+            log.warn("Unable to describe " + tableName
+                    + ", writes to the same item won't be coalesced", e);
+            names = Collections.emptyList();
+        } catch (AmazonClientException e) {
+            // Try again with the next batch
+            log.debug("Unable to describe " + tableName, e);
+            return Collections.emptyList();
+        }
+        keyAttributeNames.putIfAbsent(tableName, names);
+        return names;
+    }
+
+    private long backoffMillis(int retries) {
+        long maxDelay = Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << Math.min(retries - 1, 16));
+        // Between half and all of the maximum, so that writers throttled at
+        // the same time don't all retry at once
+        synchronized (random) {
+            return maxDelay / 2 + (long) (random.nextDouble() * (maxDelay / 2));
+        }
+    }
+
+    private void complete(Batch batch, Exception failure) {
+        synchronized (this) {
+            sentBatches.remove(batch);
+        }
+        fail(batch.writes, failure);
+    }
+
+    private static void succeed(List<PendingWrite> writes) {
+        for (PendingWrite write : writes) {
+            write.complete(null);
+        }
+    }
+
+    private static void fail(List<PendingWrite> writes, Exception failure) {
+        for (PendingWrite write : writes) {
+            write.complete(failure);
+        }
+    }
+
+    /**
+     * Sends a batch that has been open for the configured time. Runs on the
+     * timer thread, so it mustn't block.
+     */
+    private final class BatchTimeout implements Runnable {
+        private final Batch batch;
+
+        BatchTimeout(Batch batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public void run() {
+            synchronized (BufferedBatchWriter.this) {
+                if (openBatches.get(batch.tableName) != batch) {
+                    return;
+                }
+                dispatch(batch);
+            }
+            sendWhenPermitted(batch);
+        }
+    }
+
+    private static final class Batch {
+        private final String tableName;
+        private final List<PendingWrite> writes = new ArrayList<PendingWrite>(MAX_ITEMS_PER_BATCH);
+        private ScheduledFuture<?> timeout;
+
+        Batch(String tableName) {
+            this.tableName = tableName;
+        }
+    }
+
+    private static final class PendingWrite {
+        private final WriteRequest request;
+        private final WriteFuture future;
+
+        /** The futures of the earlier writes to the same item it replaced. */
+        private List<WriteFuture> superseded;
+
+        PendingWrite(WriteRequest request, WriteFuture future) {
+            this.request = request;
+            this.future = future;
+        }
+
+        void supersede(PendingWrite previous) {
+            if (superseded == null) {
+                superseded = new ArrayList<WriteFuture>();
+            }
+            superseded.add(previous.future);
+            if (previous.superseded != null) {
+                superseded.addAll(previous.superseded);
+            }
+        }
+
+        void complete(Exception failure) {
+            future.complete(failure);
+            if (superseded != null) {
+                for (WriteFuture replaced : superseded) {
+                    replaced.complete(failure);
+                }
+            }
+        }
+    }
+
+    /**
+     * The future of a buffered write, completed by the writer. It can't be
+     * cancelled, as the write may already be on its way.
+     */
+    private static final class WriteFuture implements Future<Void> {
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        /** The reason the write failed, set before {@link #done} opens. */
+        private Exception failure;
+
+        /**
+         * Completes this future, successfully if the failure is null. Only the
+         * first call has any effect.
+         */
+        synchronized void complete(Exception failure) {
+            if (done.getCount() == 0) {
+                return;
+            }
+            this.failure = failure;
+            done.countDown();
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return false;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public boolean isDone() {
+            return done.getCount() == 0;
+        }
+
+        @Override
+        public Void get() throws InterruptedException, ExecutionException {
+            done.await();
+            return result();
+        }
+
+        @Override
+        public Void get(long timeout, TimeUnit unit)
+                throws InterruptedException, ExecutionException, TimeoutException {
+            if (!done.await(timeout, unit)) {
+                throw new TimeoutException();
+            }
+            return result();
+        }
+
+        private Void result() throws ExecutionException {
+            if (failure != null) {
+                throw new ExecutionException(failure);
+            }
+            return null;
+        }
+    }
+
+    private static final class DaemonThreadFactory implements ThreadFactory {
+        private final String namePrefix;
+        private final AtomicInteger threadCount = new AtomicInteger(0);
+
+        DaemonThreadFactory(String namePrefix) {
+            this.namePrefix = namePrefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r);
+            thread.setName(namePrefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.document;
+
+/**
+ * Configuration of a {@link BufferedBatchWriter}.
+ */
+public class BufferedBatchWriterConfig {
+
+    /** 200 milliseconds */
+    public static final long MAX_BATCH_OPEN_MS_DEFAULT = 200;
+
+    /** 5 batches */
+    public static final int MAX_INFLIGHT_BATCHES_DEFAULT = 5;
+
+    /** 10 retries */
+    public static final int MAX_UNPROCESSED_RETRIES_DEFAULT = 10;
+
+    /**
+     * The maximum time (milliseconds) a batch is held open for additional
+     * writes to the same table. The longer this timeout, the fuller the
+     * batches, but the longer a write waits before it is sent.
+     */
+    private long maxBatchOpenMs = MAX_BATCH_OPEN_MS_DEFAULT;
+
+    /**
+     * The maximum number of batches being written at the same time. Once
+     * this many batches are in flight, threads filling up another batch wait
+     * for one of them to complete.
+     */
+    private int maxInflightBatches = MAX_INFLIGHT_BATCHES_DEFAULT;
+
+    /**
+     * The maximum number of times the writes DynamoDB leaves unprocessed are
+     * sent again, before their futures fail.
+     */
+    private int maxUnprocessedRetries = MAX_UNPROCESSED_RETRIES_DEFAULT;
+
+    public BufferedBatchWriterConfig() {
+    }
+
+    public BufferedBatchWriterConfig(BufferedBatchWriterConfig other) {
+        this.maxBatchOpenMs = other.maxBatchOpenMs;
+        this.maxInflightBatches = other.maxInflightBatches;
+        this.maxUnprocessedRetries = other.maxUnprocessedRetries;
+    }
+
+    /**
+     * The maximum time (milliseconds) a batch is held open for additional
+     * writes to the same table. The longer this timeout, the fuller the
+     * batches, but the longer a write waits before it is sent.
+     */
+    public long getMaxBatchOpenMs() {
+        return maxBatchOpenMs;
+    }
+
+    /**
+     * The maximum time (milliseconds) a batch is held open for additional
+     * writes to the same table. The longer this timeout, the fuller the
+     * batches, but the longer a write waits before it is sent.
+     */
+    public void setMaxBatchOpenMs(long maxBatchOpenMs) {
+        if (maxBatchOpenMs < 0) {
+            throw new IllegalArgumentException("maxBatchOpenMs must not be negative");
+        }
+        this.maxBatchOpenMs = maxBatchOpenMs;
+    }
+
+    public BufferedBatchWriterConfig withMaxBatchOpenMs(long maxBatchOpenMs) {
+        setMaxBatchOpenMs(maxBatchOpenMs);
+        return this;
+    }
+
+    /**
+     * The maximum number of batches being written at the same time. Once
+     * this many batches are in flight, threads filling up another batch wait
+     * for one of them to complete.
+     */
+    public int getMaxInflightBatches() {
+        return maxInflightBatches;
+    }
+
+    /**
+     * The maximum number of batches being written at the same time. Once
+     * this many batches are in flight, threads filling up another batch wait
+     * for one of them to complete.
+     */
+    public void setMaxInflightBatches(int maxInflightBatches) {
+        if (maxInflightBatches < 1) {
+            throw new IllegalArgumentException("maxInflightBatches must be at least 1");
+        }
+        this.maxInflightBatches = maxInflightBatches;
+    }
+
+    public BufferedBatchWriterConfig withMaxInflightBatches(int maxInflightBatches) {
+        setMaxInflightBatches(maxInflightBatches);
+        return this;
+    }
+
+    /**
+     * The maximum number of times the writes DynamoDB leaves unprocessed are
+     * sent again, before their futures fail.
+     */
+    public int getMaxUnprocessedRetries() {
+        return maxUnprocessedRetries;
+    }
+
+    /**
+     * The maximum number of times the writes DynamoDB leaves unprocessed are
+     * sent again, before their futures fail.
+     */
+    public void setMaxUnprocessedRetries(int maxUnprocessedRetries) {
+        if (maxUnprocessedRetries < 0) {
+            throw new IllegalArgumentException("maxUnprocessedRetries must not be negative");
+        }
+        this.maxUnprocessedRetries = maxUnprocessedRetries;
+    }
+
+    public BufferedBatchWriterConfig withMaxUnprocessedRetries(int maxUnprocessedRetries) {
+        setMaxUnprocessedRetries(maxUnprocessedRetries);
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "BufferedBatchWriterConfig [maxBatchOpenMs=" + maxBatchOpenMs
+                + ", maxInflightBatches=" + maxInflightBatches
+                + ", maxUnprocessedRetries=" + maxUnprocessedRetries + "]";
+    }
+}
@@ -40,6 +40,7 @@ import com.amazonaws.services.dynamodbv2.model.ListTablesResult;
 import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughput;
 import com.amazonaws.services.dynamodbv2.model.ReturnConsumedCapacity;
 import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+import com.amazonaws.services.dynamodbv2.util.ItemCache;
 
 /**
  * DynamoDB Document API. This class is the entry point to make use of this
@@ -89,6 +90,24 @@ public class DynamoDB implements ListTablesApi, BatchGetItemApi,
         return new Table(client, tableName);
     }
 
+    /**
+     * Returns the specified DynamoDB table, caching the items read through it
+     * in the given cache.  No network call is involved.
+     *
+     * @see Table#getItemCache()
+     */
+    public Table getTable(String tableName, ItemCache itemCache) {
+        return new Table(client, tableName, null, itemCache);
+    }
+
+    /**
+     * Returns a new writer buffering item puts and deletes into batches, which
+     * should be shut down once it is no longer needed.
+     */
+    public BufferedBatchWriter newBufferedBatchWriter(BufferedBatchWriterConfig config) {
+        return new BufferedBatchWriter(client, config);
+    }
+
     /**
      * Creates the specified table in DynamoDB.
      */
@@ -14,8 +14,6 @@
  */
 package com.amazonaws.services.dynamodbv2.document;
 
-import java.util.Map;
-
 import com.amazonaws.services.dynamodbv2.document.internal.InternalUtils;
 import com.amazonaws.services.dynamodbv2.model.GetItemResult;
 
@@ -39,10 +37,7 @@ public class GetItemOutcome {
      * item doesn't exist.
      */
     public Item getItem() {
-        Map<String, Object> attributes =
-            InternalUtils.toSimpleMapValue(result.getItem());
-        Item item = Item.fromMap(attributes);
-        return item;
+        return InternalUtils.toItem(result.getItem());
     }
 
     /**
@@ -56,6 +56,7 @@ import com.amazonaws.services.dynamodbv2.model.TableDescription;
 import com.amazonaws.services.dynamodbv2.model.TableStatus;
 import com.amazonaws.services.dynamodbv2.model.UpdateTableRequest;
 import com.amazonaws.services.dynamodbv2.model.UpdateTableResult;
+import com.amazonaws.services.dynamodbv2.util.ItemCache;
 import com.amazonaws.services.dynamodbv2.xspec.DeleteItemExpressionSpec;
 import com.amazonaws.services.dynamodbv2.xspec.GetItemExpressionSpec;
 import com.amazonaws.services.dynamodbv2.xspec.QueryExpressionSpec;
@@ -73,6 +74,7 @@ public class Table implements PutItemApi, GetItemApi, QueryApi, ScanApi,
     private final String tableName;
     private final AmazonDynamoDB client;
     private volatile TableDescription tableDescription;
+    private final ItemCache itemCache;
 
     private final PutItemImpl putItemDelegate;
     private final GetItemImpl getItemDelegate;
@@ -88,6 +90,16 @@ public class Table implements PutItemApi, GetItemApi, QueryApi, ScanApi,
 
     public Table(AmazonDynamoDB client, String tableName,
             TableDescription tableDescription) {
+        this(client, tableName, tableDescription, null);
+    }
+
+    /**
+     * @param itemCache
+     *            the cache of the items read through this table; or null to
+     *            not cache items
+     */
+    public Table(AmazonDynamoDB client, String tableName,
+            TableDescription tableDescription, ItemCache itemCache) {
         if (client == null)
             throw new IllegalArgumentException("client must be specified");
         if (tableName == null || tableName.trim().length() == 0)
@@ -95,6 +107,7 @@ public class Table implements PutItemApi, GetItemApi, QueryApi, ScanApi,
         this.client = client;
         this.tableName = tableName;
         this.tableDescription = tableDescription;
+        this.itemCache = itemCache;
 
         this.putItemDelegate = new PutItemImpl(client, this);
         this.getItemDelegate = new GetItemImpl(client, this);
@@ -109,6 +122,19 @@ public class Table implements PutItemApi, GetItemApi, QueryApi, ScanApi,
         return tableName;
     }
 
+    /**
+     * Returns the cache of the items read through this table; or null if
+     * items are not cached.
+     * <p>
+     * Eventually consistent reads of whole items are served from the cache
+     * when it holds the item, and consistent reads always go to DynamoDB; both
+     * add the items they read to the cache. Items put, updated or deleted
+     * through this table are removed from the cache.
+     */
+    public ItemCache getItemCache() {
+        return itemCache;
+    }
+
     /**
      * Returns the table description; or null if the table description has not
      * yet been described via {@link #describe()}.  No network call.
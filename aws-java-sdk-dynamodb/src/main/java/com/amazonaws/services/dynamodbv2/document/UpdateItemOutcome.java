@@ -14,8 +14,6 @@
  */
 package com.amazonaws.services.dynamodbv2.document;
 
-import java.util.Map;
-
 import com.amazonaws.services.dynamodbv2.document.internal.InternalUtils;
 import com.amazonaws.services.dynamodbv2.model.UpdateItemResult;
 
@@ -38,10 +36,7 @@ public class UpdateItemOutcome {
      * Returns all the returned attributes as a (non-null) {@link Item}.
      */
     public Item getItem() {
-        Map<String, Object> attributes =
-            InternalUtils.toSimpleMapValue(result.getAttributes());
-        Item item = Item.fromMap(attributes);
-        return item;
+        return InternalUtils.toItem(result.getAttributes());
     }
 
     /**
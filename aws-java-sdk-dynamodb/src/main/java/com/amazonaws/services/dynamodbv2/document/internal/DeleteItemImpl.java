@@ -95,7 +95,14 @@ public class DeleteItemImpl extends AbstractImpl implements DeleteItemApi {
             .withExpressionAttributeNames(spec.getNameMap())
             .withExpressionAttributeValues(attrValMap)
             ;
-        DeleteItemResult result = getClient().deleteItem(req);
+        DeleteItemResult result;
+        try {
+            result = getClient().deleteItem(req);
+        } finally {
+            if (getTable().getItemCache() != null) {
+                getTable().getItemCache().invalidate(tableName, req.getKey());
+            }
+        }
         return new DeleteItemOutcome(result);
     }
 
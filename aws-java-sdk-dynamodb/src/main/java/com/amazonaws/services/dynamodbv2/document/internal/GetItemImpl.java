@@ -14,6 +14,7 @@
  */
 package com.amazonaws.services.dynamodbv2.document.internal;
 
+import java.util.HashMap;
 import java.util.Map;
 
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
@@ -24,8 +25,10 @@ import com.amazonaws.services.dynamodbv2.document.PrimaryKey;
 import com.amazonaws.services.dynamodbv2.document.Table;
 import com.amazonaws.services.dynamodbv2.document.api.GetItemApi;
 import com.amazonaws.services.dynamodbv2.document.spec.GetItemSpec;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
 import com.amazonaws.services.dynamodbv2.model.GetItemResult;
+import com.amazonaws.services.dynamodbv2.util.ItemCache;
 
 /**
  * The implementation for <code>GetItemApi</code>.
@@ -78,7 +81,26 @@ public class GetItemImpl extends AbstractImpl implements GetItemApi {
                 .withProjectionExpression(spec.getProjectionExpression())
                 .withExpressionAttributeNames(spec.getNameMap());
 
+        // Only whole items are cached
+        ItemCache cache = getTable().getItemCache();
+        if (cache != null && (req.getAttributesToGet() != null
+                || req.getProjectionExpression() != null)) {
+            cache = null;
+        }
+
+        if (cache != null && !Boolean.TRUE.equals(req.getConsistentRead())) {
+            Map<String, AttributeValue> cached = cache.get(tableName, req.getKey());
+            if (cached != null) {
+                return new GetItemOutcome(new GetItemResult()
+                        .withItem(new HashMap<String, AttributeValue>(cached)));
+            }
+        }
+
+        long generation = cache == null ? 0 : cache.getGeneration(tableName, req.getKey());
         GetItemResult result = getClient().getItem(req);
+        if (cache != null && result.getItem() != null) {
+            cache.put(tableName, req.getKey(), result.getItem(), generation);
+        }
         return new GetItemOutcome(result);
     }
 
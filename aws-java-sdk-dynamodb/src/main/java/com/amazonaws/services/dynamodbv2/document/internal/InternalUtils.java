@@ -57,7 +57,20 @@ public enum InternalUtils {
             return Collections.emptyList();
         List<Item> result = new ArrayList<Item>(items.size());
         for (Map<String, AttributeValue> item : items)
-            result.add(Item.fromMap(toSimpleMapValue(item)));
+            result.add(toItem(item));
+        return result;
+    }
+
+    /**
+     * Returns an <code>Item</code> given the low level item information;
+     * or null if the input is null.
+     */
+    public static Item toItem(Map<String, AttributeValue> item) {
+        if (item == null)
+            return null;
+        Item result = new Item();
+        for (Map.Entry<String, AttributeValue> e : item.entrySet())
+            result.with(e.getKey(), toSimpleValue(e.getValue()));
         return result;
     }
 
@@ -84,7 +84,14 @@ public class PutItemImpl extends AbstractImpl implements PutItemApi {
             .withExpressionAttributeNames(spec.getNameMap())
             .withExpressionAttributeValues(attrValMap)
             ;
-        PutItemResult result = getClient().putItem(req);
+        PutItemResult result;
+        try {
+            result = getClient().putItem(req);
+        } finally {
+            if (getTable().getItemCache() != null) {
+                getTable().getItemCache().invalidate(tableName, attributes);
+            }
+        }
         return new PutItemOutcome(result);
     }
 }
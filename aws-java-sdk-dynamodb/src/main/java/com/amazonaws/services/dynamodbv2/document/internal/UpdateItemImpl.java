@@ -101,7 +101,13 @@ public class UpdateItemImpl implements UpdateItemApi {
         request.setExpressionAttributeNames(spec.getNameMap());
         request.setExpressionAttributeValues(
             InternalUtils.fromSimpleMap(spec.getValueMap()));
-        return new UpdateItemOutcome(client.updateItem(request));
+        try {
+            return new UpdateItemOutcome(client.updateItem(request));
+        } finally {
+            if (table.getItemCache() != null) {
+                table.getItemCache().invalidate(table.getTableName(), request.getKey());
+            }
+        }
     }
 
     @Override
@@ -15,32 +15,154 @@
 
 package com.amazonaws.services.dynamodbv2.model.transform;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 
 import com.amazonaws.services.dynamodbv2.model.*;
 import com.amazonaws.transform.SimpleTypeJsonUnmarshallers.*;
 import com.amazonaws.transform.*;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
 import static com.fasterxml.jackson.core.JsonToken.*;
 
 /**
  * Attribute Value JSON Unmarshaller
+ * <p>
+ * Attribute values make up most of the tokens of a query or scan response, so
+ * when the context exposes its parser they are read straight off the token
+ * stream: binary values are decoded from the token without an intermediate
+ * string, and nested maps and lists are read without going through the
+ * context.
  */
 public class AttributeValueJsonUnmarshaller implements Unmarshaller<AttributeValue, JsonUnmarshallerContext> {
 
     public AttributeValue unmarshall(JsonUnmarshallerContext context) throws Exception {
+        JsonToken token = context.getCurrentToken();
+        if (token == null) token = context.nextToken();
+        if (token == VALUE_NULL) return null;
+
+        JsonParser parser = context.getJsonParser();
+        if (token == START_OBJECT && parser != null) {
+            return unmarshallFromParser(context, parser);
+        }
+        return unmarshallFromContext(context, token);
+    }
+
+    /**
+     * Reads the attribute value the context is positioned at. The tokens of
+     * the value object itself go through the context, to keep its state in
+     * step with the parser; the tokens of each field value are read from the
+     * parser directly.
+     */
+    private AttributeValue unmarshallFromParser(JsonUnmarshallerContext context, JsonParser parser) throws IOException {
+        AttributeValue attributeValue = new AttributeValue();
+
+        while (true) {
+            JsonToken token = context.nextToken();
+            if (token == null) break;
+
+            if (token == FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                readField(parser, field, attributeValue);
+            } else if (token == END_OBJECT) {
+                break;
+            }
+        }
+        return attributeValue;
+    }
+
+    /**
+     * Reads the value of the given attribute value field, from the token the
+     * parser is positioned at, leaving the parser at its last token.
+     */
+    private static void readField(JsonParser parser, String field, AttributeValue attributeValue) throws IOException {
+        if (parser.getCurrentToken() == VALUE_NULL) {
+            return;
+        }
+        if ("S".equals(field)) {
+            attributeValue.setS(parser.getText());
+        } else if ("N".equals(field)) {
+            attributeValue.setN(parser.getText());
+        } else if ("B".equals(field)) {
+            attributeValue.setB(readBinary(parser));
+        } else if ("SS".equals(field)) {
+            attributeValue.setSS(readStringList(parser));
+        } else if ("NS".equals(field)) {
+            attributeValue.setNS(readStringList(parser));
+        } else if ("BS".equals(field)) {
+            List<ByteBuffer> list = new ArrayList<ByteBuffer>();
+            while (parser.nextToken() != END_ARRAY) {
+                list.add(readBinary(parser));
+            }
+            attributeValue.setBS(list);
+        } else if ("M".equals(field)) {
+            Map<String, AttributeValue> map = new HashMap<String, AttributeValue>();
+            while (parser.nextToken() == FIELD_NAME) {
+                String key = parser.getCurrentName();
+                parser.nextToken();
+                map.put(key, readValue(parser));
+            }
+            attributeValue.setM(map);
+        } else if ("L".equals(field)) {
+            List<AttributeValue> list = new ArrayList<AttributeValue>();
+            while (parser.nextToken() != END_ARRAY) {
+                list.add(readValue(parser));
+            }
+            attributeValue.setL(list);
+        } else if ("NULL".equals(field)) {
+            attributeValue.setNULL(Boolean.valueOf(parser.getText()));
+        } else if ("BOOL".equals(field)) {
+            attributeValue.setBOOL(Boolean.valueOf(parser.getText()));
+        } else {
+            parser.skipChildren();
+        }
+    }
+
+    /**
+     * Reads a nested attribute value from the parser, which is positioned at
+     * its start.
+     */
+    private static AttributeValue readValue(JsonParser parser) throws IOException {
+        if (parser.getCurrentToken() == VALUE_NULL) {
+            return null;
+        }
+        AttributeValue attributeValue = new AttributeValue();
+        while (parser.nextToken() == FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            readField(parser, field, attributeValue);
+        }
+        return attributeValue;
+    }
+
+    private static List<String> readStringList(JsonParser parser) throws IOException {
+        List<String> list = new ArrayList<String>();
+        while (parser.nextToken() != END_ARRAY) {
+            list.add(parser.getCurrentToken() == VALUE_NULL ? null : parser.getText());
+        }
+        return list;
+    }
+
+    private static ByteBuffer readBinary(JsonParser parser) throws IOException {
+        if (parser.getCurrentToken() == VALUE_NULL) {
+            return null;
+        }
+        return ByteBuffer.wrap(parser.getBinaryValue());
+    }
+
+    private AttributeValue unmarshallFromContext(JsonUnmarshallerContext context, JsonToken token) throws Exception {
         AttributeValue attributeValue = new AttributeValue();
 
         int originalDepth = context.getCurrentDepth();
         String currentParentElement = context.getCurrentParentElement();
         int targetDepth = originalDepth + 1;
 
-        JsonToken token = context.getCurrentToken();
-        if (token == null) token = context.nextToken();
-        if (token == VALUE_NULL) return null;
-
         while (true) {
             if (token == null) break;
 
@@ -93,7 +215,7 @@ public class AttributeValueJsonUnmarshaller implements Unmarshaller<AttributeVal
 
             token = context.nextToken();
         }
-        
+
         return attributeValue;
     }
 
@@ -103,4 +225,3 @@ public class AttributeValueJsonUnmarshaller implements Unmarshaller<AttributeVal
         return instance;
     }
 }
-    
\ No newline at end of file
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.util;
+
+import java.util.Map;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+
+/**
+ * A client-side cache of the items read from DynamoDB tables, shared by the
+ * {@link com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper} and
+ * the {@link com.amazonaws.services.dynamodbv2.document.Table} it is
+ * configured on. Items are kept in their low-level representation, keyed by
+ * table name and primary key.
+ * <p>
+ * Eventually consistent reads are served from the cache when it holds the
+ * item; consistent reads always go to DynamoDB. Writes through the same mapper
+ * or table remove the items they write from the cache, but writes by other
+ * clients are only picked up once the cached items expire.
+ * <p>
+ * A read that was sent before a write, and returns after it, carries the item
+ * as it was before the write. So that such a read can't put the old item back
+ * into the cache, readers take the generation of the item from
+ * {@link #getGeneration(String, Map)} before sending the read, and pass it to
+ * {@link #put(String, Map, Map, long)}, which ignores the item if it was
+ * invalidated in between.
+ * <p>
+ * Implementations must be thread safe.
+ *
+ * @see LRUItemCache
+ */
+public interface ItemCache {
+
+    /**
+     * Returns the cached attributes of the item with the given key; or null if
+     * the cache doesn't hold the item. The returned map must not be modified.
+     *
+     * @param tableName
+     *            the name of the table of the item
+     * @param key
+     *            the primary key of the item
+     */
+    Map<String, AttributeValue> get(String tableName, Map<String, AttributeValue> key);
+
+    /**
+     * Returns the current generation of the item with the given key, which
+     * changes each time the item is invalidated. Must be called before the
+     * read whose result is passed to {@link #put(String, Map, Map, long)} is
+     * sent.
+     *
+     * @param tableName
+     *            the name of the table of the item
+     * @param key
+     *            the primary key of the item
+     */
+    long getGeneration(String tableName, Map<String, AttributeValue> key);
+
+    /**
+     * Adds the attributes of the item with the given key, just read from
+     * DynamoDB, to the cache; unless the item has been invalidated since the
+     * read was sent.
+     *
+     * @param tableName
+     *            the name of the table of the item
+     * @param key
+     *            the primary key of the item
+     * @param item
+     *            all the attributes of the item
+     * @param generation
+     *            the generation of the item returned by
+     *            {@link #getGeneration(String, Map)} before the read was sent
+     */
+    void put(String tableName, Map<String, AttributeValue> key, Map<String, AttributeValue> item,
+            long generation);
+
+    /**
+     * Removes the item about to be, or just, written to DynamoDB from the
+     * cache.
+     *
+     * @param tableName
+     *            the name of the table of the item
+     * @param attributes
+     *            the attributes of the item, including at least its primary
+     *            key
+     */
+    void invalidate(String tableName, Map<String, AttributeValue> attributes);
+
+    /**
+     * Returns the number of reads served from the cache.
+     */
+    long getHitCount();
+
+    /**
+     * Returns the number of reads of items the cache didn't hold.
+     */
+    long getMissCount();
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.util;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.http.annotation.ThreadSafe;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+
+/**
+ * An {@link ItemCache} holding up to a maximum number of items, evicting the
+ * least recently used item when full, and dropping items once they have been
+ * in the cache for longer than a time to live.
+ * <p>
+ * The time to live bounds how long the cache may serve an item after it has
+ * been changed by another client.
+ * <p>
+ * Item generations are kept in a fixed number of slots shared by all the
+ * keys that hash to them, so that the cache doesn't need to remember every key
+ * it ever invalidated. An invalidation may therefore also keep a concurrent
+ * read of another item from being cached, which costs a later cache miss but
+ * is never stale.
+ */
+@ThreadSafe
+public class LRUItemCache implements ItemCache {
+
+    /** The number of item generation slots; a power of two. */
+    private static final int GENERATION_SLOTS = 1024;
+
+    private final int maxItems;
+    private final long timeToLiveNanos;
+
+    /**
+     * The generation of the items whose keys hash to each slot, incremented
+     * while holding the lock of {@link #items}.
+     */
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_SLOTS);
+
+    /** The items in access order, guarded by itself. */
+    private final LinkedHashMap<CacheKey, CachedItem> items;
+
+    /** The names of the key attributes of each table an item was cached for. */
+    private final ConcurrentMap<String, Set<String>> keyNames =
+            new ConcurrentHashMap<String, Set<String>>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param maxItems
+     *            the maximum number of items in the cache
+     * @param timeToLive
+     *            how long an item may be served from the cache after it was
+     *            read from DynamoDB
+     * @param unit
+     *            the unit of the time to live
+     */
+    public LRUItemCache(final int maxItems, long timeToLive, TimeUnit unit) {
+        if (maxItems < 1) {
+            throw new IllegalArgumentException("maxItems " + maxItems
+                    + " must be at least 1");
+        }
+        if (timeToLive <= 0) {
+            throw new IllegalArgumentException("timeToLive " + timeToLive
+                    + " must be positive");
+        }
+        this.maxItems = maxItems;
+        this.timeToLiveNanos = unit.toNanos(timeToLive);
+        this.items = new LinkedHashMap<CacheKey, CachedItem>(Math.min(maxItems, 1024), 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, CachedItem> eldest) {
+                if (size() > LRUItemCache.this.maxItems) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public Map<String, AttributeValue> get(String tableName, Map<String, AttributeValue> key) {
+        CacheKey cacheKey = new CacheKey(tableName, key);
+        CachedItem cached;
+        synchronized (items) {
+            cached = items.get(cacheKey);
+            if (cached != null && cached.isExpired(System.nanoTime())) {
+                items.remove(cacheKey);
+                cached = null;
+            }
+        }
+        if (cached == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return cached.attributes;
+    }
+
+    @Override
+    public long getGeneration(String tableName, Map<String, AttributeValue> key) {
+        // Remember the key names, so that a write to the item can invalidate
+        // it while it is being read
+        if (!keyNames.containsKey(tableName)) {
+            keyNames.putIfAbsent(tableName,
+                    Collections.unmodifiableSet(new HashSet<String>(key.keySet())));
+        }
+        return generations.get(slot(new CacheKey(tableName, key)));
+    }
+
+    @Override
+    public void put(String tableName, Map<String, AttributeValue> key, Map<String, AttributeValue> item,
+            long generation) {
+        CachedItem cached = new CachedItem(
+                Collections.unmodifiableMap(new HashMap<String, AttributeValue>(item)),
+                System.nanoTime() + timeToLiveNanos);
+        CacheKey cacheKey = new CacheKey(tableName, key);
+        synchronized (items) {
+            if (generations.get(slot(cacheKey)) != generation) {
+                // Invalidated while it was being read
+                return;
+            }
+            items.put(cacheKey, cached);
+        }
+    }
+
+    @Override
+    public void invalidate(String tableName, Map<String, AttributeValue> attributes) {
+        Set<String> names = keyNames.get(tableName);
+        if (names == null) {
+            // Nothing was ever cached for this table
+            return;
+        }
+        Map<String, AttributeValue> key = new HashMap<String, AttributeValue>(names.size());
+        for (String name : names) {
+            AttributeValue value = attributes.get(name);
+            if (value == null) {
+                return;
+            }
+            key.put(name, value);
+        }
+        CacheKey cacheKey = new CacheKey(tableName, key);
+        synchronized (items) {
+            generations.incrementAndGet(slot(cacheKey));
+            items.remove(cacheKey);
+        }
+    }
+
+    private static int slot(CacheKey cacheKey) {
+        int h = cacheKey.hashCode();
+        return (h ^ (h >>> 16)) & (GENERATION_SLOTS - 1);
+    }
+
+    /**
+     * Removes all the items from the cache.
+     */
+    public void clear() {
+        synchronized (items) {
+            items.clear();
+        }
+    }
+
+    /**
+     * Returns the current number of items in the cache, including expired
+     * items not yet removed.
+     */
+    public int size() {
+        synchronized (items) {
+            return items.size();
+        }
+    }
+
+    /**
+     * Returns the maximum number of items in the cache.
+     */
+    public int getMaxItems() {
+        return maxItems;
+    }
+
+    @Override
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of reads of items the cache didn't hold, or held
+     * only after they had expired.
+     */
+    @Override
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of items removed from the cache to make room for
+     * others.
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    @Override
+    public String toString() {
+        return "LRUItemCache [size=" + size() + ", maxItems=" + maxItems
+                + ", hits=" + hits + ", misses=" + misses
+                + ", evictions=" + evictions + "]";
+    }
+
+    private static final class CacheKey {
+        private final String tableName;
+        private final Map<String, AttributeValue> key;
+        private final int hashCode;
+
+        CacheKey(String tableName, Map<String, AttributeValue> key) {
+            this.tableName = tableName;
+            this.key = new HashMap<String, AttributeValue>(key);
+            this.hashCode = 31 * tableName.hashCode() + this.key.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey other = (CacheKey) obj;
+            return hashCode == other.hashCode
+                    && tableName.equals(other.tableName)
+                    && key.equals(other.key);
+        }
+    }
+
+    private static final class CachedItem {
+        private final Map<String, AttributeValue> attributes;
+        private final long expiresAtNanos;
+
+        CachedItem(Map<String, AttributeValue> attributes, long expiresAtNanos) {
+            this.attributes = attributes;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        boolean isExpired(long nowNanos) {
+            return nowNanos - expiresAtNanos >= 0;
+        }
+    }
+}
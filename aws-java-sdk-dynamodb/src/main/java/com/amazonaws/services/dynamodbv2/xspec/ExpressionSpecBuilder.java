@@ -485,6 +485,20 @@ public final class ExpressionSpecBuilder implements Cloneable {
         return new QueryExpressionSpec(this);
     }
 
+    /**
+     * Returns a template of the expressions for use in query requests to
+     * DynamoDB, which only differ in their attribute values. The values given
+     * to this builder become the placeholders of the template.
+     */
+    public QueryExpressionTemplate compileForQuery() {
+        SubstitutionContext context = new SubstitutionContext(true);
+        String keyConditionExpression = buildKeyConditionExpression(context);
+        String filterExpression = buildConditionExpression(context);
+        String projectionExpression = buildProjectionExpression(context);
+        return new QueryExpressionTemplate(keyConditionExpression,
+                filterExpression, projectionExpression, context);
+    }
+
     /**
      * Returns an expression specification for use in a scan
      * request to DynamoDB.
@@ -501,6 +515,19 @@ public final class ExpressionSpecBuilder implements Cloneable {
         return new UpdateItemExpressionSpec(this);
     }
 
+    /**
+     * Returns a template of the expressions for use in <code>UpdateItem</code>
+     * requests to DynamoDB, which only differ in their attribute values. The
+     * values given to this builder become the placeholders of the template.
+     */
+    public UpdateItemExpressionTemplate compileForUpdate() {
+        SubstitutionContext context = new SubstitutionContext(true);
+        String updateExpression = buildUpdateExpression(context);
+        String conditionExpression = buildConditionExpression(context);
+        return new UpdateItemExpressionTemplate(updateExpression,
+                conditionExpression, context);
+    }
+
     /**
      * Builds and returns the update expression to be used in a dynamodb
      * request; or null if there is none.
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2015-2015 Amazon Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ package com.amazonaws.services.dynamodbv2.xspec;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An expression compiled once, for use in many requests that differ only in
+ * their attribute values.
+ * <p>
+ * Every literal value of the compiled expressions is given its own value
+ * placeholder, ":0", ":1" and so on, in the order in which they appear in the
+ * expressions. The expressions and the name map are computed once and shared
+ * by all the expression specifications bound from the template; binding
+ * values only builds a new value map.
+ */
+abstract class ExpressionTemplate {
+    private final Map<String, String> nameMap;
+    private final Map<String, Object> valuePlaceholders;
+    private final String[] valueTokens;
+
+    ExpressionTemplate(SubstitutionContext context) {
+        Map<String, String> nameMap = context.getNameMap();
+        this.nameMap = nameMap == null ? null : Collections.unmodifiableMap(nameMap);
+        Map<String, Object> valueMap = context.getValueMap();
+        if (valueMap == null) {
+            this.valuePlaceholders = Collections.emptyMap();
+            this.valueTokens = new String[0];
+        } else {
+            this.valuePlaceholders = Collections.unmodifiableMap(valueMap);
+            this.valueTokens = valueMap.keySet().toArray(new String[valueMap.size()]);
+        }
+    }
+
+    /**
+     * Returns the name map which is unmodifiable; or null if there is none.
+     */
+    public Map<String, String> getNameMap() {
+        return nameMap;
+    }
+
+    /**
+     * Returns the value placeholders of the expressions, in the order in
+     * which values are bound to them, mapped to the values the template was
+     * compiled with. The returned map is unmodifiable.
+     */
+    public Map<String, Object> getValuePlaceholders() {
+        return valuePlaceholders;
+    }
+
+    /**
+     * Returns an unmodifiable value map binding the given values to the value
+     * placeholders; or null if there are none.
+     */
+    Map<String, Object> bindValues(Object... values) {
+        if (values.length != valueTokens.length) {
+            throw new IllegalArgumentException("Expected " + valueTokens.length
+                    + " values for the placeholders " + valuePlaceholders.keySet()
+                    + ", but got " + values.length);
+        }
+        if (valueTokens.length == 0)
+            return null;
+        Map<String, Object> valueMap =
+            new LinkedHashMap<String, Object>(valueTokens.length * 2);
+        for (int i = 0; i < valueTokens.length; i++) {
+            valueMap.put(valueTokens[i], values[i]);
+        }
+        return Collections.unmodifiableMap(valueMap);
+    }
+}
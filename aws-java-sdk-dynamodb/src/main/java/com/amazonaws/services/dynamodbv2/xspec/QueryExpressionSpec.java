@@ -50,6 +50,20 @@ public final class QueryExpressionSpec extends ExpressionSpec {
         this.valueMap = valueMap == null ? null : Collections.unmodifiableMap(valueMap);
     }
 
+    /**
+     * Used by {@link QueryExpressionTemplate} with the already unmodifiable
+     * name map and value map.
+     */
+    QueryExpressionSpec(String keyConditionExpression, String filterExpression,
+            String projectionExpression, Map<String, String> nameMap,
+            Map<String, Object> valueMap) {
+        this.keyConditionExpression = keyConditionExpression;
+        this.filterExpression = filterExpression;
+        this.projectionExpression = projectionExpression;
+        this.nameMap = nameMap;
+        this.valueMap = valueMap;
+    }
+
     /**
      * Returns the projection expression; or null if there is none.
      */
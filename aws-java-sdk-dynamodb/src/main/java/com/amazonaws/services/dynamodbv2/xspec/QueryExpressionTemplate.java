@@ -0,0 +1,78 @@
+/*
+ * Copyright 2015-2015 Amazon Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ package com.amazonaws.services.dynamodbv2.xspec;
+
+import com.amazonaws.annotation.Beta;
+
+/**
+ * A compiled template of the expressions of a query request, from which
+ * expression specifications are bound by giving new values to its value
+ * placeholders.
+ * <p>
+ * This object is immutable, and can be shared by multiple threads.
+ *
+ * @see UpdateItemExpressionTemplate
+ */
+@Beta
+public final class QueryExpressionTemplate extends ExpressionTemplate {
+    private final String keyConditionExpression;
+    private final String filterExpression;
+    private final String projectionExpression;
+
+    QueryExpressionTemplate(String keyConditionExpression,
+            String filterExpression, String projectionExpression,
+            SubstitutionContext context) {
+        super(context);
+        this.keyConditionExpression = keyConditionExpression;
+        this.filterExpression = filterExpression;
+        this.projectionExpression = projectionExpression;
+    }
+
+    /**
+     * Returns the projection expression; or null if there is none.
+     */
+    public String getProjectionExpression() {
+        return projectionExpression;
+    }
+
+    /**
+     * Returns the condition expression; or null if there is none.
+     */
+    public String getFilterExpression() {
+        return filterExpression;
+    }
+
+    /**
+     * Returns the key condition expression; or null if there is none.
+     */
+    public String getKeyConditionExpression() {
+        return keyConditionExpression;
+    }
+
+    /**
+     * Returns an expression specification binding the given values to the
+     * value placeholders of this template, in order.
+     *
+     * @throws IllegalArgumentException
+     *             if the number of values doesn't match the number of value
+     *             placeholders
+     * @see #getValuePlaceholders()
+     */
+    public QueryExpressionSpec bind(Object... values) {
+        return new QueryExpressionSpec(keyConditionExpression,
+                filterExpression, projectionExpression, getNameMap(),
+                bindValues(values));
+    }
+}
@@ -14,7 +14,9 @@
  */
  package com.amazonaws.services.dynamodbv2.xspec;
 
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -32,12 +34,29 @@ import java.util.Map;
  * "value map". See more information at <a href=
  * "http://docs.aws.amazon.com/amazondynamodb/latest/developerguide/ExpressionPlaceholders.html"
  * >Using Placeholders for Attribute Names and Values</a>.
+ * <p>
+ * When compiling an expression template, every literal value is given its own
+ * token, even if it is equal to another, so that each can be bound separately.
  */
 final class SubstitutionContext {
     private final Map<String, Integer> nameToToken =
         new LinkedHashMap<String, Integer>();
     private final Map<Object, Integer> valueToToken =
         new LinkedHashMap<Object, Integer>();
+    /** The value of each token, in order; or null if equal values share a token. */
+    private final List<Object> tokenValues;
+
+    SubstitutionContext() {
+        this(false);
+    }
+
+    /**
+     * @param tokenPerValue
+     *            true if every value should be given its own token
+     */
+    SubstitutionContext(boolean tokenPerValue) {
+        this.tokenValues = tokenPerValue ? new ArrayList<Object>() : null;
+    }
 
     /**
      * Returns the name token for the given name, creating a new token as
@@ -57,6 +76,10 @@ final class SubstitutionContext {
      * necessary.
      */
     String valueTokenFor(Object value) {
+        if (tokenValues != null) {
+            tokenValues.add(value);
+            return ":" + (tokenValues.size() - 1);
+        }
         Integer token = valueToToken.get(value);
         if (token == null) {
             token = valueToToken.size();
@@ -76,6 +99,15 @@ final class SubstitutionContext {
     }
 
     Map<String, Object> getValueMap() {
+        if (tokenValues != null) {
+            if (tokenValues.size() == 0)
+                return null;
+            Map<String, Object> out = new LinkedHashMap<String, Object>();
+            for (int i = 0; i < tokenValues.size(); i++) {
+                out.put(":" + i, tokenValues.get(i));
+            }
+            return out;
+        }
         if (valueToToken.size() == 0)
             return null;
         Map<String, Object> out = new LinkedHashMap<String, Object>();
@@ -92,7 +124,7 @@ final class SubstitutionContext {
 
     // For testing
     int numValueTokens() {
-        return valueToToken.size();
+        return tokenValues == null ? valueToToken.size() : tokenValues.size();
     }
     
     // For testing
@@ -106,6 +138,9 @@ final class SubstitutionContext {
 
     // For testing
     Object getValueByToken(int token) {
+        if (tokenValues != null) {
+            return token < tokenValues.size() ? tokenValues.get(token) : null;
+        }
         for (Map.Entry<Object, Integer> e: valueToToken.entrySet()) {
             if (e.getValue().intValue() == token)
                 return e.getKey();
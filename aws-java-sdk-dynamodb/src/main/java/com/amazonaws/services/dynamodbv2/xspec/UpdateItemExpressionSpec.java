@@ -46,6 +46,18 @@ public class UpdateItemExpressionSpec extends ExpressionSpec {
         this.valueMap = valueMap == null ? null : Collections.unmodifiableMap(valueMap);
     }
 
+    /**
+     * Used by {@link UpdateItemExpressionTemplate} with the already
+     * unmodifiable name map and value map.
+     */
+    UpdateItemExpressionSpec(String updateExpression, String conditionExpression,
+            Map<String, String> nameMap, Map<String, Object> valueMap) {
+        this.updateExpression = updateExpression;
+        this.conditionExpression = conditionExpression;
+        this.nameMap = nameMap;
+        this.valueMap = valueMap;
+    }
+
     /**
      * Returns the update expression; or null if there is none.
      */
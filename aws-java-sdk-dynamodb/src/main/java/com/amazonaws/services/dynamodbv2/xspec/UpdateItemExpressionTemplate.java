@@ -0,0 +1,82 @@
+/*
+ * Copyright 2015-2015 Amazon Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ package com.amazonaws.services.dynamodbv2.xspec;
+
+import com.amazonaws.annotation.Beta;
+
+/**
+ * A compiled template of the expressions of an <code>UpdateItem</code>
+ * request, from which expression specifications are bound by giving new
+ * values to its value placeholders.
+ * <p>
+ * For example:
+ *
+ * <pre class="brush: java">
+ * import static com.amazonaws.services.dynamodbv2.xspec.ExpressionSpecBuilder.*;
+ * ...
+ * // Compiled once: SET #0 = :0, #1 = #1 + :1 with the condition #1 = :2
+ * UpdateItemExpressionTemplate template = new ExpressionSpecBuilder()
+ *     .addUpdate(S("status").set("pending"))
+ *     .addUpdate(N("version").set(N("version").plus(1)))
+ *     .withCondition(N("version").eq(0))
+ *     .compileForUpdate();
+ *
+ * // For each request
+ * UpdateItemExpressionSpec xspec = template.bind("shipped", 1, currentVersion);
+ * table.updateItem(HASH_KEY_NAME, "hashKeyValue", xspec);
+ * </pre>
+ *
+ * This object is immutable, and can be shared by multiple threads.
+ */
+@Beta
+public final class UpdateItemExpressionTemplate extends ExpressionTemplate {
+    private final String updateExpression;
+    private final String conditionExpression;
+
+    UpdateItemExpressionTemplate(String updateExpression,
+            String conditionExpression, SubstitutionContext context) {
+        super(context);
+        this.updateExpression = updateExpression;
+        this.conditionExpression = conditionExpression;
+    }
+
+    /**
+     * Returns the update expression; or null if there is none.
+     */
+    public String getUpdateExpression() {
+        return updateExpression;
+    }
+
+    /**
+     * Returns the condition expression; or null if there is none.
+     */
+    public String getConditionExpression() {
+        return conditionExpression;
+    }
+
+    /**
+     * Returns an expression specification binding the given values to the
+     * value placeholders of this template, in order.
+     *
+     * @throws IllegalArgumentException
+     *             if the number of values doesn't match the number of value
+     *             placeholders
+     * @see #getValuePlaceholders()
+     */
+    public UpdateItemExpressionSpec bind(Object... values) {
+        return new UpdateItemExpressionSpec(updateExpression,
+                conditionExpression, getNameMap(), bindValues(values));
+    }
+}
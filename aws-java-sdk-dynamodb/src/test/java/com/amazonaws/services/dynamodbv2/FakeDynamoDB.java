@@ -0,0 +1,454 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.AttributeValueUpdate;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
+import com.amazonaws.services.dynamodbv2.model.ConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemResult;
+import com.amazonaws.services.dynamodbv2.model.DescribeTableRequest;
+import com.amazonaws.services.dynamodbv2.model.DescribeTableResult;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemResult;
+import com.amazonaws.services.dynamodbv2.model.KeySchemaElement;
+import com.amazonaws.services.dynamodbv2.model.KeyType;
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.dynamodbv2.model.PutItemResult;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.amazonaws.services.dynamodbv2.model.TableDescription;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemResult;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+
+/**
+ * An in-memory stand-in for DynamoDB, for tests of the client-side
+ * machinery built on top of the low-level client. Every table is keyed on a
+ * string hash key named {@code id}.
+ * <p>
+ * Item reads and writes are served from memory. Batch requests can be made
+ * to leave part of their work unprocessed, to fail, or to stay in flight for
+ * a while, and the fake records the requests it sees so that tests can check
+ * how they were batched and paced. Scans are served from generated pages
+ * rather than the stored items; see {@link #setScanPages(int, int)}.
+ */
+public class FakeDynamoDB extends AmazonDynamoDBClient {
+
+    /** The name of the hash key attribute of every table. */
+    public static final String HASH_KEY = "id";
+
+    private final Map<String, Map<String, Map<String, AttributeValue>>> tables =
+            new HashMap<String, Map<String, Map<String, AttributeValue>>>();
+
+    private final Set<String> writtenKeys = Collections.synchronizedSet(new HashSet<String>());
+    private final Set<String> unprocessedKeys = Collections.synchronizedSet(new HashSet<String>());
+    private final AtomicInteger writes = new AtomicInteger();
+    private final AtomicInteger retriedWrites = new AtomicInteger();
+    private final AtomicInteger reads = new AtomicInteger();
+    private final AtomicInteger batchRequests = new AtomicInteger();
+    private final AtomicInteger scans = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int maxInFlight;
+    private volatile int maxBatchSize;
+
+    private volatile boolean unprocessFirstAttempts;
+    private volatile boolean neverProcess;
+    private volatile RuntimeException batchFailure;
+    private volatile int maxRequestSize = Integer.MAX_VALUE;
+    private volatile long requestLatencyMillis;
+
+    private volatile int pagesPerSegment = 1;
+    private volatile int pageSize = 10;
+    private volatile boolean emptyScanPages;
+    private volatile int failingScanSegment = -1;
+    private volatile int failingScanPage = -1;
+    private volatile double scanCapacityUnits = 10;
+    private volatile boolean scanCapacityRequested;
+
+    public FakeDynamoDB() {
+        super(new BasicAWSCredentials("mock", "mock"));
+    }
+
+    /**
+     * Stores an item, bypassing the request counters.
+     */
+    public synchronized void store(String tableName, Map<String, AttributeValue> item) {
+        table(tableName).put(item.get(HASH_KEY).getS(), new HashMap<String, AttributeValue>(item));
+    }
+
+    /**
+     * Makes batch requests leave the first write or key of each table
+     * unprocessed, the first time they see it.
+     */
+    public void setUnprocessFirstAttempts(boolean unprocessFirstAttempts) {
+        this.unprocessFirstAttempts = unprocessFirstAttempts;
+    }
+
+    /**
+     * Makes batch write requests leave every write unprocessed.
+     */
+    public void setNeverProcess(boolean neverProcess) {
+        this.neverProcess = neverProcess;
+    }
+
+    /**
+     * Makes batch write requests throw the given exception.
+     */
+    public void setBatchFailure(RuntimeException batchFailure) {
+        this.batchFailure = batchFailure;
+    }
+
+    /**
+     * Makes batch requests with more than the given number of writes or keys
+     * for a table fail with a 413 status code.
+     */
+    public void setMaxRequestSize(int maxRequestSize) {
+        this.maxRequestSize = maxRequestSize;
+    }
+
+    /**
+     * Keeps each batch request in flight for the given time, as a real one
+     * would be, so that concurrent requests overlap.
+     */
+    public void setRequestLatency(long requestLatencyMillis) {
+        this.requestLatencyMillis = requestLatencyMillis;
+    }
+
+    /**
+     * Sets the number of pages each scan segment returns, and the number of
+     * items on each page. The items are numbered across all pages of all
+     * segments, with ids of the form {@code id-<n>}.
+     */
+    public void setScanPages(int pagesPerSegment, int pageSize) {
+        this.pagesPerSegment = pagesPerSegment;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Makes every other scan page empty, the way a filtered scan would be.
+     */
+    public void setEmptyScanPages(boolean emptyScanPages) {
+        this.emptyScanPages = emptyScanPages;
+    }
+
+    /**
+     * Makes the scan of the given page of the given segment fail. A scan
+     * without segments is segment 0.
+     */
+    public void setFailingScanPage(int segment, int page) {
+        this.failingScanSegment = segment;
+        this.failingScanPage = page;
+    }
+
+    /**
+     * Sets the capacity each scan page consumes.
+     */
+    public void setScanCapacityUnits(double scanCapacityUnits) {
+        this.scanCapacityUnits = scanCapacityUnits;
+    }
+
+    /**
+     * Returns the {@code table/id} keys of the writes processed by batch
+     * write requests.
+     */
+    public Set<String> getWrittenKeys() {
+        return writtenKeys;
+    }
+
+    /**
+     * Returns the number of writes processed by batch write requests; more
+     * than the number of written keys if a key was written twice.
+     */
+    public int getWriteCount() {
+        return writes.get();
+    }
+
+    /**
+     * Returns the number of processed writes that were left unprocessed
+     * before.
+     */
+    public int getRetriedWriteCount() {
+        return retriedWrites.get();
+    }
+
+    /**
+     * Returns the number of items looked up by get and batch get requests.
+     */
+    public int getReadCount() {
+        return reads.get();
+    }
+
+    /**
+     * Returns the number of batch write and batch get requests.
+     */
+    public int getBatchRequestCount() {
+        return batchRequests.get();
+    }
+
+    public int getScanCount() {
+        return scans.get();
+    }
+
+    /**
+     * Returns the largest number of batch requests that were in flight at
+     * once.
+     */
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * Returns the largest number of writes or keys for a single table in a
+     * batch request.
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public boolean isScanCapacityRequested() {
+        return scanCapacityRequested;
+    }
+
+    @Override
+    public DescribeTableResult describeTable(DescribeTableRequest request) {
+        return new DescribeTableResult().withTable(new TableDescription()
+                .withTableName(request.getTableName())
+                .withKeySchema(new KeySchemaElement(HASH_KEY, KeyType.HASH)));
+    }
+
+    @Override
+    public GetItemResult getItem(GetItemRequest request) {
+        return new GetItemResult().withItem(read(request.getTableName(), request.getKey()));
+    }
+
+    @Override
+    public synchronized PutItemResult putItem(PutItemRequest request) {
+        store(request.getTableName(), request.getItem());
+        return new PutItemResult();
+    }
+
+    @Override
+    public synchronized UpdateItemResult updateItem(UpdateItemRequest request) {
+        Map<String, Map<String, AttributeValue>> table = table(request.getTableName());
+        String id = request.getKey().get(HASH_KEY).getS();
+        Map<String, AttributeValue> item = table.get(id);
+        if (item == null) {
+            item = new HashMap<String, AttributeValue>(request.getKey());
+            table.put(id, item);
+        }
+        for (Map.Entry<String, AttributeValueUpdate> update : request.getAttributeUpdates().entrySet()) {
+            if ("DELETE".equals(update.getValue().getAction())) {
+                item.remove(update.getKey());
+            } else {
+                item.put(update.getKey(), update.getValue().getValue());
+            }
+        }
+        return new UpdateItemResult().withAttributes(new HashMap<String, AttributeValue>(item));
+    }
+
+    @Override
+    public synchronized DeleteItemResult deleteItem(DeleteItemRequest request) {
+        table(request.getTableName()).remove(request.getKey().get(HASH_KEY).getS());
+        return new DeleteItemResult();
+    }
+
+    @Override
+    public BatchWriteItemResult batchWriteItem(BatchWriteItemRequest request) {
+        batchRequests.incrementAndGet();
+        if (batchFailure != null) {
+            throw batchFailure;
+        }
+
+        enter(request.getRequestItems().values());
+        try {
+            Map<String, List<WriteRequest>> unprocessedItems = new HashMap<String, List<WriteRequest>>();
+            for (Map.Entry<String, List<WriteRequest>> entry : request.getRequestItems().entrySet()) {
+                String tableName = entry.getKey();
+                List<WriteRequest> unprocessed = new ArrayList<WriteRequest>();
+                for (WriteRequest write : entry.getValue()) {
+                    Map<String, AttributeValue> key = write.getPutRequest() != null
+                            ? write.getPutRequest().getItem()
+                            : write.getDeleteRequest().getKey();
+                    String writtenKey = tableName + "/" + key.get(HASH_KEY).getS();
+                    if (neverProcess || leaveUnprocessed(unprocessed.isEmpty(), "write:" + writtenKey)) {
+                        // A copy, as the service would return
+                        unprocessed.add(write.clone());
+                        continue;
+                    }
+
+                    if (unprocessedKeys.contains("write:" + writtenKey)) {
+                        retriedWrites.incrementAndGet();
+                    }
+                    writes.incrementAndGet();
+                    writtenKeys.add(writtenKey);
+                    synchronized (this) {
+                        if (write.getPutRequest() != null) {
+                            store(tableName, key);
+                        } else {
+                            table(tableName).remove(key.get(HASH_KEY).getS());
+                        }
+                    }
+                }
+                if (!unprocessed.isEmpty()) {
+                    unprocessedItems.put(tableName, unprocessed);
+                }
+            }
+            return new BatchWriteItemResult().withUnprocessedItems(unprocessedItems);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    @Override
+    public BatchGetItemResult batchGetItem(BatchGetItemRequest request) {
+        batchRequests.incrementAndGet();
+        List<List<Map<String, AttributeValue>>> keyLists = new ArrayList<List<Map<String, AttributeValue>>>();
+        for (KeysAndAttributes keysAndAttributes : request.getRequestItems().values()) {
+            keyLists.add(keysAndAttributes.getKeys());
+        }
+
+        enter(keyLists);
+        try {
+            Map<String, List<Map<String, AttributeValue>>> responses =
+                    new HashMap<String, List<Map<String, AttributeValue>>>();
+            Map<String, KeysAndAttributes> unprocessedKeys = new HashMap<String, KeysAndAttributes>();
+            for (Map.Entry<String, KeysAndAttributes> entry : request.getRequestItems().entrySet()) {
+                String tableName = entry.getKey();
+                List<Map<String, AttributeValue>> found = new ArrayList<Map<String, AttributeValue>>();
+                List<Map<String, AttributeValue>> unprocessed = new ArrayList<Map<String, AttributeValue>>();
+                for (Map<String, AttributeValue> key : entry.getValue().getKeys()) {
+                    if (leaveUnprocessed(unprocessed.isEmpty(),
+                            "read:" + tableName + "/" + key.get(HASH_KEY).getS())) {
+                        unprocessed.add(key);
+                        continue;
+                    }
+                    Map<String, AttributeValue> item = read(tableName, key);
+                    if (item != null) {
+                        found.add(item);
+                    }
+                }
+                responses.put(tableName, found);
+                if (!unprocessed.isEmpty()) {
+                    unprocessedKeys.put(tableName, new KeysAndAttributes().withKeys(unprocessed));
+                }
+            }
+            return new BatchGetItemResult()
+                    .withResponses(responses)
+                    .withUnprocessedKeys(unprocessedKeys);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    @Override
+    public ScanResult scan(ScanRequest request) {
+        scans.incrementAndGet();
+        int segment = request.getSegment() == null ? 0 : request.getSegment();
+        int page = request.getExclusiveStartKey() == null
+                ? 0
+                : Integer.parseInt(request.getExclusiveStartKey().get("page").getN()) + 1;
+        if (segment == failingScanSegment && page == failingScanPage) {
+            throw new AmazonServiceException("Scan failed");
+        }
+        if ("TOTAL".equals(request.getReturnConsumedCapacity())) {
+            scanCapacityRequested = true;
+        }
+
+        List<Map<String, AttributeValue>> items = new ArrayList<Map<String, AttributeValue>>();
+        if (!emptyScanPages || page % 2 == 0) {
+            int dataPage = emptyScanPages ? page / 2 : page;
+            int first = (segment * pagesPerSegment + dataPage) * pageSize;
+            for (int i = first; i < first + pageSize; i++) {
+                items.add(Collections.singletonMap(HASH_KEY, new AttributeValue("id-" + i)));
+            }
+        }
+
+        ScanResult result = new ScanResult()
+                .withItems(items)
+                .withConsumedCapacity(new ConsumedCapacity()
+                        .withTableName(request.getTableName())
+                        .withCapacityUnits(scanCapacityUnits));
+        if (page < pagesPerSegment - 1) {
+            Map<String, AttributeValue> lastKey = new HashMap<String, AttributeValue>();
+            lastKey.put("page", new AttributeValue().withN(Integer.toString(page)));
+            result.setLastEvaluatedKey(lastKey);
+        }
+        return result;
+    }
+
+    private synchronized Map<String, Map<String, AttributeValue>> table(String tableName) {
+        Map<String, Map<String, AttributeValue>> table = tables.get(tableName);
+        if (table == null) {
+            table = new HashMap<String, Map<String, AttributeValue>>();
+            tables.put(tableName, table);
+        }
+        return table;
+    }
+
+    private synchronized Map<String, AttributeValue> read(String tableName, Map<String, AttributeValue> key) {
+        reads.incrementAndGet();
+        Map<String, AttributeValue> item = table(tableName).get(key.get(HASH_KEY).getS());
+        return item == null ? null : new HashMap<String, AttributeValue>(item);
+    }
+
+    private boolean leaveUnprocessed(boolean firstOfTable, String key) {
+        return unprocessFirstAttempts && firstOfTable && unprocessedKeys.add(key);
+    }
+
+    /**
+     * Records a batch request as in flight, and fails it if it's too large.
+     * The caller must decrement {@link #inFlight} once the request is done.
+     */
+    private void enter(Iterable<? extends List<?>> batches) {
+        int batchSize = 0;
+        for (List<?> batch : batches) {
+            batchSize = Math.max(batchSize, batch.size());
+        }
+        synchronized (this) {
+            maxBatchSize = Math.max(maxBatchSize, batchSize);
+            maxInFlight = Math.max(maxInFlight, inFlight.incrementAndGet());
+        }
+        if (requestLatencyMillis > 0) {
+            try {
+                Thread.sleep(requestLatencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (batchSize > maxRequestSize) {
+            inFlight.decrementAndGet();
+            AmazonServiceException e = new AmazonServiceException("Request entity too large");
+            e.setStatusCode(413);
+            throw e;
+        }
+    }
+}
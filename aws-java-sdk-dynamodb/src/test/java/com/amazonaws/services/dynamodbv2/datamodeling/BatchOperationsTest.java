@@ -0,0 +1,135 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.datamodeling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.amazonaws.services.dynamodbv2.FakeDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.FailedBatch;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.BatchConcurrency;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+
+/**
+ * Tests that the mapper's batchSave and batchLoad split their items into
+ * batches within the service limits, keep several batches in flight up to
+ * the configured concurrency, retry unprocessed items and keys, and divide
+ * batches that are rejected as too large.
+ */
+public class BatchOperationsTest {
+
+    private static final String TABLE = "BatchItems";
+
+    @Test
+    public void testBatchWriteRequeuesUnprocessedItems() {
+        FakeDynamoDB db = fake();
+        DynamoDBMapper mapper = new DynamoDBMapper(db,
+                new DynamoDBMapperConfig.Builder()
+                        .withBatchConcurrency(new BatchConcurrency(4))
+                        .build());
+
+        List<FailedBatch> failed = mapper.batchSave(items(60));
+
+        assertEquals(0, failed.size());
+        assertEquals(60, db.getWrittenKeys().size());
+        assertEquals(60, db.getWriteCount());
+        assertTrue(db.getRetriedWriteCount() > 0);
+        assertTrue(db.getMaxBatchSize() <= DynamoDBMapper.MAX_ITEMS_PER_BATCH);
+        assertTrue(db.getMaxInFlight() > 1);
+        assertTrue(db.getMaxInFlight() <= 4);
+    }
+
+    @Test
+    public void testBatchWriteDividesTooLargeBatches() {
+        FakeDynamoDB db = fake();
+        db.setMaxRequestSize(6);
+        DynamoDBMapper mapper = new DynamoDBMapper(db);
+
+        List<FailedBatch> failed = mapper.batchSave(items(30));
+
+        assertEquals(0, failed.size());
+        assertEquals(30, db.getWrittenKeys().size());
+        assertEquals(30, db.getWriteCount());
+        assertEquals(1, db.getMaxInFlight());
+    }
+
+    @Test
+    public void testBatchLoad() {
+        FakeDynamoDB db = fake();
+        for (int i = 0; i < 250; i++) {
+            db.store(TABLE, Collections.singletonMap("id", new AttributeValue("id-" + i)));
+        }
+        DynamoDBMapper mapper = new DynamoDBMapper(db,
+                new DynamoDBMapperConfig.Builder()
+                        .withBatchConcurrency(new BatchConcurrency(3))
+                        .build());
+
+        Map<String, List<Object>> loaded = mapper.batchLoad(new ArrayList<Object>(items(250)));
+
+        Set<String> ids = new HashSet<String>();
+        for (Object item : loaded.get(TABLE)) {
+            ids.add(((BatchItem) item).getId());
+        }
+        assertEquals(250, loaded.get(TABLE).size());
+        assertEquals(250, ids.size());
+        assertTrue(db.getMaxBatchSize() <= DynamoDBMapper.MAX_KEYS_PER_BATCH_GET);
+        assertTrue(db.getMaxInFlight() > 1);
+    }
+
+    /**
+     * Returns a fake that leaves the first item of each batch unprocessed the
+     * first time it sees it, and keeps each request in flight long enough for
+     * concurrent ones to overlap.
+     */
+    private static FakeDynamoDB fake() {
+        FakeDynamoDB db = new FakeDynamoDB();
+        db.setUnprocessFirstAttempts(true);
+        db.setRequestLatency(20);
+        return db;
+    }
+
+    private static List<BatchItem> items(int count) {
+        List<BatchItem> items = new ArrayList<BatchItem>();
+        for (int i = 0; i < count; i++) {
+            BatchItem item = new BatchItem();
+            item.setId("id-" + i);
+            items.add(item);
+        }
+        return items;
+    }
+
+    @DynamoDBTable(tableName = TABLE)
+    public static class BatchItem {
+        private String id;
+
+        @DynamoDBHashKey
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.datamodeling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.amazonaws.services.dynamodbv2.FakeDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.ConsistentReads;
+import com.amazonaws.services.dynamodbv2.document.AttributeUpdate;
+import com.amazonaws.services.dynamodbv2.document.DynamoDB;
+import com.amazonaws.services.dynamodbv2.document.Item;
+import com.amazonaws.services.dynamodbv2.document.Table;
+import com.amazonaws.services.dynamodbv2.document.spec.GetItemSpec;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemResult;
+import com.amazonaws.services.dynamodbv2.util.LRUItemCache;
+
+/**
+ * Tests that the mapper and the document API Table serve eventually
+ * consistent reads of whole items from a shared item cache, and that their
+ * writes and consistent reads keep the cached items up to date.
+ */
+public class ItemCacheTest {
+
+    private static final String TABLE = "CachedItems";
+
+    @Test
+    public void testMapperLoad() {
+        FakeDynamoDB db = new FakeDynamoDB();
+        LRUItemCache cache = new LRUItemCache(100, 1, TimeUnit.HOURS);
+        DynamoDBMapper mapper = new DynamoDBMapper(db,
+                new DynamoDBMapperConfig.Builder().withItemCache(cache).build());
+        store(db, "a", "first");
+
+        assertEquals("first", mapper.load(CachedItem.class, "a").getValue());
+        assertEquals("first", mapper.load(CachedItem.class, "a").getValue());
+        assertNull(mapper.load(CachedItem.class, "missing"));
+        assertEquals(2, db.getReadCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+
+        // Consistent reads go to DynamoDB, and refresh the cache
+        store(db, "a", "changed");
+        assertEquals("changed", mapper.load(CachedItem.class, "a",
+                new DynamoDBMapperConfig(ConsistentReads.CONSISTENT)).getValue());
+        assertEquals("changed", mapper.load(CachedItem.class, "a").getValue());
+        assertEquals(3, db.getReadCount());
+    }
+
+    @Test
+    public void testMapperWritesInvalidate() {
+        FakeDynamoDB db = new FakeDynamoDB();
+        DynamoDBMapper mapper = new DynamoDBMapper(db,
+                new DynamoDBMapperConfig.Builder()
+                        .withItemCache(new LRUItemCache(100, 1, TimeUnit.HOURS))
+                        .build());
+        store(db, "a", "first");
+        store(db, "b", "first");
+        mapper.load(CachedItem.class, "a");
+        mapper.load(CachedItem.class, "b");
+
+        mapper.save(new CachedItem("a", "saved"));
+        assertEquals("saved", mapper.load(CachedItem.class, "a").getValue());
+
+        mapper.batchSave(new CachedItem("b", "batch saved"));
+        assertEquals("batch saved", mapper.load(CachedItem.class, "b").getValue());
+
+        mapper.delete(new CachedItem("a", null));
+        assertNull(mapper.load(CachedItem.class, "a"));
+        assertEquals(5, db.getReadCount());
+    }
+
+    @Test
+    public void testReadOverlappingWriteIsNotCached() {
+        final LRUItemCache cache = new LRUItemCache(100, 1, TimeUnit.HOURS);
+        final DynamoDBMapperConfig config = new DynamoDBMapperConfig.Builder().withItemCache(cache).build();
+        FakeDynamoDB db = new FakeDynamoDB() {
+            private boolean written;
+
+            @Override
+            public GetItemResult getItem(GetItemRequest request) {
+                GetItemResult result = super.getItem(request);
+                if (!written) {
+                    // The item is saved after the read was served, but before
+                    // its response arrives
+                    written = true;
+                    new DynamoDBMapper(this, config).save(new CachedItem("a", "saved"));
+                }
+                return result;
+            }
+        };
+        DynamoDBMapper mapper = new DynamoDBMapper(db, config);
+        store(db, "a", "first");
+
+        assertEquals("first", mapper.load(CachedItem.class, "a").getValue());
+        assertEquals("saved", mapper.load(CachedItem.class, "a").getValue());
+        assertEquals(2, db.getReadCount());
+    }
+
+    @Test
+    public void testMapperBatchLoad() {
+        FakeDynamoDB db = new FakeDynamoDB();
+        DynamoDBMapper mapper = new DynamoDBMapper(db,
+                new DynamoDBMapperConfig.Builder()
+                        .withItemCache(new LRUItemCache(100, 1, TimeUnit.HOURS))
+                        .build());
+        store(db, "a", "first");
+        store(db, "b", "second");
+        store(db, "c", "third");
+        mapper.load(CachedItem.class, "a");
+
+        List<Object> keys = new ArrayList<Object>();
+        for (String id : Arrays.asList("a", "b", "c")) {
+            keys.add(new CachedItem(id, null));
+        }
+        assertEquals(3, mapper.batchLoad(keys).get(TABLE).size());
+        assertEquals(1 + 2, db.getReadCount());
+
+        assertEquals(3, mapper.batchLoad(keys).get(TABLE).size());
+        assertEquals(3, db.getReadCount());
+    }
+
+    @Test
+    public void testTableSharesCacheWithMapper() {
+        FakeDynamoDB db = new FakeDynamoDB();
+        LRUItemCache cache = new LRUItemCache(100, 1, TimeUnit.HOURS);
+        DynamoDBMapper mapper = new DynamoDBMapper(db,
+                new DynamoDBMapperConfig.Builder().withItemCache(cache).build());
+        Table table = new DynamoDB(db).getTable(TABLE, cache);
+        store(db, "a", "first");
+
+        mapper.load(CachedItem.class, "a");
+        assertEquals("first", table.getItem("id", "a").getString("value"));
+        assertEquals(1, db.getReadCount());
+
+        // Projections aren't served from the cache
+        assertEquals("first", table.getItem(new GetItemSpec()
+                .withPrimaryKey("id", "a")
+                .withProjectionExpression("value")).getString("value"));
+        assertEquals(2, db.getReadCount());
+
+        table.putItem(new Item().withString("id", "a").withString("value", "put"));
+        assertEquals("put", mapper.load(CachedItem.class, "a").getValue());
+
+        table.updateItem("id", "a", new AttributeUpdate("value").put("updated"));
+        assertEquals("updated", table.getItem("id", "a").getString("value"));
+
+        table.deleteItem("id", "a");
+        assertNull(table.getItem("id", "a"));
+        assertEquals(5, db.getReadCount());
+    }
+
+    private static void store(FakeDynamoDB db, String id, String value) {
+        Map<String, AttributeValue> item = new HashMap<String, AttributeValue>();
+        item.put("id", new AttributeValue(id));
+        item.put("value", new AttributeValue(value));
+        db.store(TABLE, item);
+    }
+
+    @DynamoDBTable(tableName = TABLE)
+    public static class CachedItem {
+        private String id;
+        private String value;
+
+        public CachedItem() {
+        }
+
+        CachedItem(String id, String value) {
+            this.id = id;
+            this.value = value;
+        }
+
+        @DynamoDBHashKey
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public void setValue(String value) {
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.datamodeling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.dynamodbv2.FakeDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.PaginationLoadingStrategy;
+import com.amazonaws.services.dynamodbv2.datamodeling.PaginatedList.PageCallback;
+
+/**
+ * Tests the STREAMING pagination loading strategy, which fetches a bounded
+ * number of pages ahead of the reader in the background, and the
+ * page-at-a-time {@code forEachPage} iteration of the other strategies.
+ */
+public class PaginatedListTest {
+
+    private static final String TABLE = "PagedItems";
+
+    private static final int PAGE_SIZE = 10;
+
+    @Test
+    public void testStreamingIteration() {
+        FakeDynamoDB db = fake(5);
+        PaginatedList<PagedItem> list = scan(db, PaginationLoadingStrategy.STREAMING);
+
+        int count = 0;
+        for (PagedItem item : list) {
+            assertEquals("id-" + count, item.getId());
+            count++;
+        }
+        assertEquals(5 * PAGE_SIZE, count);
+        assertEquals(5, db.getScanCount());
+    }
+
+    @Test
+    public void testStreamingFetchesAhead() {
+        final FakeDynamoDB db = fake(10);
+        PaginatedList<PagedItem> list = scan(db, PaginationLoadingStrategy.STREAMING);
+
+        final List<Integer> scansSeen = new ArrayList<Integer>();
+        list.forEachPage(new PageCallback<PagedItem>() {
+            @Override
+            public boolean onPage(List<PagedItem> page) {
+                assertEquals(PAGE_SIZE, page.size());
+                sleep(100);
+                scansSeen.add(db.getScanCount());
+                return scansSeen.size() < 3;
+            }
+        });
+
+        // The next pages arrived while the first one was being handled
+        assertEquals(3, (int) scansSeen.get(0));
+        sleep(100);
+        // ...but never more than two pages ahead
+        assertEquals(5, db.getScanCount());
+    }
+
+    @Test
+    public void testStreamingSkipsEmptyPages() {
+        FakeDynamoDB db = fake(6);
+        db.setEmptyScanPages(true);
+        PaginatedList<PagedItem> list = scan(db, PaginationLoadingStrategy.STREAMING);
+
+        final AtomicInteger count = new AtomicInteger();
+        list.forEachPage(new PageCallback<PagedItem>() {
+            @Override
+            public boolean onPage(List<PagedItem> page) {
+                assertFalse(page.isEmpty());
+                count.addAndGet(page.size());
+                return true;
+            }
+        });
+        assertEquals(3 * PAGE_SIZE, count.get());
+    }
+
+    @Test
+    public void testStreamingFailure() {
+        FakeDynamoDB db = fake(5);
+        db.setFailingScanPage(0, 2);
+        Iterator<PagedItem> iterator = scan(db, PaginationLoadingStrategy.STREAMING).iterator();
+
+        int count = 0;
+        try {
+            while (iterator.hasNext()) {
+                iterator.next();
+                count++;
+            }
+            fail("Expected the failure of the third page");
+        } catch (AmazonServiceException expected) {
+        }
+        assertEquals(2 * PAGE_SIZE, count);
+    }
+
+    @Test
+    public void testStreamingIteratesOnce() {
+        PaginatedList<PagedItem> list = scan(fake(2), PaginationLoadingStrategy.STREAMING);
+        list.iterator();
+        try {
+            list.iterator();
+            fail("Expected the list to be iterated only once");
+        } catch (UnsupportedOperationException expected) {
+        }
+        try {
+            list.size();
+            fail("Expected size() to be unsupported");
+        } catch (UnsupportedOperationException expected) {
+            assertTrue(expected.getMessage().contains("STREAMING"));
+        }
+    }
+
+    @Test
+    public void testForEachPageLazyLoading() {
+        FakeDynamoDB db = fake(4);
+        PaginatedList<PagedItem> list = scan(db, PaginationLoadingStrategy.LAZY_LOADING);
+
+        final AtomicInteger pages = new AtomicInteger();
+        list.forEachPage(new PageCallback<PagedItem>() {
+            @Override
+            public boolean onPage(List<PagedItem> page) {
+                pages.incrementAndGet();
+                return true;
+            }
+        });
+
+        assertEquals(4, pages.get());
+        // The results are kept, and can be read again without fetching them
+        assertEquals(4 * PAGE_SIZE, list.size());
+        assertEquals(4, db.getScanCount());
+    }
+
+    @Test
+    public void testForEachPageIterationOnly() {
+        FakeDynamoDB db = fake(4);
+        PaginatedList<PagedItem> list = scan(db, PaginationLoadingStrategy.ITERATION_ONLY);
+
+        final AtomicInteger count = new AtomicInteger();
+        list.forEachPage(new PageCallback<PagedItem>() {
+            @Override
+            public boolean onPage(List<PagedItem> page) {
+                count.addAndGet(page.size());
+                return count.get() < 2 * PAGE_SIZE;
+            }
+        });
+
+        assertEquals(2 * PAGE_SIZE, count.get());
+        assertEquals(2, db.getScanCount());
+    }
+
+    private static PaginatedList<PagedItem> scan(FakeDynamoDB db, PaginationLoadingStrategy strategy) {
+        DynamoDBMapper mapper = new DynamoDBMapper(db,
+                new DynamoDBMapperConfig.Builder()
+                        .withPaginationLoadingStrategy(strategy)
+                        .build());
+        return mapper.scan(PagedItem.class, new DynamoDBScanExpression());
+    }
+
+    private static FakeDynamoDB fake(int pageCount) {
+        FakeDynamoDB db = new FakeDynamoDB();
+        db.setScanPages(pageCount, PAGE_SIZE);
+        return db;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @DynamoDBTable(tableName = TABLE)
+    public static class PagedItem {
+        private String id;
+
+        @DynamoDBHashKey
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+    }
+}
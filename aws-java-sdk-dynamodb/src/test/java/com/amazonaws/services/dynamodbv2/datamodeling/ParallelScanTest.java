@@ -0,0 +1,186 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.datamodeling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.dynamodbv2.FakeDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.ParallelScanOptions;
+
+/**
+ * Tests that the mapper's parallel scan returns every item of every segment,
+ * keeps its consumed capacity within the read capacity limit, runs on a
+ * caller supplied executor without shutting it down, and surfaces the
+ * failure of a segment.
+ */
+public class ParallelScanTest {
+
+    private static final String TABLE = "ScannedItems";
+
+    private static final int SEGMENTS = 4;
+    private static final int PAGES_PER_SEGMENT = 3;
+    private static final int PAGE_SIZE = 5;
+    private static final double UNITS_PER_PAGE = 10;
+
+    @Test
+    public void testParallelScan() {
+        FakeDynamoDB db = fake();
+        List<ScannedItem> items = scan(db, ParallelScanOptions.DEFAULT);
+
+        Set<String> ids = new HashSet<String>();
+        for (ScannedItem item : items) {
+            ids.add(item.getId());
+        }
+        assertEquals(SEGMENTS * PAGES_PER_SEGMENT * PAGE_SIZE, items.size());
+        assertEquals(items.size(), ids.size());
+        assertEquals(SEGMENTS * PAGES_PER_SEGMENT, db.getScanCount());
+    }
+
+    @Test
+    public void testReadCapacityLimit() {
+        FakeDynamoDB db = fake();
+
+        long start = System.nanoTime();
+        List<ScannedItem> items = scan(db, new ParallelScanOptions(50));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(SEGMENTS * PAGES_PER_SEGMENT * PAGE_SIZE, items.size());
+        assertTrue(db.isScanCapacityRequested());
+        // 120 units at 50 per second, one second worth of them available at
+        // the start, and the last pages of the segments sent on credit
+        assertTrue("Scan took " + elapsedMillis + "ms", elapsedMillis >= 500);
+    }
+
+    @Test
+    public void testCallerExecutor() {
+        final AtomicInteger tasks = new AtomicInteger();
+        final ExecutorService pool = Executors.newFixedThreadPool(2);
+        ExecutorService executor = new DelegatingExecutorService(pool, tasks);
+        try {
+            List<ScannedItem> items = scan(fake(), new ParallelScanOptions(0, executor));
+
+            assertEquals(SEGMENTS * PAGES_PER_SEGMENT * PAGE_SIZE, items.size());
+            assertEquals(SEGMENTS * PAGES_PER_SEGMENT, tasks.get());
+            assertFalse(pool.isShutdown());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testFailedSegment() {
+        FakeDynamoDB db = fake();
+        db.setFailingScanPage(2, 1);
+        try {
+            scan(db, ParallelScanOptions.DEFAULT);
+            fail("Expected the failure of segment 2");
+        } catch (AmazonServiceException expected) {
+            assertEquals("Scan failed", expected.getErrorMessage());
+        }
+    }
+
+    private static List<ScannedItem> scan(FakeDynamoDB db, ParallelScanOptions options) {
+        DynamoDBMapper mapper = new DynamoDBMapper(db,
+                new DynamoDBMapperConfig.Builder()
+                        .withParallelScanOptions(options)
+                        .build());
+        List<ScannedItem> items = new ArrayList<ScannedItem>();
+        for (ScannedItem item : mapper.parallelScan(ScannedItem.class, new DynamoDBScanExpression(), SEGMENTS)) {
+            items.add(item);
+        }
+        return items;
+    }
+
+    private static FakeDynamoDB fake() {
+        FakeDynamoDB db = new FakeDynamoDB();
+        db.setScanPages(PAGES_PER_SEGMENT, PAGE_SIZE);
+        db.setScanCapacityUnits(UNITS_PER_PAGE);
+        return db;
+    }
+
+    @DynamoDBTable(tableName = TABLE)
+    public static class ScannedItem {
+        private String id;
+
+        @DynamoDBHashKey
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+    }
+
+    /**
+     * Counts the tasks submitted to a thread pool.
+     */
+    private static class DelegatingExecutorService extends AbstractExecutorService {
+        private final ExecutorService delegate;
+        private final AtomicInteger tasks;
+
+        DelegatingExecutorService(ExecutorService delegate, AtomicInteger tasks) {
+            this.delegate = delegate;
+            this.tasks = tasks;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.incrementAndGet();
+            delegate.execute(command);
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+}
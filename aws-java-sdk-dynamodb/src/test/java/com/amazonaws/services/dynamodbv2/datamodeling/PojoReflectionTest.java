@@ -15,10 +15,16 @@
 package com.amazonaws.services.dynamodbv2.datamodeling;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.junit.Test;
@@ -405,6 +411,64 @@ public class PojoReflectionTest {
         assertEquals("parentRangeKeyWithGetterAnnotation", reflector.getPrimaryRangeKeyName(TablePojoSubclass.class));
     }
 
+    /**
+     * Tests that a property without a setter can still be read, and that the
+     * missing setter is reported every time it is asked for.
+     */
+    @Test
+    public void testMissingSetter() throws Exception {
+        Method getter = ReadOnlyPojo.class.getMethod("getReadOnlyAttr");
+        assertEquals("readOnlyAttr", reflector.getAttributeName(getter));
+        for (int i = 0; i < 2; i++) {
+            try {
+                reflector.getSetter(getter);
+                fail("Expected DynamoDBMappingException");
+            } catch (DynamoDBMappingException expected) {
+                assertTrue(expected.getCause() instanceof NoSuchMethodException);
+            }
+        }
+    }
+
+    /**
+     * Tests that threads reflecting the same class at the same time all end
+     * up with the same model.
+     */
+    @Test
+    public void testConcurrentReflection() throws Exception {
+        final DynamoDBReflector sharedReflector = new DynamoDBReflector();
+        final List<Collection<Method>> results =
+                Collections.synchronizedList(new ArrayList<Collection<Method>>());
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 8; i++) {
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    results.add(sharedReflector.getRelevantGetters(PojoWithMixedAnnotations.class));
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(8, results.size());
+        for (Collection<Method> getters : results) {
+            assertSame(sharedReflector.getRelevantGetters(PojoWithMixedAnnotations.class), getters);
+        }
+    }
+
+    @DynamoDBTable(tableName="table")
+    public static class ReadOnlyPojo {
+
+        @DynamoDBHashKey
+        public String getReadOnlyAttr() {
+            return "value";
+        }
+    }
+
     @DynamoDBTable(tableName="table")
     private static class BaseTablePojo {
 
@@ -27,6 +27,7 @@ import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.UUID;
@@ -430,6 +431,35 @@ public class UnmarshallerTest {
                 }})));
     }
 
+    @Test
+    public void testObjectRoundTrip() {
+        SubClass item = new SubClass();
+        // The class is mapped on the first call and reused on the next ones
+        for (int i = 0; i < 3; i++) {
+            Map<String, AttributeValue> attributes = CONVERTER.convert(item);
+            assertEquals(new AttributeValue("name"), attributes.get("name"));
+            assertEquals(item, CONVERTER.unconvert(SubClass.class, attributes));
+        }
+    }
+
+    @Test
+    public void testObjectConstructorFailure() {
+        try {
+            CONVERTER.unconvert(FailingConstructorClass.class,
+                    new HashMap<String, AttributeValue>());
+            Assert.fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertEquals("BOOM", e.getMessage());
+        }
+    }
+
+    @DynamoDBDocument
+    public static class FailingConstructorClass {
+        public FailingConstructorClass() {
+            throw new IllegalStateException("BOOM");
+        }
+    }
+
     @Test
     public void testUnannotatedObject() throws Exception {
         Method getter = UnannotatedSubClass.class.getMethod("getChild");
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.document;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.dynamodbv2.FakeDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+
+/**
+ * Tests that the buffered batch writer groups writes from concurrent callers
+ * into batches of at most 25, sends a partial batch once it has been open
+ * long enough, retries unprocessed writes, and completes the future of each
+ * write with the outcome of its batch.
+ */
+public class BufferedBatchWriterTest {
+
+    @Test
+    public void testConcurrentWrites() throws Exception {
+        final FakeDynamoDB db = new FakeDynamoDB();
+        db.setUnprocessFirstAttempts(true);
+        final BufferedBatchWriter writer = new BufferedBatchWriter(db,
+                new BufferedBatchWriterConfig().withMaxBatchOpenMs(50));
+        final List<Future<Void>> futures = Collections.synchronizedList(new ArrayList<Future<Void>>());
+
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 4; t++) {
+            final int thread = t;
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 65; i++) {
+                        String table = i % 2 == 0 ? "Even" : "Odd";
+                        futures.add(writer.putItem(table, new Item().withString("id", thread + "-" + i)));
+                    }
+                    futures.add(writer.deleteItem("Odd", new PrimaryKey("id", thread + "-deleted")));
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        writer.shutdown();
+
+        for (Future<Void> future : futures) {
+            assertTrue(future.isDone());
+            assertNull(future.get());
+        }
+        assertEquals(4 * 66, db.getWrittenKeys().size());
+        assertEquals(4 * 66, db.getWriteCount());
+        assertTrue(db.getMaxBatchSize() <= BufferedBatchWriter.MAX_ITEMS_PER_BATCH);
+        assertTrue(db.getRetriedWriteCount() > 0);
+    }
+
+    @Test
+    public void testBatchOpenTimeout() throws Exception {
+        FakeDynamoDB db = new FakeDynamoDB();
+        BufferedBatchWriter writer = new BufferedBatchWriter(db,
+                new BufferedBatchWriterConfig().withMaxBatchOpenMs(20));
+        try {
+            Future<Void> future = writer.putItem("Table", new Item().withString("id", "single"));
+            assertNull(future.get(5, TimeUnit.SECONDS));
+            assertEquals(Collections.singleton("Table/single"), db.getWrittenKeys());
+        } finally {
+            writer.shutdown();
+        }
+    }
+
+    @Test
+    public void testTimedOutBatchesWaitForPermits() throws Exception {
+        FakeDynamoDB db = new FakeDynamoDB();
+        db.setRequestLatency(100);
+        BufferedBatchWriter writer = new BufferedBatchWriter(db,
+                new BufferedBatchWriterConfig()
+                        .withMaxBatchOpenMs(10)
+                        .withMaxInflightBatches(1));
+        try {
+            // Each batch times out while the one before it is in flight
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(writer.putItem("Table" + i, new Item().withString("id", "item")));
+                Thread.sleep(30);
+            }
+            for (Future<Void> future : futures) {
+                assertNull(future.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(4, db.getBatchRequestCount());
+            assertEquals(1, db.getMaxInFlight());
+        } finally {
+            writer.shutdown();
+        }
+    }
+
+    @Test
+    public void testWritesToTheSameItemAreCoalesced() throws Exception {
+        FakeDynamoDB db = new FakeDynamoDB();
+        BufferedBatchWriter writer = new BufferedBatchWriter(db,
+                new BufferedBatchWriterConfig().withMaxBatchOpenMs(60 * 1000));
+
+        List<Future<Void>> futures = new ArrayList<Future<Void>>();
+        for (int i = 0; i < 3; i++) {
+            futures.add(writer.putItem("Table", new Item()
+                    .withString("id", "same")
+                    .withInt("version", i)));
+        }
+        futures.add(writer.putItem("Table", new Item().withString("id", "other")));
+        futures.add(writer.deleteItem("Table", new PrimaryKey("id", "other")));
+        writer.flush();
+
+        for (Future<Void> future : futures) {
+            assertTrue(future.isDone());
+            assertNull(future.get());
+        }
+        assertEquals(1, db.getBatchRequestCount());
+        assertEquals(2, db.getWriteCount());
+        assertEquals("2", db.getItem(new GetItemRequest("Table",
+                Collections.singletonMap("id", new AttributeValue("same"))))
+                .getItem().get("version").getN());
+        assertNull(db.getItem(new GetItemRequest("Table",
+                Collections.singletonMap("id", new AttributeValue("other")))).getItem());
+        writer.shutdown();
+    }
+
+    @Test
+    public void testFailedBatch() throws Exception {
+        FakeDynamoDB db = new FakeDynamoDB();
+        db.setBatchFailure(new AmazonServiceException("Requested resource not found"));
+        BufferedBatchWriter writer = new BufferedBatchWriter(db);
+
+        Future<Void> future = writer.putItem("Missing", new Item().withString("id", "lost"));
+        writer.shutdown();
+        try {
+            future.get();
+            fail("Expected the write to fail");
+        } catch (ExecutionException expected) {
+            assertTrue(expected.getCause() instanceof AmazonServiceException);
+        }
+
+        try {
+            writer.putItem("Missing", new Item().withString("id", "late"));
+            fail("Expected the writer to be shut down");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test
+    public void testUnprocessedRetriesExhausted() throws Exception {
+        FakeDynamoDB db = new FakeDynamoDB();
+        db.setNeverProcess(true);
+        BufferedBatchWriter writer = new BufferedBatchWriter(db,
+                new BufferedBatchWriterConfig().withMaxUnprocessedRetries(1));
+
+        Future<Void> future = writer.putItem("Table", new Item().withString("id", "stuck"));
+        writer.flush();
+        try {
+            future.get();
+            fail("Expected the write to fail");
+        } catch (ExecutionException expected) {
+            assertTrue(expected.getCause() instanceof AmazonClientException);
+        }
+        assertEquals(2, db.getBatchRequestCount());
+        writer.shutdown();
+    }
+}
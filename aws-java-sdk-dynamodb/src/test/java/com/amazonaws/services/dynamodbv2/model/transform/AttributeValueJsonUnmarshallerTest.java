@@ -0,0 +1,128 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.model.transform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.amazonaws.services.dynamodbv2.document.Item;
+import com.amazonaws.services.dynamodbv2.document.internal.InternalUtils;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.amazonaws.transform.JsonUnmarshallerContextImpl;
+import com.fasterxml.jackson.core.JsonFactory;
+
+/**
+ * Tests unmarshalling attribute values from a query response, including the
+ * fields of the response following the items.
+ */
+public class AttributeValueJsonUnmarshallerTest {
+
+    private static final String RESPONSE = "{\"Count\":2,\"Items\":["
+            + "{\"id\":{\"S\":\"first\"},"
+            + "\"n\":{\"N\":\"12345678901234567890.5\"},"
+            + "\"b\":{\"B\":\"AAECAw==\"},"
+            + "\"ss\":{\"SS\":[\"a\",\"b\"]},"
+            + "\"ns\":{\"NS\":[\"1\",\"2.5\"]},"
+            + "\"bs\":{\"BS\":[\"AQ==\",\"AgM=\"]},"
+            + "\"m\":{\"M\":{\"x\":{\"N\":\"1\"},\"y\":{\"BOOL\":true},"
+            + "\"z\":{\"L\":[{\"S\":\"q\"},{\"NULL\":true},{\"M\":{}}]}}},"
+            + "\"l\":{\"L\":[]},"
+            + "\"unknown\":{\"X\":{\"nested\":[1,2,{\"S\":\"skipped\"}]},\"S\":\"kept\"}},"
+            + "{\"id\":{\"S\":\"second\"},\"flag\":{\"BOOL\":false}}],"
+            + "\"LastEvaluatedKey\":{\"id\":{\"S\":\"second\"}},"
+            + "\"ScannedCount\":3}";
+
+    @Test
+    public void testQueryResult() throws Exception {
+        QueryResult result = unmarshall(RESPONSE);
+
+        assertEquals(Integer.valueOf(2), result.getCount());
+        assertEquals(Integer.valueOf(3), result.getScannedCount());
+        assertEquals(Collections.singletonMap("id", new AttributeValue("second")),
+                result.getLastEvaluatedKey());
+        assertEquals(2, result.getItems().size());
+
+        Map<String, AttributeValue> first = result.getItems().get(0);
+        assertEquals(new AttributeValue("first"), first.get("id"));
+        assertEquals(new AttributeValue().withN("12345678901234567890.5"), first.get("n"));
+        assertEquals(ByteBuffer.wrap(new byte[] {0, 1, 2, 3}), first.get("b").getB());
+        assertEquals(Arrays.asList("a", "b"), first.get("ss").getSS());
+        assertEquals(Arrays.asList("1", "2.5"), first.get("ns").getNS());
+        assertEquals(Arrays.asList(ByteBuffer.wrap(new byte[] {1}), ByteBuffer.wrap(new byte[] {2, 3})),
+                first.get("bs").getBS());
+
+        Map<String, AttributeValue> m = new HashMap<String, AttributeValue>();
+        m.put("x", new AttributeValue().withN("1"));
+        m.put("y", new AttributeValue().withBOOL(true));
+        m.put("z", new AttributeValue().withL(
+                new AttributeValue("q"),
+                new AttributeValue().withNULL(true),
+                new AttributeValue().withM(new HashMap<String, AttributeValue>())));
+        assertEquals(new AttributeValue().withM(m), first.get("m"));
+        assertEquals(0, first.get("l").getL().size());
+        assertEquals(new AttributeValue("kept"), first.get("unknown"));
+
+        Map<String, AttributeValue> second = result.getItems().get(1);
+        assertEquals(2, second.size());
+        assertEquals(Boolean.FALSE, second.get("flag").getBOOL());
+    }
+
+    @Test
+    public void testNullValues() throws Exception {
+        QueryResult result = unmarshall("{\"Items\":[{\"a\":null,\"b\":{\"S\":null},"
+                + "\"c\":{\"M\":{\"d\":null}},\"e\":{\"L\":[null]}}],\"Count\":1}");
+
+        Map<String, AttributeValue> item = result.getItems().get(0);
+        assertTrue(item.containsKey("a"));
+        assertNull(item.get("a"));
+        assertNull(item.get("b").getS());
+        assertTrue(item.get("c").getM().containsKey("d"));
+        assertNull(item.get("c").getM().get("d"));
+        assertEquals(Collections.singletonList(null), item.get("e").getL());
+        assertEquals(Integer.valueOf(1), result.getCount());
+    }
+
+    @Test
+    public void testToItem() throws Exception {
+        List<Item> items = InternalUtils.toItemList(unmarshall(RESPONSE).getItems());
+
+        Item first = items.get(0);
+        assertEquals("first", first.getString("id"));
+        assertEquals(new BigDecimal("12345678901234567890.5"), first.getNumber("n"));
+        assertTrue(Arrays.equals(new byte[] {0, 1, 2, 3}, first.getBinary("b")));
+        assertEquals(3, first.getMap("m").size());
+        assertEquals(Arrays.asList("q", null, Collections.emptyMap()),
+                first.getMap("m").get("z"));
+        assertTrue(items.get(1).isPresent("flag"));
+        assertNull(InternalUtils.toItem(null));
+    }
+
+    private static QueryResult unmarshall(String json) throws Exception {
+        return QueryResultJsonUnmarshaller.getInstance().unmarshall(
+                new JsonUnmarshallerContextImpl(new JsonFactory().createParser(json)));
+    }
+}
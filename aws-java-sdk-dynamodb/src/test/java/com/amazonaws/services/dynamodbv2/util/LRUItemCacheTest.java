@@ -0,0 +1,129 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+
+/**
+ * Tests the eviction, expiry and invalidation of the items in an
+ * {@link LRUItemCache}.
+ */
+public class LRUItemCacheTest {
+
+    @Test
+    public void testLeastRecentlyUsedEviction() {
+        LRUItemCache cache = new LRUItemCache(2, 1, TimeUnit.HOURS);
+        put(cache, key("a"), item("a"));
+        put(cache, key("b"), item("b"));
+
+        // Reading a makes b the least recently used item
+        assertNotNull(cache.get("Table", key("a")));
+        put(cache, key("c"), item("c"));
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(item("a"), cache.get("Table", key("a")));
+        assertNull(cache.get("Table", key("b")));
+        assertEquals(item("c"), cache.get("Table", key("c")));
+        assertNull(cache.get("OtherTable", key("c")));
+        assertEquals(3, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void testTimeToLive() throws InterruptedException {
+        LRUItemCache cache = new LRUItemCache(10, 20, TimeUnit.MILLISECONDS);
+        put(cache, key("a"), item("a"));
+        assertNotNull(cache.get("Table", key("a")));
+
+        Thread.sleep(50);
+        assertNull(cache.get("Table", key("a")));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testInvalidateByItemAttributes() {
+        LRUItemCache cache = new LRUItemCache(10, 1, TimeUnit.HOURS);
+        cache.invalidate("Table", item("a"));
+
+        put(cache, key("a"), item("a"));
+        put(cache, key("b"), item("b"));
+        cache.invalidate("Table", item("a"));
+        cache.invalidate("Table", new HashMap<String, AttributeValue>());
+
+        assertNull(cache.get("Table", key("a")));
+        assertNotNull(cache.get("Table", key("b")));
+    }
+
+    @Test
+    public void testCachedItemIsCopied() {
+        LRUItemCache cache = new LRUItemCache(10, 1, TimeUnit.HOURS);
+        Map<String, AttributeValue> key = key("a");
+        Map<String, AttributeValue> item = item("a");
+        put(cache, key, item);
+
+        key.put("id", new AttributeValue("changed"));
+        item.remove("value");
+        assertEquals(item("a"), cache.get("Table", key("a")));
+    }
+
+    @Test
+    public void testReadInvalidatedInFlightIsNotCached() {
+        LRUItemCache cache = new LRUItemCache(10, 1, TimeUnit.HOURS);
+        long generation = cache.getGeneration("Table", key("a"));
+
+        // The item is written while it is being read
+        cache.invalidate("Table", item("a"));
+        cache.put("Table", key("a"), item("a"), generation);
+        assertNull(cache.get("Table", key("a")));
+
+        // A read sent after the write is cached
+        put(cache, key("a"), item("a"));
+        assertNotNull(cache.get("Table", key("a")));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testCachedItemIsUnmodifiable() {
+        LRUItemCache cache = new LRUItemCache(10, 1, TimeUnit.HOURS);
+        put(cache, key("a"), item("a"));
+        cache.get("Table", key("a")).clear();
+    }
+
+    private static void put(ItemCache cache, Map<String, AttributeValue> key, Map<String, AttributeValue> item) {
+        cache.put("Table", key, item, cache.getGeneration("Table", key));
+    }
+
+    private static Map<String, AttributeValue> key(String id) {
+        Map<String, AttributeValue> key = new HashMap<String, AttributeValue>();
+        key.put("id", new AttributeValue(id));
+        return key;
+    }
+
+    private static Map<String, AttributeValue> item(String id) {
+        Map<String, AttributeValue> item = key(id);
+        item.put("value", new AttributeValue().withN("42"));
+        return item;
+    }
+}
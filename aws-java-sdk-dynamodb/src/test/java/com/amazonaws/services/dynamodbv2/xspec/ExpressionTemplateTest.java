@@ -0,0 +1,107 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.xspec;
+
+import static com.amazonaws.services.dynamodbv2.xspec.ExpressionSpecBuilder.N;
+import static com.amazonaws.services.dynamodbv2.xspec.ExpressionSpecBuilder.S;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class ExpressionTemplateTest {
+
+    @Test
+    public void testUpdateTemplate() {
+        UpdateItemExpressionTemplate template = new ExpressionSpecBuilder()
+            .addUpdate(S("status").set("pending"))
+            .addUpdate(N("version").set(N("version").plus(1)))
+            .withCondition(N("version").eq(1))
+            .compileForUpdate();
+
+        assertEquals("SET #0 = :0, #1 = #1 + :1", template.getUpdateExpression());
+        // Equal values still get their own placeholders
+        assertEquals("#1 = :2", template.getConditionExpression());
+        assertEquals(Arrays.asList(":0", ":1", ":2"),
+                Arrays.asList(template.getValuePlaceholders().keySet().toArray()));
+
+        UpdateItemExpressionSpec first = template.bind("shipped", 1, 7);
+        UpdateItemExpressionSpec second = template.bind("delivered", 1, 8);
+        assertSame(template.getUpdateExpression(), first.getUpdateExpression());
+        assertSame(template.getNameMap(), first.getNameMap());
+        assertSame(first.getNameMap(), second.getNameMap());
+        assertEquals("status", first.getNameMap().get("#0"));
+        assertEquals("shipped", first.getValueMap().get(":0"));
+        assertEquals(7, first.getValueMap().get(":2"));
+        assertEquals("delivered", second.getValueMap().get(":0"));
+        assertEquals(8, second.getValueMap().get(":2"));
+
+        try {
+            first.getValueMap().put(":0", "changed");
+            fail("Expected an unmodifiable value map");
+        } catch (UnsupportedOperationException expected) {
+        }
+
+        // The builder still shares the token of equal values
+        assertEquals("#1 = :1", new ExpressionSpecBuilder()
+            .addUpdate(S("status").set("pending"))
+            .addUpdate(N("version").set(N("version").plus(1)))
+            .withCondition(N("version").eq(1))
+            .buildForUpdate().getConditionExpression());
+    }
+
+    @Test
+    public void testWrongNumberOfValues() {
+        UpdateItemExpressionTemplate template = new ExpressionSpecBuilder()
+            .addUpdate(S("status").set("pending"))
+            .compileForUpdate();
+        try {
+            template.bind("shipped", "extra");
+            fail("Expected the values to be rejected");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void testQueryTemplate() {
+        QueryExpressionTemplate template = new ExpressionSpecBuilder()
+            .withKeyCondition(S("customerId").eq("customer"))
+            .withCondition(N("total").gt(100))
+            .addProjections("orderId", "total")
+            .compileForQuery();
+
+        assertEquals("#0 = :0", template.getKeyConditionExpression());
+        assertEquals("#1 > :1", template.getFilterExpression());
+        assertEquals("#2, #1", template.getProjectionExpression());
+
+        QueryExpressionSpec xspec = template.bind("customer-0042", 250);
+        assertSame(template.getFilterExpression(), xspec.getFilterExpression());
+        assertEquals("customer-0042", xspec.getValueMap().get(":0"));
+        assertEquals(250, xspec.getValueMap().get(":1"));
+    }
+
+    @Test
+    public void testTemplateWithoutValues() {
+        UpdateItemExpressionTemplate template = new ExpressionSpecBuilder()
+            .addUpdate(S("status").remove())
+            .compileForUpdate();
+        assertEquals("REMOVE #0", template.getUpdateExpression());
+        assertNull(template.bind().getValueMap());
+    }
+}
@@ -28,6 +28,7 @@ import com.amazonaws.auth.AWSCredentialsProvider;
 import com.amazonaws.auth.DefaultAWSCredentialsProviderChain;
 
 import com.amazonaws.services.kinesis.model.*;
+import com.amazonaws.services.kinesis.model.transform.*;
 
 /**
  * Asynchronous client for accessing AmazonKinesis.
@@ -431,6 +432,9 @@ public class AmazonKinesisAsyncClient extends AmazonKinesisClient
      */
     public Future<PutRecordResult> putRecordAsync(final PutRecordRequest putRecordRequest) 
             throws AmazonServiceException, AmazonClientException {
+        if (client.isNonBlocking()) {
+            return invokeAsync(putRecordRequest, new PutRecordRequestMarshaller(), new PutRecordResultJsonUnmarshaller(), null);
+        }
         return executorService.submit(new Callable<PutRecordResult>() {
             public PutRecordResult call() throws Exception {
                 return putRecord(putRecordRequest);
@@ -520,6 +524,9 @@ public class AmazonKinesisAsyncClient extends AmazonKinesisClient
             final PutRecordRequest putRecordRequest,
             final AsyncHandler<PutRecordRequest, PutRecordResult> asyncHandler)
                     throws AmazonServiceException, AmazonClientException {
+        if (client.isNonBlocking()) {
+            return invokeAsync(putRecordRequest, new PutRecordRequestMarshaller(), new PutRecordResultJsonUnmarshaller(), asyncHandler);
+        }
         return executorService.submit(new Callable<PutRecordResult>() {
             public PutRecordResult call() throws Exception {
               PutRecordResult result;
@@ -1108,6 +1115,9 @@ public class AmazonKinesisAsyncClient extends AmazonKinesisClient
      */
     public Future<PutRecordsResult> putRecordsAsync(final PutRecordsRequest putRecordsRequest) 
             throws AmazonServiceException, AmazonClientException {
+        if (client.isNonBlocking()) {
+            return invokeAsync(putRecordsRequest, new PutRecordsRequestMarshaller(), new PutRecordsResultJsonUnmarshaller(), null);
+        }
         return executorService.submit(new Callable<PutRecordsResult>() {
             public PutRecordsResult call() throws Exception {
                 return putRecords(putRecordsRequest);
@@ -1214,6 +1224,9 @@ public class AmazonKinesisAsyncClient extends AmazonKinesisClient
             final PutRecordsRequest putRecordsRequest,
             final AsyncHandler<PutRecordsRequest, PutRecordsResult> asyncHandler)
                     throws AmazonServiceException, AmazonClientException {
+        if (client.isNonBlocking()) {
+            return invokeAsync(putRecordsRequest, new PutRecordsRequestMarshaller(), new PutRecordsResultJsonUnmarshaller(), asyncHandler);
+        }
         return executorService.submit(new Callable<PutRecordsResult>() {
             public PutRecordsResult call() throws Exception {
               PutRecordsResult result;
@@ -1685,6 +1698,9 @@ public class AmazonKinesisAsyncClient extends AmazonKinesisClient
      */
     public Future<GetRecordsResult> getRecordsAsync(final GetRecordsRequest getRecordsRequest) 
             throws AmazonServiceException, AmazonClientException {
+        if (client.isNonBlocking()) {
+            return invokeAsync(getRecordsRequest, new GetRecordsRequestMarshaller(), new GetRecordsResultJsonUnmarshaller(), null);
+        }
         return executorService.submit(new Callable<GetRecordsResult>() {
             public GetRecordsResult call() throws Exception {
                 return getRecords(getRecordsRequest);
@@ -1778,6 +1794,9 @@ public class AmazonKinesisAsyncClient extends AmazonKinesisClient
             final GetRecordsRequest getRecordsRequest,
             final AsyncHandler<GetRecordsRequest, GetRecordsResult> asyncHandler)
                     throws AmazonServiceException, AmazonClientException {
+        if (client.isNonBlocking()) {
+            return invokeAsync(getRecordsRequest, new GetRecordsRequestMarshaller(), new GetRecordsResultJsonUnmarshaller(), asyncHandler);
+        }
         return executorService.submit(new Callable<GetRecordsResult>() {
             public GetRecordsResult call() throws Exception {
               GetRecordsResult result;
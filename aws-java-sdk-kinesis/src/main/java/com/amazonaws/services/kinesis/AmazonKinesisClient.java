@@ -16,6 +16,7 @@ package com.amazonaws.services.kinesis;
 
 import java.net.*;
 import java.util.*;
+import java.util.concurrent.Future;
 
 import org.apache.commons.logging.*;
 
@@ -2499,5 +2500,21 @@ public class AmazonKinesisClient extends AmazonWebServiceClient implements Amazo
                 errorResponseHandler, executionContext);
         return result;
     }
+
+    /**
+     * Sends the given request over the non-blocking transport of the
+     * underlying http client.
+     *
+     * @see AmazonWebServiceClient#invokeAsync(AmazonWebServiceRequest, Marshaller, HttpResponseHandler, HttpResponseHandler, AWSCredentialsProvider, AsyncHandler)
+     */
+    <X, Y extends AmazonWebServiceRequest> Future<X> invokeAsync(Y originalRequest,
+            Marshaller<Request<Y>, Y> marshaller,
+            Unmarshaller<X, JsonUnmarshallerContext> unmarshaller,
+            AsyncHandler<Y, X> asyncHandler) {
+        return invokeAsync(originalRequest, marshaller,
+                new JsonResponseHandler<X>(unmarshaller),
+                new JsonErrorResponseHandler(jsonErrorUnmarshallers),
+                awsCredentialsProvider, asyncHandler);
+    }
 }
         
\ No newline at end of file
@@ -17,7 +17,7 @@ package com.amazonaws.services.s3;
 import static com.amazonaws.SDKGlobalConfiguration.ENABLE_S3_SIGV4_SYSTEM_PROPERTY;
 import static com.amazonaws.SDKGlobalConfiguration.ENFORCE_S3_SIGV4_SYSTEM_PROPERTY;
 import static com.amazonaws.event.SDKProgressPublisher.publishProgress;
-import static com.amazonaws.internal.ResettableInputStream.newResettableInputStream;
+import static com.amazonaws.services.s3.internal.FileRegionInputStream.newFileRegionInputStream;
 import static com.amazonaws.services.s3.model.S3DataSource.Utils.cleanupDataSource;
 import static com.amazonaws.util.LengthCheckInputStream.EXCLUDE_SKIPPED_BYTES;
 import static com.amazonaws.util.LengthCheckInputStream.INCLUDE_SKIPPED_BYTES;
@@ -85,7 +85,6 @@ import com.amazonaws.handlers.RequestHandler2;
 import com.amazonaws.http.ExecutionContext;
 import com.amazonaws.http.HttpMethodName;
 import com.amazonaws.http.HttpResponseHandler;
-import com.amazonaws.internal.ResettableInputStream;
 import com.amazonaws.internal.StaticCredentialsProvider;
 import com.amazonaws.metrics.AwsSdkMetrics;
 import com.amazonaws.metrics.RequestMetricCollector;
@@ -95,6 +94,7 @@ import com.amazonaws.services.s3.internal.BucketNameUtils;
 import com.amazonaws.services.s3.internal.Constants;
 import com.amazonaws.services.s3.internal.DeleteObjectsResponse;
 import com.amazonaws.services.s3.internal.DigestValidationInputStream;
+import com.amazonaws.services.s3.internal.FileRegionInputStream;
 import com.amazonaws.services.s3.internal.InputSubstream;
 import com.amazonaws.services.s3.internal.MD5DigestCalculatingInputStream;
 import com.amazonaws.services.s3.internal.Mimetypes;
@@ -1366,7 +1366,8 @@ public class AmazonS3Client extends AmazonWebServiceClient implements AmazonS3 {
                             "Unable to calculate MD5 hash: " + e.getMessage(), e);
                 }
             }
-            input = newResettableInputStream(file, "Unable to find file to upload");
+            input = newFileRegionInputStream(file, 0, file.length(),
+                    "Unable to find file to upload");
         }
         final ProgressListener listener;
         final ObjectMetadata returnedMetadata;
@@ -2782,18 +2783,21 @@ public class AmazonS3Client extends AmazonWebServiceClient implements AmazonS3 {
                     awsreq.getRequestClientOptions()
                         .setReadLimit(bufsize.intValue());
                 }
+                isCurr = new InputSubstream(isCurr,
+                        uploadPartRequest.getFileOffset(),
+                        partSize,
+                        uploadPartRequest.isLastPart());
             } else {
                 try {
-                    isCurr = new ResettableInputStream(fileOrig);
+                    // Reads the part straight from the file, without skipping
+                    // through the bytes of the previous parts
+                    isCurr = new FileRegionInputStream(fileOrig,
+                            uploadPartRequest.getFileOffset(), partSize);
                 } catch(IOException e) {
                     throw new IllegalArgumentException("Failed to open file "
                             + fileOrig, e);
                 }
             }
-            isCurr = new InputSubstream(isCurr,
-                    uploadPartRequest.getFileOffset(),
-                    partSize,
-                    uploadPartRequest.isLastPart());
             MD5DigestCalculatingInputStream md5DigestStream = null;
             if (uploadPartRequest.getMd5Digest() == null
              && !skipContentMd5IntegrityCheck(uploadPartRequest)) {
@@ -44,6 +44,7 @@ import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
 import com.amazonaws.services.s3.model.CopyPartRequest;
 import com.amazonaws.services.s3.model.CopyPartResult;
 import com.amazonaws.services.s3.model.CryptoConfiguration;
+import com.amazonaws.services.s3.model.DataKeyCacheStatistics;
 import com.amazonaws.services.s3.model.DeleteObjectRequest;
 import com.amazonaws.services.s3.model.EncryptedInitiateMultipartUploadRequest;
 import com.amazonaws.services.s3.model.EncryptedPutObjectRequest;
@@ -539,7 +540,10 @@ public class AmazonS3EncryptionClient extends AmazonS3Client implements
      * N-1 in order to encrypt block N, parts uploaded with the
      * AmazonS3EncryptionClient (as opposed to the normal AmazonS3Client) must
      * be uploaded serially, and in order. Otherwise, the previous encryption
-     * context isn't available to use when encrypting the current part.
+     * context isn't available to use when encrypting the current part. The
+     * exception is authenticated encryption with
+     * {@link CryptoConfiguration#setParallelMultipartUpload(boolean)}
+     * enabled, where the parts are encrypted independently of each other.
      */
     @Override
     public UploadPartResult uploadPart(UploadPartRequest uploadPartRequest)
@@ -547,6 +551,28 @@ public class AmazonS3EncryptionClient extends AmazonS3Client implements
         return crypto.uploadPartSecurely(uploadPartRequest);
     }
 
+    /**
+     * Returns true if the parts of multipart uploads through this client are
+     * encrypted independently of each other, so they can be uploaded in
+     * parallel; false if they must be uploaded in series.
+     *
+     * @see CryptoConfiguration#setParallelMultipartUpload(boolean)
+     */
+    public boolean isMultipartUploadParallelizable() {
+        return crypto.isMultipartUploadParallelizable();
+    }
+
+    /**
+     * Returns the statistics of the reuse of the data keys generated by AWS
+     * KMS for the objects encrypted by this client; or null if data keys
+     * aren't reused.
+     *
+     * @see CryptoConfiguration#setDataKeyCacheMaxAgeMillis(long)
+     */
+    public DataKeyCacheStatistics getDataKeyCacheStatistics() {
+        return crypto.getDataKeyCacheStatistics();
+    }
+
     @Override
     public CopyPartResult copyPart(CopyPartRequest copyPartRequest) {
         return crypto.copyPartSecurely(copyPartRequest);
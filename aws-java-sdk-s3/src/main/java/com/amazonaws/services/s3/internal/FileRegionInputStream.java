@@ -0,0 +1,211 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.apache.http.annotation.NotThreadSafe;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.internal.SdkInputStream;
+
+/**
+ * A mark-and-resettable input stream over a region of a file, read directly
+ * from its {@link FileChannel}.
+ * <p>
+ * The region is read with positional reads into a direct buffer that is
+ * reused for the life of the stream, so reading never goes through the
+ * temporary direct buffers of the channel, and never skips through the part
+ * of the file before the region. Marking and resetting only moves the current
+ * position, however far back that is.
+ * <p>
+ * Closing the stream releases the file at once. If the file is truncated
+ * while it is being read, reading fails with an
+ * {@link AmazonClientException}.
+ */
+@NotThreadSafe
+public final class FileRegionInputStream extends SdkInputStream {
+    /** The size of the buffer the file is read into. */
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File file;
+    private final FileChannel channel;
+    /** The offset of the region in the file. */
+    private final long offset;
+    /** The length of the region. */
+    private final long length;
+    /** The current position, relative to the start of the region. */
+    private long position;
+    private long markedPosition;
+
+    /** The bytes of the region read ahead of time; allocated on first use. */
+    private ByteBuffer buffer;
+    /** The position of the buffered bytes, relative to the start of the region. */
+    private long bufferPosition;
+    private final byte[] singleByte = new byte[1];
+
+    /**
+     * @param file
+     *            the file to read
+     * @param offset
+     *            the offset of the region in the file
+     * @param length
+     *            the maximum length of the region; it ends early at the end of
+     *            the file.
+     */
+    public FileRegionInputStream(File file, long offset, long length)
+            throws IOException {
+        if (offset < 0 || length < 0)
+            throw new IllegalArgumentException("offset: " + offset + ", length: " + length);
+        this.file = file;
+        this.channel = new RandomAccessFile(file, "r").getChannel();
+        this.offset = offset;
+        try {
+            this.length = Math.max(0, Math.min(length, channel.size() - offset));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Convenient factory method to construct a new input stream for the given
+     * region of a file, converting any IOException into
+     * AmazonClientException with the given error message.
+     */
+    public static FileRegionInputStream newFileRegionInputStream(File file,
+            long offset, long length, String errmsg) {
+        try {
+            return new FileRegionInputStream(file, offset, length);
+        } catch (IOException e) {
+            throw new AmazonClientException(errmsg, e);
+        }
+    }
+
+    /**
+     * Returns the file this stream is reading from.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int n;
+        while ((n = read(singleByte, 0, 1)) == 0) {
+            // Blocks until a byte is read, as required
+        }
+        return n == -1 ? -1 : singleByte[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        abortIfNeeded();
+        if (off < 0 || len < 0 || len > b.length - off)
+            throw new IndexOutOfBoundsException();
+        if (position >= length)
+            return -1;
+        if (len == 0)
+            return 0;
+        if (buffer == null || position < bufferPosition
+                || position >= bufferPosition + buffer.limit()) {
+            fillBuffer();
+        }
+        int n = (int) Math.min(len, bufferPosition + buffer.limit() - position);
+        buffer.position((int) (position - bufferPosition));
+        buffer.get(b, off, n);
+        position += n;
+        return n;
+    }
+
+    /**
+     * Reads the region from the current position into the buffer, up to the
+     * end of the buffer or of the region.
+     *
+     * @throws AmazonClientException
+     *             if the file ends before the region does, as it was
+     *             truncated after this stream was opened.
+     */
+    private void fillBuffer() throws IOException {
+        if (buffer == null)
+            buffer = ByteBuffer.allocateDirect((int) Math.min(BUFFER_SIZE, length));
+        buffer.clear();
+        buffer.limit((int) Math.min(buffer.capacity(), length - position));
+        while (buffer.hasRemaining()) {
+            long filePosition = offset + position + buffer.position();
+            if (channel.read(buffer, filePosition) == -1) {
+                buffer.limit(0);
+                throw new AmazonClientException("The file " + file
+                        + " was truncated while being read: expected "
+                        + (offset + length) + " bytes but found " + filePosition);
+            }
+        }
+        buffer.flip();
+        bufferPosition = position;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        abortIfNeeded();
+        if (n <= 0)
+            return 0;
+        long skipped = Math.min(n, length - position);
+        position += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        abortIfNeeded();
+        return (int) Math.min(length - position, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    /**
+     * Marks the current position, which can be returned to at any later time
+     * regardless of the given read limit.
+     */
+    @Override
+    public void mark(int readlimit) {
+        abortIfNeeded();
+        markedPosition = position;
+    }
+
+    @Override
+    public void reset() throws IOException {
+        abortIfNeeded();
+        position = markedPosition;
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer = null;
+        channel.close();
+    }
+
+    @Override
+    protected InputStream getWrappedInputStream() {
+        return null;
+    }
+}
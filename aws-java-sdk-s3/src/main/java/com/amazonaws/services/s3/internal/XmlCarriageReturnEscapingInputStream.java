@@ -0,0 +1,157 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.amazonaws.internal.SdkFilterInputStream;
+
+/**
+ * Input stream that replaces every carriage return (0x0D) in a UTF-8 encoded
+ * XML document with the character reference {@code &#013;} as the document is
+ * read, to prevent the SAX parser from normalizing carriage returns in object
+ * keys into line feeds.
+ * <p>
+ * In UTF-8, the byte 0x0D never occurs inside a multi-byte sequence, so the
+ * replacement can be done on the raw bytes without decoding them. Only a
+ * fixed size buffer is held, however large the document is.
+ */
+public class XmlCarriageReturnEscapingInputStream extends SdkFilterInputStream {
+
+    private static final byte CARRIAGE_RETURN = '\r';
+
+    private static final byte[] ESCAPED_CARRIAGE_RETURN = {'&', '#', '0', '1', '3', ';'};
+
+    private final byte[] buffer = new byte[8192];
+
+    private final byte[] singleByte = new byte[1];
+
+    /** Position of the next unread byte in the buffer. */
+    private int position;
+
+    /** Number of valid bytes in the buffer. */
+    private int limit;
+
+    /**
+     * Position of the next byte of a partially returned character reference,
+     * or -1 if there is none.
+     */
+    private int escapePosition = -1;
+
+    public XmlCarriageReturnEscapingInputStream(InputStream in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        int read = read(singleByte, 0, 1);
+        return read == -1 ? -1 : singleByte[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        abortIfNeeded();
+        if (len == 0) {
+            return 0;
+        }
+
+        int count = 0;
+        while (count < len) {
+            if (escapePosition >= 0) {
+                b[off + count++] = ESCAPED_CARRIAGE_RETURN[escapePosition++];
+                if (escapePosition == ESCAPED_CARRIAGE_RETURN.length) {
+                    escapePosition = -1;
+                }
+                continue;
+            }
+
+            if (position == limit) {
+                // Don't block for more input once there is something to return
+                if (count > 0 || !fill()) {
+                    break;
+                }
+            }
+
+            if (buffer[position] == CARRIAGE_RETURN) {
+                position++;
+                escapePosition = 0;
+                continue;
+            }
+
+            // Copy the run of bytes up to the next carriage return in one go
+            int end = position;
+            int max = Math.min(limit, position + len - count);
+            while (end < max && buffer[end] != CARRIAGE_RETURN) {
+                end++;
+            }
+            System.arraycopy(buffer, position, b, off + count, end - position);
+            count += end - position;
+            position = end;
+        }
+        return count == 0 ? -1 : count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0) {
+            return 0;
+        }
+        byte[] skipped = new byte[(int) Math.min(n, 2048)];
+        long remaining = n;
+        while (remaining > 0) {
+            int read = read(skipped, 0, (int) Math.min(remaining, skipped.length));
+            if (read == -1) {
+                break;
+            }
+            remaining -= read;
+        }
+        return n - remaining;
+    }
+
+    @Override
+    public int available() throws IOException {
+        abortIfNeeded();
+        return limit - position;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    /**
+     * Refills the buffer from the underlying stream, and returns false at the
+     * end of the stream.
+     */
+    private boolean fill() throws IOException {
+        int read;
+        do {
+            read = in.read(buffer, 0, buffer.length);
+        } while (read == 0);
+        position = 0;
+        limit = Math.max(read, 0);
+        return read != -1;
+    }
+}
@@ -65,12 +65,20 @@ class CipherLite {
     private final ContentCryptoScheme scheme;
     private final SecretKey secreteKey;
     private final int cipherMode;
+    /**
+     * The IV the cipher was initialized with, which remains available once
+     * the cipher has been released.
+     */
+    private final byte[] iv;
+    /** The key of the pool the cipher is released to; or null. */
+    private String poolKey;
 
     private CipherLite() {
         this.cipher = new NullCipher();
         this.scheme = null;
         this.secreteKey = null;
         this.cipherMode = -1;
+        this.iv = null;
     }
 
     CipherLite(Cipher cipher, ContentCryptoScheme scheme,
@@ -79,13 +87,37 @@ class CipherLite {
         this.scheme = scheme;
         this.secreteKey = secreteKey;
         this.cipherMode = cipherMode;
+        this.iv = cipher.getIV();
+    }
+
+    /**
+     * Sets the key of the cipher pool the underlying cipher is released to.
+     *
+     * @see #release()
+     */
+    final CipherLite withPoolKey(String poolKey) {
+        this.poolKey = poolKey;
+        return this;
+    }
+
+    /**
+     * Releases the underlying cipher to the cipher pool of the current
+     * thread, if it came from a pool. Must only be called once this cipher
+     * lite is no longer used for encryption or decryption; its IV and
+     * algorithms remain available.
+     */
+    final void release() {
+        if (poolKey != null) {
+            CipherPool.release(poolKey, cipher);
+            poolKey = null;
+        }
     }
 
     /**
      * Recreates a new instance of CipherLite from the current one.
      */
     CipherLite recreate() {
-        return scheme.createCipherLite(secreteKey, cipher.getIV(),
+        return scheme.createCipherLite(secreteKey, getIV(),
                 this.cipherMode, cipher.getProvider());
     }
 
@@ -110,7 +142,7 @@ class CipherLite {
             throws InvalidKeyException, NoSuchAlgorithmException,
             NoSuchProviderException, NoSuchPaddingException,
             InvalidAlgorithmParameterException {
-        return scheme.createAuxillaryCipher(secreteKey, cipher.getIV(),
+        return scheme.createAuxillaryCipher(secreteKey, getIV(),
                 cipherMode, cipher.getProvider(), startingBytePos);
     }
 
@@ -127,7 +159,7 @@ class CipherLite {
             inversedMode = Cipher.DECRYPT_MODE;
         else
             throw new UnsupportedOperationException();
-        return scheme.createCipherLite(secreteKey, cipher.getIV(),
+        return scheme.createCipherLite(secreteKey, getIV(),
                 inversedMode, cipher.getProvider());
     }
 
@@ -323,6 +355,13 @@ class CipherLite {
         return secreteKey.getAlgorithm();
     }
 
+    /**
+     * Returns the secret key of the underlying cipher.
+     */
+    final SecretKey getSecretKey() {
+        return secreteKey;
+    }
+
     /**
      * This method is provided only for testing purposes. The {@link CipherLite}
      * is intended to be used in lieu of the underlying Cipher.
@@ -347,7 +386,7 @@ class CipherLite {
      * been set.
      */
     final byte[] getIV() {
-        return cipher.getIV();
+        return iv == null ? null : iv.clone();
     }
 
     /**
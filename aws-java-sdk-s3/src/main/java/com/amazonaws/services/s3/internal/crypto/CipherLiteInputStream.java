@@ -46,6 +46,11 @@ public class CipherLiteInputStream extends SdkFilterInputStream {
      * True if this is the last part of a multipart upload; false otherwise.
      */
     private final boolean lastMultiPart;
+    /**
+     * True if the cipher lite is used by nothing but this input stream, and
+     * can be released once the stream is closed; false otherwise.
+     */
+    private boolean releaseCipherLiteOnClose;
     private boolean eof;
     private byte[] bufin;
     private byte[] bufout;
@@ -76,6 +81,16 @@ public class CipherLiteInputStream extends SdkFilterInputStream {
         this.bufin = new byte[buffsize];
     }
 
+    /**
+     * Releases the cipher lite of this input stream once the stream is
+     * closed, for the cipher to be reused; the cipher lite must be used by
+     * nothing but this stream.
+     */
+    final CipherLiteInputStream releaseCipherLiteOnClose() {
+        this.releaseCipherLiteOnClose = true;
+        return this;
+    }
+
     protected CipherLiteInputStream(InputStream is) {
         this(is, CipherLite.Null, DEFAULT_IN_BUFFER_SIZE, false, false);
     }
@@ -164,6 +179,8 @@ public class CipherLiteInputStream extends SdkFilterInputStream {
                 }
             }
         }
+        if (releaseCipherLiteOnClose)
+            cipherLite.release();
         curr_pos = max_pos = 0;
         abortIfNeeded();
     }
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.internal.crypto;
+
+import java.security.GeneralSecurityException;
+import java.security.Provider;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Per-thread pools of idle JCE ciphers, so encrypting or decrypting many
+ * small objects doesn't look up the security provider and instantiate a new
+ * cipher for every one of them.
+ * <p>
+ * The ciphers of a pool were all obtained for the same transformation and
+ * provider, identified by the pool key. A cipher is only released once it is
+ * no longer used, to the pool of the releasing thread. It is then initialized
+ * with a key of zeros, so an idle cipher holds no content key, and is
+ * initialized again with the caller's key and IV before it is reused.
+ * <p>
+ * Only the ciphers of providers loaded by the system class loader, or one of
+ * its ancestors, are pooled: the pools outlive the threads' tasks, and would
+ * otherwise keep the class loader of an application's provider from being
+ * unloaded.
+ */
+final class CipherPool {
+    /** The maximum number of idle ciphers kept per thread and pool key. */
+    static final int MAX_IDLE_CIPHERS = 4;
+
+    /** The key released ciphers are initialized with. */
+    private static final SecretKey IDLE_KEY = new SecretKeySpec(new byte[16], "AES");
+
+    private static final ThreadLocal<Map<String, LinkedList<Cipher>>> IDLE_CIPHERS =
+        new ThreadLocal<Map<String, LinkedList<Cipher>>>() {
+            @Override
+            protected Map<String, LinkedList<Cipher>> initialValue() {
+                return new HashMap<String, LinkedList<Cipher>>();
+            }
+        };
+
+    private CipherPool() {
+    }
+
+    /**
+     * Returns the pool key of the ciphers of the given transformation, from
+     * the given provider; or from the default providers if the provider name
+     * is null.
+     */
+    static String key(String transformation, String providerName) {
+        return providerName == null
+             ? transformation
+             : transformation + "@" + providerName;
+    }
+
+    /**
+     * Returns an idle cipher of the given pool, to be initialized by the
+     * caller; or null if there is none.
+     */
+    static Cipher acquire(String poolKey) {
+        LinkedList<Cipher> idle = IDLE_CIPHERS.get().get(poolKey);
+        return idle == null ? null : idle.pollLast();
+    }
+
+    /**
+     * Releases a cipher that is no longer used to the given pool of the
+     * current thread, unless the pool is already full, or the cipher can't be
+     * pooled; in which case it is dropped.
+     */
+    static void release(String poolKey, Cipher cipher) {
+        if (!isSystemProvider(cipher.getProvider()) || !clearKey(cipher))
+            return;
+        Map<String, LinkedList<Cipher>> pools = IDLE_CIPHERS.get();
+        LinkedList<Cipher> idle = pools.get(poolKey);
+        if (idle == null) {
+            idle = new LinkedList<Cipher>();
+            pools.put(poolKey, idle);
+        }
+        if (idle.size() < MAX_IDLE_CIPHERS)
+            idle.addLast(cipher);
+    }
+
+    /**
+     * Returns true if the given provider was loaded by the system class
+     * loader, or one of its ancestors.
+     */
+    static boolean isSystemProvider(Provider provider) {
+        return isSystemClassLoader(provider.getClass().getClassLoader());
+    }
+
+    /**
+     * Returns true if the given class loader is the system class loader, or
+     * one of its ancestors; null being the bootstrap class loader.
+     */
+    static boolean isSystemClassLoader(ClassLoader classLoader) {
+        if (classLoader == null)
+            return true;
+        for (ClassLoader loader = ClassLoader.getSystemClassLoader(); loader != null;
+                loader = loader.getParent()) {
+            if (loader == classLoader)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Initializes the given cipher with a key of zeros, in place of the key
+     * it was used with, and returns true; or false if that failed.
+     */
+    private static boolean clearKey(Cipher cipher) {
+        byte[] iv = cipher.getIV();
+        try {
+            // Decryption, as AES/GCM refuses to encrypt twice with a key and IV
+            if (iv == null) {
+                cipher.init(Cipher.DECRYPT_MODE, IDLE_KEY);
+            } else {
+                cipher.init(Cipher.DECRYPT_MODE, IDLE_KEY,
+                        new IvParameterSpec(new byte[iv.length]));
+            }
+            return true;
+        } catch (GeneralSecurityException e) {
+            return false;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+}
@@ -175,9 +175,16 @@ abstract class ContentCryptoScheme {
     CipherLite createCipherLite(SecretKey cek, byte[] iv, int cipherMode,
             Provider securityProvider) {
         String specificProvider = getSpecificCipherProvider();
-        Cipher cipher;
+        String poolKey = CipherPool.key(getCipherAlgorithm(),
+                specificProvider != null ? specificProvider
+              : securityProvider != null ? securityProvider.getName()
+              : null);
+        // reuse an idle cipher of the current thread if there is one
+        Cipher cipher = CipherPool.acquire(poolKey);
         try {
-            if (specificProvider != null) { // use the specific provider if defined
+            if (cipher != null) {
+                // initialized below
+            } else if (specificProvider != null) { // use the specific provider if defined
                     cipher = Cipher.getInstance(getCipherAlgorithm(), specificProvider);
             } else if (securityProvider != null) { // use the one optionally specified in the input
                 cipher = Cipher.getInstance(getCipherAlgorithm(), securityProvider);
@@ -185,7 +192,7 @@ abstract class ContentCryptoScheme {
                 cipher = Cipher.getInstance(getCipherAlgorithm());
             }
             cipher.init(cipherMode, cek, new IvParameterSpec(iv));
-            return newCipherLite(cipher, cek, cipherMode);
+            return newCipherLite(cipher, cek, cipherMode).withPoolKey(poolKey);
         } catch (Exception e) {
             throw e instanceof RuntimeException
                 ? (RuntimeException) e
@@ -33,6 +33,7 @@ import com.amazonaws.services.s3.model.CopyPartRequest;
 import com.amazonaws.services.s3.model.CopyPartResult;
 import com.amazonaws.services.s3.model.CryptoConfiguration;
 import com.amazonaws.services.s3.model.CryptoMode;
+import com.amazonaws.services.s3.model.DataKeyCacheStatistics;
 import com.amazonaws.services.s3.model.EncryptionMaterialsProvider;
 import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
@@ -170,6 +171,22 @@ public class CryptoModuleDispatcher extends S3CryptoModule<MultipartUploadContex
              ;
     }
 
+    @Override
+    public boolean isMultipartUploadParallelizable() {
+        return defaultCryptoMode == EncryptionOnly
+             ? eo.isMultipartUploadParallelizable()
+             : ae.isMultipartUploadParallelizable()
+             ;
+    }
+
+    @Override
+    public DataKeyCacheStatistics getDataKeyCacheStatistics() {
+        return defaultCryptoMode == EncryptionOnly
+             ? eo.getDataKeyCacheStatistics()
+             : ae.getDataKeyCacheStatistics()
+             ;
+    }
+
     @Override
     public CopyPartResult copyPartSecurely(CopyPartRequest req) {
         return defaultCryptoMode == EncryptionOnly 
@@ -0,0 +1,258 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.internal.crypto;
+
+/**
+ * The GHASH function of AES/GCM, keyed by the hash subkey H. See <a href=
+ * "http://csrc.nist.gov/publications/nistpubs/800-38D/SP-800-38D.pdf">
+ * NIST Special Publication 800-38D.</a>
+ * <p>
+ * GHASH is linear, so the hash of a sequence of blocks can be put together
+ * from the hashes of its consecutive pieces: if the piece A is followed by
+ * the piece B of n blocks, GHASH(A || B) = GHASH(A) * H^n + GHASH(B). This
+ * allows the authentication tag of an object to be computed from the hashes
+ * of its parts, which can then be encrypted independently of each other.
+ * <p>
+ * Elements of GF(2^128) are represented as two longs, the high and the low
+ * 64 bits of the block in big-endian order. Instances are immutable and can
+ * be shared by threads; the {@link Accumulator}s they create cannot.
+ */
+final class GHash {
+    static final int BLOCK_SIZE = 16;
+    /** The polynomial of the field, in the reflected bit order of GCM. */
+    private static final long R = 0xE100000000000000L;
+    /** The multiplicative identity. */
+    private static final long[] ONE = { 0x8000000000000000L, 0L };
+
+    private final long[] h;
+    /**
+     * The products of H with each byte value at each of the 16 positions of
+     * a block, indexed by position * 256 + value, so multiplying a block by H
+     * takes 16 lookups.
+     */
+    private final long[] tableHi = new long[BLOCK_SIZE * 256];
+    private final long[] tableLo = new long[BLOCK_SIZE * 256];
+
+    /**
+     * @param hashSubkey
+     *            the hash subkey H, which is the encryption of the zero block
+     *            with the content encrypting key
+     */
+    GHash(byte[] hashSubkey) {
+        if (hashSubkey.length != BLOCK_SIZE)
+            throw new IllegalArgumentException();
+        this.h = toElement(hashSubkey, 0);
+        // H * x^i for each of the 128 bit positions
+        long hi = h[0], lo = h[1];
+        long[] bitHi = new long[BLOCK_SIZE * 8];
+        long[] bitLo = new long[BLOCK_SIZE * 8];
+        for (int i = 0; i < bitHi.length; i++) {
+            bitHi[i] = hi;
+            bitLo[i] = lo;
+            boolean carry = (lo & 1) != 0;
+            lo = (lo >>> 1) | (hi << 63);
+            hi >>>= 1;
+            if (carry)
+                hi ^= R;
+        }
+        for (int pos = 0; pos < BLOCK_SIZE; pos++) {
+            int base = pos * 256;
+            for (int value = 1; value < 256; value++) {
+                int bit = pos * 8 + 7 - Integer.numberOfTrailingZeros(value);
+                int rest = base + (value & (value - 1));
+                tableHi[base + value] = tableHi[rest] ^ bitHi[bit];
+                tableLo[base + value] = tableLo[rest] ^ bitLo[bit];
+            }
+        }
+    }
+
+    /**
+     * Returns a new accumulator for the hash of a sequence of bytes.
+     */
+    Accumulator newAccumulator() {
+        return new Accumulator();
+    }
+
+    /**
+     * Returns the given number of blocks hashed after a sequence whose hash
+     * is x; that is, x * H^blocks.
+     */
+    long[] shift(long[] x, long blocks) {
+        return multiply(x, power(blocks));
+    }
+
+    /**
+     * Returns the tag of the given ciphertext hash, given the encrypted
+     * pre-counter block J0 and the length of the ciphertext in bytes. There
+     * is no additional authenticated data.
+     */
+    byte[] tag(long[] ciphertextHash, byte[] encryptedJ0, long ciphertextLength) {
+        long[] s = multiply(new long[] { ciphertextHash[0],
+                ciphertextHash[1] ^ (ciphertextLength * 8) }, h);
+        byte[] tag = new byte[BLOCK_SIZE];
+        for (int i = 0; i < 8; i++) {
+            tag[i] = (byte) (encryptedJ0[i] ^ (s[0] >>> (56 - 8 * i)));
+            tag[i + 8] = (byte) (encryptedJ0[i + 8] ^ (s[1] >>> (56 - 8 * i)));
+        }
+        return tag;
+    }
+
+    /**
+     * Returns H^n, by repeated squaring.
+     */
+    private long[] power(long n) {
+        long[] result = ONE;
+        long[] square = h;
+        while (n > 0) {
+            if ((n & 1) != 0)
+                result = multiply(result, square);
+            n >>>= 1;
+            if (n > 0)
+                square = multiply(square, square);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the product of two elements, bit by bit; used only a few times
+     * per part, unlike the table driven multiplication by H.
+     */
+    static long[] multiply(long[] x, long[] y) {
+        long zHi = 0, zLo = 0;
+        long vHi = y[0], vLo = y[1];
+        for (int i = 0; i < 128; i++) {
+            long bit = i < 64 ? x[0] >>> (63 - i) : x[1] >>> (127 - i);
+            if ((bit & 1) != 0) {
+                zHi ^= vHi;
+                zLo ^= vLo;
+            }
+            boolean carry = (vLo & 1) != 0;
+            vLo = (vLo >>> 1) | (vHi << 63);
+            vHi >>>= 1;
+            if (carry)
+                vHi ^= R;
+        }
+        return new long[] { zHi, zLo };
+    }
+
+    private static long[] toElement(byte[] b, int off) {
+        long hi = 0, lo = 0;
+        for (int i = 0; i < 8; i++) {
+            hi = (hi << 8) | (b[off + i] & 0xff);
+            lo = (lo << 8) | (b[off + 8 + i] & 0xff);
+        }
+        return new long[] { hi, lo };
+    }
+
+    /**
+     * The running hash of a sequence of bytes, whose last block is padded
+     * with zeros when the hash is read.
+     */
+    final class Accumulator {
+        private long yHi, yLo;
+        private final byte[] partial = new byte[BLOCK_SIZE];
+        private int partialLength;
+        private long length;
+
+        private Accumulator() {
+        }
+
+        void update(byte[] b, int off, int len) {
+            length += len;
+            if (partialLength > 0) {
+                int n = Math.min(len, BLOCK_SIZE - partialLength);
+                System.arraycopy(b, off, partial, partialLength, n);
+                partialLength += n;
+                off += n;
+                len -= n;
+                if (partialLength < BLOCK_SIZE)
+                    return;
+                hashBlock(partial, 0);
+                partialLength = 0;
+            }
+            while (len >= BLOCK_SIZE) {
+                hashBlock(b, off);
+                off += BLOCK_SIZE;
+                len -= BLOCK_SIZE;
+            }
+            if (len > 0) {
+                System.arraycopy(b, off, partial, 0, len);
+                partialLength = len;
+            }
+        }
+
+        /**
+         * Returns the number of bytes hashed so far.
+         */
+        long getLength() {
+            return length;
+        }
+
+        /**
+         * Returns the number of blocks hashed so far, counting a final
+         * partial block as a whole one.
+         */
+        long getBlockCount() {
+            return (length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        }
+
+        /**
+         * Returns the hash of the bytes so far, without changing the state
+         * of this accumulator.
+         */
+        long[] getHash() {
+            if (partialLength == 0)
+                return new long[] { yHi, yLo };
+            // The copy is padded with zeros
+            Accumulator padded = copy();
+            padded.hashBlock(padded.partial, 0);
+            return new long[] { padded.yHi, padded.yLo };
+        }
+
+        /**
+         * Returns a copy of this accumulator, to be restored on reset.
+         */
+        Accumulator copy() {
+            Accumulator that = new Accumulator();
+            that.yHi = yHi;
+            that.yLo = yLo;
+            System.arraycopy(partial, 0, that.partial, 0, partialLength);
+            that.partialLength = partialLength;
+            that.length = length;
+            return that;
+        }
+
+        private void hashBlock(byte[] b, int off) {
+            long xHi = yHi, xLo = yLo;
+            for (int i = 0; i < 8; i++) {
+                xHi ^= (b[off + i] & 0xffL) << (56 - 8 * i);
+                xLo ^= (b[off + 8 + i] & 0xffL) << (56 - 8 * i);
+            }
+            long zHi = 0, zLo = 0;
+            for (int i = 0; i < 8; i++) {
+                int index = (i << 8) | (int) ((xHi >>> (56 - 8 * i)) & 0xff);
+                zHi ^= tableHi[index];
+                zLo ^= tableLo[index];
+            }
+            for (int i = 0; i < 8; i++) {
+                int index = ((i + 8) << 8) | (int) ((xLo >>> (56 - 8 * i)) & 0xff);
+                zHi ^= tableHi[index];
+                zLo ^= tableLo[index];
+            }
+            yHi = zHi;
+            yLo = zLo;
+        }
+    }
+}
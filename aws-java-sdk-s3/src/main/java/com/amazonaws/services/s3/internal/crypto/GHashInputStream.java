@@ -0,0 +1,114 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.internal.crypto;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.amazonaws.internal.SdkFilterInputStream;
+
+/**
+ * Hashes the ciphertext of a part of a parallel multi-part upload as it is
+ * read.
+ *
+ * @see MultipartUploadGcmContext
+ */
+final class GHashInputStream extends SdkFilterInputStream {
+    private static final int SKIP_BUFFER_SIZE = 4096;
+
+    /** The length of the ciphertext of the part. */
+    private final long partLength;
+    private final byte[] singleByte = new byte[1];
+
+    private GHash.Accumulator accumulator;
+    private GHash.Accumulator markedAccumulator;
+
+    /**
+     * @param in
+     *            the ciphertext of the part
+     * @param partLength
+     *            the length of the ciphertext of the part, which is not
+     *            necessarily followed by the end of the stream
+     */
+    GHashInputStream(InputStream in, MultipartUploadGcmContext uploadContext,
+            long partLength) {
+        super(in);
+        this.partLength = partLength;
+        this.accumulator = uploadContext.newAccumulator();
+        this.markedAccumulator = accumulator.copy();
+    }
+
+    /**
+     * Returns the hash of the ciphertext of the part once exactly the length
+     * of the part has been read; or null otherwise. The caller usually stops
+     * reading at the end of the part without ever reaching the end of the
+     * stream.
+     */
+    long[] getPartHash() {
+        return accumulator.getLength() == partLength ? accumulator.getHash() : null;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int n;
+        while ((n = read(singleByte, 0, 1)) == 0) {
+            // Blocks until a byte is read, as required
+        }
+        return n == -1 ? -1 : singleByte[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        abortIfNeeded();
+        int n = in.read(b, off, len);
+        if (n > 0)
+            accumulator.update(b, off, n);
+        return n;
+    }
+
+    /**
+     * Reads, rather than skips, the given number of bytes, so they are
+     * included in the hash.
+     */
+    @Override
+    public long skip(long n) throws IOException {
+        abortIfNeeded();
+        if (n <= 0)
+            return 0;
+        byte[] buffer = new byte[(int) Math.min(n, SKIP_BUFFER_SIZE)];
+        long skipped = 0;
+        while (skipped < n) {
+            int count = read(buffer, 0, (int) Math.min(n - skipped, buffer.length));
+            if (count == -1)
+                break;
+            skipped += count;
+        }
+        return skipped;
+    }
+
+    @Override
+    public void mark(int readlimit) {
+        abortIfNeeded();
+        in.mark(readlimit);
+        markedAccumulator = accumulator.copy();
+    }
+
+    @Override
+    public void reset() throws IOException {
+        abortIfNeeded();
+        in.reset();
+        accumulator = markedAccumulator.copy();
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.internal.crypto;
+
+import static com.amazonaws.util.BinaryUtils.copyAllBytesFrom;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.http.annotation.GuardedBy;
+
+import com.amazonaws.services.kms.AWSKMSClient;
+import com.amazonaws.services.kms.model.GenerateDataKeyRequest;
+import com.amazonaws.services.kms.model.GenerateDataKeyResult;
+import com.amazonaws.services.s3.model.CryptoConfiguration;
+import com.amazonaws.services.s3.model.DataKeyCacheStatistics;
+
+/**
+ * Reuses the data keys generated by AWS KMS to encrypt multiple objects with
+ * the same customer master key, encryption context and key spec, until they
+ * reach their maximum age, bytes or objects.
+ *
+ * @see CryptoConfiguration#setDataKeyCacheMaxAgeMillis(long)
+ */
+final class KMSDataKeyCache {
+    /**
+     * The maximum number of data keys cached, for as many combinations of
+     * master key and encryption context; the least recently used is evicted
+     * beyond that.
+     */
+    static final int MAX_ENTRIES = 1024;
+
+    private final String keyAlgorithm;
+    private final long maxAgeNanos;
+    private final long maxBytes;
+    private final long maxObjects;
+
+    @GuardedBy("this")
+    private final Map<CacheKey, DataKey> dataKeys =
+        new LinkedHashMap<CacheKey, DataKey>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, DataKey> eldest) {
+                return size() > MAX_ENTRIES;
+            }
+        };
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong retiredCount = new AtomicLong();
+
+    /**
+     * @param keyAlgorithm
+     *            the algorithm of the content encrypting keys
+     */
+    KMSDataKeyCache(String keyAlgorithm, CryptoConfiguration cryptoConfig) {
+        this.keyAlgorithm = keyAlgorithm;
+        this.maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(
+                cryptoConfig.getDataKeyCacheMaxAgeMillis());
+        this.maxBytes = cryptoConfig.getDataKeyCacheMaxBytes();
+        this.maxObjects = cryptoConfig.getDataKeyCacheMaxObjects();
+    }
+
+    /**
+     * Returns the data key to encrypt an object with: a cached one that can
+     * still be used, or else a new one generated by AWS KMS with the given
+     * request.
+     *
+     * @param plaintextLength
+     *            the length of the object; or -1 if unknown, in which case a
+     *            new data key is generated, and not cached.
+     */
+    DataKey getDataKey(AWSKMSClient kms, GenerateDataKeyRequest req,
+            long plaintextLength) {
+        if (plaintextLength < 0 || plaintextLength > maxBytes)
+            return generateDataKey(kms, req);
+        final CacheKey cacheKey = new CacheKey(req);
+        final long now = System.nanoTime();
+        synchronized (this) {
+            DataKey dataKey = dataKeys.get(cacheKey);
+            if (dataKey != null) {
+                if (dataKey.use(plaintextLength, now)) {
+                    hitCount.incrementAndGet();
+                    return dataKey;
+                }
+                dataKeys.remove(cacheKey);
+                retiredCount.incrementAndGet();
+            }
+        }
+        // Generates the new data key without holding the lock
+        missCount.incrementAndGet();
+        DataKey dataKey = generateDataKey(kms, req);
+        synchronized (this) {
+            dataKey.use(plaintextLength, now);
+            dataKeys.put(cacheKey, dataKey);
+        }
+        return dataKey;
+    }
+
+    /**
+     * Returns a snapshot of the statistics of this cache.
+     */
+    DataKeyCacheStatistics getStatistics() {
+        int size;
+        synchronized (this) {
+            size = dataKeys.size();
+        }
+        return new DataKeyCacheStatistics(hitCount.get(), missCount.get(),
+                retiredCount.get(), size);
+    }
+
+    private DataKey generateDataKey(AWSKMSClient kms, GenerateDataKeyRequest req) {
+        GenerateDataKeyResult result = kms.generateDataKey(req);
+        return new DataKey(
+                new SecretKeySpec(copyAllBytesFrom(result.getPlaintext()), keyAlgorithm),
+                copyAllBytesFrom(result.getCiphertextBlob()),
+                System.nanoTime());
+    }
+
+    /**
+     * A data key generated by AWS KMS, and its usage so far.
+     */
+    final class DataKey {
+        private final SecretKey cek;
+        private final byte[] ciphertextBlob;
+        private final long createdNanos;
+        @GuardedBy("KMSDataKeyCache.this")
+        private long bytes;
+        @GuardedBy("KMSDataKeyCache.this")
+        private long objects;
+
+        private DataKey(SecretKey cek, byte[] ciphertextBlob, long createdNanos) {
+            this.cek = cek;
+            this.ciphertextBlob = ciphertextBlob;
+            this.createdNanos = createdNanos;
+        }
+
+        /**
+         * Returns the plaintext data key.
+         */
+        SecretKey getContentEncryptingKey() {
+            return cek;
+        }
+
+        /**
+         * Returns the data key encrypted under the customer master key.
+         */
+        byte[] getCiphertextBlob() {
+            return ciphertextBlob.clone();
+        }
+
+        /**
+         * Counts the encryption of an object of the given length with this
+         * data key, and returns true; or returns false if that would exceed
+         * the limits of the cache.
+         */
+        private boolean use(long plaintextLength, long now) {
+            if (now - createdNanos >= maxAgeNanos
+                    || objects >= maxObjects
+                    || bytes + plaintextLength > maxBytes
+                    || bytes + plaintextLength < 0) {
+                return false;
+            }
+            objects++;
+            bytes += plaintextLength;
+            return true;
+        }
+    }
+
+    /**
+     * The parameters of a data key request that a cached data key must match.
+     */
+    private static final class CacheKey {
+        private final String keyId;
+        private final Map<String, String> encryptionContext;
+        private final String keySpec;
+
+        CacheKey(GenerateDataKeyRequest req) {
+            this.keyId = req.getKeyId();
+            this.encryptionContext = req.getEncryptionContext() == null
+                ? new HashMap<String, String>()
+                : new HashMap<String, String>(req.getEncryptionContext());
+            this.keySpec = req.getKeySpec();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof CacheKey))
+                return false;
+            CacheKey that = (CacheKey) o;
+            return (keyId == null ? that.keyId == null : keyId.equals(that.keyId))
+                && encryptionContext.equals(that.encryptionContext)
+                && (keySpec == null ? that.keySpec == null : keySpec.equals(that.keySpec));
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = keyId == null ? 0 : keyId.hashCode();
+            hash = 31 * hash + encryptionContext.hashCode();
+            return 31 * hash + (keySpec == null ? 0 : keySpec.hashCode());
+        }
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.internal.crypto;
+
+import static com.amazonaws.services.s3.internal.crypto.ContentCryptoScheme.AES_GCM;
+import static com.amazonaws.util.Throwables.failure;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Cipher;
+
+import org.apache.http.annotation.GuardedBy;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.model.SSECustomerKey;
+
+/**
+ * The context of a multi-part upload whose parts are encrypted independently
+ * of each other, so they can be uploaded in parallel.
+ * <p>
+ * Each part is encrypted with AES/CTR from the counter block of its offset in
+ * the object, which yields the same ciphertext as the serial AES/GCM
+ * encryption of the whole object. The GHASH of the ciphertext of each part is
+ * recorded as the part is uploaded. Once all the parts have been uploaded, the
+ * AES/GCM tag is put together from their hashes, and uploaded as an extra
+ * part that follows the last one. The uploaded object can therefore be
+ * decrypted and authenticated just like one that was uploaded in series.
+ * <p>
+ * All the parts but the last must be of the same size, so the offset of each
+ * part follows from its part number.
+ */
+class MultipartUploadGcmContext extends MultipartUploadCryptoContext {
+    /**
+     * How long the last part waits for another part to start, so that the
+     * offset of the last part is known, before giving up.
+     */
+    static final long MAX_PART_SIZE_WAIT_MILLIS = TimeUnit.SECONDS.toMillis(60);
+    /** The highest part number of a multi-part upload. */
+    static final int MAX_PART_NUMBER = 10000;
+
+    private final GHash ghash;
+    /** The encryption of the pre-counter block J0, to mask the tag with. */
+    private final byte[] encryptedJ0;
+
+    @GuardedBy("this")
+    private long partSize = -1;
+    @GuardedBy("this")
+    private final Map<Integer, long[]> partHashes = new HashMap<Integer, long[]>();
+    @GuardedBy("this")
+    private final Set<Integer> failedParts = new HashSet<Integer>();
+    @GuardedBy("this")
+    private int lastPartNumber = -1;
+    @GuardedBy("this")
+    private long lastPartLength;
+    @GuardedBy("this")
+    private SSECustomerKey sseCustomerKey;
+
+    MultipartUploadGcmContext(String bucketName, String key,
+            ContentCryptoMaterial cekMaterial) {
+        super(bucketName, key, cekMaterial);
+        CipherLite cipherLite = cekMaterial.getCipherLite();
+        if (cipherLite.getContentCryptoScheme() != AES_GCM)
+            throw new IllegalArgumentException(
+                    "Only AES/GCM encrypted parts can be uploaded in parallel");
+        byte[] iv = cipherLite.getIV();
+        if (iv.length != 12)
+            throw new IllegalArgumentException(
+                    "Parts can only be encrypted in parallel with a 12-byte AES/GCM IV (ivLength="
+                            + iv.length + ")");
+        byte[] j0 = new byte[GHash.BLOCK_SIZE];
+        System.arraycopy(iv, 0, j0, 0, iv.length);
+        j0[GHash.BLOCK_SIZE - 1] = 0x01;
+        try {
+            Cipher aes = Cipher.getInstance("AES/ECB/NoPadding",
+                    cipherLite.getCipherProvider());
+            aes.init(Cipher.ENCRYPT_MODE, cipherLite.getSecretKey());
+            this.ghash = new GHash(aes.doFinal(new byte[GHash.BLOCK_SIZE]));
+            this.encryptedJ0 = aes.doFinal(j0);
+        } catch (Exception e) {
+            throw failure(e, "Unable to derive the AES/GCM hash subkey");
+        }
+    }
+
+    /**
+     * Returns a new accumulator for the hash of the ciphertext of a part.
+     */
+    GHash.Accumulator newAccumulator() {
+        return ghash.newAccumulator();
+    }
+
+    /**
+     * Returns a new cipher lite that encrypts the part at the given offset of
+     * the object.
+     */
+    CipherLite createCipherLiteForPart(long partOffset) {
+        try {
+            return getCipherLite().createAuxiliary(partOffset);
+        } catch (Exception e) {
+            throw failure(e, "Unable to create the cipher of the part");
+        }
+    }
+
+    /**
+     * Marks the start of the upload of a part, and returns its offset in the
+     * object. Unless it is the first part, the last part waits until another
+     * part has started, which tells the size of the other parts.
+     *
+     * @throws AmazonClientException
+     *             if the size of the part differs from the size of the other
+     *             parts, or if no other part started in time for the last
+     *             part to be encrypted
+     */
+    synchronized long beginPart(int partNumber, long partSize, boolean isLastPart) {
+        if (partNumber < 1)
+            throw new IllegalArgumentException("part number must be at least 1");
+        if (isLastPart) {
+            if (partNumber >= MAX_PART_NUMBER) {
+                throw new AmazonClientException(
+                        "The last part of an upload encrypted in parallel must be numbered below "
+                                + MAX_PART_NUMBER + ", as its tag is uploaded as an extra part (partNumber="
+                                + partNumber + ")");
+            }
+            if (partNumber == 1)
+                return 0;
+            awaitPartSize();
+            return (partNumber - 1) * this.partSize;
+        }
+        if (this.partSize < 0) {
+            this.partSize = partSize;
+            notifyAll();
+        } else if (this.partSize != partSize) {
+            throw new AmazonClientException(
+                    "Parts uploaded in parallel are required to be of the same size, with the exception of the last part (partSize="
+                            + this.partSize + ", nextPartSize=" + partSize + ")");
+        }
+        return (partNumber - 1) * partSize;
+    }
+
+    /**
+     * Marks the end of the upload of a part.
+     *
+     * @param partHash
+     *            the hash of the ciphertext of the part if the part was
+     *            uploaded; or null if the upload failed.
+     */
+    synchronized void endPart(int partNumber, long[] partHash) {
+        if (partHash != null) {
+            partHashes.put(partNumber, partHash);
+            failedParts.remove(partNumber);
+        } else if (!partHashes.containsKey(partNumber)) {
+            failedParts.add(partNumber);
+        }
+    }
+
+    /**
+     * Marks the end of the upload of the last part.
+     *
+     * @param partHash
+     *            the hash of the ciphertext of the part
+     * @param partLength
+     *            the length of the ciphertext of the part
+     * @param sseCustomerKey
+     *            the customer-provided key the part was uploaded with, which
+     *            the tag must be uploaded with too; or null.
+     */
+    synchronized void endLastPart(int partNumber, long[] partHash,
+            long partLength, SSECustomerKey sseCustomerKey) {
+        endPart(partNumber, partHash);
+        this.lastPartNumber = partNumber;
+        this.lastPartLength = partLength;
+        this.sseCustomerKey = sseCustomerKey;
+    }
+
+    /** Returns the number of the part that holds the tag. */
+    synchronized int getTagPartNumber() {
+        if (lastPartNumber < 0)
+            throw new IllegalStateException("The last part hasn't been uploaded");
+        return lastPartNumber + 1;
+    }
+
+    /** Returns the customer-provided key to upload the tag with, or null. */
+    synchronized SSECustomerKey getSSECustomerKey() {
+        return sseCustomerKey;
+    }
+
+    /**
+     * Returns the tag of the object, once all the parts have been uploaded.
+     *
+     * @throws AmazonClientException
+     *             if the upload of a part failed or never finished
+     */
+    synchronized byte[] computeTag() {
+        if (lastPartNumber < 0)
+            throw new IllegalStateException("The last part hasn't been uploaded");
+        long[] hash = { 0L, 0L };
+        long blocksPerPart = partSize / GHash.BLOCK_SIZE;
+        for (int partNumber = 1; partNumber <= lastPartNumber; partNumber++) {
+            long[] partHash = partHashes.get(partNumber);
+            if (partHash == null) {
+                throw new AmazonClientException(failedParts.contains(partNumber)
+                        ? "Unable to compute the tag of the object, as the upload of part "
+                                + partNumber + " failed"
+                        : "Unable to compute the tag of the object, as part "
+                                + partNumber + " hasn't been uploaded");
+            }
+            hash = ghash.shift(hash, partNumber < lastPartNumber
+                    ? blocksPerPart
+                    : (lastPartLength + GHash.BLOCK_SIZE - 1) / GHash.BLOCK_SIZE);
+            hash[0] ^= partHash[0];
+            hash[1] ^= partHash[1];
+        }
+        long lastPartOffset = lastPartNumber == 1 ? 0 : (lastPartNumber - 1) * partSize;
+        return ghash.tag(hash, encryptedJ0, lastPartOffset + lastPartLength);
+    }
+
+    @GuardedBy("this")
+    private void awaitPartSize() {
+        long deadline = System.nanoTime()
+                + TimeUnit.MILLISECONDS.toNanos(MAX_PART_SIZE_WAIT_MILLIS);
+        try {
+            while (partSize < 0) {
+                long remainingMillis = TimeUnit.NANOSECONDS.toMillis(
+                        deadline - System.nanoTime());
+                if (remainingMillis <= 0) {
+                    throw new AmazonClientException(
+                            "Unable to encrypt the last part, as no other part has been started.  "
+                                    + "The last part must be uploaded after, or concurrently with, another part.");
+                }
+                wait(remainingMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException(
+                    "Interrupted while waiting for another part to start", e);
+        }
+    }
+}
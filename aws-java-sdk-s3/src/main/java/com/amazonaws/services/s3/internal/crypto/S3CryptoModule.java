@@ -24,6 +24,7 @@ import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
 import com.amazonaws.services.s3.model.CopyPartRequest;
 import com.amazonaws.services.s3.model.CopyPartResult;
 import com.amazonaws.services.s3.model.CryptoMode;
+import com.amazonaws.services.s3.model.DataKeyCacheStatistics;
 import com.amazonaws.services.s3.model.EncryptedGetObjectRequest;
 import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
@@ -64,6 +65,23 @@ public abstract class S3CryptoModule<T extends MultipartUploadContext> {
 
     public abstract void abortMultipartUploadSecurely(AbortMultipartUploadRequest req);
 
+    /**
+     * Returns true if the parts of multipart uploads are encrypted
+     * independently of each other, so they can be uploaded in parallel;
+     * false by default.
+     */
+    public boolean isMultipartUploadParallelizable() {
+        return false;
+    }
+
+    /**
+     * Returns the statistics of the reuse of the data keys generated by AWS
+     * KMS; or null if data keys aren't reused.
+     */
+    public DataKeyCacheStatistics getDataKeyCacheStatistics() {
+        return null;
+    }
+
     /**
      * @return the result of putting the instruction file in S3; or null if the
      *         specified S3 object doesn't exist. The S3 object can be
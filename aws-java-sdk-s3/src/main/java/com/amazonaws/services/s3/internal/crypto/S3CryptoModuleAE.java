@@ -18,6 +18,7 @@ import static com.amazonaws.services.s3.AmazonS3EncryptionClient.USER_AGENT;
 import static com.amazonaws.services.s3.model.CryptoMode.AuthenticatedEncryption;
 import static com.amazonaws.services.s3.model.CryptoMode.StrictAuthenticatedEncryption;
 import static com.amazonaws.services.s3.model.ExtraMaterialsDescription.NONE;
+import static com.amazonaws.services.s3.model.S3DataSource.Utils.cleanupDataSource;
 import static com.amazonaws.util.IOUtils.closeQuietly;
 
 import java.io.BufferedOutputStream;
@@ -27,7 +28,9 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 import com.amazonaws.AmazonClientException;
@@ -36,6 +39,8 @@ import com.amazonaws.auth.DefaultAWSCredentialsProviderChain;
 import com.amazonaws.internal.SdkFilterInputStream;
 import com.amazonaws.services.kms.AWSKMSClient;
 import com.amazonaws.services.s3.internal.S3Direct;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
 import com.amazonaws.services.s3.model.CryptoConfiguration;
 import com.amazonaws.services.s3.model.CryptoMode;
 import com.amazonaws.services.s3.model.EncryptedGetObjectRequest;
@@ -44,10 +49,12 @@ import com.amazonaws.services.s3.model.ExtraMaterialsDescription;
 import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
 import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
 import com.amazonaws.services.s3.model.S3Object;
 import com.amazonaws.services.s3.model.S3ObjectId;
 import com.amazonaws.services.s3.model.S3ObjectInputStream;
 import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
 import com.amazonaws.util.json.Jackson;
 
 /**
@@ -362,10 +369,142 @@ class S3CryptoModuleAE extends S3CryptoModuleBase<MultipartUploadCryptoContext>
     @Override
     final MultipartUploadCryptoContext newUploadContext(
             InitiateMultipartUploadRequest req, ContentCryptoMaterial cekMaterial) {
+        if (isMultipartUploadParallelizable()) {
+            return new MultipartUploadGcmContext(
+                    req.getBucketName(), req.getKey(), cekMaterial);
+        }
         return new MultipartUploadCryptoContext(
                 req.getBucketName(), req.getKey(), cekMaterial);
     }
 
+    @Override
+    public boolean isMultipartUploadParallelizable() {
+        return cryptoConfig.isParallelMultipartUpload()
+            && contentCryptoScheme == ContentCryptoScheme.AES_GCM;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * If the parts are encrypted independently of each other, as configured
+     * with {@link CryptoConfiguration#setParallelMultipartUpload(boolean)},
+     * they can be uploaded in parallel.
+     */
+    @Override
+    public UploadPartResult uploadPartSecurely(UploadPartRequest req) {
+        MultipartUploadCryptoContext uploadContext =
+                multipartUploadContexts.get(req.getUploadId());
+        if (uploadContext instanceof MultipartUploadGcmContext) {
+            return uploadPartInParallel(req,
+                    (MultipartUploadGcmContext) uploadContext);
+        }
+        return super.uploadPartSecurely(req);
+    }
+
+    /**
+     * Uploads a part encrypted independently of the other parts, and records
+     * the hash of its ciphertext. The tag of the whole object is uploaded on
+     * completion of the upload.
+     */
+    private UploadPartResult uploadPartInParallel(UploadPartRequest req,
+            MultipartUploadGcmContext uploadContext) {
+        appendUserAgent(req, USER_AGENT);
+        final int blockSize = contentCryptoScheme.getBlockSizeInBytes();
+        final int partNumber = req.getPartNumber();
+        final boolean isLastPart = req.isLastPart();
+        final long partSize = req.getPartSize();
+        if (!isLastPart && partSize % blockSize != 0) {
+            throw new AmazonClientException(
+                "Invalid part size: part sizes for encrypted multipart uploads must be multiples "
+                    + "of the cipher block size ("
+                    + blockSize
+                    + ") with the exception of the last part.");
+        }
+        if (isLastPart && uploadContext.hasFinalPartBeenSeen()) {
+            throw new AmazonClientException(
+                "This part was specified as the last part in a multipart upload, but a previous part was already marked as the last part.  "
+              + "Only the last part of the upload should be marked as the last part.");
+        }
+        final long partOffset = uploadContext.beginPart(partNumber, partSize, isLastPart);
+        final File fileOrig = req.getFile();
+        final InputStream isOrig = req.getInputStream();
+        InputStream isCurr = null;
+        GHashInputStream ghis = null;
+        final UploadPartResult result;
+        boolean success = false;
+        try {
+            CipherLite cipherLite = uploadContext.createCipherLiteForPart(partOffset);
+            isCurr = newMultipartS3CipherInputStream(req, cipherLite)
+                    .releaseCipherLiteOnClose();
+            isCurr = ghis = new GHashInputStream(isCurr, uploadContext, partSize);
+            req.setInputStream(isCurr);
+            // Treat all encryption requests as input stream upload requests,
+            // not as file upload requests.
+            req.setFile(null);
+            req.setFileOffset(0);
+            result = s3.uploadPart(req);
+            success = true;
+        } finally {
+            cleanupDataSource(req, fileOrig, isOrig, isCurr, log);
+            long[] partHash = success ? ghis.getPartHash() : null;
+            if (isLastPart && partHash != null) {
+                uploadContext.endLastPart(partNumber, partHash, partSize,
+                        req.getSSECustomerKey());
+            } else {
+                uploadContext.endPart(partNumber, partHash);
+            }
+        }
+        if (isLastPart)
+            uploadContext.setHasFinalPartBeenSeen(true);
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * If the parts were encrypted independently of each other, the tag of the
+     * object is first uploaded as an extra part, and added to the parts to
+     * complete the upload with.
+     */
+    @Override
+    public CompleteMultipartUploadResult completeMultipartUploadSecurely(
+            CompleteMultipartUploadRequest req) {
+        MultipartUploadCryptoContext uploadContext =
+                multipartUploadContexts.get(req.getUploadId());
+        if (uploadContext instanceof MultipartUploadGcmContext
+                && uploadContext.hasFinalPartBeenSeen()) {
+            uploadTagPart(req, (MultipartUploadGcmContext) uploadContext);
+        }
+        return super.completeMultipartUploadSecurely(req);
+    }
+
+    private void uploadTagPart(CompleteMultipartUploadRequest req,
+            MultipartUploadGcmContext uploadContext) {
+        byte[] tag = uploadContext.computeTag();
+        int tagPartNumber = uploadContext.getTagPartNumber();
+        UploadPartRequest tagReq = new UploadPartRequest()
+            .withBucketName(req.getBucketName())
+            .withKey(req.getKey())
+            .withUploadId(req.getUploadId())
+            .withPartNumber(tagPartNumber)
+            .withInputStream(new ByteArrayInputStream(tag))
+            .withPartSize(tag.length)
+            .withLastPart(true);
+        tagReq.setSSECustomerKey(uploadContext.getSSECustomerKey());
+        tagReq.setRequestMetricCollector(req.getRequestMetricCollector());
+        appendUserAgent(tagReq, USER_AGENT);
+        PartETag tagETag = s3.uploadPart(tagReq).getPartETag();
+
+        List<PartETag> partETags = new ArrayList<PartETag>();
+        for (PartETag partETag : req.getPartETags()) {
+            // The tag may have been uploaded by an earlier attempt
+            if (partETag.getPartNumber() != tagPartNumber)
+                partETags.add(partETag);
+        }
+        partETags.add(tagETag);
+        req.setPartETags(partETags);
+    }
+
     //// specific overrides for uploading parts.
     @Override
     final CipherLite cipherLiteForNextPart(
@@ -407,7 +546,7 @@ class S3CryptoModuleAE extends S3CryptoModuleBase<MultipartUploadCryptoContext>
         wrapper.setObjectContent(new S3ObjectInputStream(
                 new CipherLiteInputStream(objectContent, 
                     cekMaterial.getCipherLite(),
-                    DEFAULT_BUFFER_SIZE),
+                    DEFAULT_BUFFER_SIZE).releaseCipherLiteOnClose(),
                     objectContent.getHttpRequest()));
         return wrapper;
     }
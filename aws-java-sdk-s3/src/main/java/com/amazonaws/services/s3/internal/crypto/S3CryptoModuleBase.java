@@ -66,6 +66,7 @@ import com.amazonaws.services.s3.model.CopyPartRequest;
 import com.amazonaws.services.s3.model.CopyPartResult;
 import com.amazonaws.services.s3.model.CryptoConfiguration;
 import com.amazonaws.services.s3.model.CryptoMode;
+import com.amazonaws.services.s3.model.DataKeyCacheStatistics;
 import com.amazonaws.services.s3.model.EncryptionMaterials;
 import com.amazonaws.services.s3.model.EncryptionMaterialsFactory;
 import com.amazonaws.services.s3.model.EncryptionMaterialsProvider;
@@ -106,6 +107,8 @@ public abstract class S3CryptoModuleBase<T extends MultipartUploadCryptoContext>
         Collections.synchronizedMap(new HashMap<String,T>());
     protected final S3Direct s3;
     protected final AWSKMSClient kms;
+    /** The data keys reused for multiple objects; or null if not enabled. */
+    private final KMSDataKeyCache dataKeyCache;
 
     /**
      * @param cryptoConfig a read-only copy of the crypto configuration.
@@ -122,6 +125,7 @@ public abstract class S3CryptoModuleBase<T extends MultipartUploadCryptoContext>
         this.cryptoScheme = S3CryptoScheme.from(cryptoConfig.getCryptoMode());
         this.contentCryptoScheme = cryptoScheme.getContentCryptoScheme();
         this.kms = kms;
+        this.dataKeyCache = newDataKeyCache();
     }
 
     /**
@@ -137,6 +141,19 @@ public abstract class S3CryptoModuleBase<T extends MultipartUploadCryptoContext>
         this.cryptoScheme = S3CryptoScheme.from(cryptoConfig.getCryptoMode());
         this.contentCryptoScheme = cryptoScheme.getContentCryptoScheme();
         this.kms = null;
+        this.dataKeyCache = newDataKeyCache();
+    }
+
+    private KMSDataKeyCache newDataKeyCache() {
+        return cryptoConfig.getDataKeyCacheMaxAgeMillis() > 0
+             ? new KMSDataKeyCache(
+                   contentCryptoScheme.getKeyGeneratorAlgorithm(), cryptoConfig)
+             : null;
+    }
+
+    @Override
+    public DataKeyCacheStatistics getDataKeyCacheStatistics() {
+        return dataKeyCache == null ? null : dataKeyCache.getStatistics();
     }
 
     /**
@@ -165,7 +182,7 @@ public abstract class S3CryptoModuleBase<T extends MultipartUploadCryptoContext>
         // Wraps the object data with a cipher input stream
         final File fileOrig = req.getFile();
         final InputStream isOrig = req.getInputStream();
-        PutObjectRequest wrappedReq = wrapWithCipher(req, cekMaterial);
+        PutObjectRequest wrappedReq = wrapWithCipher(req, cekMaterial, true);
         // Update the metadata
         req.setMetadata(updateMetadataWithContentCryptoMaterial(
                 req.getMetadata(), req.getFile(), cekMaterial));
@@ -201,7 +218,7 @@ public abstract class S3CryptoModuleBase<T extends MultipartUploadCryptoContext>
         ContentCryptoMaterial cekMaterial = createContentCryptoMaterial(putObjectRequest);
         // Wraps the object data with a cipher input stream; note the metadata
         // is mutated as a side effect.
-        PutObjectRequest req = wrapWithCipher(putObjectRequest, cekMaterial);
+        PutObjectRequest req = wrapWithCipher(putObjectRequest, cekMaterial, true);
         // Put the encrypted object into S3
         final PutObjectResult result;
         try {
@@ -526,11 +543,19 @@ public abstract class S3CryptoModuleBase<T extends MultipartUploadCryptoContext>
                 .withGeneralProgressListener(req.getGeneralProgressListener())
                 .withRequestMetricCollector(req.getRequestMetricCollector())
                 ;
-            GenerateDataKeyResult keyGenRes = kms.generateDataKey(keyGenReq);
-            final SecretKey cek = 
-                new SecretKeySpec(copyAllBytesFrom(keyGenRes.getPlaintext()),
+            final SecretKey cek;
+            final byte[] keyBlob;
+            if (dataKeyCache == null) {
+                GenerateDataKeyResult keyGenRes = kms.generateDataKey(keyGenReq);
+                cek = new SecretKeySpec(copyAllBytesFrom(keyGenRes.getPlaintext()),
                         contentCryptoScheme.getKeyGeneratorAlgorithm());
-            byte[] keyBlob = copyAllBytesFrom(keyGenRes.getCiphertextBlob());
+                keyBlob = copyAllBytesFrom(keyGenRes.getCiphertextBlob());
+            } else {
+                KMSDataKeyCache.DataKey dataKey = dataKeyCache.getDataKey(
+                        kms, keyGenReq, plaintextLength(req));
+                cek = dataKey.getContentEncryptingKey();
+                keyBlob = dataKey.getCiphertextBlob();
+            }
             return ContentCryptoMaterial.wrap(cek, iv,
                     kekMaterials, contentCryptoScheme, provider,
                     new KMSSecuredCEK(keyBlob));
@@ -593,6 +618,18 @@ public abstract class S3CryptoModuleBase<T extends MultipartUploadCryptoContext>
      */
     protected final <R extends AbstractPutObjectRequest> R wrapWithCipher(
             final R request, ContentCryptoMaterial cekMaterial) {
+        return wrapWithCipher(request, cekMaterial, false);
+    }
+
+    /**
+     * @param isSingleUse
+     *            true if the cipher of the given material encrypts nothing
+     *            but this request, and can be reused once the content has
+     *            been read; false otherwise.
+     */
+    private <R extends AbstractPutObjectRequest> R wrapWithCipher(
+            final R request, ContentCryptoMaterial cekMaterial,
+            boolean isSingleUse) {
         // Create a new metadata object if there is no metadata already.
         ObjectMetadata metadata = request.getMetadata();
         if (metadata == null) {
@@ -618,8 +655,11 @@ public abstract class S3CryptoModuleBase<T extends MultipartUploadCryptoContext>
             metadata.setContentLength(ciphertextLength(plaintextLength));
         }
         request.setMetadata(metadata);
-        request.setInputStream(newS3CipherLiteInputStream(
-            request, cekMaterial, plaintextLength));
+        CipherLiteInputStream cipherStream = newS3CipherLiteInputStream(
+            request, cekMaterial, plaintextLength);
+        request.setInputStream(isSingleUse
+            ? cipherStream.releaseCipherLiteOnClose()
+            : cipherStream);
         // Treat all encryption requests as input stream upload requests, not as
         // file upload requests.
         request.setFile(null);
@@ -678,6 +718,19 @@ public abstract class S3CryptoModuleBase<T extends MultipartUploadCryptoContext>
         return -1;
     }
 
+    /**
+     * Returns the plaintext length of the object of the given request; or -1
+     * if unknown, or if the request is not for a single object.
+     */
+    private long plaintextLength(AmazonWebServiceRequest req) {
+        if (!(req instanceof AbstractPutObjectRequest))
+            return -1;
+        AbstractPutObjectRequest putReq = (AbstractPutObjectRequest) req;
+        ObjectMetadata metadata = putReq.getMetadata();
+        return plaintextLength(putReq,
+                metadata == null ? new ObjectMetadata() : metadata);
+    }
+
     public final S3CryptoScheme getS3CryptoScheme() {
         return cryptoScheme;
     }
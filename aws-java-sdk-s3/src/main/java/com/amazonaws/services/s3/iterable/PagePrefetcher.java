@@ -0,0 +1,186 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.iterable;
+
+import java.util.LinkedList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.amazonaws.AmazonClientException;
+
+/**
+ * Fetches the pages of a listing in the background, up to a fixed number of
+ * pages ahead of the page the caller is working through.
+ * <p>
+ * Each page can only be requested once the previous one has arrived, so the
+ * pages are fetched one after another by a single task at a time. The task
+ * stops when it is the given number of pages ahead, and is resubmitted when
+ * the caller takes a page, so no thread is held while the caller is busy and
+ * an abandoned listing costs at most that many pages.
+ *
+ * @param <P>
+ *            The type of the listing pages.
+ */
+abstract class PagePrefetcher<P> {
+
+    private static ExecutorService defaultExecutorService;
+
+    private final ExecutorService executorService;
+    private final int depth;
+
+    /** Pages fetched but not yet taken by the caller. */
+    private final LinkedList<P> pages = new LinkedList<P>();
+
+    /** The most recently fetched page, from which the next one is requested. */
+    private P lastPage;
+
+    private boolean started;
+    private boolean fetching;
+    private boolean complete;
+    private RuntimeException failure;
+
+    /**
+     * @param executorService
+     *            The executor to fetch pages with, or null to use a shared
+     *            pool of daemon threads.
+     * @param depth
+     *            The maximum number of pages to fetch ahead of the caller.
+     */
+    PagePrefetcher(ExecutorService executorService, int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Prefetch depth must be at least 1");
+        }
+        this.executorService = executorService == null ? defaultExecutorService() : executorService;
+        this.depth = depth;
+    }
+
+    /** Requests the first page of the listing. */
+    protected abstract P fetchFirstPage();
+
+    /** Requests the page that follows the given, truncated, page. */
+    protected abstract P fetchNextPage(P previousPage);
+
+    /** Returns whether more pages follow the given page. */
+    protected abstract boolean isTruncated(P page);
+
+    /**
+     * Returns the next page of the listing, waiting for it to arrive if
+     * necessary, or null if all pages have been returned.
+     *
+     * @throws AmazonClientException
+     *             If fetching the page failed, or the calling thread was
+     *             interrupted while waiting for it.
+     */
+    synchronized P nextPage() {
+        if (!started) {
+            started = true;
+            startFetching();
+        }
+        try {
+            while (pages.isEmpty() && failure == null && !complete) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException("Interrupted while waiting for the next listing page", e);
+        }
+
+        if (!pages.isEmpty()) {
+            P page = pages.removeFirst();
+            if (!fetching && !complete && failure == null) {
+                startFetching();
+            }
+            return page;
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return null;
+    }
+
+    /** Must be called while holding this object's lock. */
+    private void startFetching() {
+        fetching = true;
+        try {
+            executorService.execute(new Runnable() {
+                @Override
+                public void run() {
+                    fetchPages();
+                }
+            });
+        } catch (RuntimeException e) {
+            fetching = false;
+            throw e;
+        }
+    }
+
+    private void fetchPages() {
+        P previousPage;
+        synchronized (this) {
+            previousPage = lastPage;
+        }
+        while (true) {
+            P page;
+            try {
+                page = previousPage == null ? fetchFirstPage() : fetchNextPage(previousPage);
+            } catch (Throwable t) {
+                synchronized (this) {
+                    failure = t instanceof RuntimeException
+                            ? (RuntimeException) t
+                            : new AmazonClientException("Unable to fetch the next listing page", t);
+                    fetching = false;
+                    notifyAll();
+                }
+                return;
+            }
+
+            synchronized (this) {
+                pages.addLast(page);
+                lastPage = page;
+                notifyAll();
+                if (!isTruncated(page)) {
+                    complete = true;
+                    fetching = false;
+                    return;
+                }
+                if (pages.size() >= depth) {
+                    // Resumed by nextPage once the caller catches up
+                    fetching = false;
+                    return;
+                }
+            }
+            previousPage = page;
+        }
+    }
+
+    private static synchronized ExecutorService defaultExecutorService() {
+        if (defaultExecutorService == null) {
+            defaultExecutorService = Executors.newCachedThreadPool(new ThreadFactory() {
+                private final AtomicInteger threadCount = new AtomicInteger(0);
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r);
+                    thread.setName("s3-listing-prefetch-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return defaultExecutorService;
+    }
+}
@@ -15,6 +15,7 @@
 package com.amazonaws.services.s3.iterable;
 
 import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
 
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.ListObjectsRequest;
@@ -34,6 +35,11 @@ import com.amazonaws.services.s3.model.S3ObjectSummary;
  * The list of {@link S3ObjectSummary}s will be fetched lazily, a page at a
  * time, as they are needed. The size of the page can be controlled with the
  * {@link S3Objects#withBatchSize(int)} method.
+ * <p>
+ * By default the next page is only requested once the current one has been
+ * iterated through. With {@link S3Objects#withPrefetchDepth(int)}, the
+ * following pages are requested in the background while the caller works
+ * through the current one.
  */
 public class S3Objects implements Iterable<S3ObjectSummary> {
 
@@ -41,6 +47,8 @@ public class S3Objects implements Iterable<S3ObjectSummary> {
     private String prefix = null;
     private String bucketName;
     private Integer batchSize = null;
+    private int prefetchDepth = 0;
+    private ExecutorService executorService = null;
 
     private S3Objects(AmazonS3 s3, String bucketName) {
         this.s3 = s3;
@@ -91,6 +99,35 @@ public class S3Objects implements Iterable<S3ObjectSummary> {
         return this;
     }
 
+    /**
+     * Sets how many pages of {@link S3ObjectSummary}s may be fetched in the
+     * background, ahead of the page being iterated. Zero, the default, fetches
+     * each page only when it is needed.
+     *
+     * @param prefetchDepth
+     *            The maximum number of pages to fetch ahead.
+     */
+    public S3Objects withPrefetchDepth(int prefetchDepth) {
+        if (prefetchDepth < 0) {
+            throw new IllegalArgumentException("Prefetch depth must not be negative");
+        }
+        this.prefetchDepth = prefetchDepth;
+        return this;
+    }
+
+    /**
+     * Sets the executor used to fetch pages in the background when a
+     * prefetch depth is set. If none is set, a shared pool of daemon threads
+     * is used.
+     *
+     * @param executorService
+     *            The executor to fetch pages with.
+     */
+    public S3Objects withExecutorService(ExecutorService executorService) {
+        this.executorService = executorService;
+        return this;
+    }
+
     public Integer getBatchSize() {
         return batchSize;
     }
@@ -107,12 +144,24 @@ public class S3Objects implements Iterable<S3ObjectSummary> {
         return s3;
     }
 
+    public int getPrefetchDepth() {
+        return prefetchDepth;
+    }
+
+    public ExecutorService getExecutorService() {
+        return executorService;
+    }
+
     private class S3ObjectIterator implements Iterator<S3ObjectSummary> {
 
         private ObjectListing currentListing = null;
 
         private Iterator<S3ObjectSummary> currentIterator = null;
 
+        private final PagePrefetcher<ObjectListing> prefetcher = getPrefetchDepth() > 0
+                ? new ObjectListingPrefetcher()
+                : null;
+
         @Override
         public boolean hasNext() {
             prepareCurrentListing();
@@ -133,12 +182,10 @@ public class S3Objects implements Iterable<S3ObjectSummary> {
         private void prepareCurrentListing() {
             while ( currentListing == null || (!currentIterator.hasNext() && currentListing.isTruncated()) ) {
 
-                if ( currentListing == null ) {
-                    ListObjectsRequest req = new ListObjectsRequest();
-                    req.setBucketName(getBucketName());
-                    req.setPrefix(getPrefix());
-                    req.setMaxKeys(getBatchSize());
-                    currentListing = getS3().listObjects(req);
+                if ( prefetcher != null ) {
+                    currentListing = prefetcher.nextPage();
+                } else if ( currentListing == null ) {
+                    currentListing = listFirstBatchOfObjects();
                 } else {
                     currentListing = getS3().listNextBatchOfObjects(currentListing);
                 }
@@ -149,6 +196,36 @@ public class S3Objects implements Iterable<S3ObjectSummary> {
 
     }
 
+    private ObjectListing listFirstBatchOfObjects() {
+        ListObjectsRequest req = new ListObjectsRequest();
+        req.setBucketName(getBucketName());
+        req.setPrefix(getPrefix());
+        req.setMaxKeys(getBatchSize());
+        return getS3().listObjects(req);
+    }
+
+    private class ObjectListingPrefetcher extends PagePrefetcher<ObjectListing> {
+
+        ObjectListingPrefetcher() {
+            super(getExecutorService(), getPrefetchDepth());
+        }
+
+        @Override
+        protected ObjectListing fetchFirstPage() {
+            return listFirstBatchOfObjects();
+        }
+
+        @Override
+        protected ObjectListing fetchNextPage(ObjectListing previousPage) {
+            return getS3().listNextBatchOfObjects(previousPage);
+        }
+
+        @Override
+        protected boolean isTruncated(ObjectListing page) {
+            return page.isTruncated();
+        }
+    }
+
     @Override
     public Iterator<S3ObjectSummary> iterator() {
         return new S3ObjectIterator();
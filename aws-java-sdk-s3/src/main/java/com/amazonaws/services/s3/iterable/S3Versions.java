@@ -15,6 +15,7 @@
 package com.amazonaws.services.s3.iterable;
 
 import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
 
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.ListVersionsRequest;
@@ -34,6 +35,11 @@ import com.amazonaws.services.s3.model.VersionListing;
  * The list of {@link S3VersionSummary}s will be fetched lazily, a page at a
  * time, as they are needed. The size of the page can be controlled with the
  * {@link S3Versions#withBatchSize(int)} method.
+ * <p>
+ * By default the next page is only requested once the current one has been
+ * iterated through. With {@link S3Versions#withPrefetchDepth(int)}, the
+ * following pages are requested in the background while the caller works
+ * through the current one.
  */
 public class S3Versions implements Iterable<S3VersionSummary> {
 
@@ -42,6 +48,8 @@ public class S3Versions implements Iterable<S3VersionSummary> {
     private String prefix;
     private String key;
     private Integer batchSize;
+    private int prefetchDepth = 0;
+    private ExecutorService executorService;
 
     private S3Versions(AmazonS3 s3, String bucketName) {
         this.s3 = s3;
@@ -111,6 +119,35 @@ public class S3Versions implements Iterable<S3VersionSummary> {
         return this;
     }
 
+    /**
+     * Sets how many pages of {@link S3VersionSummary}s may be fetched in the
+     * background, ahead of the page being iterated. Zero, the default, fetches
+     * each page only when it is needed.
+     *
+     * @param prefetchDepth
+     *            The maximum number of pages to fetch ahead.
+     */
+    public S3Versions withPrefetchDepth(int prefetchDepth) {
+        if (prefetchDepth < 0) {
+            throw new IllegalArgumentException("Prefetch depth must not be negative");
+        }
+        this.prefetchDepth = prefetchDepth;
+        return this;
+    }
+
+    /**
+     * Sets the executor used to fetch pages in the background when a
+     * prefetch depth is set. If none is set, a shared pool of daemon threads
+     * is used.
+     *
+     * @param executorService
+     *            The executor to fetch pages with.
+     */
+    public S3Versions withExecutorService(ExecutorService executorService) {
+        this.executorService = executorService;
+        return this;
+    }
+
     public Integer getBatchSize() {
         return batchSize;
     }
@@ -131,11 +168,22 @@ public class S3Versions implements Iterable<S3VersionSummary> {
         return bucketName;
     }
 
+    public int getPrefetchDepth() {
+        return prefetchDepth;
+    }
+
+    public ExecutorService getExecutorService() {
+        return executorService;
+    }
+
     private class VersionIterator implements Iterator<S3VersionSummary> {
 
         private VersionListing currentListing = null;
         private Iterator<S3VersionSummary> currentIterator = null;
         private S3VersionSummary nextSummary = null;
+        private final PagePrefetcher<VersionListing> prefetcher = getPrefetchDepth() > 0
+                ? new VersionListingPrefetcher()
+                : null;
 
         @Override
         public boolean hasNext() {
@@ -170,18 +218,10 @@ public class S3Versions implements Iterable<S3VersionSummary> {
             while (currentListing == null
                     || (!currentIterator.hasNext() && currentListing
                             .isTruncated())) {
-                if (currentListing == null) {
-                    ListVersionsRequest req = new ListVersionsRequest();
-                    req.setBucketName(getBucketName());
-
-                    if (getKey() != null) {
-                        req.setPrefix(getKey());
-                    } else {
-                        req.setPrefix(getPrefix());
-                    }
-
-                    req.setMaxResults(getBatchSize());
-                    currentListing = getS3().listVersions(req);
+                if (prefetcher != null) {
+                    currentListing = prefetcher.nextPage();
+                } else if (currentListing == null) {
+                    currentListing = listFirstBatchOfVersions();
                 } else {
                     currentListing = getS3().listNextBatchOfVersions(
                             currentListing);
@@ -197,6 +237,42 @@ public class S3Versions implements Iterable<S3VersionSummary> {
 
     }
 
+    private VersionListing listFirstBatchOfVersions() {
+        ListVersionsRequest req = new ListVersionsRequest();
+        req.setBucketName(getBucketName());
+
+        if (getKey() != null) {
+            req.setPrefix(getKey());
+        } else {
+            req.setPrefix(getPrefix());
+        }
+
+        req.setMaxResults(getBatchSize());
+        return getS3().listVersions(req);
+    }
+
+    private class VersionListingPrefetcher extends PagePrefetcher<VersionListing> {
+
+        VersionListingPrefetcher() {
+            super(getExecutorService(), getPrefetchDepth());
+        }
+
+        @Override
+        protected VersionListing fetchFirstPage() {
+            return listFirstBatchOfVersions();
+        }
+
+        @Override
+        protected VersionListing fetchNextPage(VersionListing previousPage) {
+            return getS3().listNextBatchOfVersions(previousPage);
+        }
+
+        @Override
+        protected boolean isTruncated(VersionListing page) {
+            return page.isTruncated();
+        }
+    }
+
     @Override
     public Iterator<S3VersionSummary> iterator() {
         return new VersionIterator();
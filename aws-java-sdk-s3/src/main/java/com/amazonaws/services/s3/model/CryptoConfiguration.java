@@ -37,12 +37,35 @@ public class CryptoConfiguration implements Cloneable {
      * missing instruction file would always cause security exception.
      */
     private boolean ignoreMissingInstructionFile = true;
+    /**
+     * The default maximum number of objects encrypted with a reused data key.
+     */
+    public static final long DEFAULT_DATA_KEY_CACHE_MAX_OBJECTS = 1000;
     /**
      * Used to specify the KMS region for the AWS KMS client when such client
      * is internally instantiated instead of externally passed in by users; or
      * null if no explicit KMS region is specified.
      */
     private Regions kmsRegion;
+    /**
+     * True if the parts of multipart uploads in authenticated encryption mode
+     * are encrypted independently of each other, so they can be uploaded in
+     * parallel.
+     */
+    private boolean parallelMultipartUpload;
+    /**
+     * How long a data key generated by AWS KMS can be reused to encrypt other
+     * objects, in milliseconds; or 0 if data keys aren't reused.
+     */
+    private long dataKeyCacheMaxAgeMillis;
+    /**
+     * The maximum number of plaintext bytes encrypted with a reused data key.
+     */
+    private long dataKeyCacheMaxBytes = Long.MAX_VALUE;
+    /**
+     * The maximum number of objects encrypted with a reused data key.
+     */
+    private long dataKeyCacheMaxObjects = DEFAULT_DATA_KEY_CACHE_MAX_OBJECTS;
 
     /**
      * Creates a new CryptoConfiguration object with default storage mode and
@@ -283,6 +306,35 @@ public class CryptoConfiguration implements Cloneable {
         @Override public CryptoConfiguration withKmsRegion(Regions kmsRegion) {
             throw new UnsupportedOperationException();
         }
+        @Override public void setParallelMultipartUpload(
+                boolean parallelMultipartUpload) {
+            throw new UnsupportedOperationException();
+        }
+        @Override public CryptoConfiguration withParallelMultipartUpload(
+                boolean parallelMultipartUpload) {
+            throw new UnsupportedOperationException();
+        }
+        @Override public void setDataKeyCacheMaxAgeMillis(long maxAgeMillis) {
+            throw new UnsupportedOperationException();
+        }
+        @Override public CryptoConfiguration withDataKeyCacheMaxAgeMillis(
+                long maxAgeMillis) {
+            throw new UnsupportedOperationException();
+        }
+        @Override public void setDataKeyCacheMaxBytes(long maxBytes) {
+            throw new UnsupportedOperationException();
+        }
+        @Override public CryptoConfiguration withDataKeyCacheMaxBytes(
+                long maxBytes) {
+            throw new UnsupportedOperationException();
+        }
+        @Override public void setDataKeyCacheMaxObjects(long maxObjects) {
+            throw new UnsupportedOperationException();
+        }
+        @Override public CryptoConfiguration withDataKeyCacheMaxObjects(
+                long maxObjects) {
+            throw new UnsupportedOperationException();
+        }
     }
 
     /**
@@ -305,6 +357,10 @@ public class CryptoConfiguration implements Cloneable {
         that.cryptoProvider = this.cryptoProvider;
         that.ignoreMissingInstructionFile = this.ignoreMissingInstructionFile;
         that.kmsRegion = this.kmsRegion;
+        that.parallelMultipartUpload = this.parallelMultipartUpload;
+        that.dataKeyCacheMaxAgeMillis = this.dataKeyCacheMaxAgeMillis;
+        that.dataKeyCacheMaxBytes = this.dataKeyCacheMaxBytes;
+        that.dataKeyCacheMaxObjects = this.dataKeyCacheMaxObjects;
         return that;
     }
 
@@ -342,4 +398,150 @@ public class CryptoConfiguration implements Cloneable {
         this.kmsRegion = kmsRegion;
         return this;
     }
+
+    /**
+     * Returns true if the parts of multipart uploads are encrypted
+     * independently of each other, so they can be uploaded in parallel;
+     * false otherwise. Default is false.
+     */
+    public boolean isParallelMultipartUpload() {
+        return parallelMultipartUpload;
+    }
+
+    /**
+     * @param parallelMultipartUpload
+     *            true to encrypt the parts of multipart uploads independently
+     *            of each other, so they can be uploaded in parallel; false
+     *            otherwise. Default is false. The ciphertext and the
+     *            authentication tag are the same as those of a serial upload,
+     *            but all the parts but the last must be of the same size.
+     *            The tag is uploaded as an extra part, numbered after the
+     *            last part, when the upload is completed; so the last part
+     *            must be numbered below 10000. The offset of the last part
+     *            follows from the size of the other parts, so the upload of
+     *            the last part waits for another part to start if none has:
+     *            if the last part is uploaded first, another thread must be
+     *            free to upload one of the other parts. This property is
+     *            ignored if the crypto mode is
+     *            {@link CryptoMode#EncryptionOnly}, whose parts can only be
+     *            uploaded in series.
+     */
+    public void setParallelMultipartUpload(boolean parallelMultipartUpload) {
+        this.parallelMultipartUpload = parallelMultipartUpload;
+    }
+
+    /**
+     * Fluent API to encrypt the parts of multipart uploads independently of
+     * each other, so they can be uploaded in parallel.
+     *
+     * @see #setParallelMultipartUpload(boolean)
+     */
+    public CryptoConfiguration withParallelMultipartUpload(
+            boolean parallelMultipartUpload) {
+        this.parallelMultipartUpload = parallelMultipartUpload;
+        return this;
+    }
+
+    /**
+     * Returns how long a data key generated by AWS KMS can be reused to
+     * encrypt other objects, in milliseconds; or 0 if a new data key is
+     * generated for every object. Default is 0.
+     */
+    public long getDataKeyCacheMaxAgeMillis() {
+        return dataKeyCacheMaxAgeMillis;
+    }
+
+    /**
+     * Sets how long a data key generated by AWS KMS can be reused to encrypt
+     * other objects with the same customer master key and materials
+     * description, which saves a call to AWS KMS per object. The plaintext
+     * data key is kept in memory until then. A data key is also retired once
+     * it has encrypted the maximum number of bytes or objects.
+     * <p>
+     * Only the data keys of objects whose length is known up front are
+     * reused; multipart uploads always get a new data key.
+     *
+     * @param maxAgeMillis
+     *            the maximum age of a reused data key, in milliseconds; or 0
+     *            to generate a new data key for every object. Default is 0.
+     *
+     * @see #setDataKeyCacheMaxBytes(long)
+     * @see #setDataKeyCacheMaxObjects(long)
+     */
+    public void setDataKeyCacheMaxAgeMillis(long maxAgeMillis) {
+        if (maxAgeMillis < 0)
+            throw new IllegalArgumentException("maxAgeMillis must not be negative");
+        this.dataKeyCacheMaxAgeMillis = maxAgeMillis;
+    }
+
+    /**
+     * Fluent API for setting how long a data key generated by AWS KMS can be
+     * reused to encrypt other objects, in milliseconds.
+     *
+     * @see #setDataKeyCacheMaxAgeMillis(long)
+     */
+    public CryptoConfiguration withDataKeyCacheMaxAgeMillis(long maxAgeMillis) {
+        setDataKeyCacheMaxAgeMillis(maxAgeMillis);
+        return this;
+    }
+
+    /**
+     * Returns the maximum number of plaintext bytes encrypted with a reused
+     * data key. Default is {@link Long#MAX_VALUE}.
+     */
+    public long getDataKeyCacheMaxBytes() {
+        return dataKeyCacheMaxBytes;
+    }
+
+    /**
+     * Sets the maximum number of plaintext bytes encrypted with a reused data
+     * key, including the first object it encrypted. Objects larger than that
+     * get a data key of their own. Default is {@link Long#MAX_VALUE}.
+     */
+    public void setDataKeyCacheMaxBytes(long maxBytes) {
+        if (maxBytes < 0)
+            throw new IllegalArgumentException("maxBytes must not be negative");
+        this.dataKeyCacheMaxBytes = maxBytes;
+    }
+
+    /**
+     * Fluent API for setting the maximum number of plaintext bytes encrypted
+     * with a reused data key.
+     *
+     * @see #setDataKeyCacheMaxBytes(long)
+     */
+    public CryptoConfiguration withDataKeyCacheMaxBytes(long maxBytes) {
+        setDataKeyCacheMaxBytes(maxBytes);
+        return this;
+    }
+
+    /**
+     * Returns the maximum number of objects encrypted with a reused data key.
+     * Default is {@value #DEFAULT_DATA_KEY_CACHE_MAX_OBJECTS}.
+     */
+    public long getDataKeyCacheMaxObjects() {
+        return dataKeyCacheMaxObjects;
+    }
+
+    /**
+     * Sets the maximum number of objects encrypted with a reused data key,
+     * including the first one. Default is
+     * {@value #DEFAULT_DATA_KEY_CACHE_MAX_OBJECTS}.
+     */
+    public void setDataKeyCacheMaxObjects(long maxObjects) {
+        if (maxObjects < 1)
+            throw new IllegalArgumentException("maxObjects must be at least 1");
+        this.dataKeyCacheMaxObjects = maxObjects;
+    }
+
+    /**
+     * Fluent API for setting the maximum number of objects encrypted with a
+     * reused data key.
+     *
+     * @see #setDataKeyCacheMaxObjects(long)
+     */
+    public CryptoConfiguration withDataKeyCacheMaxObjects(long maxObjects) {
+        setDataKeyCacheMaxObjects(maxObjects);
+        return this;
+    }
 }
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.model;
+
+/**
+ * A snapshot of the statistics of the reuse of the data keys generated by AWS
+ * KMS for the objects encrypted by an S3 encryption client.
+ *
+ * @see CryptoConfiguration#setDataKeyCacheMaxAgeMillis(long)
+ */
+public class DataKeyCacheStatistics {
+    private final long hitCount;
+    private final long missCount;
+    private final long retiredCount;
+    private final int size;
+
+    public DataKeyCacheStatistics(long hitCount, long missCount,
+            long retiredCount, int size) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.retiredCount = retiredCount;
+        this.size = size;
+    }
+
+    /**
+     * Returns the number of objects encrypted with a reused data key.
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of data keys generated by AWS KMS to be reused.
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the number of data keys that were retired from reuse, having
+     * reached their maximum age, bytes or objects.
+     */
+    public long getRetiredCount() {
+        return retiredCount;
+    }
+
+    /**
+     * Returns the number of data keys currently available for reuse.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return "{hitCount=" + hitCount + ", missCount=" + missCount
+                + ", retiredCount=" + retiredCount + ", size=" + size + "}";
+    }
+}
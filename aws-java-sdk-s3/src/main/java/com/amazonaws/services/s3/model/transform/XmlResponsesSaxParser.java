@@ -17,13 +17,8 @@
  */
 package com.amazonaws.services.s3.model.transform;
 
-import static com.amazonaws.util.StringUtils.UTF8;
-
-import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
@@ -48,6 +43,7 @@ import com.amazonaws.services.s3.internal.DeleteObjectsResponse;
 import com.amazonaws.services.s3.internal.ObjectExpirationResult;
 import com.amazonaws.services.s3.internal.ServerSideEncryptionResult;
 import com.amazonaws.services.s3.internal.ServiceUtils;
+import com.amazonaws.services.s3.internal.XmlCarriageReturnEscapingInputStream;
 import com.amazonaws.services.s3.model.AccessControlList;
 import com.amazonaws.services.s3.model.AmazonS3Exception;
 import com.amazonaws.services.s3.model.Bucket;
@@ -144,11 +140,11 @@ public class XmlResponsesSaxParser {
                 log.debug("Parsing XML response document with handler: " + handler.getClass());
             }
 
-            BufferedReader breader = new BufferedReader(new InputStreamReader(inputStream,
-                Constants.DEFAULT_ENCODING));
+            InputSource source = new InputSource(inputStream);
+            source.setEncoding(Constants.DEFAULT_ENCODING);
             xr.setContentHandler(handler);
             xr.setErrorHandler(handler);
-            xr.parse(new InputSource(breader));
+            xr.parse(source);
 
         } catch (IOException e) {
             throw e;
@@ -166,6 +162,12 @@ public class XmlResponsesSaxParser {
         }
     }
 
+    /**
+     * Returns a stream over the given XML document that escapes any carriage
+     * return characters as it is read, so that the SAX parser doesn't
+     * misinterpret 0x0D characters in object keys as 0x0A. The document is
+     * sanitized as it streams through the parser, rather than buffered in full.
+     */
     protected InputStream sanitizeXmlDocument(DefaultHandler handler, InputStream inputStream)
             throws IOException {
 
@@ -176,53 +178,7 @@ public class XmlResponsesSaxParser {
             if (log.isDebugEnabled()) {
                 log.debug("Sanitizing XML document destined for handler " + handler.getClass());
             }
-
-            InputStream sanitizedInputStream = null;
-
-            try {
-
-                /*
-                 * Read object listing XML document from input stream provided into a
-                 * string buffer, so we can replace troublesome characters before
-                 * sending the document to the XML parser.
-                 */
-                StringBuilder listingDocBuffer = new StringBuilder();
-                BufferedReader br = new BufferedReader(
-                    new InputStreamReader(inputStream, Constants.DEFAULT_ENCODING));
-
-                char[] buf = new char[8192];
-                int read = -1;
-                while ((read = br.read(buf)) != -1) {
-                    listingDocBuffer.append(buf, 0, read);
-                }
-                br.close();
-
-                /*
-                 * Replace any carriage return (\r) characters with explicit XML
-                 * character entities, to prevent the SAX parser from
-                 * misinterpreting 0x0D characters as 0x0A and being unable to
-                 * parse the XML.
-                 */
-                String listingDoc = listingDocBuffer.toString().replaceAll("\r", "&#013;");
-
-                sanitizedInputStream = new ByteArrayInputStream(
-                    listingDoc.getBytes(UTF8));
-
-            } catch (IOException e) {
-                throw e;
-
-            } catch (Throwable t) {
-                try {
-                    inputStream.close();
-                } catch (IOException e) {
-                    if (log.isErrorEnabled()) {
-                        log.error("Unable to close response InputStream after failure sanitizing XML document", e);
-                    }
-                }
-                throw new AmazonClientException("Failed to sanitize XML document destined for handler "
-                    + handler.getClass(), t);
-            }
-            return sanitizedInputStream;
+            return new XmlCarriageReturnEscapingInputStream(inputStream);
         }
     }
 
@@ -15,10 +15,12 @@
 package com.amazonaws.services.s3.transfer;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.SocketException;
 import java.util.Arrays;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
 
 import javax.net.ssl.SSLProtocolException;
 
@@ -40,6 +42,12 @@ import com.amazonaws.services.s3.transfer.internal.DownloadMonitor;
 
 final class DownloadCallable implements Callable<File> {
     private static final Log log = LogFactory.getLog(DownloadCallable.class);
+    /**
+     * The maximum number of characters of the destination file name reused in
+     * the name of the temporary file, which must stay within the limits of
+     * the file system.
+     */
+    private static final int MAX_TEMPORARY_FILE_NAME_PREFIX = 100;
 
     private final AmazonS3 s3;
     private final CountDownLatch latch;
@@ -48,7 +56,15 @@ final class DownloadCallable implements Callable<File> {
     private final DownloadImpl download;
     private final File dstfile;
     private final long origStartingByte;
-    
+    /** The thread pool to fetch byte ranges in parallel; or null. */
+    private final ExecutorService threadPool;
+    private final long partSize;
+    /**
+     * True if the object is downloaded to a temporary file, which replaces
+     * the destination file only once complete.
+     */
+    private final boolean saveAtomically;
+
     private long expectedFileLength;
 
     DownloadCallable(AmazonS3 s3, CountDownLatch latch,
@@ -56,9 +72,35 @@ final class DownloadCallable implements Callable<File> {
             boolean resumeExistingDownload,
             DownloadImpl download, File dstfile, long origStartingByte,
             long expectedFileLength) 
+    {
+        this(s3, latch, req, resumeExistingDownload, download, dstfile,
+                origStartingByte, expectedFileLength, null, 0, false);
+    }
+
+    /**
+     * @param threadPool
+     *            the thread pool used to fetch byte ranges of the object in
+     *            parallel; or null to download the object over a single
+     *            connection.
+     * @param partSize
+     *            the size of each byte range fetched in parallel.
+     * @param saveAtomically
+     *            true to download the object to a temporary file in the same
+     *            directory, which is renamed to the destination file once
+     *            complete; so the destination file is never seen partially
+     *            written. Not supported when resuming a download.
+     */
+    DownloadCallable(AmazonS3 s3, CountDownLatch latch,
+            GetObjectRequest req,
+            boolean resumeExistingDownload,
+            DownloadImpl download, File dstfile, long origStartingByte,
+            long expectedFileLength, ExecutorService threadPool,
+            long partSize, boolean saveAtomically)
     {
         if (s3 == null || latch == null || req == null || dstfile == null || download == null)
             throw new IllegalArgumentException();
+        if (saveAtomically && resumeExistingDownload)
+            throw new IllegalArgumentException("A resumed download can't be saved atomically");
         this.s3 = s3;
         this.latch = latch;
         this.req = req;
@@ -67,6 +109,9 @@ final class DownloadCallable implements Callable<File> {
         this.dstfile = dstfile;
         this.origStartingByte = origStartingByte;
         this.expectedFileLength = expectedFileLength;
+        this.threadPool = threadPool;
+        this.partSize = partSize;
+        this.saveAtomically = saveAtomically;
     }
 
     /**
@@ -78,17 +123,29 @@ final class DownloadCallable implements Callable<File> {
      */
     @Override
     public File call() throws Exception {
+        File file = dstfile;
         try {
             latch.await();
             download.setState(TransferState.InProgress);
-            S3Object s3Object = retryableDownloadS3ObjectToFile(dstfile,
-                new DownloadTaskImpl(s3, download, req), 
-                resumeExistingDownload);
+            if (saveAtomically)
+                file = newTemporaryFile();
+            S3Object s3Object;
+            if (isParallelDownload()) {
+                s3Object = new ParallelRangeDownload(s3, threadPool, req,
+                        download, file, Math.max(expectedFileLength, 0),
+                        partSize).download();
+            } else {
+                s3Object = retryableDownloadS3ObjectToFile(file,
+                    new DownloadTaskImpl(s3, download, req), 
+                    resumeExistingDownload);
+            }
 
             if (s3Object == null) {
                 download.setState(TransferState.Canceled);
                 download.setMonitor(new DownloadMonitor(download, null));
             } else {
+                if (file != dstfile)
+                    rename(file, dstfile);
                 download.setState(TransferState.Completed);
             }
             return dstfile;
@@ -101,7 +158,49 @@ final class DownloadCallable implements Callable<File> {
                 throw (Exception) t;
             else
                 throw (Error) t;
+        } finally {
+            if (file != dstfile && file.exists() && !file.delete())
+                log.debug("Unable to delete the temporary file " + file);
+        }
+    }
+
+    /**
+     * Creates the temporary file to download the object to, next to the
+     * destination file so it can be renamed to it.
+     */
+    private File newTemporaryFile() throws IOException {
+        File directory = dstfile.getAbsoluteFile().getParentFile();
+        if (!directory.exists() && !directory.mkdirs() && !directory.exists()) {
+            throw new AmazonClientException("Unable to create directory "
+                    + directory.getAbsolutePath());
         }
+        String name = dstfile.getName();
+        if (name.length() > MAX_TEMPORARY_FILE_NAME_PREFIX)
+            name = name.substring(0, MAX_TEMPORARY_FILE_NAME_PREFIX);
+        return File.createTempFile("." + name + ".", ".tmp", directory);
+    }
+
+    /**
+     * Renames the complete temporary file to the destination file, replacing
+     * it if it exists.
+     */
+    private static void rename(File file, File dstfile) {
+        if (file.renameTo(dstfile))
+            return;
+        // Some platforms can't rename over an existing file
+        if (dstfile.delete() && file.renameTo(dstfile))
+            return;
+        throw new AmazonClientException("Unable to rename " + file + " to "
+                + dstfile);
+    }
+
+    /**
+     * Returns true if the remaining byte range should be fetched in parallel.
+     */
+    private boolean isParallelDownload() {
+        long[] range = req.getRange();
+        return threadPool != null && partSize > 0
+                && range != null && range[0] <= range[1];
     }
 
     /**
@@ -0,0 +1,435 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.internal.FileLocks;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import com.amazonaws.services.s3.transfer.exception.FileLockException;
+import com.amazonaws.services.s3.transfer.internal.DownloadImpl;
+
+/**
+ * Downloads a byte range of an object by splitting it into smaller byte
+ * ranges that are fetched concurrently, each written straight to its offset in
+ * the destination file with a positional {@link FileChannel} write.
+ * <p>
+ * The thread calling {@link #download()} fetches parts itself, and helper
+ * tasks are submitted to the transfer manager's thread pool to fetch the rest.
+ * Since the calling thread never waits for a part that has not been started,
+ * the download makes progress even when every thread of the pool is busy.
+ * <p>
+ * Every part after the first is fetched with a matching ETag constraint, so a
+ * download fails, rather than silently mixing versions, if the object is
+ * overwritten in the middle of the download.
+ */
+final class ParallelRangeDownload {
+    private static final Log log = LogFactory.getLog(ParallelRangeDownload.class);
+
+    /** Maximum number of attempts to fetch a single part. */
+    private static final int MAX_PART_ATTEMPTS = 3;
+
+    /** Size of the buffer used to copy each part to the file. */
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private final AmazonS3 s3;
+    private final ExecutorService threadPool;
+    private final GetObjectRequest req;
+    private final DownloadImpl download;
+    private final File dstfile;
+    /** Position in the file where the first byte of the range is written. */
+    private final long fileOffset;
+    private final long startingByte;
+    private final long lastByte;
+    private final long partSize;
+
+    private final Object lock = new Object();
+    /** Parts not yet started; guarded by lock. */
+    private final LinkedList<Part> pendingParts = new LinkedList<Part>();
+    /** Completion status of each part; guarded by lock. */
+    private final boolean[] completedParts;
+    /** Number of leading parts known to be completed; guarded by lock. */
+    private int completedPrefix;
+    /** Number of parts being fetched; guarded by lock. */
+    private int activeParts;
+    /** The first failure of any part; guarded by lock. */
+    private Throwable failure;
+    /**
+     * Orders the updates of the persistable download, which are published
+     * outside of lock.
+     */
+    private final Object publishLock = new Object();
+    /** The last published completed position; guarded by publishLock. */
+    private long publishedFilePosition = -1;
+    private volatile boolean cancelled;
+
+    private volatile String eTag;
+    private FileChannel channel;
+
+    ParallelRangeDownload(AmazonS3 s3, ExecutorService threadPool,
+            GetObjectRequest req, DownloadImpl download, File dstfile,
+            long fileOffset, long partSize) {
+        long[] range = req.getRange();
+        this.s3 = s3;
+        this.threadPool = threadPool;
+        this.req = req;
+        this.download = download;
+        this.dstfile = dstfile;
+        this.fileOffset = fileOffset;
+        this.startingByte = range[0];
+        this.lastByte = range[1];
+        this.partSize = partSize;
+
+        int numParts = (int) ((lastByte - startingByte) / partSize + 1);
+        this.completedParts = new boolean[numParts];
+        for (int i = 0; i < numParts; i++) {
+            long partStart = startingByte + i * partSize;
+            pendingParts.add(new Part(i, partStart,
+                    Math.min(partStart + partSize - 1, lastByte)));
+        }
+    }
+
+    /**
+     * Downloads all parts to the destination file.
+     *
+     * @return the object returned for the first part; or null if the download
+     *         was canceled.
+     */
+    S3Object download() throws Exception {
+        File parentDirectory = dstfile.getParentFile();
+        if (parentDirectory != null && !parentDirectory.exists()) {
+            if (!(parentDirectory.mkdirs())) {
+                throw new AmazonClientException(
+                        "Unable to create directory in the path"
+                                + parentDirectory.getAbsolutePath());
+            }
+        }
+        if (!FileLocks.lock(dstfile)) {
+            throw new FileLockException("Fail to lock " + dstfile
+                    + " for parallel download");
+        }
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(dstfile, "rw");
+            raf.setLength(fileOffset + lastByte - startingByte + 1);
+            channel = raf.getChannel();
+
+            // The first part is fetched before any helper is started, so that
+            // the ETag of the object is known to all the other parts.
+            Part first = nextPart();
+            if (first == null)
+                return null;
+            S3Object s3Object;
+            try {
+                s3Object = s3.getObject(newPartRequest(first, first.start));
+            } catch (RuntimeException e) {
+                partDone(first, e);
+                throw e;
+            }
+            if (s3Object == null) {
+                // The constraints of the original request were not met
+                cancelled = true;
+                partDone(first, null);
+                return null;
+            }
+            download.setS3Object(s3Object);
+            eTag = s3Object.getObjectMetadata().getETag();
+            submitHelpers();
+            partDone(first, downloadPart(first, s3Object));
+
+            downloadParts();
+            awaitParts();
+            synchronized (lock) {
+                if (failure != null) {
+                    if (failure instanceof Exception)
+                        throw (Exception) failure;
+                    throw (Error) failure;
+                }
+            }
+            return cancelled ? null : s3Object;
+        } catch (IOException e) {
+            throw new AmazonClientException(
+                    "Unable to store object contents to disk: " + e.getMessage(), e);
+        } finally {
+            cancelled = true;
+            awaitParts();
+            if (raf != null) {
+                try {
+                    raf.close();
+                } catch (IOException e) {
+                    log.debug("Unable to close file " + dstfile, e);
+                }
+            }
+            FileLocks.unlock(dstfile);
+        }
+    }
+
+    private void submitHelpers() {
+        int helpers;
+        synchronized (lock) {
+            helpers = pendingParts.size();
+        }
+        if (threadPool instanceof ThreadPoolExecutor) {
+            // Leave one thread of the pool to the calling thread
+            helpers = Math.min(helpers,
+                    ((ThreadPoolExecutor) threadPool).getMaximumPoolSize() - 1);
+        }
+        for (int i = 0; i < helpers; i++) {
+            try {
+                threadPool.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        downloadParts();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // The calling thread will fetch the remaining parts itself
+                log.debug("Unable to submit a parallel download task", e);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Fetches parts until there is none left, or the download has failed or
+     * been canceled.
+     */
+    private void downloadParts() {
+        Part part;
+        while ((part = nextPart()) != null) {
+            Throwable t;
+            try {
+                t = downloadPart(part, null);
+            } catch (Throwable e) {
+                t = e;
+            }
+            partDone(part, t);
+        }
+    }
+
+    /**
+     * Fetches a single part and writes it to the file, retrying from the last
+     * written byte on retryable errors.
+     *
+     * @param s3Object
+     *            the already requested object for the part; or null
+     * @return the failure; or null if the part was downloaded successfully, or
+     *         the download has been canceled.
+     */
+    private Throwable downloadPart(Part part, S3Object s3Object) {
+        long position = part.start;
+        byte[] buffer = new byte[BUFFER_SIZE];
+        for (int attempt = 1;; attempt++) {
+            try {
+                if (s3Object == null) {
+                    s3Object = s3.getObject(newPartRequest(part, position));
+                    if (s3Object == null) {
+                        return new AmazonClientException("The object "
+                                + req.getKey() + " (bucket " + req.getBucketName()
+                                + ") was modified while being downloaded");
+                    }
+                }
+                S3ObjectInputStream in = s3Object.getObjectContent();
+                try {
+                    int bytesRead;
+                    while (position <= part.end && (bytesRead = in.read(buffer)) > -1) {
+                        if (isCancelled())
+                            return null;
+                        ByteBuffer bb = ByteBuffer.wrap(buffer, 0, bytesRead);
+                        long filePosition = fileOffset + position - startingByte;
+                        while (bb.hasRemaining()) {
+                            filePosition += channel.write(bb, filePosition);
+                        }
+                        position += bytesRead;
+                    }
+                } finally {
+                    if (position > part.end) {
+                        // The whole range has been consumed, so the
+                        // connection can be reused
+                        try {
+                            in.close();
+                        } catch (IOException e) {
+                            log.debug("Unable to close object content", e);
+                        }
+                    } else {
+                        in.abort();
+                    }
+                }
+                if (position <= part.end) {
+                    throw new IOException("Premature end of range "
+                            + part.start + "-" + part.end + " at byte "
+                            + position);
+                }
+                return null;
+            } catch (AmazonServiceException ase) {
+                if (!ase.isRetryable() || attempt >= MAX_PART_ATTEMPTS)
+                    return ase;
+                log.info("Retry the download of range " + position + "-"
+                        + part.end + " of object " + req.getKey(), ase);
+            } catch (AmazonClientException ace) {
+                if (!ace.isRetryable() || attempt >= MAX_PART_ATTEMPTS
+                        || isCancelled())
+                    return ace;
+                log.info("Retry the download of range " + position + "-"
+                        + part.end + " of object " + req.getKey(), ace);
+            } catch (IOException ioe) {
+                if (attempt >= MAX_PART_ATTEMPTS || isCancelled()) {
+                    return new AmazonClientException(
+                            "Unable to store object contents to disk: "
+                                    + ioe.getMessage(), ioe);
+                }
+                log.info("Retry the download of range " + position + "-"
+                        + part.end + " of object " + req.getKey(), ioe);
+            }
+            s3Object = null;
+        }
+    }
+
+    /**
+     * Returns a request for the remaining bytes of the given part, carrying
+     * over all the settings of the original request.
+     */
+    private GetObjectRequest newPartRequest(Part part, long position) {
+        GetObjectRequest partRequest = (GetObjectRequest) req.clone();
+        partRequest.setRange(position, part.end);
+        if (eTag != null)
+            partRequest.setMatchingETagConstraints(Collections.singletonList(eTag));
+        return partRequest;
+    }
+
+    private Part nextPart() {
+        synchronized (lock) {
+            if (failure != null || isCancelled())
+                return null;
+            Part part = pendingParts.poll();
+            if (part != null)
+                activeParts++;
+            return part;
+        }
+    }
+
+    private void partDone(Part part, Throwable t) {
+        long lastFullyDownloadedFilePosition = -1;
+        synchronized (lock) {
+            if (t != null) {
+                if (failure == null)
+                    failure = t;
+            } else if (!isCancelled()) {
+                completedParts[part.index] = true;
+                int prefix = completedPrefix;
+                while (prefix < completedParts.length && completedParts[prefix])
+                    prefix++;
+                if (prefix > completedPrefix) {
+                    completedPrefix = prefix;
+                    lastFullyDownloadedFilePosition = fileOffset
+                            + Math.min(prefix * partSize, lastByte - startingByte + 1);
+                }
+            }
+        }
+        try {
+            if (lastFullyDownloadedFilePosition >= 0)
+                publish(lastFullyDownloadedFilePosition);
+        } finally {
+            // The part only counts as done once its progress is published, so
+            // the download never completes ahead of its persistable state
+            synchronized (lock) {
+                activeParts--;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Records the given completed position in the persistable download, unless
+     * another part has already published a later one.
+     */
+    private void publish(long lastFullyDownloadedFilePosition) {
+        synchronized (publishLock) {
+            if (lastFullyDownloadedFilePosition <= publishedFilePosition)
+                return;
+            publishedFilePosition = lastFullyDownloadedFilePosition;
+            PersistableDownload persistableDownload = download.getPersistableDownload();
+            if (persistableDownload != null) {
+                download.updatePersistableDownload(persistableDownload
+                        .withLastFullyDownloadedFilePosition(lastFullyDownloadedFilePosition));
+            }
+        }
+    }
+
+    /**
+     * Waits until no part is being fetched. An interrupt of the calling thread
+     * cancels the download.
+     */
+    private void awaitParts() {
+        boolean interrupted = false;
+        synchronized (lock) {
+            while (activeParts > 0) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    cancelled = true;
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Returns true if the download has been canceled or paused.
+     */
+    private boolean isCancelled() {
+        if (cancelled)
+            return true;
+        if (download.getState() == Transfer.TransferState.Canceled
+                || download.getMonitor().getFuture().isCancelled()) {
+            cancelled = true;
+        }
+        return cancelled;
+    }
+
+    /**
+     * A byte range of the object.
+     */
+    private static final class Part {
+        private final int index;
+        private final long start;
+        private final long end;
+
+        Part(int index, long start, long end) {
+            this.index = index;
+            this.start = start;
+            this.end = end;
+        }
+    }
+}
@@ -63,6 +63,14 @@ public final class PersistableDownload extends PersistableTransfer {
     @JsonProperty
     private final String file;
 
+    /**
+     * Number of bytes, from the start of the file, known to have been
+     * completely downloaded; only set for parallel ranged downloads, where
+     * the file may contain gaps past this position.
+     */
+    @JsonProperty
+    private final Long lastFullyDownloadedFilePosition;
+
     public PersistableDownload() {
         this(null, null, null, null, null, false, null);
     }
@@ -75,6 +83,19 @@ public final class PersistableDownload extends PersistableTransfer {
             @JsonProperty(value = "responseHeaders") ResponseHeaderOverrides responseHeaders,
             @JsonProperty(value = "isRequesterPays") boolean isRequesterPays,
             @JsonProperty(value = "file") String file) {
+        this(bucketName, key, versionId, range, responseHeaders,
+                isRequesterPays, file, null);
+    }
+
+    public PersistableDownload(
+            @JsonProperty(value = "bucketName") String bucketName,
+            @JsonProperty(value = "key") String key,
+            @JsonProperty(value = "versionId") String versionId,
+            @JsonProperty(value = "range") long[] range,
+            @JsonProperty(value = "responseHeaders") ResponseHeaderOverrides responseHeaders,
+            @JsonProperty(value = "isRequesterPays") boolean isRequesterPays,
+            @JsonProperty(value = "file") String file,
+            @JsonProperty(value = "lastFullyDownloadedFilePosition") Long lastFullyDownloadedFilePosition) {
         this.bucketName = bucketName;
         this.key = key;
         this.versionId = versionId;
@@ -82,6 +103,7 @@ public final class PersistableDownload extends PersistableTransfer {
         this.responseHeaders = responseHeaders;
         this.isRequesterPays = isRequesterPays;
         this.file = file;
+        this.lastFullyDownloadedFilePosition = lastFullyDownloadedFilePosition;
     }
 
     /**
@@ -134,6 +156,24 @@ public final class PersistableDownload extends PersistableTransfer {
         return file;
     }
 
+    /**
+     * Returns the number of bytes, from the start of the file, known to have
+     * been completely downloaded; or null if the download was not a parallel
+     * ranged download, in which case the file length is used instead.
+     */
+    Long getLastFullyDownloadedFilePosition() {
+        return lastFullyDownloadedFilePosition;
+    }
+
+    /**
+     * Returns a copy of this download state with the given number of bytes
+     * completely downloaded.
+     */
+    PersistableDownload withLastFullyDownloadedFilePosition(long position) {
+        return new PersistableDownload(bucketName, key, versionId, range,
+                responseHeaders, isRequesterPays, file, position);
+    }
+
     String getPauseType() {
         return pauseType;
     }
@@ -0,0 +1,569 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.Stack;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.annotation.GuardedBy;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.event.ProgressListener;
+import com.amazonaws.event.ProgressListenerChain;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.services.s3.transfer.internal.AbstractTransfer;
+import com.amazonaws.services.s3.transfer.internal.DownloadImpl;
+import com.amazonaws.services.s3.transfer.internal.MultipleFileDownloadImpl;
+import com.amazonaws.services.s3.transfer.internal.TransferMonitor;
+import com.amazonaws.services.s3.transfer.internal.TransferStateChangeListener;
+
+/**
+ * Downloads a virtual directory while listing it, within a bounded window of
+ * objects and bytes downloaded concurrently.
+ * <p>
+ * The objects are listed one page at a time, and the next page is only
+ * fetched once few enough listed objects are waiting to be downloaded. The
+ * waiting objects are split in two size classes: the objects no larger than
+ * their share of the byte window are downloaded smallest first, so many
+ * small files don't wait behind a few large ones; the larger objects are
+ * downloaded in the order listed, with room kept for one of them at least,
+ * so they make progress alongside the small ones.
+ * <p>
+ * No thread waits for room in the window: the listing and the downloads run
+ * on the transfer manager's thread pool, and each download that completes
+ * starts the next ones. Only the downloads in flight are kept as the
+ * sub-transfers of this transfer; the others are accounted for as they
+ * complete.
+ *
+ * @see TransferManagerConfiguration#setDirectoryDownloadMaxObjects(int)
+ */
+final class PipelinedDirectoryDownload extends MultipleFileDownloadImpl {
+    private static final Log log = LogFactory.getLog(PipelinedDirectoryDownload.class);
+
+    /**
+     * The number of listed objects waiting to be downloaded from which the
+     * next page of the listing is no longer fetched.
+     */
+    static final int MAX_WAITING_OBJECTS = 1000;
+
+    /** Smallest first, then in key order. */
+    private static final Comparator<S3ObjectSummary> BY_SIZE = new Comparator<S3ObjectSummary>() {
+        @Override
+        public int compare(S3ObjectSummary a, S3ObjectSummary b) {
+            if (a.getSize() != b.getSize())
+                return a.getSize() < b.getSize() ? -1 : 1;
+            return a.getKey().compareTo(b.getKey());
+        }
+    };
+
+    private final TransferManager transferManager;
+    private final AmazonS3 s3;
+    private final ExecutorService threadPool;
+    private final File destinationDirectory;
+    private final int maxObjects;
+    private final long maxBytes;
+    /** The size above which objects are downloaded as large objects. */
+    private final long largeObjectSize;
+    /** Receives the bytes transferred by each download. */
+    private final ProgressListener progressListener;
+    private final Set<DownloadImpl> downloadsInFlight;
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    private final Object lock = new Object();
+    @GuardedBy("lock")
+    private final PriorityQueue<S3ObjectSummary> smallObjects =
+        new PriorityQueue<S3ObjectSummary>(MAX_WAITING_OBJECTS, BY_SIZE);
+    @GuardedBy("lock")
+    private final LinkedList<S3ObjectSummary> largeObjects = new LinkedList<S3ObjectSummary>();
+    /** The prefixes of the virtual subdirectories left to list. */
+    @GuardedBy("lock")
+    private final Stack<String> prefixes = new Stack<String>();
+    /** The last page listed, if truncated. */
+    @GuardedBy("lock")
+    private ObjectListing truncatedListing;
+    @GuardedBy("lock")
+    private boolean listing;
+    @GuardedBy("lock")
+    private boolean listed;
+    @GuardedBy("lock")
+    private long listedBytes;
+    @GuardedBy("lock")
+    private int objectsInFlight;
+    @GuardedBy("lock")
+    private int largeObjectsInFlight;
+    @GuardedBy("lock")
+    private long bytesInFlight;
+    @GuardedBy("lock")
+    private boolean aborted;
+    @GuardedBy("lock")
+    private boolean seenCanceled;
+    /** The failure to list the objects or to start a download; or null. */
+    @GuardedBy("lock")
+    private Throwable failure;
+    /** The first download that failed; or null. */
+    @GuardedBy("lock")
+    private DownloadImpl failedDownload;
+    @GuardedBy("lock")
+    private boolean done;
+    /** True while a thread is filling the window. */
+    @GuardedBy("lock")
+    private boolean filling;
+    /** True if the window has to be filled again once the current fill ends. */
+    @GuardedBy("lock")
+    private boolean refillRequested;
+
+    PipelinedDirectoryDownload(TransferManager transferManager, AmazonS3 s3,
+            ExecutorService threadPool, TransferManagerConfiguration configuration,
+            String bucketName, String keyPrefix, File destinationDirectory) {
+        this(transferManager, s3, threadPool, configuration, bucketName,
+                keyPrefix, destinationDirectory,
+                Collections.newSetFromMap(new ConcurrentHashMap<DownloadImpl, Boolean>()));
+    }
+
+    private PipelinedDirectoryDownload(TransferManager transferManager,
+            AmazonS3 s3, ExecutorService threadPool,
+            TransferManagerConfiguration configuration, String bucketName,
+            String keyPrefix, File destinationDirectory,
+            Set<DownloadImpl> downloadsInFlight) {
+        super("Downloading from " + bucketName + "/" + keyPrefix,
+                new TransferProgress(), new ProgressListenerChain(), keyPrefix,
+                bucketName, downloadsInFlight);
+        this.transferManager = transferManager;
+        this.s3 = s3;
+        this.threadPool = threadPool;
+        this.destinationDirectory = destinationDirectory;
+        this.maxObjects = Math.max(configuration.getDirectoryDownloadMaxObjects(), 1);
+        this.maxBytes = Math.max(configuration.getDirectoryDownloadMaxBytes(), 1);
+        this.largeObjectSize = Math.max(maxBytes / maxObjects, 1);
+        this.progressListener = new MultipleFileTransferProgressUpdatingListener(
+                getProgress(), listenerChain);
+        this.downloadsInFlight = downloadsInFlight;
+        setMonitor(new Monitor());
+    }
+
+    /**
+     * Starts listing the virtual directory, and returns this transfer.
+     */
+    PipelinedDirectoryDownload start() {
+        synchronized (lock) {
+            prefixes.push(getKeyPrefix());
+            getProgress().setTotalBytesToTransfer(0);
+        }
+        fillWindow();
+        return this;
+    }
+
+    /**
+     * Starts the downloads of as many waiting objects as there is room for,
+     * fetches the next page of the listing if few objects are waiting, or
+     * completes this transfer if there is nothing left to do.
+     * <p>
+     * A download that fails to start, or completes right away, calls back
+     * into this method from the same thread; rather than recursing, the
+     * thread already filling the window is asked to fill it again. Only one
+     * thread fills the window at a time.
+     */
+    private void fillWindow() {
+        synchronized (lock) {
+            if (filling) {
+                refillRequested = true;
+                return;
+            }
+            filling = true;
+        }
+        boolean isFilling = true;
+        try {
+            while (isFilling) {
+                fillWindowOnce();
+                synchronized (lock) {
+                    isFilling = refillRequested;
+                    refillRequested = false;
+                    filling = isFilling;
+                }
+            }
+        } finally {
+            if (isFilling) {
+                synchronized (lock) {
+                    filling = false;
+                }
+            }
+        }
+    }
+
+    private void fillWindowOnce() {
+        List<S3ObjectSummary> objects = new ArrayList<S3ObjectSummary>();
+        boolean listNextPage = false;
+        TransferState finalState = null;
+        synchronized (lock) {
+            if (done)
+                return;
+            while (!aborted && objectsInFlight < maxObjects) {
+                S3ObjectSummary object = nextObject();
+                if (object == null)
+                    break;
+                objectsInFlight++;
+                bytesInFlight += charge(object.getSize());
+                if (object.getSize() > largeObjectSize)
+                    largeObjectsInFlight++;
+                objects.add(object);
+            }
+            if (!aborted && !listed && !listing
+                    && smallObjects.size() + largeObjects.size() < MAX_WAITING_OBJECTS) {
+                listing = listNextPage = true;
+            }
+            if (objectsInFlight == 0 && !listing
+                    && (aborted || listed && smallObjects.isEmpty() && largeObjects.isEmpty())) {
+                done = true;
+                finalState = failure != null || failedDownload != null
+                        ? TransferState.Failed
+                        : aborted || seenCanceled
+                        ? TransferState.Canceled
+                        : TransferState.Completed;
+            }
+        }
+        if (finalState != null) {
+            setState(finalState);
+            finished.countDown();
+            return;
+        }
+        if (listNextPage) {
+            try {
+                threadPool.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        listNextPage();
+                    }
+                });
+            } catch (RuntimeException e) {
+                onListingFailed(e);
+            }
+        }
+        for (S3ObjectSummary object : objects)
+            startDownload(object);
+    }
+
+    /**
+     * Returns the next object to download if there is room for it, and
+     * removes it from the waiting objects; or null.
+     */
+    @GuardedBy("lock")
+    private S3ObjectSummary nextObject() {
+        S3ObjectSummary large = largeObjects.peek();
+        // Keeps room for a large object, unless one is already in flight
+        boolean reserveForLarge = large != null && largeObjectsInFlight == 0;
+        if (reserveForLarge && fits(large, 0))
+            return largeObjects.poll();
+        S3ObjectSummary small = smallObjects.peek();
+        if (small != null && fits(small, reserveForLarge ? charge(large.getSize()) : 0))
+            return smallObjects.poll();
+        if (!reserveForLarge && large != null && fits(large, 0))
+            return largeObjects.poll();
+        return null;
+    }
+
+    /**
+     * Returns true if the given object fits in the byte window, along with
+     * the given number of bytes reserved for another object.
+     */
+    @GuardedBy("lock")
+    private boolean fits(S3ObjectSummary object, long reserved) {
+        return bytesInFlight == 0
+            || bytesInFlight + charge(object.getSize()) + reserved <= maxBytes;
+    }
+
+    /**
+     * Returns the number of bytes an object of the given size counts for in
+     * the byte window; at most half of it, so objects larger than the window
+     * can still be downloaded alongside smaller ones.
+     */
+    private long charge(long size) {
+        return Math.min(size, maxBytes / 2);
+    }
+
+    /**
+     * Fetches the next page of the listing, depth first, and queues its
+     * objects for download.
+     */
+    private void listNextPage() {
+        try {
+            ObjectListing previous;
+            String prefix = null;
+            synchronized (lock) {
+                previous = truncatedListing;
+                if (previous == null)
+                    prefix = prefixes.pop();
+            }
+            ObjectListing page = previous == null
+                ? s3.listObjects(new ListObjectsRequest()
+                        .withBucketName(getBucketName())
+                        .withDelimiter(TransferManager.DEFAULT_DELIMITER)
+                        .withPrefix(prefix))
+                : s3.listNextBatchOfObjects(previous);
+            List<S3ObjectSummary> objects = new ArrayList<S3ObjectSummary>();
+            long bytes = 0;
+            for (S3ObjectSummary s : page.getObjectSummaries()) {
+                // Skip any files that are also virtual directories, since
+                // we can't save both a directory and a file of the same
+                // name.
+                if (!s.getKey().equals(page.getPrefix())
+                        && !page.getCommonPrefixes().contains(
+                                s.getKey() + TransferManager.DEFAULT_DELIMITER)) {
+                    objects.add(s);
+                    bytes += s.getSize();
+                } else {
+                    log.debug("Skipping download for object " + s.getKey()
+                            + " since it is also a virtual directory");
+                }
+            }
+            synchronized (lock) {
+                truncatedListing = page.isTruncated() ? page : null;
+                prefixes.addAll(page.getCommonPrefixes());
+                listed = truncatedListing == null && prefixes.isEmpty();
+                listing = false;
+                if (!aborted) {
+                    for (S3ObjectSummary s : objects) {
+                        if (s.getSize() > largeObjectSize)
+                            largeObjects.add(s);
+                        else
+                            smallObjects.add(s);
+                    }
+                    listedBytes += bytes;
+                    getProgress().setTotalBytesToTransfer(listedBytes);
+                }
+            }
+        } catch (Throwable t) {
+            onListingFailed(t);
+            return;
+        }
+        fillWindow();
+    }
+
+    /**
+     * Stops listing after the given failure; the objects already listed are
+     * still downloaded.
+     */
+    private void onListingFailed(Throwable t) {
+        synchronized (lock) {
+            if (failure == null)
+                failure = t;
+            listed = true;
+            listing = false;
+        }
+        fillWindow();
+    }
+
+    private void startDownload(S3ObjectSummary object) {
+        ObjectListener listener = new ObjectListener(object.getSize());
+        try {
+            File file = new File(destinationDirectory, object.getKey());
+            DownloadImpl download = (DownloadImpl) transferManager.downloadListedObject(
+                    new GetObjectRequest(object.getBucketName(), object.getKey())
+                            .<GetObjectRequest>withGeneralProgressListener(progressListener),
+                    file, object.getSize(), listener);
+            downloadsInFlight.add(download);
+            if (listener.isFinished()) {
+                // Completed before it could be added
+                downloadsInFlight.remove(download);
+            } else if (isAborted()) {
+                // Started while this transfer was being aborted
+                download.abort();
+            }
+        } catch (Throwable t) {
+            listener.onStartFailed(t);
+        }
+    }
+
+    private boolean isAborted() {
+        synchronized (lock) {
+            return aborted;
+        }
+    }
+
+    /**
+     * Aborts the downloads in flight, and doesn't start any other.
+     */
+    @Override
+    public void abort() throws IOException {
+        synchronized (lock) {
+            aborted = true;
+            smallObjects.clear();
+            largeObjects.clear();
+        }
+        super.abort();
+        fillWindow();
+    }
+
+    /**
+     * Waits for this transfer to complete. This is a blocking call; the current
+     * thread is suspended until this transfer completes.
+     *
+     * @throws AmazonClientException
+     *             If any errors were encountered in the client while making the
+     *             request or handling the response.
+     * @throws AmazonServiceException
+     *             If any errors occurred in Amazon S3 while processing the
+     *             request.
+     * @throws InterruptedException
+     *             If this thread is interrupted while waiting for the transfer
+     *             to complete.
+     */
+    @Override
+    public void waitForCompletion()
+            throws AmazonClientException, AmazonServiceException, InterruptedException {
+        try {
+            getMonitor().getFuture().get();
+        } catch (ExecutionException e) {
+            rethrowExecutionException(e);
+        }
+    }
+
+    /**
+     * Tracks the state of the download of a listed object, and makes room for
+     * the next ones once it is done.
+     */
+    private final class ObjectListener implements TransferStateChangeListener {
+        private final long size;
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        ObjectListener(long size) {
+            this.size = size;
+        }
+
+        boolean isFinished() {
+            return finished.get();
+        }
+
+        @Override
+        public void transferStateChanged(Transfer transfer, TransferState state) {
+            if (state == TransferState.InProgress) {
+                if (started.compareAndSet(false, true))
+                    setState(TransferState.InProgress);
+            } else if (state == TransferState.Completed
+                    || state == TransferState.Failed
+                    || state == TransferState.Canceled) {
+                if (finished.compareAndSet(false, true)) {
+                    downloadsInFlight.remove(transfer);
+                    onFinished((DownloadImpl) transfer, state, null);
+                }
+            }
+        }
+
+        void onStartFailed(Throwable t) {
+            if (finished.compareAndSet(false, true))
+                onFinished(null, TransferState.Failed, t);
+        }
+
+        private void onFinished(DownloadImpl download, TransferState state, Throwable t) {
+            synchronized (lock) {
+                objectsInFlight--;
+                bytesInFlight -= charge(size);
+                if (size > largeObjectSize)
+                    largeObjectsInFlight--;
+                if (t != null && failure == null)
+                    failure = t;
+                if (state == TransferState.Failed && download != null
+                        && failedDownload == null) {
+                    failedDownload = download;
+                }
+                if (state == TransferState.Canceled)
+                    seenCanceled = true;
+            }
+            fillWindow();
+        }
+    }
+
+    /**
+     * Done once every listed object has been downloaded, or this transfer has
+     * been aborted.
+     */
+    private final class Monitor implements TransferMonitor, Future<File> {
+        @Override
+        public Future<?> getFuture() {
+            return this;
+        }
+
+        @Override
+        public boolean isDone() {
+            return finished.getCount() == 0;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return false;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return getState() == TransferState.Canceled;
+        }
+
+        @Override
+        public File get() throws InterruptedException, ExecutionException {
+            finished.await();
+            return result();
+        }
+
+        @Override
+        public File get(long timeout, TimeUnit unit)
+                throws InterruptedException, ExecutionException, TimeoutException {
+            if (!finished.await(timeout, unit))
+                throw new TimeoutException();
+            return result();
+        }
+
+        private File result() throws InterruptedException, ExecutionException {
+            Throwable t;
+            AbstractTransfer failed;
+            synchronized (lock) {
+                t = failure;
+                failed = failedDownload;
+            }
+            if (t != null)
+                throw new ExecutionException(t);
+            if (failed != null) {
+                // Throws the failure of the download
+                failed.getMonitor().getFuture().get();
+            }
+            if (getState() == TransferState.Canceled)
+                throw new CancellationException();
+            return destinationDirectory;
+        }
+    }
+}
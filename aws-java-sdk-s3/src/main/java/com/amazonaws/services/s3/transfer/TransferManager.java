@@ -18,7 +18,9 @@ import static com.amazonaws.services.s3.internal.ServiceUtils.APPEND_MODE;
 import static com.amazonaws.services.s3.internal.ServiceUtils.OVERWRITE_MODE;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.LinkedList;
@@ -46,6 +48,7 @@ import com.amazonaws.event.ProgressListener;
 import com.amazonaws.event.ProgressListenerChain;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.AmazonS3Encryption;
 import com.amazonaws.services.s3.internal.FileLocks;
 import com.amazonaws.services.s3.internal.Mimetypes;
 import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
@@ -743,6 +746,57 @@ public class TransferManager {
             final File file, final TransferStateChangeListener stateListener,
             final S3ProgressListener s3progressListener,
             final boolean resumeExistingDownload)
+    {
+        return doDownload(getObjectRequest, file, stateListener,
+                s3progressListener, resumeExistingDownload, null);
+    }
+
+    /**
+     * @param lastFullyDownloadedFilePosition
+     *            the number of bytes of the file completely downloaded by a
+     *            paused parallel ranged download; or null if the length of
+     *            the file should be used when resuming a download.
+     */
+    private Download doDownload(final GetObjectRequest getObjectRequest,
+            final File file, final TransferStateChangeListener stateListener,
+            final S3ProgressListener s3progressListener,
+            final boolean resumeExistingDownload,
+            final Long lastFullyDownloadedFilePosition)
+    {
+        return doDownload(getObjectRequest, file, stateListener,
+                s3progressListener, resumeExistingDownload,
+                lastFullyDownloadedFilePosition, null, false);
+    }
+
+    /**
+     * Schedules the download of an object whose length is already known from
+     * a listing, to be saved atomically to the given file.
+     *
+     * @see PipelinedDirectoryDownload
+     */
+    Download downloadListedObject(final GetObjectRequest getObjectRequest,
+            final File file, final long contentLength,
+            final TransferStateChangeListener stateListener)
+    {
+        return doDownload(getObjectRequest, file, stateListener, null,
+                OVERWRITE_MODE, null, Long.valueOf(contentLength), true);
+    }
+
+    /**
+     * @param contentLength
+     *            the length of the object if already known; or null if it
+     *            should be looked up.
+     * @param saveAtomically
+     *            true if the object should be downloaded to a temporary file,
+     *            which is then renamed to the given file.
+     */
+    private Download doDownload(final GetObjectRequest getObjectRequest,
+            final File file, final TransferStateChangeListener stateListener,
+            final S3ProgressListener s3progressListener,
+            final boolean resumeExistingDownload,
+            final Long lastFullyDownloadedFilePosition,
+            final Long contentLength,
+            final boolean saveAtomically)
     {
         appendSingleObjectUserAgent(getObjectRequest);
         String description = "Downloading from " + getObjectRequest.getBucketName() + "/" + getObjectRequest.getKey();
@@ -769,6 +823,8 @@ public class TransferManager {
                 && range.length == 2) {
             startingByte = range[0];
             lastByte = range[1];
+        } else if (contentLength != null) {
+            lastByte = contentLength.longValue() - 1;
         } else {
             GetObjectMetadataRequest getObjectMetadataRequest = new GetObjectMetadataRequest(
                     getObjectRequest.getBucketName(), getObjectRequest.getKey());
@@ -781,13 +837,11 @@ public class TransferManager {
             lastByte = objectMetadata.getContentLength() - 1;
         }
         final long origStartingByte = startingByte;
-        // We still pass the unfiltered listener chain into DownloadImpl
-        final DownloadImpl download = new DownloadImpl(description,
-                transferProgress, listenerChain, null, stateListener,
-                getObjectRequest, file);
-
         long totalBytesToDownload = lastByte - startingByte + 1;
         transferProgress.setTotalBytesToTransfer(totalBytesToDownload);
+        final boolean isParallelDownload = TransferManagerUtils
+                .isDownloadParallelizable(totalBytesToDownload,
+                        s3 instanceof AmazonS3Encryption, configuration);
 
         long fileLength = -1;
         if (resumeExistingDownload) {
@@ -798,8 +852,13 @@ public class TransferManager {
             try {
                 if (file.exists()) {
                     fileLength = file.length();
+                    if (lastFullyDownloadedFilePosition != null
+                            && lastFullyDownloadedFilePosition < fileLength) {
+                        // Discard the bytes past the gap left by the
+                        // parallel ranged download
+                        fileLength = truncate(file, lastFullyDownloadedFilePosition);
+                    }
                     startingByte = startingByte + fileLength;
-                    getObjectRequest.setRange(startingByte, lastByte);
                     transferProgress.updateProgress(Math.min(fileLength,
                             totalBytesToDownload));
                     totalBytesToDownload = lastByte - startingByte + 1;
@@ -821,11 +880,24 @@ public class TransferManager {
                     "Unable to determine the range for download operation.");
         }
 
+        // We still pass the unfiltered listener chain into DownloadImpl
+        final DownloadImpl download = new DownloadImpl(description,
+                transferProgress, listenerChain, null, stateListener,
+                getObjectRequest, file,
+                isParallelDownload ? Long.valueOf(Math.max(fileLength, 0)) : null);
+        // Parallel downloads always fetch explicit byte ranges
+        if (fileLength >= 0 || isParallelDownload) {
+            getObjectRequest.setRange(startingByte, lastByte);
+        }
+
         final CountDownLatch latch = new CountDownLatch(1);
         Future<?> future = threadPool.submit(
             new DownloadCallable(s3, latch,
                 getObjectRequest, resumeExistingDownload, download, file,
-                origStartingByte, fileLength));
+                origStartingByte, fileLength,
+                isParallelDownload ? threadPool : null,
+                configuration.getMinimumDownloadPartSize(),
+                saveAtomically));
         download.setMonitor(new DownloadMonitor(download, future));
         latch.countDown();
         return download;
@@ -843,6 +915,11 @@ public class TransferManager {
      * http://docs.aws.amazon.com/AmazonS3/latest/dev/UsingAWSSDK.html#
      * specify-signature-version
      * </p>
+     * <p>
+     * If a maximum number of objects is configured for directory downloads,
+     * the objects are downloaded while the virtual directory is still being
+     * listed, within the configured window of objects and bytes.
+     * </p>
      *
      * @param bucketName
      *            The bucket containing the virtual directory
@@ -853,10 +930,17 @@ public class TransferManager {
      * @param destinationDirectory
      *            The directory to place downloaded files. Subdirectories will
      *            be created as necessary.
+     *
+     * @see TransferManagerConfiguration#setDirectoryDownloadMaxObjects(int)
      */
     public MultipleFileDownload downloadDirectory(String bucketName, String keyPrefix, File destinationDirectory) {
         if ( keyPrefix == null )
             keyPrefix = "";
+        if ( configuration.getDirectoryDownloadMaxObjects() > 0 ) {
+            return new PipelinedDirectoryDownload(this, s3, threadPool,
+                    configuration, bucketName, keyPrefix, destinationDirectory)
+                    .start();
+        }
         List<S3ObjectSummary> objectSummaries = new LinkedList<S3ObjectSummary>();
         Stack<String> commonPrefixes = new Stack<String>();
         commonPrefixes.add(keyPrefix);
@@ -1299,7 +1383,7 @@ public class TransferManager {
     private static final String USER_AGENT_MULTIPART = TransferManager.class.getName() + "_multipart/" + VersionInfoUtils.getVersion();
 
 
-    private static final String DEFAULT_DELIMITER = "/";
+    static final String DEFAULT_DELIMITER = "/";
 
     /**
      * There is no need for threads from timedThreadPool if there is no more running threads in current process,
@@ -1546,7 +1630,30 @@ public class TransferManager {
         request.setResponseHeaders(persistableDownload.getResponseHeaders());
 
         return doDownload(request, new File(persistableDownload.getFile()), null, null,
-                APPEND_MODE);
+                APPEND_MODE, persistableDownload.getLastFullyDownloadedFilePosition());
+    }
+
+    /**
+     * Truncates the given file to the given length, returning the new length.
+     */
+    private static long truncate(File file, long length) {
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(file, "rw");
+            raf.setLength(length);
+            return length;
+        } catch (IOException e) {
+            throw new AmazonClientException("Unable to truncate " + file
+                    + " for resume download", e);
+        } finally {
+            if (raf != null) {
+                try {
+                    raf.close();
+                } catch (IOException e) {
+                    log.debug("Unable to close " + file, e);
+                }
+            }
+        }
     }
 
     /**
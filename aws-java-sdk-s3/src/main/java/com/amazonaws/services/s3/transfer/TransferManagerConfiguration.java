@@ -39,6 +39,34 @@ public class TransferManagerConfiguration {
     /** Default minimum size of each part for multi-part copy. */
     private static final long DEFAULT_MINIMUM_COPY_PART_SIZE = 100 * MB;
 
+    /**
+     * Default size threshold for when to use parallel ranged downloads;
+     * parallel downloads are disabled unless explicitly configured.
+     */
+    private static final long DEFAULT_MULTIPART_DOWNLOAD_THRESHOLD = Long.MAX_VALUE;
+
+    /** Default size of each byte range for parallel ranged downloads. */
+    private static final long DEFAULT_MINIMUM_DOWNLOAD_PART_SIZE = 8 * MB;
+
+    /**
+     * Default number of part buffers for parallel stream uploads; parallel
+     * stream uploads are disabled unless explicitly configured.
+     */
+    private static final int DEFAULT_UPLOAD_PART_BUFFER_COUNT = 0;
+
+    /**
+     * Default maximum number of objects downloaded concurrently by a directory
+     * download; pipelined directory downloads are disabled unless explicitly
+     * configured.
+     */
+    private static final int DEFAULT_DIRECTORY_DOWNLOAD_MAX_OBJECTS = 0;
+
+    /**
+     * Default maximum number of bytes of the objects downloaded concurrently
+     * by a pipelined directory download.
+     */
+    private static final long DEFAULT_DIRECTORY_DOWNLOAD_MAX_BYTES = 256 * MB;
+
     /**
      * The minimum part size for upload parts. Decreasing the minimum part size
      * will cause multipart uploads to be split into a larger number of smaller
@@ -77,6 +105,47 @@ public class TransferManagerConfiguration {
      */
     private long multipartCopyPartSize = DEFAULT_MINIMUM_COPY_PART_SIZE;
 
+    /**
+     * The size threshold, in bytes, for when to use parallel ranged downloads.
+     * Downloads of objects (or byte ranges) over this size are split into
+     * byte ranges which are fetched concurrently and written straight to
+     * their offset in the destination file, while smaller downloads use a
+     * single connection.
+     */
+    private long multipartDownloadThreshold = DEFAULT_MULTIPART_DOWNLOAD_THRESHOLD;
+
+    /**
+     * The size in bytes of each byte range fetched when a parallel ranged
+     * download is carried out.
+     */
+    private long minimumDownloadPartSize = DEFAULT_MINIMUM_DOWNLOAD_PART_SIZE;
+
+    /**
+     * The maximum number of part buffers used by each upload from a stream.
+     * Stream uploads read each part into a buffer, and upload the buffered
+     * parts in parallel, reading further only once a buffer is free again.
+     */
+    private int uploadPartBufferCount = DEFAULT_UPLOAD_PART_BUFFER_COUNT;
+
+    /**
+     * Whether the part buffers of stream uploads are allocated outside of the
+     * heap.
+     */
+    private boolean directUploadPartBuffers;
+
+    /**
+     * The maximum number of objects downloaded concurrently by a directory
+     * download. Pipelined directory downloads list the objects while
+     * downloading them, and only start a download once there is room for it.
+     */
+    private int directoryDownloadMaxObjects = DEFAULT_DIRECTORY_DOWNLOAD_MAX_OBJECTS;
+
+    /**
+     * The maximum number of bytes of the objects downloaded concurrently by a
+     * pipelined directory download.
+     */
+    private long directoryDownloadMaxBytes = DEFAULT_DIRECTORY_DOWNLOAD_MAX_BYTES;
+
     /**
      * Returns the minimum part size for upload parts.
      * Decreasing the minimum part size causes
@@ -192,4 +261,180 @@ public class TransferManagerConfiguration {
     public void setMultipartCopyThreshold(long multipartCopyThreshold) {
         this.multipartCopyThreshold = multipartCopyThreshold;
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the size threshold in bytes for when to use parallel ranged
+     * downloads. Downloads over this size are split into byte ranges that are
+     * fetched concurrently on the transfer manager's thread pool, while
+     * downloads smaller than this threshold use a single connection to
+     * download the whole object. Parallel ranged downloads are disabled by
+     * default.
+     *
+     * @return The size threshold in bytes for when to use parallel ranged
+     *         downloads.
+     */
+    public long getMultipartDownloadThreshold() {
+        return multipartDownloadThreshold;
+    }
+
+    /**
+     * Sets the size threshold in bytes for when to use parallel ranged
+     * downloads. Downloads over this size are split into byte ranges that are
+     * fetched concurrently on the transfer manager's thread pool, while
+     * downloads smaller than this threshold use a single connection to
+     * download the whole object.
+     * <p>
+     * Amazon S3 doesn't return a checksum for a byte range, so the end-to-end
+     * MD5 check performed for single connection downloads is skipped for
+     * parallel downloads. Each byte range is only checked to be complete, and
+     * to come from the same version of the object as the first range.
+     *
+     * @param multipartDownloadThreshold
+     *            The size threshold in bytes for when to use parallel ranged
+     *            downloads.
+     */
+    public void setMultipartDownloadThreshold(long multipartDownloadThreshold) {
+        this.multipartDownloadThreshold = multipartDownloadThreshold;
+    }
+
+    /**
+     * Returns the size in bytes of each byte range fetched during a parallel
+     * ranged download.
+     *
+     * @return The size in bytes of each byte range fetched during a parallel
+     *         ranged download.
+     */
+    public long getMinimumDownloadPartSize() {
+        return minimumDownloadPartSize;
+    }
+
+    /**
+     * Sets the size in bytes of each byte range fetched during a parallel
+     * ranged download. Decreasing this size increases the number of GET
+     * requests sent to Amazon S3.
+     *
+     * @param minimumDownloadPartSize
+     *            The size in bytes of each byte range fetched during a
+     *            parallel ranged download.
+     */
+    public void setMinimumDownloadPartSize(long minimumDownloadPartSize) {
+        this.minimumDownloadPartSize = minimumDownloadPartSize;
+    }
+
+    /**
+     * Returns the maximum number of part buffers used by each upload from an
+     * input stream, or zero if stream uploads are not parallelized. Parallel
+     * stream uploads are disabled by default.
+     *
+     * @return The maximum number of part buffers used by each upload from an
+     *         input stream.
+     */
+    public int getUploadPartBufferCount() {
+        return uploadPartBufferCount;
+    }
+
+    /**
+     * Sets the maximum number of part buffers used by each upload from an
+     * input stream. When greater than zero, unencrypted uploads from an input
+     * stream over the multipart upload threshold, or of unknown length, are
+     * read one part at a time into reusable buffers, and the buffered parts
+     * are uploaded in parallel on the transfer manager's thread pool. Once
+     * every buffer is in flight, the stream is not read any further until a
+     * part has been uploaded.
+     * <p>
+     * Each buffer is the size of a part, so an upload holds up to this many
+     * times the part size in memory. Uploads of unknown length use the
+     * minimum upload part size, which limits them to 10,000 times that size.
+     *
+     * @param uploadPartBufferCount
+     *            The maximum number of part buffers used by each upload from
+     *            an input stream, or zero to upload the parts of streams in
+     *            series.
+     */
+    public void setUploadPartBufferCount(int uploadPartBufferCount) {
+        this.uploadPartBufferCount = uploadPartBufferCount;
+    }
+
+    /**
+     * Returns true if the part buffers of stream uploads are allocated
+     * outside of the heap.
+     *
+     * @return True if the part buffers of stream uploads are direct buffers.
+     */
+    public boolean isDirectUploadPartBuffers() {
+        return directUploadPartBuffers;
+    }
+
+    /**
+     * Sets whether the part buffers of stream uploads are allocated outside
+     * of the heap, which keeps large buffers out of the garbage collected
+     * heap.
+     *
+     * @param directUploadPartBuffers
+     *            True to allocate the part buffers of stream uploads as direct
+     *            buffers.
+     */
+    public void setDirectUploadPartBuffers(boolean directUploadPartBuffers) {
+        this.directUploadPartBuffers = directUploadPartBuffers;
+    }
+
+    /**
+     * Returns the maximum number of objects downloaded concurrently by a
+     * directory download, or zero if directory downloads are not pipelined.
+     * Pipelined directory downloads are disabled by default.
+     *
+     * @return The maximum number of objects downloaded concurrently by a
+     *         directory download.
+     */
+    public int getDirectoryDownloadMaxObjects() {
+        return directoryDownloadMaxObjects;
+    }
+
+    /**
+     * Sets the maximum number of objects downloaded concurrently by a
+     * directory download. When greater than zero, directory downloads list
+     * the objects one page at a time while downloading them, rather than
+     * listing every object before starting any download, and only list
+     * further once the objects already listed are being downloaded.
+     * <p>
+     * Objects smaller than their share of the
+     * {@link #setDirectoryDownloadMaxBytes(long) maximum number of bytes}
+     * are downloaded smallest first, alongside one larger object at a time
+     * at least. Each object is downloaded to a temporary file, which then
+     * replaces the destination file, so a destination file is never seen
+     * partially written.
+     *
+     * @param directoryDownloadMaxObjects
+     *            The maximum number of objects downloaded concurrently by a
+     *            directory download, or zero to list every object before
+     *            scheduling all the downloads at once.
+     */
+    public void setDirectoryDownloadMaxObjects(int directoryDownloadMaxObjects) {
+        this.directoryDownloadMaxObjects = directoryDownloadMaxObjects;
+    }
+
+    /**
+     * Returns the maximum number of bytes of the objects downloaded
+     * concurrently by a pipelined directory download.
+     *
+     * @return The maximum number of bytes of the objects downloaded
+     *         concurrently by a pipelined directory download.
+     */
+    public long getDirectoryDownloadMaxBytes() {
+        return directoryDownloadMaxBytes;
+    }
+
+    /**
+     * Sets the maximum number of bytes of the objects downloaded concurrently
+     * by a pipelined directory download. An object counts for at most half of
+     * this number, so that objects larger than it can still be downloaded
+     * alongside smaller ones.
+     *
+     * @param directoryDownloadMaxBytes
+     *            The maximum number of bytes of the objects downloaded
+     *            concurrently by a pipelined directory download.
+     */
+    public void setDirectoryDownloadMaxBytes(long directoryDownloadMaxBytes) {
+        this.directoryDownloadMaxBytes = directoryDownloadMaxBytes;
+    }
+}
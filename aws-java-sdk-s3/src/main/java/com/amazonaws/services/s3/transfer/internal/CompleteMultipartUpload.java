@@ -17,10 +17,15 @@ package com.amazonaws.services.s3.transfer.internal;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
 import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
 import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
 import com.amazonaws.services.s3.model.PartETag;
@@ -33,6 +38,8 @@ import com.amazonaws.services.s3.transfer.model.UploadResult;
  */
 public class CompleteMultipartUpload implements Callable<UploadResult> {
 
+    private static final Log log = LogFactory.getLog(CompleteMultipartUpload.class);
+
     /** The upload id associated with the multi-part upload. */
     private final String uploadId;
 
@@ -92,16 +99,21 @@ public class CompleteMultipartUpload implements Callable<UploadResult> {
     /**
      * Collects the Part ETags for initiating the complete multi-part upload
      * request. This is blocking as it waits until all the upload part threads
-     * complete.
+     * complete. Aborts the multi-part upload if a part upload failed.
      */
     private List<PartETag> collectPartETags() {
 
         final List<PartETag> partETags = new ArrayList<PartETag>();
         partETags.addAll(eTagsBeforeResume);
-        for (Future<PartETag> future : futures) {
+        // The futures may be cancelled and cleared while we wait on them
+        for (Future<PartETag> future : new ArrayList<Future<PartETag>>(futures)) {
             try {
                 partETags.add(future.get());
             } catch (Exception e) {
+                // A cancelled upload is left for whoever cancelled it
+                if (e instanceof ExecutionException) {
+                    abortMultipartUpload();
+                }
                 throw new AmazonClientException(
                         "Unable to complete multi-part upload. Individual part upload failed : "
                                 + e.getCause().getMessage(), e.getCause());
@@ -109,4 +121,15 @@ public class CompleteMultipartUpload implements Callable<UploadResult> {
         }
         return partETags;
     }
+
+    private void abortMultipartUpload() {
+        try {
+            s3.abortMultipartUpload(new AbortMultipartUploadRequest(
+                    origReq.getBucketName(), origReq.getKey(), uploadId));
+        } catch (Exception e) {
+            log.info(
+                    "Unable to abort multipart upload, you may need to manually remove uploaded parts: "
+                            + e.getMessage(), e);
+        }
+    }
 }
@@ -33,15 +33,31 @@ public class DownloadImpl extends AbstractTransfer implements Download {
     /**
      * Information to resume if the download is paused.
      */
-    private final PersistableDownload persistableDownload;
+    private volatile PersistableDownload persistableDownload;
 
     public DownloadImpl(String description, TransferProgress transferProgress,
             ProgressListenerChain progressListenerChain, S3Object s3Object,
             TransferStateChangeListener listener,
             GetObjectRequest getObjectRequest, File file) {
+        this(description, transferProgress, progressListenerChain, s3Object,
+                listener, getObjectRequest, file, null);
+    }
+
+    /**
+     * @param lastFullyDownloadedFilePosition
+     *            the number of bytes, from the start of the file, already
+     *            completely downloaded by a parallel ranged download; or null
+     *            if the download is not a parallel ranged download.
+     */
+    public DownloadImpl(String description, TransferProgress transferProgress,
+            ProgressListenerChain progressListenerChain, S3Object s3Object,
+            TransferStateChangeListener listener,
+            GetObjectRequest getObjectRequest, File file,
+            Long lastFullyDownloadedFilePosition) {
         super(description, transferProgress, progressListenerChain, listener);
         this.s3Object = s3Object;
-        this.persistableDownload = captureDownloadState(getObjectRequest, file);
+        this.persistableDownload = captureDownloadState(getObjectRequest, file,
+                lastFullyDownloadedFilePosition);
         S3ProgressPublisher.publishTransferPersistable(progressListenerChain,
                 persistableDownload);
     }
@@ -123,18 +139,39 @@ public class DownloadImpl extends AbstractTransfer implements Download {
      * captured (for security reason).
      */
     private PersistableDownload captureDownloadState(
-            final GetObjectRequest getObjectRequest, final File file) {
+            final GetObjectRequest getObjectRequest, final File file,
+            final Long lastFullyDownloadedFilePosition) {
         if (getObjectRequest.getSSECustomerKey() == null) {
             return new PersistableDownload(
                     getObjectRequest.getBucketName(),
                     getObjectRequest.getKey(), getObjectRequest.getVersionId(),
                     getObjectRequest.getRange(),
                     getObjectRequest.getResponseHeaders(),
-                    getObjectRequest.isRequesterPays(), file.getAbsolutePath());
+                    getObjectRequest.isRequesterPays(), file.getAbsolutePath(),
+                    lastFullyDownloadedFilePosition);
         }
         return null;
     }
 
+    /**
+     * Returns the captured state of the download; or null if it was not
+     * captured (for security reason).
+     */
+    public PersistableDownload getPersistableDownload() {
+        return persistableDownload;
+    }
+
+    /**
+     * Replaces the captured state of the download as a parallel ranged
+     * download makes progress, and notifies the listeners so that the latest
+     * state can be persisted.
+     */
+    public void updatePersistableDownload(PersistableDownload persistableDownload) {
+        this.persistableDownload = persistableDownload;
+        S3ProgressPublisher.publishTransferPersistable(listenerChain,
+                persistableDownload);
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -0,0 +1,365 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.transfer.TransferManager;
+
+/**
+ * Uploads the parts of a stream concurrently, reading the stream into a
+ * bounded pool of reusable part buffers.
+ * <p>
+ * The calling thread reads the stream one part at a time, and submits the
+ * upload of each part to the transfer manager's thread pool. Once every buffer
+ * is in flight, it waits for the oldest part to be uploaded before reading any
+ * further, uploading that part itself if no thread of the pool has started it
+ * yet; so the upload makes progress even when every thread of the pool is
+ * busy.
+ * <p>
+ * If the request declares a content length, exactly that many bytes are read
+ * from the stream; otherwise the stream is read to its end.
+ */
+final class ParallelStreamUpload {
+    private final AmazonS3 s3;
+    private final ExecutorService threadPool;
+    private final PutObjectRequest origReq;
+    private final InputStream input;
+    private final int partSize;
+    private final int maxBuffers;
+    private final boolean directBuffers;
+
+    /** Buffers not in flight; guarded by this. */
+    private final LinkedList<ByteBuffer> freeBuffers = new LinkedList<ByteBuffer>();
+    /** Number of buffers allocated so far; guarded by this. */
+    private int allocatedBuffers;
+
+    /** Part uploads not yet known to be completed, oldest first. */
+    private final LinkedList<FutureTask<PartETag>> pendingParts =
+        new LinkedList<FutureTask<PartETag>>();
+
+    private ReadableByteChannel channel;
+    /** The part read by {@link #readFirstPart()}, not yet uploaded. */
+    private ByteBuffer firstPart;
+    private boolean endOfStream;
+    private int partNumber = 1;
+
+    /** The declared length of the stream, or -1 if it is unknown. */
+    private final long expectedLength;
+    /** The number of bytes read from the stream so far. */
+    private long bytesRead;
+
+    /**
+     * @param partSize
+     *            the size of each part, and of each part buffer
+     * @param maxBuffers
+     *            the maximum number of part buffers, which bounds the number
+     *            of parts read but not yet uploaded
+     * @param directBuffers
+     *            true if the part buffers should be allocated outside of the
+     *            heap
+     */
+    ParallelStreamUpload(AmazonS3 s3, ExecutorService threadPool,
+            PutObjectRequest origReq, int partSize, int maxBuffers,
+            boolean directBuffers) {
+        this.s3 = s3;
+        this.threadPool = threadPool;
+        this.origReq = origReq;
+        this.input = origReq.getInputStream();
+        this.partSize = partSize;
+        this.maxBuffers = Math.max(1, maxBuffers);
+        this.directBuffers = directBuffers;
+        this.expectedLength = TransferManagerUtils.getContentLength(origReq);
+    }
+
+    /**
+     * Reads the first part of the stream.
+     *
+     * @return true if the stream is at least one part long, and should be
+     *         uploaded in parts; false if the whole stream was read.
+     */
+    boolean readFirstPart() throws Exception {
+        firstPart = acquireBuffer();
+        read(firstPart);
+        return !endOfStream;
+    }
+
+    /**
+     * Returns a request to upload the whole stream, once read by
+     * {@link #readFirstPart()}, in a single chunk.
+     */
+    PutObjectRequest getSingleChunkRequest() {
+        PutObjectRequest req = origReq.clone();
+        ObjectMetadata metadata = req.getMetadata();
+        if (metadata == null) {
+            metadata = new ObjectMetadata();
+            req.setMetadata(metadata);
+        }
+        metadata.setContentLength(firstPart.remaining());
+        req.setInputStream(new ByteBufferInputStream(firstPart));
+        return req;
+    }
+
+    /**
+     * Reads the rest of the stream, submitting the upload of each part
+     * through the given callable, which records the futures of the part
+     * uploads in part order. Returns once the last part has been submitted.
+     */
+    void uploadParts(String uploadId, UploadCallable uploadCallable) throws Exception {
+        try {
+            ByteBuffer buffer = firstPart;
+            firstPart = null;
+            while (true) {
+                if (buffer == null) {
+                    buffer = acquireBuffer();
+                    read(buffer);
+                }
+                if (!buffer.hasRemaining() && partNumber > 1) {
+                    releaseBuffer(buffer);
+                    return;
+                }
+                submitPart(uploadId, uploadCallable, buffer, endOfStream);
+                if (endOfStream) {
+                    return;
+                }
+                buffer = null;
+            }
+        } catch (Exception e) {
+            for (FutureTask<PartETag> part : pendingParts) {
+                part.cancel(true);
+            }
+            throw e;
+        }
+    }
+
+    private void submitPart(String uploadId, UploadCallable uploadCallable,
+            final ByteBuffer buffer, boolean isLastPart) throws Exception {
+        if (threadPool.isShutdown()) throw new CancellationException("TransferManager has been shutdown");
+
+        final UploadPartRequest req = new UploadPartRequest()
+            .withBucketName(origReq.getBucketName())
+            .withKey(origReq.getKey())
+            .withUploadId(uploadId)
+            .withInputStream(new ByteBufferInputStream(buffer))
+            .withPartNumber(partNumber++)
+            .withPartSize(buffer.remaining());
+        TransferManager.appendMultipartUserAgent(req);
+        if (origReq.getSSECustomerKey() != null) req.setSSECustomerKey(origReq.getSSECustomerKey());
+        req.setLastPart(isLastPart);
+        req.withGeneralProgressListener(origReq.getGeneralProgressListener())
+           .withRequestMetricCollector(origReq.getRequestMetricCollector())
+           ;
+
+        // Claimed by whichever of the upload and the cancellation of the part
+        // comes first, which then releases the buffer
+        final AtomicBoolean bufferClaimed = new AtomicBoolean();
+        FutureTask<PartETag> part = new FutureTask<PartETag>(new Callable<PartETag>() {
+            public PartETag call() throws Exception {
+                if (!bufferClaimed.compareAndSet(false, true)) {
+                    throw new CancellationException("The part upload has been canceled");
+                }
+                try {
+                    return s3.uploadPart(req).getPartETag();
+                } finally {
+                    releaseBuffer(buffer);
+                }
+            }
+        }) {
+            @Override
+            protected void done() {
+                // A part cancelled before it started never runs its callable
+                if (bufferClaimed.compareAndSet(false, true)) {
+                    releaseBuffer(buffer);
+                }
+            }
+        };
+        // Fails fast if an earlier part has already failed
+        while (!pendingParts.isEmpty() && pendingParts.getFirst().isDone()) {
+            checkPart(pendingParts.removeFirst());
+        }
+        pendingParts.add(part);
+        uploadCallable.submitPart(part);
+    }
+
+    /**
+     * Returns a free part buffer, waiting for the oldest part to be uploaded
+     * if every buffer is in flight, or for a buffer to be released if no part
+     * is pending.
+     */
+    ByteBuffer acquireBuffer() throws Exception {
+        while (true) {
+            synchronized (this) {
+                if (!freeBuffers.isEmpty()) {
+                    return freeBuffers.removeFirst();
+                }
+                if (allocatedBuffers < maxBuffers) {
+                    allocatedBuffers++;
+                    return directBuffers
+                        ? ByteBuffer.allocateDirect(partSize)
+                        : ByteBuffer.allocate(partSize);
+                }
+                if (pendingParts.isEmpty()) {
+                    // The buffers are held by parts no longer pending
+                    wait();
+                    continue;
+                }
+            }
+            FutureTask<PartETag> oldest = pendingParts.removeFirst();
+            // Uploads the part in this thread if it hasn't been started yet
+            oldest.run();
+            checkPart(oldest);
+        }
+    }
+
+    synchronized void releaseBuffer(ByteBuffer buffer) {
+        freeBuffers.add(buffer);
+        notifyAll();
+    }
+
+    /**
+     * Rethrows the failure of the given completed part upload, if any.
+     */
+    private static void checkPart(FutureTask<PartETag> part) throws Exception {
+        try {
+            part.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) throw (Exception) cause;
+            throw (Error) cause;
+        }
+    }
+
+    /**
+     * Fills the given buffer from the stream, up to the declared length of the
+     * stream if there is one, leaving it ready to be read.
+     */
+    private void read(ByteBuffer buffer) throws IOException {
+        int length = expectedLength < 0
+            ? partSize
+            : (int) Math.min(partSize, expectedLength - bytesRead);
+        buffer.clear();
+        if (buffer.hasArray()) {
+            byte[] array = buffer.array();
+            int offset = buffer.arrayOffset();
+            int count = 0;
+            while (count < length) {
+                int read = input.read(array, offset + count, length - count);
+                if (read == -1) {
+                    endOfStream = true;
+                    break;
+                }
+                count += read;
+            }
+            buffer.limit(count);
+        } else {
+            if (channel == null) {
+                channel = Channels.newChannel(input);
+            }
+            buffer.limit(length);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) == -1) {
+                    endOfStream = true;
+                    break;
+                }
+            }
+            buffer.flip();
+        }
+        bytesRead += buffer.remaining();
+
+        if (expectedLength >= 0) {
+            if (bytesRead == expectedLength) {
+                // Whatever follows in the stream isn't part of the object
+                endOfStream = true;
+            } else if (endOfStream) {
+                throw new AmazonClientException(
+                        "Data read has a different length than the expected: dataLength="
+                        + bytesRead + "; expectedLength=" + expectedLength);
+            }
+        }
+    }
+
+    /**
+     * An input stream over the remaining bytes of a buffer, without copying
+     * them, which supports mark and reset so the request can be retried.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+        private int mark;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer.duplicate();
+            this.mark = this.buffer.position();
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) return 0;
+            if (!buffer.hasRemaining()) return -1;
+            len = Math.min(len, buffer.remaining());
+            buffer.get(b, off, len);
+            return len;
+        }
+
+        @Override
+        public long skip(long n) {
+            int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public synchronized void mark(int readlimit) {
+            mark = buffer.position();
+        }
+
+        @Override
+        public synchronized void reset() {
+            buffer.position(mark);
+        }
+    }
+}
@@ -21,6 +21,9 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.AmazonS3Encryption;
+import com.amazonaws.services.s3.AmazonS3EncryptionClient;
 import com.amazonaws.services.s3.model.CopyObjectRequest;
 import com.amazonaws.services.s3.model.PutObjectRequest;
 import com.amazonaws.services.s3.transfer.PauseStatus;
@@ -71,6 +74,76 @@ public class TransferManagerUtils {
         return (getRequestFile(putObjectRequest) != null);
     }
 
+    /**
+     * Returns true if the specified request should be processed as a
+     * multipart upload whose parts are uploaded in parallel through the given
+     * client. The parts of an encrypted upload can only be uploaded in
+     * parallel if the client encrypts them independently of each other.
+     *
+     * @param putObjectRequest
+     *            The request to check.
+     * @param s3
+     *            The client uploading the parts.
+     *
+     * @return True if this request can use parallel part uploads for faster
+     *         uploads.
+     */
+    public static boolean isUploadParallelizable(final PutObjectRequest putObjectRequest, final AmazonS3 s3) {
+        boolean isEncryptionSerial = s3 instanceof AmazonS3Encryption
+                && !(s3 instanceof AmazonS3EncryptionClient
+                        && ((AmazonS3EncryptionClient) s3).isMultipartUploadParallelizable());
+        return isUploadParallelizable(putObjectRequest, isEncryptionSerial);
+    }
+
+    /**
+     * Returns true if the specified upload request reads from an input stream
+     * whose parts can be buffered and uploaded in parallel.
+     *
+     * @param putObjectRequest
+     *            The request to check.
+     * @param isUsingEncryption
+     *            True if the upload is an encrypted upload, otherwise false.
+     * @param configuration
+     *            The configuration of the transfer manager.
+     *
+     * @return True if this request can use parallel stream uploads.
+     */
+    public static boolean isUploadStreamable(final PutObjectRequest putObjectRequest,
+            final boolean isUsingEncryption,
+            TransferManagerConfiguration configuration) {
+        if (isUsingEncryption) return false;
+
+        return configuration.getUploadPartBufferCount() > 0
+            && getRequestFile(putObjectRequest) == null
+            && putObjectRequest.getInputStream() != null;
+    }
+
+    /**
+     * Returns true if a download of the specified number of bytes should be
+     * split into byte ranges that are fetched in parallel.
+     *
+     * @param totalBytesToDownload
+     *            The number of bytes left to download.
+     * @param isUsingEncryption
+     *            True if the download is an encrypted download, otherwise
+     *            false.
+     * @param configuration
+     *            The configuration of the transfer manager.
+     *
+     * @return True if this download should use parallel ranged downloads.
+     */
+    public static boolean isDownloadParallelizable(long totalBytesToDownload,
+            final boolean isUsingEncryption,
+            TransferManagerConfiguration configuration) {
+        // Client side decryption needs the whole cipher text stream, so we
+        // cannot fetch encrypted objects in independent byte ranges.
+        if (isUsingEncryption) return false;
+
+        return configuration.getMinimumDownloadPartSize() > 0
+            && totalBytesToDownload > configuration.getMinimumDownloadPartSize()
+            && totalBytesToDownload >= configuration.getMultipartDownloadThreshold();
+    }
+
     /**
      * Returns the size of the data in this request, otherwise -1 if the content
      * length is unknown.
@@ -18,6 +18,7 @@ import static com.amazonaws.event.SDKProgressPublisher.publishProgress;
 
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -25,6 +26,7 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -63,7 +65,14 @@ public class UploadCallable implements Callable<UploadResult> {
 
     private static final Log log = LogFactory.getLog(UploadCallable.class);
     private final TransferManagerConfiguration configuration;
-    private final List<Future<PartETag>> futures = new ArrayList<Future<PartETag>>();
+    /**
+     * The futures of the part uploads, added and cancelled while holding its
+     * lock.
+     */
+    private final List<Future<PartETag>> futures =
+        Collections.synchronizedList(new ArrayList<Future<PartETag>>());
+    /** True once the part uploads have been cancelled; guarded by futures. */
+    private boolean isCancelled;
     private final ProgressListenerChain listener;
     private final TransferProgress transferProgress;
 
@@ -75,6 +84,9 @@ public class UploadCallable implements Callable<UploadResult> {
 
     private PersistableUpload persistableUpload;
 
+    /** True once a stream of unknown length is being uploaded in parts. */
+    private volatile boolean isStreamUploadedInParts;
+
     public UploadCallable(TransferManager transferManager,
             ExecutorService threadPool, UploadImpl upload,
             PutObjectRequest origReq,
@@ -95,6 +107,41 @@ public class UploadCallable implements Callable<UploadResult> {
         return futures;
     }
 
+    /**
+     * Runs the given part upload on the thread pool, and records its future;
+     * unless the part uploads have been cancelled.
+     *
+     * @throws CancellationException
+     *             if the part uploads have been cancelled.
+     */
+    void submitPart(FutureTask<PartETag> part) {
+        synchronized (futures) {
+            if (isCancelled) throw new CancellationException("The upload has been canceled");
+            futures.add(part);
+            threadPool.execute(part);
+        }
+    }
+
+    private boolean isCancelled() {
+        synchronized (futures) {
+            return isCancelled;
+        }
+    }
+
+    /**
+     * Cancels the part uploads submitted so far, and keeps any more from
+     * being submitted.
+     */
+    void cancelFutures() {
+        synchronized (futures) {
+            isCancelled = true;
+            for (Future<PartETag> f : futures) {
+                f.cancel(true);
+            }
+            futures.clear();
+        }
+    }
+
     /**
      * Returns the ETags retrieved from Amazon S3 for a multi-part upload id.
      * These parts will be skipped while resuming a paused upload.
@@ -112,33 +159,65 @@ public class UploadCallable implements Callable<UploadResult> {
      * @return True if this UploadCallable is processing a multipart upload.
      */
     public boolean isMultipartUpload() {
-        return TransferManagerUtils.shouldUseMultipartUpload(origReq, configuration);
+        return isStreamUploadedInParts
+            || TransferManagerUtils.shouldUseMultipartUpload(origReq, configuration);
     }
 
     public UploadResult call() throws Exception {
         upload.setState(TransferState.InProgress);
         if ( isMultipartUpload() ) {
             publishProgress(listener, ProgressEventType.TRANSFER_STARTED_EVENT);
-            return uploadInParts();
+            return uploadInParts(null);
+        } else if (TransferManagerUtils.getContentLength(origReq) < 0
+                && TransferManagerUtils.isUploadStreamable(origReq,
+                        s3 instanceof AmazonS3Encryption, configuration)) {
+            return uploadStreamOfUnknownLength();
         } else {
-            return uploadInOneChunk();
+            return uploadInOneChunk(origReq);
         }
     }
 
     /**
      * Uploads the given request in a single chunk and returns the result.
      */
-    private UploadResult uploadInOneChunk() {
-        PutObjectResult putObjectResult = s3.putObject(origReq);
+    private UploadResult uploadInOneChunk(PutObjectRequest req) {
+        PutObjectResult putObjectResult = s3.putObject(req);
 
         UploadResult uploadResult = new UploadResult();
-        uploadResult.setBucketName(origReq.getBucketName());
-        uploadResult.setKey(origReq.getKey());
+        uploadResult.setBucketName(req.getBucketName());
+        uploadResult.setKey(req.getKey());
         uploadResult.setETag(putObjectResult.getETag());
         uploadResult.setVersionId(putObjectResult.getVersionId());
         return uploadResult;
     }
 
+    /**
+     * Uploads a stream of unknown length in a single chunk if it fits in a
+     * single part, or in parallel parts otherwise, without buffering more
+     * than the configured number of parts.
+     */
+    private UploadResult uploadStreamOfUnknownLength() throws Exception {
+        ParallelStreamUpload streamUpload = newParallelStreamUpload(getOptimalPartSize(false));
+        boolean isUploadedInParts = false;
+        try {
+            if (!streamUpload.readFirstPart()) {
+                return uploadInOneChunk(streamUpload.getSingleChunkRequest());
+            }
+            isUploadedInParts = true;
+        } finally {
+            if (!isUploadedInParts) closeInputStream();
+        }
+        isStreamUploadedInParts = true;
+        publishProgress(listener, ProgressEventType.TRANSFER_STARTED_EVENT);
+        return uploadInParts(streamUpload);
+    }
+
+    private ParallelStreamUpload newParallelStreamUpload(long partSize) {
+        return new ParallelStreamUpload(s3, threadPool, origReq,
+                (int) partSize, configuration.getUploadPartBufferCount(),
+                configuration.isDirectUploadPartBuffers());
+    }
+
     /**
      * Captures the state of the upload.
      */
@@ -169,8 +248,12 @@ public class UploadCallable implements Callable<UploadResult> {
      * Uploads the request in multiple chunks, submitting each upload chunk task
      * to the thread pool and recording its corresponding Future object, as well
      * as the multipart upload id.
+     *
+     * @param streamUpload
+     *            the parallel upload of a stream whose first part has already
+     *            been read; or null.
      */
-    private UploadResult uploadInParts() throws Exception {
+    private UploadResult uploadInParts(ParallelStreamUpload streamUpload) throws Exception {
         boolean isUsingEncryption = s3 instanceof AmazonS3Encryption;
         long optimalPartSize = getOptimalPartSize(isUsingEncryption);
 
@@ -182,22 +265,40 @@ public class UploadCallable implements Callable<UploadResult> {
         try {
             UploadPartRequestFactory requestFactory = new UploadPartRequestFactory(origReq, multipartUploadId, optimalPartSize);
 
-            if (TransferManagerUtils.isUploadParallelizable(origReq, isUsingEncryption)) {
-                captureUploadStateIfPossible();
+            if (TransferManagerUtils.isUploadParallelizable(origReq, s3)) {
+                // The encryption context of the upload can't be persisted
+                if (!isUsingEncryption)
+                    captureUploadStateIfPossible();
                 uploadPartsInParallel(requestFactory, multipartUploadId);
                 return null;
+            } else if (streamUpload != null
+                    || (TransferManagerUtils.isUploadStreamable(origReq, isUsingEncryption, configuration)
+                            && optimalPartSize <= Integer.MAX_VALUE)) {
+                if (streamUpload == null) {
+                    streamUpload = newParallelStreamUpload(optimalPartSize);
+                }
+                streamUpload.uploadParts(multipartUploadId, this);
+                return null;
             } else {
                 return uploadPartsInSeries(requestFactory);
             }
         } catch (Exception e) {
-            publishProgress(listener, ProgressEventType.TRANSFER_FAILED_EVENT);
-            performAbortMultipartUpload();
+            // A paused upload is kept so that it can be resumed; an aborted
+            // one is aborted by whoever cancelled it
+            if (!isCancelled()) {
+                publishProgress(listener, ProgressEventType.TRANSFER_FAILED_EVENT);
+                performAbortMultipartUpload();
+            }
             throw e;
         } finally {
-            if (origReq.getInputStream() != null) {
-                try {origReq.getInputStream().close(); } catch (Exception e) {
-                    log.warn("Unable to cleanly close input stream: " + e.getMessage(), e);
-                }
+            closeInputStream();
+        }
+    }
+
+    private void closeInputStream() {
+        if (origReq.getInputStream() != null) {
+            try {origReq.getInputStream().close(); } catch (Exception e) {
+                log.warn("Unable to cleanly close input stream: " + e.getMessage(), e);
             }
         }
     }
@@ -291,7 +392,7 @@ public class UploadCallable implements Callable<UploadResult> {
                 transferProgress.updateProgress(summary.getSize());
                 continue;
             }
-            futures.add(threadPool.submit(new UploadPartCallable(s3, request)));
+            submitPart(new FutureTask<PartETag>(new UploadPartCallable(s3, request)));
         }
     }
 
@@ -74,6 +74,15 @@ public class UploadMonitor implements Callable<UploadResult>, TransferMonitor {
         this.future = future;
     }
 
+    /**
+     * Sets the future of this monitor, unless the monitor has already run
+     * and replaced it with the future of the completion of the upload.
+     */
+    private synchronized void setInitialFuture(Future<UploadResult> future) {
+        if (this.future == null)
+            this.future = future;
+    }
+
     private synchronized void cancelFuture() {
         future.cancel(true);
     }
@@ -117,7 +126,7 @@ public class UploadMonitor implements Callable<UploadResult>, TransferMonitor {
         UploadMonitor uploadMonitor = new UploadMonitor(manager, transfer,
                 threadPool, multipartUploadCallable, putObjectRequest,
                 progressListenerChain);
-        uploadMonitor.setFuture(threadPool.submit(uploadMonitor));
+        uploadMonitor.setInitialFuture(threadPool.submit(uploadMonitor));
         return uploadMonitor;
     }
 
@@ -206,11 +215,13 @@ public class UploadMonitor implements Callable<UploadResult>, TransferMonitor {
      */
     private void cancelFutures() {
         cancelFuture();
-        for (Future<PartETag> f : futures) {
-            f.cancel(true);
+        multipartUploadCallable.cancelFutures();
+        synchronized (futures) {
+            for (Future<PartETag> f : futures) {
+                f.cancel(true);
+            }
+            futures.clear();
         }
-        multipartUploadCallable.getFutures().clear();
-        futures.clear();
     }
 
     /**
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.internal;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amazonaws.AmazonClientException;
+
+/**
+ * Tests that {@link FileRegionInputStream} reads exactly its region of the
+ * file, across buffer refills, marks and resets.
+ */
+public class FileRegionInputStreamTest {
+
+    private static final int FILE_SIZE = 3 * FileRegionInputStream.BUFFER_SIZE + 123;
+
+    private File file;
+    private byte[] content;
+
+    @Before
+    public void setUp() throws IOException {
+        content = new byte[FILE_SIZE];
+        new Random(FILE_SIZE).nextBytes(content);
+        file = File.createTempFile("region", ".dat");
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content);
+        } finally {
+            out.close();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void testReadsRegion() throws IOException {
+        int offset = 1000;
+        int length = 2 * FileRegionInputStream.BUFFER_SIZE + 17;
+        FileRegionInputStream in = new FileRegionInputStream(file, offset, length);
+        try {
+            assertArrayEquals(Arrays.copyOfRange(content, offset, offset + length),
+                    readAll(in, 4099));
+        } finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void testRegionEndsAtEndOfFile() throws IOException {
+        int offset = FILE_SIZE - 100;
+        FileRegionInputStream in = new FileRegionInputStream(file, offset, 1000);
+        try {
+            assertEquals(100, in.available());
+            assertArrayEquals(Arrays.copyOfRange(content, offset, FILE_SIZE),
+                    readAll(in, 7));
+        } finally {
+            in.close();
+        }
+
+        in = new FileRegionInputStream(file, FILE_SIZE + 10, 1000);
+        try {
+            assertEquals(-1, in.read());
+        } finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void testSingleByteReads() throws IOException {
+        FileRegionInputStream in = new FileRegionInputStream(file, 5, 3);
+        try {
+            assertEquals(content[5] & 0xff, in.read());
+            assertEquals(content[6] & 0xff, in.read());
+            assertEquals(content[7] & 0xff, in.read());
+            assertEquals(-1, in.read());
+        } finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void testResetsToMarkAcrossBuffers() throws IOException {
+        FileRegionInputStream in = new FileRegionInputStream(file, 0, FILE_SIZE);
+        try {
+            assertEquals(10, in.skip(10));
+            in.mark(0);
+            byte[] first = readAll(in, 8192);
+            in.reset();
+            assertArrayEquals(first, readAll(in, 1000));
+            assertArrayEquals(Arrays.copyOfRange(content, 10, FILE_SIZE), first);
+        } finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void testTruncatedFileFails() throws IOException {
+        FileRegionInputStream in = new FileRegionInputStream(file, 0, FILE_SIZE);
+        try {
+            byte[] b = new byte[100];
+            assertEquals(100, in.read(b));
+            RandomAccessFile raf = new RandomAccessFile(file, "rw");
+            try {
+                raf.setLength(FileRegionInputStream.BUFFER_SIZE + 50);
+            } finally {
+                raf.close();
+            }
+            try {
+                readAll(in, 4096);
+                fail("Expected the read to fail");
+            } catch (AmazonClientException expected) {
+                assertTrue(expected.getMessage(),
+                        expected.getMessage().contains("truncated"));
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void testCloseReleasesFile() throws IOException {
+        FileRegionInputStream in = new FileRegionInputStream(file, 0, FILE_SIZE);
+        readAll(in, 4096);
+        in.close();
+        assertTrue(file.delete());
+    }
+
+    private static byte[] readAll(InputStream in, int chunkSize) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] chunk = new byte[chunkSize];
+        int read;
+        while ((read = in.read(chunk)) != -1) {
+            out.write(chunk, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
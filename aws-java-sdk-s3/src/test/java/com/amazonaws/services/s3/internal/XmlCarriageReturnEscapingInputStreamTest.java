@@ -0,0 +1,136 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.internal;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.Test;
+
+import com.amazonaws.util.StringUtils;
+
+/**
+ * Tests that {@link XmlCarriageReturnEscapingInputStream} escapes carriage
+ * returns however the document is split across reads.
+ */
+public class XmlCarriageReturnEscapingInputStreamTest {
+
+    @Test
+    public void testEscapesCarriageReturns() throws IOException {
+        assertEquals("<Key>a&#013;b&#013;&#013;</Key>",
+                escape("<Key>a\rb\r\r</Key>", 100));
+        assertEquals("&#013;", escape("\r", 100));
+        assertEquals("", escape("", 100));
+    }
+
+    @Test
+    public void testLeavesOtherCharactersUnchanged() throws IOException {
+        String document = "<Key>café\n日本 \t&amp;</Key>";
+        assertEquals(document, escape(document, 100));
+    }
+
+    @Test
+    public void testCarriageReturnAcrossBufferBoundary() throws IOException {
+        // Put a carriage return at the last and first byte of the 8 KB
+        // internal buffer, and return the data in chunks that split it
+        StringBuilder document = new StringBuilder();
+        for (int i = 0; i < 8191; i++) {
+            document.append('x');
+        }
+        document.append("\r\rkey\r");
+        String expected = document.toString().replace("\r", "&#013;");
+
+        assertEquals(expected, escape(document.toString(), 8192));
+        assertEquals(expected, escape(document.toString(), 7));
+        assertEquals(expected, escape(document.toString(), 1));
+    }
+
+    @Test
+    public void testCharacterReferenceSplitAcrossReads() throws IOException {
+        // Read with small output arrays so that the six byte reference is
+        // returned in several calls
+        InputStream in = new XmlCarriageReturnEscapingInputStream(
+                new ByteArrayInputStream(bytes("a\rb")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] chunk = new byte[4];
+        int read;
+        while ((read = in.read(chunk, 0, chunk.length)) != -1) {
+            out.write(chunk, 0, read);
+        }
+        assertEquals("a&#013;b", new String(out.toByteArray(), StringUtils.UTF8));
+    }
+
+    @Test
+    public void testSingleByteReads() throws IOException {
+        InputStream in = new XmlCarriageReturnEscapingInputStream(
+                new ByteArrayInputStream(bytes("\ra\r")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1) {
+            out.write(b);
+        }
+        assertEquals("&#013;a&#013;", new String(out.toByteArray(), StringUtils.UTF8));
+    }
+
+    @Test
+    public void testSkip() throws IOException {
+        InputStream in = new XmlCarriageReturnEscapingInputStream(
+                new ByteArrayInputStream(bytes("a\rb")));
+        assertEquals(3, in.skip(3));
+        assertEquals('0', in.read());
+        assertEquals(4, in.skip(10));
+        assertEquals(-1, in.read());
+    }
+
+    private static String escape(String document, int chunkSize)
+            throws IOException {
+        InputStream in = new XmlCarriageReturnEscapingInputStream(
+                new ChunkedInputStream(bytes(document), chunkSize));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        in.close();
+        return new String(out.toByteArray(), StringUtils.UTF8);
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StringUtils.UTF8);
+    }
+
+    /**
+     * Returns at most a fixed number of bytes from each read.
+     */
+    private static class ChunkedInputStream extends ByteArrayInputStream {
+
+        private final int chunkSize;
+
+        ChunkedInputStream(byte[] data, int chunkSize) {
+            super(data);
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            return super.read(b, off, Math.min(len, chunkSize));
+        }
+    }
+}
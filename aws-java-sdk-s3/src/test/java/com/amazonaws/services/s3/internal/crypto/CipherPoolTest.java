@@ -0,0 +1,156 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.internal.crypto;
+
+import static com.amazonaws.services.s3.internal.crypto.ContentCryptoScheme.AES_CBC;
+import static com.amazonaws.services.s3.internal.crypto.ContentCryptoScheme.AES_GCM;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.security.SecureRandom;
+import java.security.Security;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that the ciphers released to the pool of a thread hold no content
+ * key, and are initialized with the key and IV of their next user.
+ */
+public class CipherPoolTest {
+
+    private final SecureRandom random = new SecureRandom();
+
+    @Before
+    public void setUp() {
+        CryptoRuntime.enableBouncyCastle();
+        // The pools belong to the thread, which runs the other tests too
+        drain(gcmPoolKey());
+        drain(cbcPoolKey());
+    }
+
+    @Test
+    public void testPooledCipherIsInitializedWithNewKeyAndIV() throws Exception {
+        byte[] plaintext = bytes(100);
+        CipherLite first = AES_GCM.createCipherLite(key(), bytes(12),
+                Cipher.ENCRYPT_MODE, null);
+        first.doFinal(plaintext);
+        Cipher cipher = first.getCipher();
+        first.release();
+
+        SecretKey key = key();
+        byte[] iv = bytes(12);
+        CipherLite second = AES_GCM.createCipherLite(key, iv, Cipher.ENCRYPT_MODE, null);
+        assertSame(cipher, second.getCipher());
+        assertArrayEquals(encrypt("AES/GCM/NoPadding", key, iv, plaintext),
+                second.doFinal(plaintext));
+    }
+
+    @Test
+    public void testPooledCipherCanBeReusedWithSameKeyAndIV() throws Exception {
+        byte[] plaintext = bytes(100);
+        SecretKey key = key();
+        byte[] iv = bytes(12);
+        CipherLite first = AES_GCM.createCipherLite(key, iv, Cipher.ENCRYPT_MODE, null);
+        byte[] ciphertext = first.doFinal(plaintext);
+        first.release();
+
+        // As when a request is retried
+        CipherLite second = first.recreate();
+        assertSame(first.getCipher(), second.getCipher());
+        assertArrayEquals(ciphertext, second.doFinal(plaintext));
+    }
+
+    @Test
+    public void testIdleCipherHoldsNoKey() throws Exception {
+        byte[] iv = bytes(16);
+        CipherLite cipherLite = AES_CBC.createCipherLite(key(), iv,
+                Cipher.ENCRYPT_MODE, null);
+        cipherLite.release();
+
+        Cipher idle = CipherPool.acquire(cbcPoolKey());
+        assertSame(cipherLite.getCipher(), idle);
+        assertArrayEquals(new byte[16], idle.getIV());
+        // The released cipher lite still knows its IV
+        assertArrayEquals(iv, cipherLite.getIV());
+    }
+
+    @Test
+    public void testPoolIsBounded() throws Exception {
+        CipherLite[] cipherLites = new CipherLite[CipherPool.MAX_IDLE_CIPHERS + 2];
+        for (int i = 0; i < cipherLites.length; i++) {
+            cipherLites[i] = AES_CBC.createCipherLite(key(), bytes(16),
+                    Cipher.ENCRYPT_MODE, null);
+        }
+        for (CipherLite cipherLite : cipherLites) {
+            cipherLite.release();
+        }
+
+        for (int i = 0; i < CipherPool.MAX_IDLE_CIPHERS; i++) {
+            assertNotNull(CipherPool.acquire(cbcPoolKey()));
+        }
+        assertNull(CipherPool.acquire(cbcPoolKey()));
+    }
+
+    @Test
+    public void testOnlySystemProvidersArePooled() {
+        assertTrue(CipherPool.isSystemProvider(Security.getProvider("SunJCE")));
+        assertTrue(CipherPool.isSystemClassLoader(null));
+        assertTrue(CipherPool.isSystemClassLoader(ClassLoader.getSystemClassLoader()));
+        assertFalse(CipherPool.isSystemClassLoader(new URLClassLoader(new URL[0])));
+    }
+
+    private static String gcmPoolKey() {
+        return CipherPool.key(AES_GCM.getCipherAlgorithm(),
+                AES_GCM.getSpecificCipherProvider());
+    }
+
+    private static String cbcPoolKey() {
+        return CipherPool.key(AES_CBC.getCipherAlgorithm(), null);
+    }
+
+    private static void drain(String poolKey) {
+        while (CipherPool.acquire(poolKey) != null) {
+        }
+    }
+
+    private static byte[] encrypt(String transformation, SecretKey key, byte[] iv,
+            byte[] plaintext) throws Exception {
+        Cipher cipher = Cipher.getInstance(transformation, "BC");
+        cipher.init(Cipher.ENCRYPT_MODE, key, new IvParameterSpec(iv));
+        return cipher.doFinal(plaintext);
+    }
+
+    private SecretKey key() {
+        return new SecretKeySpec(bytes(32), "AES");
+    }
+
+    private byte[] bytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
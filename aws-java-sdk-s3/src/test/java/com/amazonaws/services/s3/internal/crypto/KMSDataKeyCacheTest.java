@@ -0,0 +1,173 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.internal.crypto;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.services.kms.AWSKMSClient;
+import com.amazonaws.services.kms.model.GenerateDataKeyRequest;
+import com.amazonaws.services.kms.model.GenerateDataKeyResult;
+import com.amazonaws.services.s3.internal.crypto.KMSDataKeyCache.DataKey;
+import com.amazonaws.services.s3.model.CryptoConfiguration;
+import com.amazonaws.services.s3.model.CryptoMode;
+import com.amazonaws.services.s3.model.DataKeyCacheStatistics;
+
+/**
+ * Tests that the data keys generated by AWS KMS are reused until they reach
+ * their maximum age, bytes or objects, and that the cache stays bounded.
+ */
+public class KMSDataKeyCacheTest {
+
+    private CountingKMSClient kms;
+    private CryptoConfiguration config;
+
+    @Before
+    public void setUp() {
+        kms = new CountingKMSClient();
+        config = new CryptoConfiguration(CryptoMode.AuthenticatedEncryption)
+                .withDataKeyCacheMaxAgeMillis(60000);
+    }
+
+    @Test
+    public void testDataKeyIsReusedUntilMaxObjects() {
+        config.setDataKeyCacheMaxObjects(3);
+        KMSDataKeyCache cache = new KMSDataKeyCache("AES", config);
+
+        DataKey first = cache.getDataKey(kms, request("cmk"), 10);
+        assertSame(first, cache.getDataKey(kms, request("cmk"), 10));
+        assertSame(first, cache.getDataKey(kms, request("cmk"), 10));
+        DataKey second = cache.getDataKey(kms, request("cmk"), 10);
+
+        assertNotSame(first, second);
+        assertEquals(2, kms.generateCount.get());
+        assertStatistics(cache.getStatistics(), 2, 2, 1, 1);
+    }
+
+    @Test
+    public void testDataKeyIsReusedUntilMaxBytes() {
+        config.setDataKeyCacheMaxBytes(100);
+        KMSDataKeyCache cache = new KMSDataKeyCache("AES", config);
+
+        DataKey first = cache.getDataKey(kms, request("cmk"), 60);
+        assertSame(first, cache.getDataKey(kms, request("cmk"), 40));
+        assertNotSame(first, cache.getDataKey(kms, request("cmk"), 1));
+        assertStatistics(cache.getStatistics(), 1, 2, 1, 1);
+
+        // Neither an object larger than the limit nor one of unknown length
+        // is encrypted with a cached key
+        cache.getDataKey(kms, request("cmk"), 101);
+        cache.getDataKey(kms, request("cmk"), -1);
+        assertEquals(4, kms.generateCount.get());
+        assertStatistics(cache.getStatistics(), 1, 2, 1, 1);
+    }
+
+    @Test
+    public void testDataKeyIsReusedUntilMaxAge() throws InterruptedException {
+        config.setDataKeyCacheMaxAgeMillis(100);
+        KMSDataKeyCache cache = new KMSDataKeyCache("AES", config);
+
+        DataKey first = cache.getDataKey(kms, request("cmk"), 10);
+        assertSame(first, cache.getDataKey(kms, request("cmk"), 10));
+        Thread.sleep(150);
+        assertNotSame(first, cache.getDataKey(kms, request("cmk"), 10));
+        assertStatistics(cache.getStatistics(), 1, 2, 1, 1);
+    }
+
+    @Test
+    public void testDataKeysOfDifferentRequestsAreSeparate() {
+        KMSDataKeyCache cache = new KMSDataKeyCache("AES", config);
+
+        DataKey first = cache.getDataKey(kms, request("cmk"), 10);
+        assertNotSame(first, cache.getDataKey(kms, request("other"), 10));
+        assertNotSame(first, cache.getDataKey(kms, request("cmk")
+                .withEncryptionContext(Collections.singletonMap("k", "v")), 10));
+        assertNotSame(first, cache.getDataKey(kms, request("cmk")
+                .withKeySpec("AES_128"), 10));
+        assertSame(first, cache.getDataKey(kms, request("cmk"), 10));
+        assertStatistics(cache.getStatistics(), 1, 4, 0, 4);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedDataKeyIsEvicted() {
+        KMSDataKeyCache cache = new KMSDataKeyCache("AES", config);
+        for (int i = 0; i < KMSDataKeyCache.MAX_ENTRIES; i++) {
+            cache.getDataKey(kms, request("cmk" + i), 10);
+        }
+        // Makes the first key the most recently used
+        DataKey first = cache.getDataKey(kms, request("cmk0"), 10);
+        cache.getDataKey(kms, request("cmk" + KMSDataKeyCache.MAX_ENTRIES), 10);
+
+        assertEquals(KMSDataKeyCache.MAX_ENTRIES, cache.getStatistics().getSize());
+        assertSame(first, cache.getDataKey(kms, request("cmk0"), 10));
+        int generated = kms.generateCount.get();
+        cache.getDataKey(kms, request("cmk1"), 10);
+        assertEquals(generated + 1, kms.generateCount.get());
+    }
+
+    @Test
+    public void testCiphertextBlobIsCopied() {
+        KMSDataKeyCache cache = new KMSDataKeyCache("AES", config);
+        DataKey dataKey = cache.getDataKey(kms, request("cmk"), 10);
+
+        dataKey.getCiphertextBlob()[0] ^= 1;
+        assertEquals(1, dataKey.getCiphertextBlob()[0]);
+    }
+
+    private static GenerateDataKeyRequest request(String keyId) {
+        return new GenerateDataKeyRequest().withKeyId(keyId).withKeySpec("AES_256");
+    }
+
+    private static void assertStatistics(DataKeyCacheStatistics statistics,
+            long hitCount, long missCount, long retiredCount, int size) {
+        assertEquals("hits", hitCount, statistics.getHitCount());
+        assertEquals("misses", missCount, statistics.getMissCount());
+        assertEquals("retired", retiredCount, statistics.getRetiredCount());
+        assertEquals("size", size, statistics.getSize());
+    }
+
+    /**
+     * Generates data keys locally, and counts them.
+     */
+    private static class CountingKMSClient extends AWSKMSClient {
+        private final AtomicInteger generateCount = new AtomicInteger();
+
+        CountingKMSClient() {
+            super(new BasicAWSCredentials("mock", "mock"));
+        }
+
+        @Override
+        public GenerateDataKeyResult generateDataKey(GenerateDataKeyRequest req) {
+            int count = generateCount.incrementAndGet();
+            byte[] plaintext = new byte[32];
+            plaintext[0] = (byte) count;
+            byte[] ciphertextBlob = new byte[48];
+            ciphertextBlob[0] = 1;
+            return new GenerateDataKeyResult()
+                    .withKeyId(req.getKeyId())
+                    .withPlaintext(ByteBuffer.wrap(plaintext))
+                    .withCiphertextBlob(ByteBuffer.wrap(ciphertextBlob));
+        }
+    }
+}
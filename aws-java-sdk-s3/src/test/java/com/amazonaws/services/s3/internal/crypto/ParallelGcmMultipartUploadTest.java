@@ -0,0 +1,368 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.internal.crypto;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.internal.InputSubstream;
+import com.amazonaws.services.s3.internal.S3Direct;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.CopyPartRequest;
+import com.amazonaws.services.s3.model.CopyPartResult;
+import com.amazonaws.services.s3.model.CryptoConfiguration;
+import com.amazonaws.services.s3.model.CryptoMode;
+import com.amazonaws.services.s3.model.EncryptionMaterials;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.StaticEncryptionMaterialsProvider;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+
+/**
+ * Tests that the parts of a multi-part upload encrypted in parallel add up
+ * to the AES/GCM encryption of the whole object, with the tag uploaded as an
+ * extra part on completion.
+ */
+public class ParallelGcmMultipartUploadTest {
+
+    private static final int PART_SIZE = 1024;
+
+    private final SecureRandom random = new SecureRandom();
+    private final Map<Integer, byte[]> uploadedParts = new ConcurrentHashMap<Integer, byte[]>();
+    private volatile int failingPartNumber = -1;
+    /** Holds the uploads of the parts but the last, if not null. */
+    private volatile CountDownLatch blockedParts;
+    private volatile byte[] completedObject;
+
+    private ExecutorService threadPool;
+    private S3CryptoModuleAE module;
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        threadPool = Executors.newFixedThreadPool(4);
+        byte[] kek = new byte[32];
+        random.nextBytes(kek);
+        module = new S3CryptoModuleAE(new PartRecordingS3(),
+                new StaticEncryptionMaterialsProvider(
+                        new EncryptionMaterials(new SecretKeySpec(kek, "AES"))),
+                new CryptoConfiguration(CryptoMode.AuthenticatedEncryption)
+                        .withParallelMultipartUpload(true)
+                        .readOnly());
+        file = File.createTempFile("gcm", ".dat");
+    }
+
+    @After
+    public void tearDown() {
+        threadPool.shutdownNow();
+        file.delete();
+    }
+
+    @Test
+    public void testPartsAddUpToSerialEncryption() throws Exception {
+        byte[] plaintext = plaintext(4 * PART_SIZE + 500);
+        String uploadId = initiate();
+
+        // The last part goes first, and waits for another part to start
+        List<Future<UploadPartResult>> results = new ArrayList<Future<UploadPartResult>>();
+        results.add(uploadPart(uploadId, 5, 4 * PART_SIZE, 500, true));
+        for (int partNumber = 1; partNumber <= 4; partNumber++) {
+            results.add(uploadPart(uploadId, partNumber,
+                    (partNumber - 1) * PART_SIZE, PART_SIZE, false));
+        }
+        // The context of the upload goes once it is completed
+        byte[] expected = encryptSerially(uploadId, plaintext);
+        complete(uploadId, results);
+
+        assertArrayEquals(expected, completedObject);
+    }
+
+    @Test(timeout = 30000)
+    public void testLastPartDoesNotWaitForOtherPartsToFinish() throws Exception {
+        byte[] plaintext = plaintext(3 * PART_SIZE + 10);
+        String uploadId = initiate();
+
+        blockedParts = new CountDownLatch(1);
+        List<Future<UploadPartResult>> results = new ArrayList<Future<UploadPartResult>>();
+        for (int partNumber = 1; partNumber <= 3; partNumber++) {
+            results.add(uploadPart(uploadId, partNumber,
+                    (partNumber - 1) * PART_SIZE, PART_SIZE, false));
+        }
+        Future<UploadPartResult> lastPart = uploadPart(uploadId, 4, 3 * PART_SIZE, 10, true);
+        // The other parts are still being uploaded
+        lastPart.get();
+        assertEquals(1, blockedParts.getCount());
+        blockedParts.countDown();
+        results.add(lastPart);
+        // The context of the upload goes once it is completed
+        byte[] expected = encryptSerially(uploadId, plaintext);
+        complete(uploadId, results);
+
+        assertArrayEquals(expected, completedObject);
+    }
+
+    @Test
+    public void testPartsEndingOnBlockBoundary() throws Exception {
+        byte[] plaintext = plaintext(3 * PART_SIZE);
+        String uploadId = initiate();
+
+        List<Future<UploadPartResult>> results = new ArrayList<Future<UploadPartResult>>();
+        for (int partNumber = 1; partNumber <= 2; partNumber++) {
+            results.add(uploadPart(uploadId, partNumber,
+                    (partNumber - 1) * PART_SIZE, PART_SIZE, false));
+        }
+        results.add(uploadPart(uploadId, 3, 2 * PART_SIZE, PART_SIZE, true));
+        // The context of the upload goes once it is completed
+        byte[] expected = encryptSerially(uploadId, plaintext);
+        complete(uploadId, results);
+
+        assertArrayEquals(expected, completedObject);
+    }
+
+    @Test
+    public void testSinglePart() throws Exception {
+        byte[] plaintext = plaintext(100);
+        String uploadId = initiate();
+
+        List<Future<UploadPartResult>> results = new ArrayList<Future<UploadPartResult>>();
+        results.add(uploadPart(uploadId, 1, 0, 100, true));
+        // The context of the upload goes once it is completed
+        byte[] expected = encryptSerially(uploadId, plaintext);
+        complete(uploadId, results);
+
+        assertArrayEquals(expected, completedObject);
+    }
+
+    @Test
+    public void testCompletionFailsIfAPartFailed() throws Exception {
+        plaintext(2 * PART_SIZE + 100);
+        String uploadId = initiate();
+
+        List<Future<UploadPartResult>> results = new ArrayList<Future<UploadPartResult>>();
+        results.add(uploadPart(uploadId, 1, 0, PART_SIZE, false));
+        results.get(0).get();
+        failingPartNumber = 2;
+        try {
+            uploadPart(uploadId, 2, PART_SIZE, PART_SIZE, false).get();
+            fail("Expected the part upload to fail");
+        } catch (ExecutionException expected) {
+        }
+        // The last part is uploaded regardless
+        results.add(uploadPart(uploadId, 3, 2 * PART_SIZE, 100, true));
+        results.get(1).get();
+        try {
+            complete(uploadId, results);
+            fail("Expected the completion to fail");
+        } catch (AmazonClientException expected) {
+            assertTrue(expected.getMessage(),
+                    expected.getMessage().contains("part 2 failed"));
+        }
+        assertNull(completedObject);
+    }
+
+    private String initiate() {
+        return module.initiateMultipartUploadSecurely(
+                new InitiateMultipartUploadRequest("bucket", "key")).getUploadId();
+    }
+
+    private void complete(String uploadId, List<Future<UploadPartResult>> results)
+            throws Exception {
+        List<PartETag> partETags = new ArrayList<PartETag>();
+        for (Future<UploadPartResult> result : results) {
+            partETags.add(result.get().getPartETag());
+        }
+        Collections.sort(partETags, new Comparator<PartETag>() {
+            public int compare(PartETag a, PartETag b) {
+                return a.getPartNumber() - b.getPartNumber();
+            }
+        });
+        module.completeMultipartUploadSecurely(new CompleteMultipartUploadRequest(
+                "bucket", "key", uploadId, partETags));
+    }
+
+    private byte[] plaintext(int length) throws IOException {
+        byte[] plaintext = new byte[length];
+        random.nextBytes(plaintext);
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(plaintext);
+        } finally {
+            out.close();
+        }
+        return plaintext;
+    }
+
+    private Future<UploadPartResult> uploadPart(String uploadId, int partNumber,
+            long offset, long size, boolean isLastPart) {
+        final UploadPartRequest req = new UploadPartRequest()
+            .withBucketName("bucket")
+            .withKey("key")
+            .withUploadId(uploadId)
+            .withPartNumber(partNumber)
+            .withFile(file)
+            .withFileOffset(offset)
+            .withPartSize(size)
+            .withLastPart(isLastPart);
+        return threadPool.submit(new Callable<UploadPartResult>() {
+            public UploadPartResult call() {
+                return module.uploadPartSecurely(req);
+            }
+        });
+    }
+
+    /**
+     * Encrypts the whole plaintext with the content key and IV of the upload,
+     * in a single AES/GCM operation.
+     */
+    private byte[] encryptSerially(String uploadId, byte[] plaintext) throws Exception {
+        CipherLite cipherLite = module.multipartUploadContexts.get(uploadId).getCipherLite();
+        assertEquals(12, cipherLite.getIV().length);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, cipherLite.getSecretKey(),
+                new IvParameterSpec(cipherLite.getIV()));
+        return cipher.doFinal(plaintext);
+    }
+
+    /**
+     * Records the content of each part, read the way the S3 client reads it:
+     * up to the size of the part, without reaching the end of the stream
+     * unless it is the last part.
+     */
+    private class PartRecordingS3 extends S3Direct {
+        @Override
+        public InitiateMultipartUploadResult initiateMultipartUpload(
+                InitiateMultipartUploadRequest req) {
+            InitiateMultipartUploadResult result = new InitiateMultipartUploadResult();
+            result.setUploadId("upload");
+            return result;
+        }
+
+        @Override
+        public UploadPartResult uploadPart(UploadPartRequest req) {
+            InputStream in = new InputSubstream(req.getInputStream(), 0,
+                    req.getPartSize(), req.isLastPart());
+            ByteArrayOutputStream part = new ByteArrayOutputStream();
+            byte[] buffer = new byte[100];
+            try {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    part.write(buffer, 0, read);
+                }
+            } catch (IOException e) {
+                throw new AmazonClientException("Unable to read the part", e);
+            }
+            if (part.size() != req.getPartSize()) {
+                throw new AmazonClientException("Expected " + req.getPartSize()
+                        + " bytes but read " + part.size());
+            }
+            if (req.getPartNumber() == failingPartNumber) {
+                throw new AmazonClientException("Part upload failed");
+            }
+            if (blockedParts != null && !req.isLastPart()) {
+                try {
+                    blockedParts.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new AmazonClientException("Interrupted", e);
+                }
+            }
+            uploadedParts.put(req.getPartNumber(), part.toByteArray());
+            UploadPartResult result = new UploadPartResult();
+            result.setPartNumber(req.getPartNumber());
+            result.setETag("etag");
+            return result;
+        }
+
+        @Override
+        public PutObjectResult putObject(PutObjectRequest req) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public S3Object getObject(GetObjectRequest req) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ObjectMetadata getObject(GetObjectRequest req, File dest) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompleteMultipartUploadResult completeMultipartUpload(
+                CompleteMultipartUploadRequest req) {
+            ByteArrayOutputStream object = new ByteArrayOutputStream();
+            int partNumber = 1;
+            for (PartETag partETag : req.getPartETags()) {
+                if (partETag.getPartNumber() != partNumber++)
+                    throw new AmazonClientException("Parts out of order");
+                byte[] part = uploadedParts.get(partETag.getPartNumber());
+                object.write(part, 0, part.length);
+            }
+            completedObject = object.toByteArray();
+            return new CompleteMultipartUploadResult();
+        }
+
+        @Override
+        public CopyPartResult copyPart(CopyPartRequest req) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void abortMultipartUpload(AbortMultipartUploadRequest req) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
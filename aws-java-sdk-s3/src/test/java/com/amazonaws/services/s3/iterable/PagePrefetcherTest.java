@@ -0,0 +1,327 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.iterable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ListVersionsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.services.s3.model.S3VersionSummary;
+import com.amazonaws.services.s3.model.VersionListing;
+
+/**
+ * Tests that the pages of a listing fetched in the background reach the
+ * caller in order, no further ahead than the prefetch depth, and that an
+ * abandoned listing holds no thread.
+ */
+public class PagePrefetcherTest {
+
+    private static final int DEPTH = 3;
+
+    private ThreadPoolExecutor executor;
+
+    @Before
+    public void setUp() {
+        executor = new ThreadPoolExecutor(0, 4, 1, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>());
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testPagesArriveInOrder() {
+        NumberedPages prefetcher = new NumberedPages(50);
+        for (int i = 1; i <= 50; i++) {
+            assertEquals(Integer.valueOf(i), prefetcher.nextPage());
+        }
+        assertNull(prefetcher.nextPage());
+        assertNull(prefetcher.nextPage());
+        assertEquals(50, prefetcher.fetchCount.get());
+    }
+
+    @Test
+    public void testPrefetchIsBounded() throws InterruptedException {
+        NumberedPages prefetcher = new NumberedPages(100);
+
+        assertEquals(Integer.valueOf(1), prefetcher.nextPage());
+        prefetcher.awaitFetches(1 + DEPTH);
+        Thread.sleep(200);
+        assertEquals(1 + DEPTH, prefetcher.fetchCount.get());
+
+        assertEquals(Integer.valueOf(2), prefetcher.nextPage());
+        prefetcher.awaitFetches(2 + DEPTH);
+        Thread.sleep(200);
+        assertEquals(2 + DEPTH, prefetcher.fetchCount.get());
+    }
+
+    @Test
+    public void testFailureReachesCaller() {
+        NumberedPages prefetcher = new NumberedPages(10);
+        prefetcher.failingPage = 4;
+
+        assertEquals(Integer.valueOf(1), prefetcher.nextPage());
+        assertEquals(Integer.valueOf(2), prefetcher.nextPage());
+        assertEquals(Integer.valueOf(3), prefetcher.nextPage());
+        try {
+            prefetcher.nextPage();
+            fail("Expected the listing to fail");
+        } catch (AmazonServiceException expected) {
+            assertSame(prefetcher.failure, expected);
+        }
+        // The failure doesn't go away, and nothing more is fetched
+        try {
+            prefetcher.nextPage();
+            fail("Expected the listing to fail");
+        } catch (AmazonServiceException expected) {
+            assertSame(prefetcher.failure, expected);
+        }
+        assertEquals(4, prefetcher.fetchCount.get());
+    }
+
+    @Test
+    public void testAbandonedListingHoldsNoThread() throws InterruptedException {
+        NumberedPages prefetcher = new NumberedPages(1000);
+        assertEquals(Integer.valueOf(1), prefetcher.nextPage());
+        prefetcher.awaitFetches(1 + DEPTH);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (executor.getActiveCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, executor.getActiveCount());
+        assertEquals(0, executor.getQueue().size());
+        assertEquals(1 + DEPTH, prefetcher.fetchCount.get());
+    }
+
+    @Test
+    public void testObjectsInOrder() {
+        PagedS3 s3 = new PagedS3(95, 10);
+        Iterator<S3ObjectSummary> objects = S3Objects.withPrefix(s3, "bucket", "key")
+                .withBatchSize(10)
+                .withPrefetchDepth(2)
+                .withExecutorService(executor)
+                .iterator();
+
+        List<String> keys = new ArrayList<String>();
+        while (objects.hasNext()) {
+            keys.add(objects.next().getKey());
+        }
+        assertEquals(s3.keys(), keys);
+        assertEquals(10, s3.listCount.get());
+    }
+
+    @Test
+    public void testVersionsInOrder() {
+        PagedS3 s3 = new PagedS3(95, 10);
+        Iterator<S3VersionSummary> versions = S3Versions.withPrefix(s3, "bucket", "key")
+                .withBatchSize(10)
+                .withPrefetchDepth(2)
+                .withExecutorService(executor)
+                .iterator();
+
+        List<String> keys = new ArrayList<String>();
+        while (versions.hasNext()) {
+            keys.add(versions.next().getKey());
+        }
+        assertEquals(s3.keys(), keys);
+        assertEquals(10, s3.listCount.get());
+    }
+
+    @Test
+    public void testListingFailureReachesIterator() {
+        PagedS3 s3 = new PagedS3(95, 10);
+        s3.failingList = 3;
+        Iterator<S3ObjectSummary> objects = S3Objects.withPrefix(s3, "bucket", "key")
+                .withBatchSize(10)
+                .withPrefetchDepth(2)
+                .withExecutorService(executor)
+                .iterator();
+
+        int count = 0;
+        try {
+            while (objects.hasNext()) {
+                assertEquals(s3.keys().get(count), objects.next().getKey());
+                count++;
+            }
+            fail("Expected the listing to fail");
+        } catch (AmazonServiceException expected) {
+            assertEquals("SlowDown", expected.getErrorCode());
+        }
+        assertEquals(20, count);
+    }
+
+    /**
+     * Pages numbered from 1, each fetched from the previous one.
+     */
+    private class NumberedPages extends PagePrefetcher<Integer> {
+        private final int pageCount;
+        private final AtomicInteger fetchCount = new AtomicInteger();
+        private volatile int failingPage = -1;
+        private volatile AmazonServiceException failure;
+
+        NumberedPages(int pageCount) {
+            super(executor, DEPTH);
+            this.pageCount = pageCount;
+        }
+
+        @Override
+        protected Integer fetchFirstPage() {
+            return fetch(1);
+        }
+
+        @Override
+        protected Integer fetchNextPage(Integer previousPage) {
+            return fetch(previousPage + 1);
+        }
+
+        @Override
+        protected boolean isTruncated(Integer page) {
+            return page < pageCount;
+        }
+
+        private Integer fetch(int page) {
+            fetchCount.incrementAndGet();
+            if (page == failingPage) {
+                failure = new AmazonServiceException("Listing failed");
+                throw failure;
+            }
+            return page;
+        }
+
+        void awaitFetches(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (fetchCount.get() < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue("Fetched " + fetchCount.get() + " pages", fetchCount.get() >= count);
+        }
+    }
+
+    /**
+     * Lists numbered keys, one page at a time, as objects or as versions.
+     */
+    private static class PagedS3 extends AmazonS3Client {
+        private final int keyCount;
+        private final int pageSize;
+        private final AtomicInteger listCount = new AtomicInteger();
+        private volatile int failingList = -1;
+
+        PagedS3(int keyCount, int pageSize) {
+            super(new BasicAWSCredentials("mock", "mock"));
+            this.keyCount = keyCount;
+            this.pageSize = pageSize;
+        }
+
+        List<String> keys() {
+            List<String> keys = new ArrayList<String>();
+            for (int i = 0; i < keyCount; i++) {
+                keys.add(key(i));
+            }
+            return keys;
+        }
+
+        @Override
+        public ObjectListing listObjects(ListObjectsRequest request) {
+            return objects(request.getBucketName(), 0);
+        }
+
+        @Override
+        public ObjectListing listNextBatchOfObjects(ObjectListing previous) {
+            return objects(previous.getBucketName(), index(previous.getNextMarker()));
+        }
+
+        @Override
+        public VersionListing listVersions(ListVersionsRequest request) {
+            return versions(request.getBucketName(), 0);
+        }
+
+        @Override
+        public VersionListing listNextBatchOfVersions(VersionListing previous) {
+            return versions(previous.getBucketName(), index(previous.getNextKeyMarker()));
+        }
+
+        private ObjectListing objects(String bucketName, int first) {
+            int last = list(first);
+            ObjectListing listing = new ObjectListing();
+            listing.setBucketName(bucketName);
+            for (int i = first; i < last; i++) {
+                S3ObjectSummary summary = new S3ObjectSummary();
+                summary.setBucketName(bucketName);
+                summary.setKey(key(i));
+                listing.getObjectSummaries().add(summary);
+            }
+            listing.setTruncated(last < keyCount);
+            listing.setNextMarker(key(last));
+            return listing;
+        }
+
+        private VersionListing versions(String bucketName, int first) {
+            int last = list(first);
+            VersionListing listing = new VersionListing();
+            listing.setBucketName(bucketName);
+            for (int i = first; i < last; i++) {
+                S3VersionSummary summary = new S3VersionSummary();
+                summary.setBucketName(bucketName);
+                summary.setKey(key(i));
+                listing.getVersionSummaries().add(summary);
+            }
+            listing.setTruncated(last < keyCount);
+            listing.setNextKeyMarker(key(last));
+            return listing;
+        }
+
+        /** Returns the end of the page starting at the given key. */
+        private int list(int first) {
+            if (listCount.incrementAndGet() == failingList) {
+                AmazonServiceException e = new AmazonServiceException("Slow down");
+                e.setErrorCode("SlowDown");
+                throw e;
+            }
+            return Math.min(first + pageSize, keyCount);
+        }
+
+        private static String key(int index) {
+            return String.format("key%05d", index);
+        }
+
+        private static int index(String key) {
+            return Integer.parseInt(key.substring("key".length()));
+        }
+    }
+}
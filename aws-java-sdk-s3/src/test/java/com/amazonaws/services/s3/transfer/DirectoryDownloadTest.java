@@ -0,0 +1,175 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.transfer.Transfer.TransferState;
+
+/**
+ * Tests the pipelined download of a virtual directory, which keeps a bounded
+ * number of objects and bytes in flight.
+ */
+public class DirectoryDownloadTest {
+
+    private static final int MAX_OBJECTS = 4;
+    private static final long MAX_BYTES = 40000;
+
+    private FakeS3 s3;
+    private TransferManager tm;
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        s3 = new FakeS3();
+        s3.setListPageSize(5);
+        directory = File.createTempFile("download", "");
+        directory.delete();
+        directory.mkdirs();
+    }
+
+    @After
+    public void tearDown() {
+        tm.shutdownNow(false);
+        delete(directory);
+    }
+
+    @Test
+    public void testObjectsInFlightAreBounded() throws Exception {
+        start(Executors.newFixedThreadPool(10));
+        s3.setDownloadLatency(10);
+        for (int i = 0; i < 30; i++)
+            s3.store("dir/small" + i, content("dir/small" + i, 100 + i));
+        for (int i = 0; i < 10; i++)
+            s3.store("dir/sub/small" + i, content("dir/sub/small" + i, 10 + i));
+
+        download().waitForCompletion();
+
+        assertEquals(40, s3.getGetCount());
+        assertTrue("Objects in flight: " + s3.getMaxDownloadsInFlight(),
+                s3.getMaxDownloadsInFlight() <= MAX_OBJECTS);
+        assertDownloaded("dir/small7", 107);
+        assertDownloaded("dir/sub/small3", 13);
+    }
+
+    @Test
+    public void testBytesInFlightAreBounded() throws Exception {
+        start(Executors.newFixedThreadPool(10));
+        s3.setDownloadLatency(10);
+        for (int i = 0; i < 20; i++)
+            s3.store("dir/object" + i, content("dir/object" + i, 15000 + i));
+
+        MultipleFileDownload download = download();
+        download.waitForCompletion();
+
+        assertEquals(TransferState.Completed, download.getState());
+        assertEquals(20, s3.getGetCount());
+        assertTrue("Bytes in flight: " + s3.getMaxDownloadBytesInFlight(),
+                s3.getMaxDownloadBytesInFlight() <= MAX_BYTES);
+        // No more objects than fit in the byte window
+        assertTrue(s3.getMaxDownloadsInFlight() <= 2);
+        assertDownloaded("dir/object19", 15019);
+    }
+
+    @Test(timeout = 30000)
+    public void testFailureToStartDownloads() throws Exception {
+        // Small stacks, so that starting the downloads recursively would
+        // overflow them, and leave the transfer hanging
+        start(Executors.newFixedThreadPool(2, new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                return new Thread(null, r, "small-stack", 128 * 1024);
+            }
+        }));
+        s3.setListPageSize(1000);
+        for (int i = 0; i < 2000; i++) {
+            String key = "dir/object" + i;
+            s3.store(key, content(key, 10));
+            // Makes the download fail to start
+            s3.setListedSize(key, -1);
+        }
+        s3.store("dir/valid", content("dir/valid", 10));
+
+        MultipleFileDownload download = download();
+        try {
+            download.waitForCompletion();
+            fail("Expected the download to fail");
+        } catch (AmazonClientException expected) {
+        }
+
+        assertEquals(TransferState.Failed, download.getState());
+        assertEquals(1, s3.getGetCount());
+        assertDownloaded("dir/valid", 10);
+    }
+
+    private void start(ExecutorService threadPool) {
+        tm = new TransferManager(s3, threadPool);
+        TransferManagerConfiguration configuration = new TransferManagerConfiguration();
+        configuration.setDirectoryDownloadMaxObjects(MAX_OBJECTS);
+        configuration.setDirectoryDownloadMaxBytes(MAX_BYTES);
+        tm.setConfiguration(configuration);
+    }
+
+    private MultipleFileDownload download() {
+        return tm.downloadDirectory("bucket", "dir/", directory);
+    }
+
+    private void assertDownloaded(String key, int size) throws IOException {
+        File file = new File(directory, key);
+        assertTrue(file + " doesn't exist", file.isFile());
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        FileInputStream in = new FileInputStream(file);
+        try {
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1)
+                content.write(buffer, 0, read);
+        } finally {
+            in.close();
+        }
+        assertArrayEquals(content(key, size), content.toByteArray());
+    }
+
+    private static byte[] content(String key, int size) {
+        byte[] content = new byte[size];
+        new Random(key.hashCode()).nextBytes(content);
+        return content;
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children)
+                delete(child);
+        }
+        file.delete();
+    }
+}
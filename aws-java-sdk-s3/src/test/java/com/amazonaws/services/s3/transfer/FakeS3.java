@@ -0,0 +1,497 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.client.methods.HttpGet;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.GetObjectMetadataRequest;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import com.amazonaws.util.BinaryUtils;
+import com.amazonaws.util.Md5Utils;
+
+/**
+ * An in-memory stand-in for Amazon S3, for tests of the transfer manager.
+ * <p>
+ * Objects are stored in memory by key, and listed in pages, a virtual
+ * directory at a time. Part uploads and object downloads can be made to stay
+ * in flight for a while, and the fake records how many of them were in
+ * flight at once. Part uploads can be made to fail, and the fake records
+ * whether the multipart upload was completed or aborted.
+ * <p>
+ * Downloads honour byte ranges and matching ETag constraints. The download
+ * of a given range can be made to fail half way through, and an object can
+ * be made to be overwritten while it is being downloaded.
+ */
+public class FakeS3 extends AmazonS3Client {
+
+    /** Objects by key; guarded by this. */
+    private final TreeMap<String, byte[]> objects = new TreeMap<String, byte[]>();
+    /** Sizes listed instead of the actual ones; guarded by this. */
+    private final Map<String, Long> listedSizes = new HashMap<String, Long>();
+    /** Uploaded parts by upload id and part number; guarded by this. */
+    private final Map<String, Map<Integer, byte[]>> uploads =
+            new HashMap<String, Map<Integer, byte[]>>();
+
+    private final AtomicInteger uploadIds = new AtomicInteger();
+    private final AtomicInteger putCount = new AtomicInteger();
+    private final AtomicInteger abortCount = new AtomicInteger();
+    private final AtomicInteger completeCount = new AtomicInteger();
+    private final AtomicLong uploadedPartBytes = new AtomicLong();
+    private final AtomicInteger partsInFlight = new AtomicInteger();
+    private volatile int maxPartsInFlight;
+    private final AtomicInteger getCount = new AtomicInteger();
+    /** The downloads in flight, and their bytes; guarded by this. */
+    private int downloadsInFlight;
+    private long downloadBytesInFlight;
+    private volatile int maxDownloadsInFlight;
+    private volatile long maxDownloadBytesInFlight;
+    /** The ranges requested by each download; guarded by this. */
+    private final List<long[]> requestedRanges = new ArrayList<long[]>();
+    /** Remaining failures of the downloads of each range; guarded by this. */
+    private final Map<Long, Integer> failingRanges = new HashMap<Long, Integer>();
+    /** Contents replacing objects once downloaded; guarded by this. */
+    private final Map<String, byte[]> overwrites = new HashMap<String, byte[]>();
+
+    private volatile long partLatencyMillis;
+    private volatile int failingPartNumber = -1;
+    private volatile long downloadLatencyMillis;
+    private volatile int listPageSize = 1000;
+
+    public FakeS3() {
+        super(new BasicAWSCredentials("mock", "mock"));
+    }
+
+    /**
+     * Makes each part upload take at least the given time.
+     */
+    public void setPartLatency(long millis) {
+        this.partLatencyMillis = millis;
+    }
+
+    /**
+     * Makes the upload of the given part number fail.
+     */
+    public void setFailingPartNumber(int partNumber) {
+        this.failingPartNumber = partNumber;
+    }
+
+    /**
+     * Makes each object download take at least the given time.
+     */
+    public void setDownloadLatency(long millis) {
+        this.downloadLatencyMillis = millis;
+    }
+
+    /**
+     * Makes the given number of downloads of ranges ending at the given byte
+     * fail half way through the range.
+     */
+    public synchronized void setFailingRange(long lastByte, int failures) {
+        failingRanges.put(lastByte, failures);
+    }
+
+    /**
+     * Replaces the content of the given object once its next download has
+     * started.
+     */
+    public synchronized void overwriteOnGet(String key, byte[] content) {
+        overwrites.put(key, content);
+    }
+
+    /**
+     * Sets the maximum number of keys and common prefixes of a listing page.
+     */
+    public void setListPageSize(int listPageSize) {
+        this.listPageSize = listPageSize;
+    }
+
+    /**
+     * Stores an object, bypassing the request counters.
+     */
+    public synchronized void store(String key, byte[] content) {
+        objects.put(key, content);
+    }
+
+    /**
+     * Makes listings report the given size for an object, rather than its
+     * actual size.
+     */
+    public synchronized void setListedSize(String key, long size) {
+        listedSizes.put(key, size);
+    }
+
+    /**
+     * Returns the content of the given object, or null if it doesn't exist.
+     */
+    public synchronized byte[] getObjectContent(String key) {
+        return objects.get(key);
+    }
+
+    /** Returns the number of single chunk uploads. */
+    public int getPutCount() {
+        return putCount.get();
+    }
+
+    /** Returns the number of aborted multipart uploads. */
+    public int getAbortCount() {
+        return abortCount.get();
+    }
+
+    /** Returns the number of completed multipart uploads. */
+    public int getCompleteCount() {
+        return completeCount.get();
+    }
+
+    /** Returns the number of bytes of every part upload that has returned. */
+    public long getUploadedPartBytes() {
+        return uploadedPartBytes.get();
+    }
+
+    /** Returns the largest number of part uploads seen in flight at once. */
+    public int getMaxPartsInFlight() {
+        return maxPartsInFlight;
+    }
+
+    /** Returns the number of object downloads. */
+    public int getGetCount() {
+        return getCount.get();
+    }
+
+    /**
+     * Returns the first and last byte of the range requested by each download,
+     * in the order they were requested; or null for a whole object.
+     */
+    public synchronized List<long[]> getRequestedRanges() {
+        return new ArrayList<long[]>(requestedRanges);
+    }
+
+    /** Returns the largest number of object downloads seen in flight at once. */
+    public int getMaxDownloadsInFlight() {
+        return maxDownloadsInFlight;
+    }
+
+    /** Returns the largest number of bytes seen downloading at once. */
+    public long getMaxDownloadBytesInFlight() {
+        return maxDownloadBytesInFlight;
+    }
+
+    @Override
+    public ObjectListing listObjects(ListObjectsRequest request) {
+        return list(request.getBucketName(), request.getPrefix(), null);
+    }
+
+    @Override
+    public ObjectListing listNextBatchOfObjects(ObjectListing previous) {
+        return list(previous.getBucketName(), previous.getPrefix(), previous.getNextMarker());
+    }
+
+    /**
+     * Lists the objects and common prefixes of the given virtual directory
+     * after the given marker, rolling up keys at the next delimiter.
+     */
+    private synchronized ObjectListing list(String bucketName, String prefix, String marker) {
+        ObjectListing listing = new ObjectListing();
+        listing.setBucketName(bucketName);
+        listing.setPrefix(prefix);
+        listing.setDelimiter("/");
+        Set<String> commonPrefixes = new LinkedHashSet<String>();
+        int count = 0;
+        String last = null;
+        for (Map.Entry<String, byte[]> entry : objects.tailMap(prefix).entrySet()) {
+            String key = entry.getKey();
+            if (!key.startsWith(prefix))
+                break;
+            int slash = key.indexOf('/', prefix.length());
+            String item = slash >= 0 ? key.substring(0, slash + 1) : key;
+            if (marker != null && item.compareTo(marker) <= 0)
+                continue;
+            if (commonPrefixes.contains(item))
+                continue;
+            if (count == listPageSize) {
+                listing.setTruncated(true);
+                listing.setNextMarker(last);
+                break;
+            }
+            if (slash >= 0) {
+                commonPrefixes.add(item);
+            } else {
+                S3ObjectSummary summary = new S3ObjectSummary();
+                summary.setBucketName(bucketName);
+                summary.setKey(key);
+                Long listedSize = listedSizes.get(key);
+                summary.setSize(listedSize != null ? listedSize : entry.getValue().length);
+                listing.getObjectSummaries().add(summary);
+            }
+            count++;
+            last = item;
+        }
+        listing.getCommonPrefixes().addAll(commonPrefixes);
+        return listing;
+    }
+
+    @Override
+    public synchronized ObjectMetadata getObjectMetadata(GetObjectMetadataRequest request) {
+        byte[] content = objects.get(request.getKey());
+        if (content == null) {
+            AmazonServiceException e = new AmazonServiceException("No such key");
+            e.setStatusCode(404);
+            throw e;
+        }
+        return metadata(content);
+    }
+
+    @Override
+    public S3Object getObject(GetObjectRequest request) {
+        byte[] content;
+        ObjectMetadata metadata;
+        int failAfter = -1;
+        synchronized (this) {
+            content = objects.get(request.getKey());
+            if (content == null) {
+                AmazonServiceException e = new AmazonServiceException("No such key");
+                e.setStatusCode(404);
+                throw e;
+            }
+            long[] range = request.getRange();
+            requestedRanges.add(range == null ? null : range.clone());
+            List<String> eTags = request.getMatchingETagConstraints();
+            if (!eTags.isEmpty() && !eTags.contains(metadata(content).getETag())) {
+                // The client returns null when a constraint isn't met
+                return null;
+            }
+            byte[] overwrite = overwrites.remove(request.getKey());
+            if (overwrite != null)
+                objects.put(request.getKey(), overwrite);
+            metadata = metadata(content);
+            if (range != null) {
+                content = Arrays.copyOfRange(content, (int) range[0],
+                        (int) Math.min(range[1] + 1, content.length));
+            }
+            Integer failures = range == null ? null : failingRanges.get(range[1]);
+            if (failures != null && failures > 0) {
+                failingRanges.put(range[1], failures - 1);
+                failAfter = content.length / 2;
+            }
+            downloadsInFlight++;
+            downloadBytesInFlight += content.length;
+            maxDownloadsInFlight = Math.max(maxDownloadsInFlight, downloadsInFlight);
+            maxDownloadBytesInFlight = Math.max(maxDownloadBytesInFlight, downloadBytesInFlight);
+        }
+        metadata.setContentLength(content.length);
+        return download(request, metadata, content, failAfter);
+    }
+
+    /**
+     * Returns the object for the given download, once it has stayed in flight
+     * for the download latency.
+     */
+    private S3Object download(GetObjectRequest request, ObjectMetadata metadata,
+            byte[] content, final int failAfter) {
+        getCount.incrementAndGet();
+        try {
+            if (downloadLatencyMillis > 0)
+                Thread.sleep(downloadLatencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException("Interrupted", e);
+        } finally {
+            synchronized (this) {
+                downloadsInFlight--;
+                downloadBytesInFlight -= content.length;
+            }
+        }
+
+        InputStream in = new ByteArrayInputStream(content);
+        if (failAfter >= 0)
+            in = new FailingInputStream(in, failAfter);
+        S3Object object = new S3Object();
+        object.setBucketName(request.getBucketName());
+        object.setKey(request.getKey());
+        object.setObjectMetadata(metadata);
+        object.setObjectContent(new S3ObjectInputStream(in,
+                new HttpGet("http://localhost/")));
+        return object;
+    }
+
+    private static ObjectMetadata metadata(byte[] content) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(content.length);
+        metadata.setHeader("ETag", BinaryUtils.toHex(Md5Utils.computeMD5Hash(content)));
+        return metadata;
+    }
+
+    @Override
+    public PutObjectResult putObject(PutObjectRequest request) {
+        byte[] content = readFully(request.getInputStream());
+        synchronized (this) {
+            objects.put(request.getKey(), content);
+        }
+        putCount.incrementAndGet();
+        return new PutObjectResult();
+    }
+
+    @Override
+    public synchronized InitiateMultipartUploadResult initiateMultipartUpload(
+            InitiateMultipartUploadRequest request) {
+        String uploadId = "upload-" + uploadIds.incrementAndGet();
+        uploads.put(uploadId, new HashMap<Integer, byte[]>());
+        InitiateMultipartUploadResult result = new InitiateMultipartUploadResult();
+        result.setBucketName(request.getBucketName());
+        result.setKey(request.getKey());
+        result.setUploadId(uploadId);
+        return result;
+    }
+
+    @Override
+    public UploadPartResult uploadPart(UploadPartRequest request) {
+        int inFlight = partsInFlight.incrementAndGet();
+        try {
+            synchronized (this) {
+                maxPartsInFlight = Math.max(maxPartsInFlight, inFlight);
+            }
+            byte[] content = readFully(request.getInputStream());
+            if (partLatencyMillis > 0) {
+                try {
+                    Thread.sleep(partLatencyMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new AmazonClientException("Interrupted", e);
+                }
+            }
+            if (request.getPartNumber() == failingPartNumber) {
+                AmazonServiceException e = new AmazonServiceException("Part upload failed");
+                e.setStatusCode(500);
+                throw e;
+            }
+            synchronized (this) {
+                uploads.get(request.getUploadId()).put(request.getPartNumber(), content);
+            }
+            uploadedPartBytes.addAndGet(content.length);
+
+            UploadPartResult result = new UploadPartResult();
+            result.setPartNumber(request.getPartNumber());
+            result.setETag("etag-" + request.getPartNumber());
+            return result;
+        } finally {
+            partsInFlight.decrementAndGet();
+        }
+    }
+
+    @Override
+    public synchronized CompleteMultipartUploadResult completeMultipartUpload(
+            CompleteMultipartUploadRequest request) {
+        Map<Integer, byte[]> parts = uploads.remove(request.getUploadId());
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        int partNumber = 1;
+        for (PartETag part : request.getPartETags()) {
+            if (part.getPartNumber() != partNumber++) {
+                throw new AmazonServiceException("Parts out of order");
+            }
+            byte[] bytes = parts.get(part.getPartNumber());
+            content.write(bytes, 0, bytes.length);
+        }
+        objects.put(request.getKey(), content.toByteArray());
+        completeCount.incrementAndGet();
+
+        CompleteMultipartUploadResult result = new CompleteMultipartUploadResult();
+        result.setBucketName(request.getBucketName());
+        result.setKey(request.getKey());
+        return result;
+    }
+
+    @Override
+    public synchronized void abortMultipartUpload(AbortMultipartUploadRequest request) {
+        uploads.remove(request.getUploadId());
+        abortCount.incrementAndGet();
+    }
+
+    /**
+     * A stream that fails once the given number of bytes have been read.
+     */
+    private static final class FailingInputStream extends InputStream {
+        private final InputStream in;
+        private int remaining;
+
+        FailingInputStream(InputStream in, int failAfter) {
+            this.in = in;
+            this.remaining = failAfter;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining == 0)
+                throw new IOException("Connection reset");
+            int read = in.read(b, off, Math.min(len, remaining));
+            if (read > 0)
+                remaining -= read;
+            return read;
+        }
+    }
+
+    private static byte[] readFully(InputStream input) {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        try {
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                content.write(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            throw new AmazonClientException("Unable to read the request content", e);
+        }
+        return content.toByteArray();
+    }
+}
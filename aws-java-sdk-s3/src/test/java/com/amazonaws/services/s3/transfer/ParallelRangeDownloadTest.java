@@ -0,0 +1,259 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.transfer.Transfer.TransferState;
+import com.amazonaws.services.s3.transfer.internal.DownloadImpl;
+
+/**
+ * Tests the downloads of objects split into byte ranges, which are fetched in
+ * parallel and written straight to their offset in the file.
+ */
+public class ParallelRangeDownloadTest {
+
+    private static final int PART_SIZE = 1000;
+    private static final int OBJECT_SIZE = 10 * PART_SIZE + 123;
+
+    private FakeS3 s3;
+    private TransferManager tm;
+    private File directory;
+    private File file;
+    private byte[] content;
+
+    @Before
+    public void setUp() throws IOException {
+        s3 = new FakeS3();
+        content = content(OBJECT_SIZE, 1);
+        s3.store("key", content);
+        directory = File.createTempFile("download", "");
+        directory.delete();
+        directory.mkdirs();
+        file = new File(directory, "object");
+    }
+
+    @After
+    public void tearDown() {
+        tm.shutdownNow(false);
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File f : files)
+                f.delete();
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void testRangesAreDownloadedInParallel() throws Exception {
+        start(Executors.newFixedThreadPool(4));
+        s3.setDownloadLatency(20);
+
+        Download download = tm.download("bucket", "key", file);
+        download.waitForCompletion();
+
+        assertEquals(TransferState.Completed, download.getState());
+        assertArrayEquals(content, read(file));
+        assertEquals(11, s3.getGetCount());
+        assertTrue(s3.getMaxDownloadsInFlight() > 1);
+        assertEquals(Long.valueOf(OBJECT_SIZE), lastFullyDownloadedFilePosition(download));
+    }
+
+    @Test
+    public void testFailedRangeIsResumedFromLastWrittenByte() throws Exception {
+        start(Executors.newFixedThreadPool(4));
+        s3.setFailingRange(4 * PART_SIZE - 1, 1);
+
+        Download download = tm.download("bucket", "key", file);
+        download.waitForCompletion();
+
+        assertArrayEquals(content, read(file));
+        assertEquals(12, s3.getGetCount());
+        assertTrue(requested(3 * PART_SIZE + PART_SIZE / 2, 4 * PART_SIZE - 1));
+    }
+
+    @Test
+    public void testRangeFailsAfterMaxAttempts() throws Exception {
+        start(Executors.newFixedThreadPool(4));
+        s3.setFailingRange(3 * PART_SIZE - 1, 3);
+
+        Download download = tm.download("bucket", "key", file);
+        try {
+            download.waitForCompletion();
+            fail("Expected the download to fail");
+        } catch (AmazonClientException expected) {
+        }
+
+        assertEquals(TransferState.Failed, download.getState());
+        // Each attempt resumes from the last written byte of the range
+        assertTrue(requested(2 * PART_SIZE, 3 * PART_SIZE - 1));
+        assertTrue(requested(2 * PART_SIZE + PART_SIZE / 2, 3 * PART_SIZE - 1));
+        assertTrue(requested(2 * PART_SIZE + 3 * PART_SIZE / 4, 3 * PART_SIZE - 1));
+        int attempts = 0;
+        for (long[] range : s3.getRequestedRanges()) {
+            if (range[1] == 3 * PART_SIZE - 1)
+                attempts++;
+        }
+        assertEquals(3, attempts);
+    }
+
+    @Test
+    public void testObjectOverwrittenDuringDownloadFails() throws Exception {
+        start(Executors.newFixedThreadPool(4));
+        s3.overwriteOnGet("key", content(OBJECT_SIZE, 2));
+
+        Download download = tm.download("bucket", "key", file);
+        try {
+            download.waitForCompletion();
+            fail("Expected the download to fail");
+        } catch (AmazonClientException expected) {
+            assertTrue(expected.getMessage(),
+                    expected.getMessage().contains("modified"));
+        }
+
+        assertEquals(TransferState.Failed, download.getState());
+    }
+
+    @Test
+    public void testResumeTruncatesFileToCompletedPrefix() throws Exception {
+        // A single thread fetches the ranges in order
+        start(Executors.newFixedThreadPool(1));
+        s3.setFailingRange(4 * PART_SIZE - 1, 3);
+
+        Download download = tm.download("bucket", "key", file);
+        try {
+            download.waitForCompletion();
+            fail("Expected the download to fail");
+        } catch (AmazonClientException expected) {
+        }
+        assertEquals(Long.valueOf(3 * PART_SIZE), lastFullyDownloadedFilePosition(download));
+        // The file has its full length, with a gap after the completed prefix
+        assertEquals(OBJECT_SIZE, file.length());
+
+        int requests = s3.getRequestedRanges().size();
+        Download resumed = tm.resumeDownload(download.pause());
+        resumed.waitForCompletion();
+
+        assertEquals(TransferState.Completed, resumed.getState());
+        assertArrayEquals(content, read(file));
+        List<long[]> ranges = s3.getRequestedRanges();
+        assertEquals(3 * PART_SIZE, ranges.get(requests)[0]);
+        assertEquals(Long.valueOf(OBJECT_SIZE), lastFullyDownloadedFilePosition(resumed));
+    }
+
+    @Test
+    public void testSavedAtomically() throws Exception {
+        start(Executors.newFixedThreadPool(4));
+        byte[] previous = content(100, 3);
+        write(file, previous);
+
+        Download download = tm.downloadListedObject(
+                new GetObjectRequest("bucket", "key"), file, OBJECT_SIZE, null);
+        download.waitForCompletion();
+
+        assertArrayEquals(content, read(file));
+        assertEquals(1, directory.listFiles().length);
+    }
+
+    @Test
+    public void testFailedAtomicDownloadKeepsFile() throws Exception {
+        start(Executors.newFixedThreadPool(4));
+        byte[] previous = content(100, 3);
+        write(file, previous);
+        s3.setFailingRange(6 * PART_SIZE - 1, 3);
+
+        Download download = tm.downloadListedObject(
+                new GetObjectRequest("bucket", "key"), file, OBJECT_SIZE, null);
+        try {
+            download.waitForCompletion();
+            fail("Expected the download to fail");
+        } catch (AmazonClientException expected) {
+        }
+
+        assertEquals(TransferState.Failed, download.getState());
+        assertArrayEquals(previous, read(file));
+        // The temporary file is gone
+        assertEquals(1, directory.listFiles().length);
+    }
+
+    private void start(ExecutorService threadPool) {
+        tm = new TransferManager(s3, threadPool);
+        TransferManagerConfiguration configuration = new TransferManagerConfiguration();
+        configuration.setMultipartDownloadThreshold(2 * PART_SIZE);
+        configuration.setMinimumDownloadPartSize(PART_SIZE);
+        tm.setConfiguration(configuration);
+    }
+
+    private boolean requested(long firstByte, long lastByte) {
+        for (long[] range : s3.getRequestedRanges()) {
+            if (range[0] == firstByte && range[1] == lastByte)
+                return true;
+        }
+        return false;
+    }
+
+    private static Long lastFullyDownloadedFilePosition(Download download) {
+        return ((DownloadImpl) download).getPersistableDownload()
+                .getLastFullyDownloadedFilePosition();
+    }
+
+    private static byte[] content(int size, long seed) {
+        byte[] content = new byte[size];
+        new Random(seed).nextBytes(content);
+        return content;
+    }
+
+    private static void write(File file, byte[] content) throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content);
+        } finally {
+            out.close();
+        }
+    }
+
+    private static byte[] read(File file) throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        FileInputStream in = new FileInputStream(file);
+        try {
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1)
+                content.write(buffer, 0, read);
+        } finally {
+            in.close();
+        }
+        return content.toByteArray();
+    }
+}
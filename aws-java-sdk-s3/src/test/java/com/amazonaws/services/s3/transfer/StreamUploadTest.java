@@ -0,0 +1,198 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+
+/**
+ * Tests the uploads of input streams by the transfer manager, which buffers
+ * a bounded number of parts of the stream and uploads them in parallel.
+ */
+public class StreamUploadTest {
+
+    private static final int PART_SIZE = 1024;
+    private static final int BUFFER_COUNT = 2;
+
+    private FakeS3 s3;
+    private ExecutorService threadPool;
+    private TransferManager tm;
+
+    @Before
+    public void setUp() {
+        s3 = new FakeS3();
+        threadPool = Executors.newFixedThreadPool(4);
+        tm = new TransferManager(s3, threadPool);
+        TransferManagerConfiguration configuration = new TransferManagerConfiguration();
+        configuration.setMinimumUploadPartSize(PART_SIZE);
+        configuration.setMultipartUploadThreshold(2 * PART_SIZE);
+        configuration.setUploadPartBufferCount(BUFFER_COUNT);
+        tm.setConfiguration(configuration);
+    }
+
+    @After
+    public void tearDown() {
+        tm.shutdownNow(false);
+    }
+
+    @Test
+    public void testUnknownLengthStreamIsUploadedInParts() throws Exception {
+        byte[] data = data(10 * PART_SIZE + 100);
+        upload(new ByteArrayInputStream(data), new ObjectMetadata());
+
+        assertArrayEquals(data, s3.getObjectContent("key"));
+        assertEquals(1, s3.getCompleteCount());
+        assertEquals(0, s3.getPutCount());
+    }
+
+    @Test
+    public void testShortUnknownLengthStreamIsUploadedInOneChunk() throws Exception {
+        byte[] data = data(PART_SIZE - 1);
+        upload(new ByteArrayInputStream(data), new ObjectMetadata());
+
+        assertArrayEquals(data, s3.getObjectContent("key"));
+        assertEquals(1, s3.getPutCount());
+        assertEquals(0, s3.getCompleteCount());
+    }
+
+    @Test
+    public void testBuffersInFlightAreBounded() throws Exception {
+        s3.setPartLatency(20);
+        byte[] data = data(12 * PART_SIZE);
+        BoundCheckingInputStream input = new BoundCheckingInputStream(data);
+        upload(input, new ObjectMetadata());
+
+        assertArrayEquals(data, s3.getObjectContent("key"));
+        assertTrue("Read " + input.maxAhead + " bytes ahead of the uploads",
+                input.maxAhead <= BUFFER_COUNT * PART_SIZE);
+        assertTrue(s3.getMaxPartsInFlight() <= BUFFER_COUNT);
+    }
+
+    @Test
+    public void testFailedPartAbortsUpload() throws Exception {
+        s3.setPartLatency(5);
+        s3.setFailingPartNumber(1);
+        try {
+            upload(new ByteArrayInputStream(data(10 * PART_SIZE)), new ObjectMetadata());
+            fail("Expected the upload to fail");
+        } catch (AmazonClientException expected) {
+        }
+
+        assertEquals(1, s3.getAbortCount());
+        assertEquals(0, s3.getCompleteCount());
+        assertNull(s3.getObjectContent("key"));
+    }
+
+    @Test
+    public void testFailedLastPartAbortsUpload() throws Exception {
+        s3.setFailingPartNumber(3);
+        try {
+            upload(new ByteArrayInputStream(data(2 * PART_SIZE + 100)), new ObjectMetadata());
+            fail("Expected the upload to fail");
+        } catch (AmazonClientException expected) {
+        }
+
+        assertEquals(1, s3.getAbortCount());
+        assertEquals(0, s3.getCompleteCount());
+    }
+
+    @Test
+    public void testDeclaredLengthIsRespected() throws Exception {
+        byte[] data = data(5 * PART_SIZE);
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(3 * PART_SIZE - 10);
+        upload(new ByteArrayInputStream(data), metadata);
+
+        assertArrayEquals(Arrays.copyOf(data, 3 * PART_SIZE - 10),
+                s3.getObjectContent("key"));
+        assertEquals(1, s3.getCompleteCount());
+    }
+
+    @Test
+    public void testStreamShorterThanDeclaredLengthFails() throws Exception {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(5 * PART_SIZE);
+        try {
+            upload(new ByteArrayInputStream(data(3 * PART_SIZE + 10)), metadata);
+            fail("Expected the upload to fail");
+        } catch (AmazonClientException expected) {
+            assertTrue(expected.getMessage(),
+                    expected.getMessage().contains("expectedLength=" + 5 * PART_SIZE));
+        }
+
+        assertEquals(1, s3.getAbortCount());
+        assertEquals(0, s3.getCompleteCount());
+    }
+
+    private void upload(InputStream input, ObjectMetadata metadata)
+            throws InterruptedException {
+        tm.upload("bucket", "key", input, metadata).waitForUploadResult();
+    }
+
+    private static byte[] data(int length) {
+        byte[] data = new byte[length];
+        new Random(length).nextBytes(data);
+        return data;
+    }
+
+    /**
+     * A stream that records how far its reads get ahead of the part uploads.
+     */
+    private class BoundCheckingInputStream extends ByteArrayInputStream {
+        private long bytesRead;
+        private volatile long maxAhead;
+
+        BoundCheckingInputStream(byte[] data) {
+            super(data);
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                bytesRead += read;
+                maxAhead = Math.max(maxAhead, bytesRead - s3.getUploadedPartBytes());
+            }
+            return read;
+        }
+
+        @Override
+        public synchronized int read() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() throws IOException {
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.transfer.FakeS3;
+import com.amazonaws.services.s3.transfer.TransferManager;
+
+/**
+ * Tests that the part buffers of a stream upload go back to the pool however
+ * the part uploads end.
+ */
+public class ParallelStreamUploadTest {
+
+    private static final int PART_SIZE = 1024;
+    private static final int BUFFER_COUNT = 4;
+
+    private FakeS3 s3;
+    private ExecutorService threadPool;
+    private TransferManager tm;
+
+    @Before
+    public void setUp() {
+        s3 = new FakeS3();
+        threadPool = Executors.newSingleThreadExecutor();
+        tm = new TransferManager(s3, threadPool);
+    }
+
+    @After
+    public void tearDown() {
+        tm.shutdownNow(false);
+    }
+
+    @Test
+    public void testPartsCancelledBeforeRunningReleaseTheirBuffers() throws Exception {
+        // Keeps the parts queued until they have been cancelled
+        final CountDownLatch blocker = new CountDownLatch(1);
+        threadPool.execute(new Runnable() {
+            public void run() {
+                try {
+                    blocker.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        PutObjectRequest req = request(3 * PART_SIZE);
+        UploadCallable uploadCallable = new UploadCallable(tm, threadPool,
+                null, req, null, null, null);
+        ParallelStreamUpload upload = new ParallelStreamUpload(s3, threadPool,
+                req, PART_SIZE, BUFFER_COUNT, false);
+
+        assertTrue(upload.readFirstPart());
+        upload.uploadParts("upload", uploadCallable);
+        uploadCallable.cancelFutures();
+        blocker.countDown();
+
+        // Every buffer is free again, once
+        Set<ByteBuffer> buffers = Collections.newSetFromMap(
+                new IdentityHashMap<ByteBuffer, Boolean>());
+        for (int i = 0; i < BUFFER_COUNT; i++) {
+            buffers.add(upload.acquireBuffer());
+        }
+        assertEquals(BUFFER_COUNT, buffers.size());
+        try {
+            upload.acquireBuffer();
+            fail("Expected the cancelled part to be checked");
+        } catch (CancellationException expected) {
+        }
+        assertEquals(0, s3.getUploadedPartBytes());
+    }
+
+    @Test(timeout = 10000)
+    public void testAcquireWaitsForReleaseWhenNoPartIsPending() throws Exception {
+        final ParallelStreamUpload upload = new ParallelStreamUpload(s3,
+                threadPool, request(3 * PART_SIZE), PART_SIZE, 1, false);
+        final ByteBuffer held = upload.acquireBuffer();
+        threadPool.execute(new Runnable() {
+            public void run() {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                upload.releaseBuffer(held);
+            }
+        });
+
+        assertSame(held, upload.acquireBuffer());
+    }
+
+    private static PutObjectRequest request(int length) {
+        return new PutObjectRequest("bucket", "key",
+                new ByteArrayInputStream(new byte[length]), new ObjectMetadata());
+    }
+}
@@ -28,6 +28,7 @@ import com.amazonaws.auth.AWSCredentialsProvider;
 import com.amazonaws.auth.DefaultAWSCredentialsProviderChain;
 
 import com.amazonaws.services.sqs.model.*;
+import com.amazonaws.services.sqs.model.transform.*;
 
 /**
  * Asynchronous client for accessing AmazonSQS.
@@ -460,6 +461,9 @@ public class AmazonSQSAsyncClient extends AmazonSQSClient
      */
     public Future<ChangeMessageVisibilityBatchResult> changeMessageVisibilityBatchAsync(final ChangeMessageVisibilityBatchRequest changeMessageVisibilityBatchRequest) 
             throws AmazonServiceException, AmazonClientException {
+        if (client.isNonBlocking()) {
+            return invokeAsync(changeMessageVisibilityBatchRequest, new ChangeMessageVisibilityBatchRequestMarshaller(), new ChangeMessageVisibilityBatchResultStaxUnmarshaller(), null);
+        }
         return executorService.submit(new Callable<ChangeMessageVisibilityBatchResult>() {
             public ChangeMessageVisibilityBatchResult call() throws Exception {
                 return changeMessageVisibilityBatch(changeMessageVisibilityBatchRequest);
@@ -518,6 +522,9 @@ public class AmazonSQSAsyncClient extends AmazonSQSClient
             final ChangeMessageVisibilityBatchRequest changeMessageVisibilityBatchRequest,
             final AsyncHandler<ChangeMessageVisibilityBatchRequest, ChangeMessageVisibilityBatchResult> asyncHandler)
                     throws AmazonServiceException, AmazonClientException {
+        if (client.isNonBlocking()) {
+            return invokeAsync(changeMessageVisibilityBatchRequest, new ChangeMessageVisibilityBatchRequestMarshaller(), new ChangeMessageVisibilityBatchResultStaxUnmarshaller(), asyncHandler);
+        }
         return executorService.submit(new Callable<ChangeMessageVisibilityBatchResult>() {
             public ChangeMessageVisibilityBatchResult call() throws Exception {
               ChangeMessageVisibilityBatchResult result;
@@ -595,6 +602,9 @@ public class AmazonSQSAsyncClient extends AmazonSQSClient
      */
     public Future<Void> changeMessageVisibilityAsync(final ChangeMessageVisibilityRequest changeMessageVisibilityRequest) 
             throws AmazonServiceException, AmazonClientException {
+        if (client.isNonBlocking()) {
+            return invokeAsync(changeMessageVisibilityRequest, new ChangeMessageVisibilityRequestMarshaller(), null, null);
+        }
         return executorService.submit(new Callable<Void>() {
             public Void call() throws Exception {
                 changeMessageVisibility(changeMessageVisibilityRequest);
@@ -671,6 +681,9 @@ public class AmazonSQSAsyncClient extends AmazonSQSClient
             final ChangeMessageVisibilityRequest changeMessageVisibilityRequest,
             final AsyncHandler<ChangeMessageVisibilityRequest, Void> asyncHandler)
                     throws AmazonServiceException, AmazonClientException {
+        if (client.isNonBlocking()) {
+            return invokeAsync(changeMessageVisibilityRequest, new ChangeMessageVisibilityRequestMarshaller(), null, asyncHandler);
+        }
         return executorService.submit(new Callable<Void>() {
             public Void call() throws Exception {
               try {
@@ -1106,6 +1119,9 @@ public class AmazonSQSAsyncClient extends AmazonSQSClient
      */
     public Future<SendMessageBatchResult> sendMessageBatchAsync(final SendMessageBatchRequest sendMessageBatchRequest) 
             throws AmazonServiceException, AmazonClientException {
+        if (client.isNonBlocking()) {
+            return invokeAsync(sendMessageBatchRequest, new SendMessageBatchRequestMarshaller(), new SendMessageBatchResultStaxUnmarshaller(), null);
+        }
         return executorService.submit(new Callable<SendMessageBatchResult>() {
             public SendMessageBatchResult call() throws Exception {
                 return sendMessageBatch(sendMessageBatchRequest);
@@ -1178,6 +1194,9 @@ public class AmazonSQSAsyncClient extends AmazonSQSClient
             final SendMessageBatchRequest sendMessageBatchRequest,
             final AsyncHandler<SendMessageBatchRequest, SendMessageBatchResult> asyncHandler)
                     throws AmazonServiceException, AmazonClientException {
+        if (client.isNonBlocking()) {
+            return invokeAsync(sendMessageBatchRequest, new SendMessageBatchRequestMarshaller(), new SendMessageBatchResultStaxUnmarshaller(), asyncHandler);
+        }
         return executorService.submit(new Callable<SendMessageBatchResult>() {
             public SendMessageBatchResult call() throws Exception {
               SendMessageBatchResult result;
@@ -1521,6 +1540,9 @@ public class AmazonSQSAsyncClient extends AmazonSQSClient
      */
     public Future<SendMessageResult> sendMessageAsync(final SendMessageRequest sendMessageRequest) 
             throws AmazonServiceException, AmazonClientException {
+        if (client.isNonBlocking()) {
+            return invokeAsync(sendMessageRequest, new SendMessageRequestMarshaller(), new SendMessageResultStaxUnmarshaller(), null);
+        }
         return executorService.submit(new Callable<SendMessageResult>() {
             public SendMessageResult call() throws Exception {
                 return sendMessage(sendMessageRequest);
@@ -1568,6 +1590,9 @@ public class AmazonSQSAsyncClient extends AmazonSQSClient
             final SendMessageRequest sendMessageRequest,
             final AsyncHandler<SendMessageRequest, SendMessageResult> asyncHandler)
                     throws AmazonServiceException, AmazonClientException {
+        if (client.isNonBlocking()) {
+            return invokeAsync(sendMessageRequest, new SendMessageRequestMarshaller(), new SendMessageResultStaxUnmarshaller(), asyncHandler);
+        }
         return executorService.submit(new Callable<SendMessageResult>() {
             public SendMessageResult call() throws Exception {
               SendMessageResult result;
@@ -1673,6 +1698,9 @@ public class AmazonSQSAsyncClient extends AmazonSQSClient
      */
     public Future<ReceiveMessageResult> receiveMessageAsync(final ReceiveMessageRequest receiveMessageRequest) 
             throws AmazonServiceException, AmazonClientException {
+        if (client.isNonBlocking()) {
+            return invokeAsync(receiveMessageRequest, new ReceiveMessageRequestMarshaller(), new ReceiveMessageResultStaxUnmarshaller(), null);
+        }
         return executorService.submit(new Callable<ReceiveMessageResult>() {
             public ReceiveMessageResult call() throws Exception {
                 return receiveMessage(receiveMessageRequest);
@@ -1776,6 +1804,9 @@ public class AmazonSQSAsyncClient extends AmazonSQSClient
             final ReceiveMessageRequest receiveMessageRequest,
             final AsyncHandler<ReceiveMessageRequest, ReceiveMessageResult> asyncHandler)
                     throws AmazonServiceException, AmazonClientException {
+        if (client.isNonBlocking()) {
+            return invokeAsync(receiveMessageRequest, new ReceiveMessageRequestMarshaller(), new ReceiveMessageResultStaxUnmarshaller(), asyncHandler);
+        }
         return executorService.submit(new Callable<ReceiveMessageResult>() {
             public ReceiveMessageResult call() throws Exception {
               ReceiveMessageResult result;
@@ -1911,6 +1942,9 @@ public class AmazonSQSAsyncClient extends AmazonSQSClient
      */
     public Future<DeleteMessageBatchResult> deleteMessageBatchAsync(final DeleteMessageBatchRequest deleteMessageBatchRequest) 
             throws AmazonServiceException, AmazonClientException {
+        if (client.isNonBlocking()) {
+            return invokeAsync(deleteMessageBatchRequest, new DeleteMessageBatchRequestMarshaller(), new DeleteMessageBatchResultStaxUnmarshaller(), null);
+        }
         return executorService.submit(new Callable<DeleteMessageBatchResult>() {
             public DeleteMessageBatchResult call() throws Exception {
                 return deleteMessageBatch(deleteMessageBatchRequest);
@@ -1966,6 +2000,9 @@ public class AmazonSQSAsyncClient extends AmazonSQSClient
             final DeleteMessageBatchRequest deleteMessageBatchRequest,
             final AsyncHandler<DeleteMessageBatchRequest, DeleteMessageBatchResult> asyncHandler)
                     throws AmazonServiceException, AmazonClientException {
+        if (client.isNonBlocking()) {
+            return invokeAsync(deleteMessageBatchRequest, new DeleteMessageBatchRequestMarshaller(), new DeleteMessageBatchResultStaxUnmarshaller(), asyncHandler);
+        }
         return executorService.submit(new Callable<DeleteMessageBatchResult>() {
             public DeleteMessageBatchResult call() throws Exception {
               DeleteMessageBatchResult result;
@@ -2296,6 +2333,9 @@ public class AmazonSQSAsyncClient extends AmazonSQSClient
      */
     public Future<Void> deleteMessageAsync(final DeleteMessageRequest deleteMessageRequest) 
             throws AmazonServiceException, AmazonClientException {
+        if (client.isNonBlocking()) {
+            return invokeAsync(deleteMessageRequest, new DeleteMessageRequestMarshaller(), null, null);
+        }
         return executorService.submit(new Callable<Void>() {
             public Void call() throws Exception {
                 deleteMessage(deleteMessageRequest);
@@ -2355,6 +2395,9 @@ public class AmazonSQSAsyncClient extends AmazonSQSClient
             final DeleteMessageRequest deleteMessageRequest,
             final AsyncHandler<DeleteMessageRequest, Void> asyncHandler)
                     throws AmazonServiceException, AmazonClientException {
+        if (client.isNonBlocking()) {
+            return invokeAsync(deleteMessageRequest, new DeleteMessageRequestMarshaller(), null, asyncHandler);
+        }
         return executorService.submit(new Callable<Void>() {
             public Void call() throws Exception {
               try {
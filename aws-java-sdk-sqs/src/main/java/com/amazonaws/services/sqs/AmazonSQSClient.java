@@ -19,6 +19,7 @@ import org.w3c.dom.*;
 import java.net.*;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.Future;
 
 import com.amazonaws.*;
 import com.amazonaws.auth.*;
@@ -2421,5 +2422,31 @@ public class AmazonSQSClient extends AmazonWebServiceClient implements AmazonSQS
         DefaultErrorResponseHandler errorResponseHandler = new DefaultErrorResponseHandler(exceptionUnmarshallers);
         return client.execute(request, responseHandler, errorResponseHandler, executionContext);
     }
+
+    /**
+     * Sends the given request over the non-blocking transport of the
+     * underlying http client.
+     *
+     * @see AmazonWebServiceClient#invokeAsync(AmazonWebServiceRequest, Marshaller, HttpResponseHandler, HttpResponseHandler, AWSCredentialsProvider, AsyncHandler)
+     */
+    <X, Y extends AmazonWebServiceRequest> Future<X> invokeAsync(Y originalRequest,
+            final Marshaller<Request<Y>, Y> marshaller,
+            Unmarshaller<X, StaxUnmarshallerContext> unmarshaller,
+            AsyncHandler<Y, X> asyncHandler) {
+        // Adds the private request parameters, as done by invoke
+        Marshaller<Request<Y>, Y> parameterizingMarshaller = new Marshaller<Request<Y>, Y>() {
+            public Request<Y> marshall(Y in) throws Exception {
+                Request<Y> request = marshaller.marshall(in);
+                for (Entry<String, String> entry : in.copyPrivateRequestParameters().entrySet()) {
+                    request.addParameter(entry.getKey(), entry.getValue());
+                }
+                return request;
+            }
+        };
+        return invokeAsync(originalRequest, parameterizingMarshaller,
+                new StaxResponseHandler<X>(unmarshaller),
+                new DefaultErrorResponseHandler(exceptionUnmarshallers),
+                awsCredentialsProvider, asyncHandler);
+    }
 }
         
\ No newline at end of file